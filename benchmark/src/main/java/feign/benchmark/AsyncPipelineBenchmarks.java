@@ -0,0 +1,110 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import feign.AsyncClient;
+import feign.AsyncFeign;
+import feign.Client;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Response;
+
+/**
+ * What does a call cost in the pipeline of {@link AsyncFeign}, compared to {@link Feign}, without
+ * considering network? Both clients answer from memory. Run with {@code -prof gc} for the
+ * allocation per call, and against an older version to compare the designs.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class AsyncPipelineBenchmarks {
+
+  interface Api {
+
+    @RequestLine("GET /")
+    String get();
+  }
+
+  interface AsyncApi {
+
+    @RequestLine("GET /")
+    CompletableFuture<String> get();
+  }
+
+  private static final byte[] BODY = "hello".getBytes(StandardCharsets.UTF_8);
+
+  private Api sync;
+  private AsyncApi async;
+
+  @Setup
+  public void setup() {
+    Map<String, Collection<String>> headers = Collections.singletonMap("Content-Type",
+        Collections.singletonList("text/plain; charset=UTF-8"));
+    Client client = (request, options) -> Response.builder()
+        .status(200)
+        .headers(headers)
+        .body(BODY)
+        .request(request)
+        .build();
+    AsyncClient<Void> asyncClient =
+        (request, options, context) -> CompletableFuture.completedFuture(
+            Response.builder()
+                .status(200)
+                .headers(headers)
+                .body(BODY)
+                .request(request)
+                .build());
+    sync = Feign.builder()
+        .client(client)
+        .target(Api.class, "http://localhost");
+    async = AsyncFeign.<Void>asyncBuilder()
+        .client(asyncClient)
+        .target(AsyncApi.class, "http://localhost");
+  }
+
+  /**
+   * The baseline, a blocking call.
+   */
+  @Benchmark
+  public String feign() {
+    return sync.get();
+  }
+
+  /**
+   * The same call through {@link AsyncFeign}, joined.
+   */
+  @Benchmark
+  public String asyncFeign() {
+    return async.get().join();
+  }
+}
@@ -0,0 +1,788 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process http server for benchmarks, which answers every request with the same response. It is
+ * built on NIO selectors, so that the server is not the bottleneck at high client thread counts,
+ * and supports:
+ *
+ * <ul>
+ * <li>HTTP/1.1 with keep-alive and pipelining</li>
+ * <li>h2c, either upgraded from HTTP/1.1 or with prior knowledge</li>
+ * <li>responses of a configurable size, with a content length, chunked or gzip encoded</li>
+ * <li>simulated latency, which does not hold any server thread</li>
+ * </ul>
+ *
+ * <pre>
+ * try (BenchmarkServer server = BenchmarkServer.builder().payloadSize(4096).start()) {
+ *   Feign.builder().target(Api.class, server.url());
+ * }
+ * </pre>
+ *
+ * Request bodies must have a {@code Content-Length} and are discarded.
+ */
+public final class BenchmarkServer implements Closeable {
+
+  private static final byte[] HTTP2_PREFACE =
+      "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+  private static final int CHUNK_SIZE = 8192;
+
+  private static final int DATA = 0x0;
+  private static final int HEADERS = 0x1;
+  private static final int RST_STREAM = 0x3;
+  private static final int SETTINGS = 0x4;
+  private static final int PING = 0x6;
+  private static final int GOAWAY = 0x7;
+  private static final int WINDOW_UPDATE = 0x8;
+
+  private static final int FLAG_END_STREAM = 0x1;
+  private static final int FLAG_ACK = 0x1;
+  private static final int FLAG_END_HEADERS = 0x4;
+
+  private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+  private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+  private static final int DEFAULT_WINDOW_SIZE = 65535;
+  private static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+
+    private int port;
+    private int payloadSize = 1024;
+    private long latencyNanos;
+    private boolean chunked;
+    private boolean gzip;
+    private int ioThreads = Runtime.getRuntime().availableProcessors();
+
+    private Builder() {}
+
+    /**
+     * Defaults to {@code 0}, any free port.
+     */
+    public Builder port(int port) {
+      this.port = port;
+      return this;
+    }
+
+    /**
+     * Size of the response body, before compression. Defaults to 1024 bytes.
+     */
+    public Builder payloadSize(int payloadSize) {
+      if (payloadSize < 0) {
+        throw new IllegalArgumentException("payloadSize must not be negative");
+      }
+      this.payloadSize = payloadSize;
+      return this;
+    }
+
+    /**
+     * Delay of every response, measured from the end of the request.
+     */
+    public Builder latency(long latency, TimeUnit unit) {
+      this.latencyNanos = unit.toNanos(latency);
+      return this;
+    }
+
+    /**
+     * Use {@code Transfer-Encoding: chunked} instead of a {@code Content-Length} for HTTP/1.1.
+     */
+    public Builder chunked(boolean chunked) {
+      this.chunked = chunked;
+      return this;
+    }
+
+    /**
+     * Send every response body gzip encoded.
+     */
+    public Builder gzip(boolean gzip) {
+      this.gzip = gzip;
+      return this;
+    }
+
+    /**
+     * Number of selector threads, defaults to the number of processors.
+     */
+    public Builder ioThreads(int ioThreads) {
+      if (ioThreads <= 0) {
+        throw new IllegalArgumentException("ioThreads must be positive");
+      }
+      this.ioThreads = ioThreads;
+      return this;
+    }
+
+    public BenchmarkServer start() throws IOException {
+      return new BenchmarkServer(this);
+    }
+  }
+
+  private final ServerSocketChannel serverChannel;
+  private final EventLoop[] loops;
+  private final Thread acceptor;
+  private final ScheduledExecutorService delays;
+  private final long latencyNanos;
+
+  private final ByteBuffer http1Response;
+  private final ByteBuffer http2Headers;
+  private final ByteBuffer body;
+
+  private volatile boolean running = true;
+
+  private BenchmarkServer(Builder builder) throws IOException {
+    this.latencyNanos = builder.latencyNanos;
+    byte[] payload = payload(builder.payloadSize);
+    if (builder.gzip) {
+      payload = gzip(payload);
+    }
+    this.body = direct(payload);
+    this.http1Response = direct(http1Response(payload, builder.chunked, builder.gzip));
+    this.http2Headers = ByteBuffer.wrap(http2Headers(payload.length, builder.gzip));
+    this.delays = latencyNanos > 0 ? Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "benchmark-server-delays");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+
+    this.serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress("127.0.0.1", builder.port), 1024);
+    this.loops = new EventLoop[builder.ioThreads];
+    for (int i = 0; i < loops.length; i++) {
+      loops[i] = new EventLoop(i);
+      loops[i].start();
+    }
+    this.acceptor = new Thread(this::accept, "benchmark-server-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  public int port() {
+    return serverChannel.socket().getLocalPort();
+  }
+
+  public String url() {
+    return "http://127.0.0.1:" + port();
+  }
+
+  @Override
+  public void close() throws IOException {
+    running = false;
+    serverChannel.close();
+    for (EventLoop loop : loops) {
+      loop.selector.wakeup();
+    }
+    if (delays != null) {
+      delays.shutdownNow();
+    }
+  }
+
+  private void accept() {
+    int next = 0;
+    while (running) {
+      try {
+        SocketChannel channel = serverChannel.accept();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        EventLoop loop = loops[next++ % loops.length];
+        loop.execute(() -> loop.register(channel));
+      } catch (ClosedChannelException e) {
+        return;
+      } catch (IOException e) {
+        if (!running) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Compressible json, such as {@code {"data":"abcdef..."}}, of exactly {@code size} bytes when
+   * {@code size} is at least 11.
+   */
+  private static byte[] payload(int size) {
+    byte[] payload = new byte[size];
+    byte[] prefix = "{\"data\":\"".getBytes(StandardCharsets.US_ASCII);
+    for (int i = 0; i < size; i++) {
+      payload[i] = (byte) ('a' + i % 26);
+    }
+    if (size >= prefix.length + 2) {
+      System.arraycopy(prefix, 0, payload, 0, prefix.length);
+      payload[size - 2] = '"';
+      payload[size - 1] = '}';
+    }
+    return payload;
+  }
+
+  private static byte[] gzip(byte[] data) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(data);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] http1Response(byte[] payload, boolean chunked, boolean gzip) {
+    StringBuilder head = new StringBuilder("HTTP/1.1 200 OK\r\n")
+        .append("Content-Type: application/json\r\n");
+    if (gzip) {
+      head.append("Content-Encoding: gzip\r\n");
+    }
+    if (!chunked) {
+      head.append("Content-Length: ").append(payload.length).append("\r\n");
+    } else {
+      head.append("Transfer-Encoding: chunked\r\n");
+    }
+    head.append("\r\n");
+
+    ByteArrayOutputStream response = new ByteArrayOutputStream();
+    write(response, head.toString());
+    if (!chunked) {
+      response.write(payload, 0, payload.length);
+    } else {
+      for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+        int length = Math.min(CHUNK_SIZE, payload.length - offset);
+        write(response, Integer.toHexString(length) + "\r\n");
+        response.write(payload, offset, length);
+        write(response, "\r\n");
+      }
+      write(response, "0\r\n\r\n");
+    }
+    return response.toByteArray();
+  }
+
+  /**
+   * HPACK encoded {@code :status}, {@code content-type}, {@code content-length} and
+   * {@code content-encoding}, using the static table only.
+   */
+  private static byte[] http2Headers(int contentLength, boolean gzip) {
+    ByteArrayOutputStream block = new ByteArrayOutputStream();
+    block.write(0x88); // indexed :status 200
+    literalWithoutIndexing(block, 31, "application/json"); // content-type
+    literalWithoutIndexing(block, 28, Integer.toString(contentLength)); // content-length
+    if (gzip) {
+      literalWithoutIndexing(block, 26, "gzip"); // content-encoding
+    }
+    return block.toByteArray();
+  }
+
+  private static void literalWithoutIndexing(ByteArrayOutputStream block,
+                                             int nameIndex,
+                                             String value) {
+    // 4 bit prefix, 15 and over continue in the next byte
+    block.write(0x0f);
+    block.write(nameIndex - 15);
+    byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+    block.write(bytes.length); // values are shorter than 127 bytes, not huffman encoded
+    block.write(bytes, 0, bytes.length);
+  }
+
+  private static void write(ByteArrayOutputStream out, String ascii) {
+    byte[] bytes = ascii.getBytes(StandardCharsets.US_ASCII);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private static ByteBuffer direct(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes).flip();
+    return buffer.asReadOnlyBuffer();
+  }
+
+  private void respond(EventLoop loop, Runnable response) {
+    if (latencyNanos > 0) {
+      delays.schedule(() -> loop.execute(response), latencyNanos, TimeUnit.NANOSECONDS);
+    } else {
+      response.run();
+    }
+  }
+
+  private final class EventLoop extends Thread {
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    EventLoop(int index) throws IOException {
+      super("benchmark-server-io-" + index);
+      setDaemon(true);
+      this.selector = Selector.open();
+    }
+
+    void execute(Runnable task) {
+      tasks.add(task);
+      selector.wakeup();
+    }
+
+    void register(SocketChannel channel) {
+      try {
+        Connection connection = new Connection(this, channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+      } catch (IOException e) {
+        closeQuietly(channel);
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (running) {
+          selector.select();
+          Runnable task;
+          while ((task = tasks.poll()) != null) {
+            task.run();
+          }
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Connection connection = (Connection) key.attachment();
+            try {
+              if (key.isValid() && key.isReadable()) {
+                connection.onReadable();
+              }
+              if (key.isValid() && key.isWritable()) {
+                connection.onWritable();
+              }
+            } catch (IOException | RuntimeException e) {
+              connection.close();
+            }
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        for (SelectionKey key : selector.keys()) {
+          closeQuietly(key.channel());
+        }
+        closeQuietly(selector);
+      }
+    }
+  }
+
+  private final class Connection {
+
+    private final EventLoop loop;
+    private final SocketChannel channel;
+    private final Queue<ByteBuffer> outbound = new ArrayDeque<>();
+    private ByteBuffer inbound = ByteBuffer.allocate(32 * 1024);
+    private SelectionKey key;
+
+    private long bodyToSkip;
+    private boolean closeAfterRequest;
+    private boolean closeAfterWrite;
+    private Http2 http2;
+
+    Connection(EventLoop loop, SocketChannel channel) {
+      this.loop = loop;
+      this.channel = channel;
+    }
+
+    void onReadable() throws IOException {
+      if (!inbound.hasRemaining()) {
+        ByteBuffer larger = ByteBuffer.allocate(inbound.capacity() * 2);
+        inbound.flip();
+        inbound = larger.put(inbound);
+      }
+      int read = channel.read(inbound);
+      if (read == -1) {
+        close();
+        return;
+      }
+      inbound.flip();
+      if (http2 != null) {
+        http2.process(inbound);
+      } else {
+        processHttp1();
+      }
+      inbound.compact();
+    }
+
+    private void processHttp1() throws IOException {
+      while (http2 == null && !closeAfterWrite) {
+        if (bodyToSkip > 0) {
+          int skipped = (int) Math.min(bodyToSkip, inbound.remaining());
+          inbound.position(inbound.position() + skipped);
+          bodyToSkip -= skipped;
+          if (bodyToSkip > 0) {
+            return;
+          }
+          respondHttp1();
+          continue;
+        }
+        if (startsWith(inbound, HTTP2_PREFACE)) {
+          http2 = new Http2(null);
+          http2.process(inbound);
+          return;
+        }
+        int end = indexOfHeadersEnd(inbound);
+        if (end == -1) {
+          return;
+        }
+        byte[] head = new byte[end - inbound.position()];
+        inbound.get(head);
+        inbound.position(end + 4);
+        Map<String, String> headers = headers(new String(head, StandardCharsets.ISO_8859_1));
+
+        String connection = headers.getOrDefault("connection", "");
+        closeAfterRequest = connection.toLowerCase(Locale.ROOT).contains("close");
+        bodyToSkip = Long.parseLong(headers.getOrDefault("content-length", "0").trim());
+        if ("h2c".equalsIgnoreCase(headers.get("upgrade")) && bodyToSkip == 0) {
+          upgrade(headers.get("http2-settings"));
+          return;
+        }
+        if (bodyToSkip == 0) {
+          respondHttp1();
+        }
+      }
+    }
+
+    private void respondHttp1() {
+      boolean close = closeAfterRequest;
+      respond(loop, () -> {
+        write(http1Response.duplicate());
+        if (close) {
+          closeAfterWrite = true;
+          if (outbound.isEmpty()) {
+            close();
+          }
+        }
+      });
+    }
+
+    private void upgrade(String settings) throws IOException {
+      write(ByteBuffer.wrap(("HTTP/1.1 101 Switching Protocols\r\n"
+          + "Connection: Upgrade\r\n"
+          + "Upgrade: h2c\r\n\r\n").getBytes(StandardCharsets.US_ASCII)));
+      http2 = new Http2(settings == null ? null : Base64.getUrlDecoder().decode(settings.trim()));
+      // the upgrade request is stream 1
+      http2.requestReceived(1);
+      http2.process(inbound);
+    }
+
+    void write(ByteBuffer buffer) {
+      if (!channel.isOpen()) {
+        return;
+      }
+      if (outbound.isEmpty()) {
+        try {
+          channel.write(buffer);
+        } catch (IOException e) {
+          close();
+          return;
+        }
+        if (!buffer.hasRemaining()) {
+          return;
+        }
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      }
+      outbound.add(buffer);
+    }
+
+    void onWritable() throws IOException {
+      ByteBuffer buffer;
+      while ((buffer = outbound.peek()) != null) {
+        channel.write(buffer);
+        if (buffer.hasRemaining()) {
+          return;
+        }
+        outbound.poll();
+      }
+      key.interestOps(SelectionKey.OP_READ);
+      if (closeAfterWrite) {
+        close();
+      }
+    }
+
+    void close() {
+      closeQuietly(channel);
+    }
+
+    /**
+     * The subset of HTTP/2 needed to answer requests: frames are parsed, but request headers are
+     * not decoded, and data is sent within the flow control windows of the client.
+     */
+    private final class Http2 {
+
+      private final Map<Integer, Stream> streams = new HashMap<>();
+      private boolean prefaceReceived;
+      private int initialWindowSize = DEFAULT_WINDOW_SIZE;
+      private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+      private long connectionWindow = DEFAULT_WINDOW_SIZE;
+
+      Http2(byte[] upgradeSettings) {
+        if (upgradeSettings != null) {
+          applySettings(ByteBuffer.wrap(upgradeSettings));
+        }
+        // the server preface
+        writeFrame(SETTINGS, 0, 0, ByteBuffer.allocate(0));
+      }
+
+      void process(ByteBuffer in) throws IOException {
+        if (!prefaceReceived) {
+          if (in.remaining() < HTTP2_PREFACE.length) {
+            return;
+          }
+          if (!startsWith(in, HTTP2_PREFACE)) {
+            throw new IOException("invalid HTTP/2 connection preface");
+          }
+          in.position(in.position() + HTTP2_PREFACE.length);
+          prefaceReceived = true;
+        }
+        while (in.remaining() >= 9) {
+          int start = in.position();
+          int length = (in.get(start) & 0xff) << 16
+              | (in.get(start + 1) & 0xff) << 8
+              | (in.get(start + 2) & 0xff);
+          if (in.remaining() < 9 + length) {
+            return;
+          }
+          int type = in.get(start + 3) & 0xff;
+          int flags = in.get(start + 4) & 0xff;
+          int streamId = in.getInt(start + 5) & 0x7fffffff;
+          ByteBuffer payload = in.duplicate();
+          payload.position(start + 9).limit(start + 9 + length);
+          in.position(start + 9 + length);
+          frame(type, flags, streamId, payload.slice());
+        }
+      }
+
+      private void frame(int type, int flags, int streamId, ByteBuffer payload)
+          throws IOException {
+        switch (type) {
+          case HEADERS:
+            if ((flags & FLAG_END_STREAM) != 0) {
+              requestReceived(streamId);
+            } else {
+              streams.put(streamId, new Stream(streamId, initialWindowSize));
+            }
+            break;
+          case DATA:
+            if (payload.remaining() > 0) {
+              windowUpdate(0, payload.remaining());
+              if ((flags & FLAG_END_STREAM) == 0) {
+                windowUpdate(streamId, payload.remaining());
+              }
+            }
+            if ((flags & FLAG_END_STREAM) != 0) {
+              requestReceived(streamId);
+            }
+            break;
+          case SETTINGS:
+            if ((flags & FLAG_ACK) == 0) {
+              applySettings(payload);
+              writeFrame(SETTINGS, FLAG_ACK, 0, ByteBuffer.allocate(0));
+              flushAll();
+            }
+            break;
+          case WINDOW_UPDATE:
+            int increment = payload.getInt() & 0x7fffffff;
+            if (streamId == 0) {
+              connectionWindow += increment;
+              flushAll();
+            } else {
+              Stream stream = streams.get(streamId);
+              if (stream != null) {
+                stream.window += increment;
+                flush(stream);
+              }
+            }
+            break;
+          case PING:
+            if ((flags & FLAG_ACK) == 0) {
+              writeFrame(PING, FLAG_ACK, 0, payload);
+            }
+            break;
+          case RST_STREAM:
+            streams.remove(streamId);
+            break;
+          case GOAWAY:
+            closeAfterWrite = true;
+            if (outbound.isEmpty()) {
+              close();
+            }
+            break;
+          default:
+            // PRIORITY, CONTINUATION and unknown frames need no answer
+        }
+      }
+
+      private void applySettings(ByteBuffer settings) {
+        while (settings.remaining() >= 6) {
+          int id = settings.getShort() & 0xffff;
+          int value = settings.getInt();
+          if (id == SETTINGS_INITIAL_WINDOW_SIZE) {
+            int delta = value - initialWindowSize;
+            initialWindowSize = value;
+            for (Stream stream : streams.values()) {
+              stream.window += delta;
+            }
+          } else if (id == SETTINGS_MAX_FRAME_SIZE) {
+            maxFrameSize = value;
+          }
+        }
+      }
+
+      void requestReceived(int streamId) {
+        Stream stream = streams.computeIfAbsent(streamId, id -> new Stream(id, initialWindowSize));
+        respond(loop, () -> {
+          if (streams.get(streamId) != stream || !channel.isOpen()) {
+            return; // reset by the client
+          }
+          ByteBuffer headers = http2Headers.duplicate();
+          writeFrame(HEADERS, FLAG_END_HEADERS | (body.hasRemaining() ? 0 : FLAG_END_STREAM),
+              streamId, headers);
+          stream.data = body.duplicate();
+          flush(stream);
+        });
+      }
+
+      private void flushAll() {
+        for (Stream stream : new ArrayList<>(streams.values())) {
+          flush(stream);
+        }
+      }
+
+      private void flush(Stream stream) {
+        ByteBuffer data = stream.data;
+        if (data == null) {
+          return;
+        }
+        while (data.hasRemaining()) {
+          int length = (int) Math.min(Math.min(data.remaining(), maxFrameSize),
+              Math.min(connectionWindow, stream.window));
+          if (length <= 0) {
+            return; // resumed by a WINDOW_UPDATE or SETTINGS frame
+          }
+          ByteBuffer frame = data.duplicate();
+          frame.limit(frame.position() + length);
+          data.position(data.position() + length);
+          connectionWindow -= length;
+          stream.window -= length;
+          writeFrame(DATA, data.hasRemaining() ? 0 : FLAG_END_STREAM, stream.id, frame);
+        }
+        streams.remove(stream.id);
+      }
+
+      private void windowUpdate(int streamId, int increment) {
+        ByteBuffer payload = ByteBuffer.allocate(4);
+        payload.putInt(increment).flip();
+        writeFrame(WINDOW_UPDATE, 0, streamId, payload);
+      }
+
+      private void writeFrame(int type, int flags, int streamId, ByteBuffer payload) {
+        ByteBuffer header = ByteBuffer.allocate(9);
+        int length = payload.remaining();
+        header.put((byte) (length >>> 16)).put((byte) (length >>> 8)).put((byte) length)
+            .put((byte) type).put((byte) flags).putInt(streamId).flip();
+        write(header);
+        if (length > 0) {
+          write(payload);
+        }
+      }
+    }
+  }
+
+  private static final class Stream {
+
+    private final int id;
+    private long window;
+    private ByteBuffer data;
+
+    Stream(int id, long window) {
+      this.id = id;
+      this.window = window;
+    }
+  }
+
+  private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+    if (buffer.remaining() < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(buffer.position() + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int indexOfHeadersEnd(ByteBuffer buffer) {
+    for (int i = buffer.position(); i + 3 < buffer.limit(); i++) {
+      if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n'
+          && buffer.get(i + 2) == '\r' && buffer.get(i + 3) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return header values by lower case name, skipping the request line.
+   */
+  private static Map<String, String> headers(String head) {
+    Map<String, String> headers = new HashMap<>();
+    List<String> lines = new ArrayList<>();
+    int start = head.indexOf("\r\n");
+    while (start != -1 && start < head.length()) {
+      int end = head.indexOf("\r\n", start + 2);
+      lines.add(head.substring(start + 2, end == -1 ? head.length() : end));
+      start = end;
+    }
+    for (String line : lines) {
+      int colon = line.indexOf(':');
+      if (colon > 0) {
+        headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+            line.substring(colon + 1).trim());
+      }
+    }
+    return headers;
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException ignored) {
+      // nothing to do
+    }
+  }
+}
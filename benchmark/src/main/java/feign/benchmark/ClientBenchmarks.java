@@ -0,0 +1,210 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.benchmark;
+
+import feign.AsyncFeign;
+import feign.Client;
+import feign.Feign;
+import feign.RequestLine;
+import feign.googlehttpclient.GoogleHttpClient;
+import feign.hc5.ApacheHttp5Client;
+import feign.hc5.AsyncApacheHttp5Client;
+import feign.httpclient.ApacheHttpClient;
+import feign.jaxrs2.JAXRSClient;
+import feign.okhttp.OkHttpClient;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Protocol;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the clients shipped with Feign against a {@link BenchmarkServer}. Throughput and the
+ * latency percentiles are both reported, run with {@code -prof gc} for the allocation rate, or use
+ * {@link #main(String[])} to repeat the benchmarks for several thread counts.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 5, time = 2)
+@Fork(1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ClientBenchmarks {
+
+  public interface Api {
+
+    @RequestLine("GET /")
+    byte[] get();
+
+    @RequestLine("POST /")
+    byte[] post(byte[] body);
+  }
+
+  public interface AsyncApi {
+
+    @RequestLine("GET /")
+    CompletableFuture<byte[]> get();
+
+    @RequestLine("POST /")
+    CompletableFuture<byte[]> post(byte[] body);
+  }
+
+  @Param({"default", "okhttp", "okhttp-h2c", "apache", "hc5", "hc5-async", "http2", "google",
+      "jaxrs"})
+  private String client;
+
+  @Param({"128", "16384"})
+  private int payloadSize;
+
+  @Param({"length", "chunked", "gzip"})
+  private String encoding;
+
+  /**
+   * Simulated server latency, for example {@code -p latencyMillis=5}.
+   */
+  @Param({"0"})
+  private long latencyMillis;
+
+  private final byte[] requestBody = new byte[256];
+
+  private BenchmarkServer server;
+  private AutoCloseable closeable;
+  private Api api;
+  private AsyncApi asyncApi;
+
+  @Setup
+  public void setup() throws Exception {
+    server = BenchmarkServer.builder()
+        .payloadSize(payloadSize)
+        .chunked("chunked".equals(encoding))
+        .gzip("gzip".equals(encoding))
+        .latency(latencyMillis, TimeUnit.MILLISECONDS)
+        .start();
+    if ("hc5-async".equals(client)) {
+      AsyncApacheHttp5Client asyncClient = new AsyncApacheHttp5Client();
+      closeable = asyncClient;
+      asyncApi = AsyncFeign.<HttpClientContext>asyncBuilder()
+          .client(asyncClient)
+          .target(AsyncApi.class, server.url());
+    } else {
+      api = Feign.builder()
+          .client(client(client))
+          .target(Api.class, server.url());
+    }
+  }
+
+  private static Client client(String client) throws ReflectiveOperationException {
+    switch (client) {
+      case "default":
+        return new Client.Default(null, null);
+      case "okhttp":
+        return new OkHttpClient(okHttp().build());
+      case "okhttp-h2c":
+        return new OkHttpClient(okHttp()
+            .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+            .build());
+      case "apache":
+        return new ApacheHttpClient(org.apache.http.impl.client.HttpClientBuilder.create()
+            .setMaxConnPerRoute(1024)
+            .setMaxConnTotal(1024)
+            .build());
+      case "hc5":
+        return new ApacheHttp5Client(
+            org.apache.hc.client5.http.impl.classic.HttpClientBuilder.create()
+                .setConnectionManager(
+                    org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder
+                        .create()
+                        .setMaxConnPerRoute(1024)
+                        .setMaxConnTotal(1024)
+                        .build())
+                .build());
+      case "http2":
+        // feign-java11 is only on the classpath when built with the java11 profile
+        return (Client) Class.forName("feign.http2client.Http2Client")
+            .getConstructor()
+            .newInstance();
+      case "google":
+        return new GoogleHttpClient();
+      case "jaxrs":
+        return new JAXRSClient();
+      default:
+        throw new IllegalArgumentException("Unknown client: " + client);
+    }
+  }
+
+  private static okhttp3.OkHttpClient.Builder okHttp() {
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(1024);
+    dispatcher.setMaxRequestsPerHost(1024);
+    return new okhttp3.OkHttpClient.Builder()
+        .dispatcher(dispatcher)
+        .connectionPool(new ConnectionPool(1024, 5, TimeUnit.MINUTES));
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    if (closeable != null) {
+      closeable.close();
+    }
+    server.close();
+  }
+
+  @Benchmark
+  public byte[] get() {
+    if (asyncApi != null) {
+      return asyncApi.get().join();
+    }
+    return api.get();
+  }
+
+  @Benchmark
+  public byte[] post() {
+    if (asyncApi != null) {
+      return asyncApi.post(requestBody).join();
+    }
+    return api.post(requestBody);
+  }
+
+  /**
+   * Runs the benchmarks with 1, 8 and 64 threads, reporting the allocation rate as well.
+   */
+  public static void main(String[] args) throws RunnerException {
+    for (int threads : new int[] {1, 8, 64}) {
+      new Runner(new OptionsBuilder()
+          .include(ClientBenchmarks.class.getSimpleName())
+          .threads(threads)
+          .addProfiler(GCProfiler.class)
+          .build())
+              .run();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import feign.Client;
+import feign.Feign;
+import feign.FeignException;
+import feign.RequestLine;
+import feign.Response;
+import feign.codec.ErrorDecoder;
+
+/**
+ * How much do services using {@code 404} and {@code 409} for control flow pay for each error
+ * response, without considering network? Run with {@code -prof gc} for the allocation rate.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class ErrorStatusBenchmarks {
+
+  interface Users {
+
+    @RequestLine("GET /users/42")
+    String user();
+  }
+
+  private static final byte[] BODY =
+      "{\"error\":\"not_found\",\"message\":\"No user with id 42\"}".getBytes(
+          StandardCharsets.UTF_8);
+
+  private Users defaults;
+  private Users cheap;
+
+  @Setup
+  public void setup() {
+    Map<String, Collection<String>> headers = Collections.singletonMap("Content-Type",
+        Collections.singletonList("application/json; charset=UTF-8"));
+    Client notFound = (request, options) -> Response.builder()
+        .status(404)
+        .reason("Not Found")
+        .headers(headers)
+        .body(BODY)
+        .request(request)
+        .build();
+    defaults = Feign.builder()
+        .client(notFound)
+        .target(Users.class, "http://localhost");
+    cheap = Feign.builder()
+        .client(notFound)
+        .errorDecoder(new ErrorDecoder.Default(1024, false))
+        .target(Users.class, "http://localhost");
+  }
+
+  /**
+   * The error is handled by its type, the usual case.
+   */
+  @Benchmark
+  public int notFound_default() {
+    try {
+      return defaults.user().length();
+    } catch (FeignException.NotFound e) {
+      return e.status();
+    }
+  }
+
+  /**
+   * As above, without the stack trace of the exception.
+   */
+  @Benchmark
+  public int notFound_withoutStackTrace() {
+    try {
+      return cheap.user().length();
+    } catch (FeignException.NotFound e) {
+      return e.status();
+    }
+  }
+
+  /**
+   * The error is logged, so its message is formatted.
+   */
+  @Benchmark
+  public String notFound_message() {
+    try {
+      return defaults.user();
+    } catch (FeignException.NotFound e) {
+      return e.getMessage();
+    }
+  }
+}
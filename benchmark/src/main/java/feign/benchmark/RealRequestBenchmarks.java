@@ -20,10 +20,8 @@ import feign.Logger;
 import feign.Logger.Level;
 import feign.Response;
 import feign.Retryer;
-import io.reactivex.netty.protocol.http.server.HttpServer;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
-import io.netty.buffer.ByteBuf;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -46,17 +44,17 @@ import org.openjdk.jmh.annotations.Warmup;
 @State(Scope.Benchmark)
 public class RealRequestBenchmarks {
 
-  private static final int SERVER_PORT = 8765;
-  private HttpServer<ByteBuf, ByteBuf> server;
+  private BenchmarkServer server;
   private OkHttpClient client;
   private FeignTestInterface okFeign;
   private Request queryRequest;
 
   @Setup
-  public void setup() {
+  public void setup() throws IOException {
 
-    server = HttpServer.newServer(SERVER_PORT)
-        .start((request, response) -> null);
+    server = BenchmarkServer.builder()
+        .payloadSize(0)
+        .start();
     client = new OkHttpClient();
     client.retryOnConnectionFailure();
     okFeign = Feign.builder()
@@ -64,15 +62,15 @@ public class RealRequestBenchmarks {
         .logLevel(Level.NONE)
         .logger(new Logger.ErrorLogger())
         .retryer(new Retryer.Default())
-        .target(FeignTestInterface.class, "http://localhost:" + SERVER_PORT);
+        .target(FeignTestInterface.class, server.url());
     queryRequest = new Request.Builder()
-        .url("http://localhost:" + SERVER_PORT + "/?Action=GetUser&Version=2010-05-08&limit=1")
+        .url(server.url() + "/?Action=GetUser&Version=2010-05-08&limit=1")
         .build();
   }
 
   @TearDown
-  public void tearDown() throws InterruptedException {
-    server.shutdown();
+  public void tearDown() throws IOException {
+    server.close();
   }
 
   /**
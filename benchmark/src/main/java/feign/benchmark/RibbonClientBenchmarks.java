@@ -0,0 +1,88 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.benchmark;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import feign.Util;
+import feign.ribbon.LBClientFactory;
+import feign.ribbon.RibbonClient;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per request overhead of {@link RibbonClient}, in front of a client which answers immediately.
+ * Compares looking up the {@code LBClient} of the target on every request with the cached one.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 5, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RibbonClientBenchmarks {
+
+  @Param({"default", "caching"})
+  private String lbClientFactory;
+
+  private Client client;
+  private Request request;
+  private Request.Options options;
+
+  @Setup
+  public void setup() {
+    System.setProperty("benchmark.ribbon.listOfServers", "localhost:8080");
+    Client delegate = (request, options) -> Response.builder()
+        .status(200)
+        .reason("OK")
+        .headers(Collections.emptyMap())
+        .request(request)
+        .build();
+    client = RibbonClient.builder()
+        .delegate(delegate)
+        .lbClientFactory("caching".equals(lbClientFactory)
+            ? new LBClientFactory.Caching(new LBClientFactory.Default())
+            : new LBClientFactory.Default())
+        .build();
+
+    Map<String, Collection<String>> headers = new LinkedHashMap<>();
+    headers.put("Accept", Collections.singletonList("application/json"));
+    headers.put("Content-Type", Collections.singletonList("application/json"));
+    request = Request.create(HttpMethod.POST, "http://benchmark/domains/1234/records?name=www",
+        headers, "{\"type\":\"A\"}".getBytes(Util.UTF_8), Util.UTF_8, null);
+    options = new Request.Options();
+  }
+
+  @Benchmark
+  public Response execute() throws IOException {
+    return client.execute(request, options);
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ribbon;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Util;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The per request work of {@link RibbonClient} and {@link LBClient}, each next to the code it
+ * replaced, kept inline as {@code previous*}. In this package to reach the package-private code.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 5, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RibbonRequestBenchmarks {
+
+  private static final String URL = "http://benchmark/domains/1234/records?name=www";
+  private static final String HOST = "benchmark";
+
+  private Client delegate;
+  private Request request;
+  private URI uri;
+  private Request.Options options;
+
+  @Setup
+  public void setup() {
+    delegate = (request, options) -> null;
+    Map<String, Collection<String>> headers = new LinkedHashMap<>();
+    headers.put("Accept", Collections.singletonList("application/json"));
+    headers.put("Content-Type", Collections.singletonList("application/json"));
+    request = Request.create(HttpMethod.POST, URL, headers,
+        "{\"type\":\"A\"}".getBytes(Util.UTF_8), Util.UTF_8, null);
+    uri = URI.create("http://localhost:8080/domains/1234/records?name=www");
+    options = new Request.Options();
+  }
+
+  @Benchmark
+  public URI previousCleanUrl() {
+    return URI.create(URL.replaceFirst(HOST, ""));
+  }
+
+  @Benchmark
+  public URI cleanUrl() {
+    return RibbonClient.cleanUrl(URL, HOST);
+  }
+
+  /**
+   * Requests sent per call, the first attempt and the retries.
+   */
+  @State(Scope.Benchmark)
+  public static class Attempts {
+
+    @Param({"1", "3"})
+    int count;
+  }
+
+  /**
+   * Copied the headers to add {@code Content-Length} for every attempt.
+   */
+  @SuppressWarnings("deprecation")
+  @Benchmark
+  public void previousToRequest(Attempts attempts, Blackhole blackhole) {
+    for (int i = 0; i < attempts.count; i++) {
+      byte[] body = request.body();
+      Map<String, Collection<String>> headers = new LinkedHashMap<String, Collection<String>>();
+      headers.putAll(request.headers());
+      headers.put(Util.CONTENT_LENGTH,
+          Collections.singletonList(String.valueOf(body != null ? body.length : 0)));
+      blackhole.consume(Request.create(request.httpMethod(), uri.toASCIIString(), headers, body,
+          request.charset()));
+    }
+  }
+
+  /**
+   * Builds the headers once, shared by the clones made for each attempt.
+   */
+  @Benchmark
+  public void toRequest(Attempts attempts, Blackhole blackhole) {
+    LBClient.RibbonRequest ribbonRequest = new LBClient.RibbonRequest(delegate, request, uri);
+    for (int i = 0; i < attempts.count; i++) {
+      blackhole.consume(((LBClient.RibbonRequest) ribbonRequest.clone()).toRequest());
+    }
+  }
+
+  /**
+   * Built for every request, now only when the options change.
+   */
+  @Benchmark
+  public Object previousClientConfig() {
+    return new RibbonClient.FeignOptionsClientConfig(options);
+  }
+}
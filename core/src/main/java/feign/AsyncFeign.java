@@ -13,13 +13,12 @@
  */
 package feign;
 
-import feign.logger.FeignLogger;
-import java.io.IOException;
-import java.lang.reflect.Type;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Supplier;
-import feign.Logger.NoOpLogger;
 import feign.Request.Options;
 import feign.Target.HardCodedTarget;
 import feign.codec.Decoder;
@@ -31,10 +30,9 @@ import feign.codec.ErrorDecoder;
  * session cookies or tokens) is explicit, as calls for the same session may be done across several
  * threads. <br>
  * <br>
- * {@link Retryer} is not supported in this model, as that is a blocking API.
- * {@link ExceptionPropagationPolicy} is made redundant as {@link RetryableException} is never
- * thrown. <br>
- * Alternative approaches to retrying can be handled through {@link AsyncClient clients}. <br>
+ * Methods are handled natively: the request is executed on the {@link AsyncClient}, and decoding
+ * and retries are chained to the future it returns. Calls are not retried unless a
+ * {@link AsyncBuilder#retryer(Retryer) retryer} is set. <br>
  * <br>
  * Target interface methods must return {@link CompletableFuture} with a non-wildcard type. As the
  * completion is done by the {@link AsyncClient}, it is important that any subsequent processing on
@@ -58,24 +56,30 @@ public abstract class AsyncFeign<C> extends Feign {
     });
   }
 
+  private static class LazyInitializedDecodeExecutor {
+
+    private static final AtomicInteger threads = new AtomicInteger();
+    private static final ExecutorService instance =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+          final Thread result = new Thread(r, "feign-async-decode-" + threads.incrementAndGet());
+          result.setDaemon(true);
+          return result;
+        });
+  }
+
   public static class AsyncBuilder<C> {
 
     private final Builder builder;
     private Supplier<C> defaultContextSupplier = () -> null;
     private AsyncClient<C> client;
 
-    private final Logger.Level logLevel = Logger.Level.NONE;
-    private final Logger logger = new NoOpLogger();
-
-    private Decoder decoder = new Decoder.Default();
-    private ErrorDecoder errorDecoder = new ErrorDecoder.Default();
-    private boolean decode404;
-    private boolean closeAfterDecode = true;
-    private final FeignLogger feignLogger = null; // TODO: 10.06.2020 ADD DEFAULT HERE
+    private final List<AsyncRequestInterceptor> asyncRequestInterceptors = new ArrayList<>();
+    private AsyncReturnTypeAdapter returnTypeAdapter;
+    private Executor decodeExecutor;
 
     public AsyncBuilder() {
       super();
-      this.builder = Feign.builder();
+      this.builder = Feign.builder().retryer(Retryer.NEVER_RETRY);
     }
 
     public AsyncBuilder<C> defaultContextSupplier(Supplier<C> supplier) {
@@ -92,7 +96,7 @@ public abstract class AsyncFeign<C> extends Feign {
      * @see Builder#mapAndDecode(ResponseMapper, Decoder)
      */
     public AsyncBuilder<C> mapAndDecode(ResponseMapper mapper, Decoder decoder) {
-      this.decoder = (response, type) -> decoder.decode(mapper.map(response, type), type);
+      builder.mapAndDecode(mapper, decoder);
       return this;
     }
 
@@ -100,7 +104,7 @@ public abstract class AsyncFeign<C> extends Feign {
      * @see Builder#decoder(Decoder)
      */
     public AsyncBuilder<C> decoder(Decoder decoder) {
-      this.decoder = decoder;
+      builder.decoder(decoder);
       return this;
     }
 
@@ -108,7 +112,7 @@ public abstract class AsyncFeign<C> extends Feign {
      * @see Builder#decode404()
      */
     public AsyncBuilder<C> decode404() {
-      this.decode404 = true;
+      builder.decode404();
       return this;
     }
 
@@ -116,12 +120,71 @@ public abstract class AsyncFeign<C> extends Feign {
      * @see Builder#errorDecoder(ErrorDecoder)
      */
     public AsyncBuilder<C> errorDecoder(ErrorDecoder errorDecoder) {
-      this.errorDecoder = errorDecoder;
+      builder.errorDecoder(errorDecoder);
       return this;
     }
 
     public AsyncBuilder<C> doNotCloseAfterDecode() {
-      this.closeAfterDecode = false;
+      builder.doNotCloseAfterDecode();
+      return this;
+    }
+
+    /**
+     * Retries are chained to the futures of the attempts. The backoff of
+     * {@link Retryer#nextBackoff} is scheduled on the {@link SharedScheduler}, and the next attempt
+     * starts on the {@link #decodeExecutor(Executor) decode executor}, so no thread sleeps.
+     * Retryers that only implement {@link Retryer#continueOrPropagate} still sleep on the thread
+     * that saw the failure. Defaults to {@link Retryer#NEVER_RETRY}.
+     *
+     * @see Builder#retryer(Retryer)
+     */
+    public AsyncBuilder<C> retryer(Retryer retryer) {
+      builder.retryer(retryer);
+      return this;
+    }
+
+    /**
+     * Adds an interceptor which may complete the request asynchronously, applied after the
+     * {@link #requestInterceptor(RequestInterceptor) synchronous interceptors}.
+     */
+    public AsyncBuilder<C> asyncRequestInterceptor(AsyncRequestInterceptor asyncRequestInterceptor) {
+      this.asyncRequestInterceptors.add(asyncRequestInterceptor);
+      return this;
+    }
+
+    /**
+     * Sets the full set of asynchronous request interceptors for the builder, overwriting any
+     * previous interceptors.
+     */
+    public AsyncBuilder<C> asyncRequestInterceptors(
+                                                    Iterable<AsyncRequestInterceptor> asyncRequestInterceptors) {
+      this.asyncRequestInterceptors.clear();
+      for (AsyncRequestInterceptor asyncRequestInterceptor : asyncRequestInterceptors) {
+        this.asyncRequestInterceptors.add(asyncRequestInterceptor);
+      }
+      return this;
+    }
+
+    /**
+     * Allows methods to return asynchronous types other than {@link CompletableFuture}, for example
+     * reactive publishers.
+     */
+    public AsyncBuilder<C> returnTypeAdapter(AsyncReturnTypeAdapter returnTypeAdapter) {
+      this.returnTypeAdapter = returnTypeAdapter;
+      return this;
+    }
+
+    /**
+     * Runs decoders, retryers, and the callbacks of the returned futures, when the response arrives
+     * after the call returned. Clients such as {@code AsyncApacheHttp5Client} complete responses on
+     * their I/O threads, which must not be held up by decoding. Defaults to a shared pool with a
+     * daemon thread per processor, use {@code Runnable::run} to decode on the thread completing the
+     * response.
+     *
+     * @see AsyncFeign#decodeMetrics()
+     */
+    public AsyncBuilder<C> decodeExecutor(Executor decodeExecutor) {
+      this.decodeExecutor = decodeExecutor;
       return this;
     }
 
@@ -146,6 +209,9 @@ public abstract class AsyncFeign<C> extends Feign {
         client = new AsyncClient.Default<>(new Client.Default(null, null),
             LazyInitializedExecutorService.instance);
       }
+      if (decodeExecutor == null) {
+        decodeExecutor = LazyInitializedDecodeExecutor.instance;
+      }
 
       return this;
     }
@@ -205,6 +271,30 @@ public abstract class AsyncFeign<C> extends Feign {
       return this;
     }
 
+    /**
+     * @see Builder#callTimeout(long, TimeUnit)
+     */
+    public AsyncBuilder<C> callTimeout(long timeout, TimeUnit unit) {
+      builder.callTimeout(timeout, unit);
+      return this;
+    }
+
+    /**
+     * @see Builder#deadlineHeader(String)
+     */
+    public AsyncBuilder<C> deadlineHeader(String name) {
+      builder.deadlineHeader(name);
+      return this;
+    }
+
+    /**
+     * @see Builder#eventListener(FeignEventListener)
+     */
+    public AsyncBuilder<C> eventListener(FeignEventListener eventListener) {
+      builder.eventListener(eventListener);
+      return this;
+    }
+
     /**
      * @see Builder#requestInterceptor(RequestInterceptor)
      */
@@ -228,114 +318,37 @@ public abstract class AsyncFeign<C> extends Feign {
       builder.invocationHandlerFactory(invocationHandlerFactory);
       return this;
     }
-  }
 
-  private final ThreadLocal<AsyncInvocation<C>> activeContext;
+    /**
+     * Capabilities enrich the synchronous components, such as the decoder and interceptors. The
+     * {@link AsyncClient} is not enriched: wrap it before passing it to {@link #client}.
+     *
+     * @see Builder#addCapability(Capability)
+     */
+    public AsyncBuilder<C> addCapability(Capability capability) {
+      builder.addCapability(capability);
+      return this;
+    }
+  }
 
-  private final Feign feign;
+  private final Function<C, ReflectiveFeign> feignForContext;
 
   private final Supplier<C> defaultContextSupplier;
-  private final AsyncClient<C> client;
-
-  private final Logger.Level logLevel;
-  private final Logger logger;
-
-  private final AsyncResponseHandler responseHandler;
+  private final DecodeMetrics decodeMetrics = new DecodeMetrics();
 
   protected AsyncFeign(AsyncBuilder<C> asyncBuilder) {
-    this.activeContext = new ThreadLocal<>();
-
     this.defaultContextSupplier = asyncBuilder.defaultContextSupplier;
-    this.client = asyncBuilder.client;
-
-    this.logLevel = asyncBuilder.logLevel;
-    this.logger = asyncBuilder.logger;
-
-    this.responseHandler = new AsyncResponseHandler(
-        asyncBuilder.logLevel,
-        asyncBuilder.logger,
-        asyncBuilder.decoder,
-        asyncBuilder.errorDecoder,
-        asyncBuilder.decode404,
-        asyncBuilder.closeAfterDecode,
-        asyncBuilder.feignLogger);
-
-    asyncBuilder.builder.client(this::stageExecution);
-    asyncBuilder.builder.decoder(this::stageDecode);
-    asyncBuilder.builder.forceDecoding(); // force all handling through stageDecode
-
-    this.feign = asyncBuilder.builder.build();
-  }
-
-  private Response stageExecution(Request request, Options options) {
-    final Response result = Response.builder()
-        .status(200)
-        .request(request)
-        .build();
-
-    final AsyncInvocation<C> invocationContext = activeContext.get();
-
-    invocationContext.setResponseFuture(
-        client.execute(request, options, Optional.ofNullable(invocationContext.context())));
-
-
-    return result;
-  }
-
-  // from SynchronousMethodHandler
-  long elapsedTime(long start) {
-    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
-  }
-
-
-  private Object stageDecode(Response response, Type type) {
-    final AsyncInvocation<C> invocationContext = activeContext.get();
-
-    final CompletableFuture<Object> result = new CompletableFuture<>();
-
-    invocationContext.responseFuture().whenComplete((r, t) -> {
-      final long elapsedTime = elapsedTime(invocationContext.startNanos());
-
-      if (t != null) {
-        if (logLevel != Logger.Level.NONE && t instanceof IOException) {
-          final IOException e = (IOException) t;
-          logger.logIOException(invocationContext.configKey(), logLevel, e, elapsedTime);
-        }
-        result.completeExceptionally(t);
-      } else {
-        responseHandler.handleResponse(result, invocationContext.configKey(), r,
-            invocationContext.underlyingType(), elapsedTime);
-      }
-    });
-
-    result.whenComplete((r, t) -> {
-      if (result.isCancelled()) {
-        invocationContext.responseFuture().cancel(true);
-      }
-    });
-
-    if (invocationContext.isAsyncReturnType()) {
-      return result;
-    }
-    try {
-      return result.join();
-    } catch (final CompletionException e) {
-      final Response r = invocationContext.responseFuture().join();
-      Throwable cause = e.getCause();
-      if (cause == null) {
-        cause = e;
-      }
-      throw new AsyncJoinException(r.status(), cause.getMessage(), r.request(), cause);
-    }
-  }
-
 
-  protected void setInvocationContext(AsyncInvocation<C> invocationContext) {
-    activeContext.set(invocationContext);
+    this.feignForContext = asyncBuilder.builder.buildAsync(asyncBuilder.client,
+        new ArrayList<>(asyncBuilder.asyncRequestInterceptors), asyncBuilder.returnTypeAdapter,
+        asyncBuilder.decodeExecutor, decodeMetrics);
   }
 
-  protected void clearInvocationContext() {
-    activeContext.remove();
+  /**
+   * @return counts of the responses decoded by this instance.
+   */
+  public DecodeMetrics decodeMetrics() {
+    return decodeMetrics;
   }
 
   @Override
@@ -344,7 +357,7 @@ public abstract class AsyncFeign<C> extends Feign {
   }
 
   public <T> T newInstance(Target<T> target, C context) {
-    return wrap(target.type(), feign.newInstance(target), context);
+    return wrap(target.type(), feignForContext.apply(context).newInstance(target), context);
   }
 
   protected abstract <T> T wrap(Class<T> type, T instance, C context);
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The asynchronous counterpart of {@link RequestInterceptor}, for interceptors which need I/O to
+ * complete the request, such as fetching an OAuth token or looking up a routing key. The request is
+ * only sent once the returned stage completes, and no thread waits for it. <br>
+ * <br>
+ * For example: <br>
+ *
+ * <pre>
+ * public CompletionStage&lt;Void&gt; apply(RequestTemplate template) {
+ *   return tokens.current()
+ *       .thenAccept(token -&gt; template.header("Authorization", "Bearer " + token));
+ * }
+ * </pre>
+ *
+ * <br>
+ * <b>Configuration</b><br>
+ * <br>
+ * {@code AsyncRequestInterceptors} are configured via
+ * {@link AsyncFeign.AsyncBuilder#asyncRequestInterceptor(AsyncRequestInterceptor)}. They are
+ * applied in order, after the {@link RequestInterceptor synchronous interceptors}, on every
+ * attempt. Each starts once the stage of the previous one completed, on the thread which completed
+ * it. <br>
+ * <br>
+ * <b>Implementation notes</b><br>
+ * <br>
+ * The template must be changed before the returned stage completes, never afterwards. Failing the
+ * stage fails the call with its cause, without sending the request.
+ */
+@Experimental
+public interface AsyncRequestInterceptor {
+
+  /**
+   * Called for every request.
+   *
+   * @return a stage which completes once {@code template} is ready to be sent.
+   */
+  CompletionStage<Void> apply(RequestTemplate template);
+}
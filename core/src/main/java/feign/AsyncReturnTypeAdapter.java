@@ -0,0 +1,56 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Allows {@link AsyncFeign} to expose asynchronous return types other than
+ * {@link CompletableFuture}, such as reactive publishers. Unless {@link #underlyingType} is
+ * overridden, the type argument of the return type is decoded exactly as it would be for a
+ * {@code CompletableFuture}.
+ */
+@Experimental
+public interface AsyncReturnTypeAdapter {
+
+  /**
+   * @param returnType raw return type of a method on the target interface.
+   * @return true if methods returning {@code returnType} should be adapted.
+   */
+  boolean isAsyncReturnType(Class<?> returnType);
+
+  /**
+   * @param returnType generic return type of an adapted method.
+   * @return the type the response body is decoded to, by default the type argument of
+   *         {@code returnType}.
+   */
+  default Type underlyingType(ParameterizedType returnType) {
+    return returnType.getActualTypeArguments()[0];
+  }
+
+  /**
+   * Adapt an invocation of {@code method} to its return type. Nothing is sent until
+   * {@code invocation} is called, and each call starts a new request through the
+   * {@link AsyncClient}. Cancelling the returned future cancels the request.
+   *
+   * @param method invoked on the target interface.
+   * @param invocation starts the request and returns the future of its decoded result.
+   * @return an instance of {@code method}'s return type.
+   */
+  Object adapt(Method method, Supplier<CompletableFuture<Object>> invocation);
+}
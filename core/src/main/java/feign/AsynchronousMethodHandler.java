@@ -0,0 +1,498 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import feign.logger.FeignLogger;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import feign.FeignEventListener.Stage;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.ReflectiveFeign.MethodHandlerFactory;
+import feign.Request.Options;
+import feign.codec.Decoder;
+import feign.codec.ErrorDecoder;
+import static feign.ExceptionPropagationPolicy.UNWRAP;
+import static feign.FeignException.errorExecuting;
+import static feign.SynchronousMethodHandler.attemptOptions;
+import static feign.SynchronousMethodHandler.findDeadline;
+import static feign.SynchronousMethodHandler.findOptions;
+import static feign.SynchronousMethodHandler.noTimeToRetry;
+import static feign.Util.checkNotNull;
+
+/**
+ * Handles the methods of {@link AsyncFeign}: the request is executed on the {@link AsyncClient},
+ * and decoding and retries are chained to the future it returns, so no thread waits for the
+ * response.
+ */
+@Experimental
+final class AsynchronousMethodHandler<C> implements MethodHandler {
+
+  private final MethodMetadata metadata;
+  private final MethodInfo methodInfo;
+  private final Target<?> target;
+  private final AsyncClient<C> client;
+  private final Optional<C> context;
+  private final Retryer retryer;
+  private final List<RequestInterceptor> requestInterceptors;
+  private final List<AsyncRequestInterceptor> asyncRequestInterceptors;
+  private final Logger logger;
+  private final Logger.Level logLevel;
+  private final FeignLogger feignLogger;
+  private final RequestTemplate.Factory buildTemplateFromArgs;
+  private final Options options;
+  private final ExceptionPropagationPolicy propagationPolicy;
+  private final Memoizer memoizer;
+  private final long callTimeoutNanos;
+  private final String deadlineHeader;
+  private final AsyncResponseHandler responseHandler;
+  private final AsyncReturnTypeAdapter returnTypeAdapter;
+  private final Executor decodeExecutor;
+  private final DecodeMetrics decodeMetrics;
+  private final FeignEventListener eventListener;
+
+  private AsynchronousMethodHandler(Target<?> target, AsyncClient<C> client, C context,
+      Retryer retryer, List<RequestInterceptor> requestInterceptors,
+      List<AsyncRequestInterceptor> asyncRequestInterceptors, Logger logger,
+      Logger.Level logLevel, MethodMetadata metadata,
+      RequestTemplate.Factory buildTemplateFromArgs, Options options,
+      Decoder decoder, ErrorDecoder errorDecoder, boolean decode404,
+      boolean closeAfterDecode, ExceptionPropagationPolicy propagationPolicy,
+      FeignLogger feignLogger, long callTimeoutNanos, String deadlineHeader,
+      AsyncReturnTypeAdapter returnTypeAdapter, Executor decodeExecutor,
+      DecodeMetrics decodeMetrics, FeignEventListener eventListener) {
+
+    this.target = checkNotNull(target, "target");
+    this.client = checkNotNull(client, "client for %s", target);
+    this.context = Optional.ofNullable(context);
+    this.retryer = checkNotNull(retryer, "retryer for %s", target);
+    this.requestInterceptors =
+        checkNotNull(requestInterceptors, "requestInterceptors for %s", target);
+    this.asyncRequestInterceptors =
+        checkNotNull(asyncRequestInterceptors, "asyncRequestInterceptors for %s", target);
+    this.logger = checkNotNull(logger, "logger for %s", target);
+    this.logLevel = checkNotNull(logLevel, "logLevel for %s", target);
+    this.metadata = checkNotNull(metadata, "metadata for %s", target);
+    this.buildTemplateFromArgs = checkNotNull(buildTemplateFromArgs, "metadata for %s", target);
+    this.options = checkNotNull(options, "options for %s", target);
+    this.propagationPolicy = propagationPolicy;
+    this.feignLogger = feignLogger;
+    this.memoizer = metadata.memoize() == null ? null : new Memoizer(metadata.memoize());
+    CallTimeout callTimeout = metadata.callTimeout();
+    this.callTimeoutNanos =
+        callTimeout != null ? callTimeout.unit().toNanos(callTimeout.value()) : callTimeoutNanos;
+    this.deadlineHeader = deadlineHeader;
+    this.returnTypeAdapter = returnTypeAdapter;
+    this.methodInfo = new MethodInfo(target.type(), metadata.method(), returnTypeAdapter);
+    this.decodeExecutor = decodeExecutor;
+    this.decodeMetrics = decodeMetrics;
+    this.eventListener = eventListener;
+    this.responseHandler = new AsyncResponseHandler(logLevel, logger, decoder, errorDecoder,
+        decode404, closeAfterDecode, feignLogger);
+  }
+
+  @Override
+  public Object invoke(Object[] argv) throws Throwable {
+    if (methodInfo.isAsyncReturnType()
+        && metadata.method().getReturnType() != CompletableFuture.class) {
+      // nothing is sent until the adapted type is subscribed to
+      return returnTypeAdapter.adapt(metadata.method(), () -> {
+        try {
+          return invokeAsync(argv);
+        } catch (Throwable e) {
+          CompletableFuture<Object> result = new CompletableFuture<>();
+          result.completeExceptionally(e);
+          return result;
+        }
+      });
+    }
+    if (methodInfo.isAsyncReturnType()) {
+      return invokeAsync(argv);
+    }
+    try {
+      return invokeAsync(argv).join();
+    } catch (CompletionException e) {
+      throw e.getCause() != null ? e.getCause() : e;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<Object> invokeAsync(Object[] argv) throws Throwable {
+    if (memoizer != null) {
+      return (CompletableFuture<Object>) memoizer.get(argv, () -> execute(argv));
+    }
+    return execute(argv);
+  }
+
+  private CompletableFuture<Object> execute(Object[] argv) {
+    if (eventListener == null) {
+      return execute(argv, null);
+    }
+    Object call = eventListener.callStarted(metadata, target, System.nanoTime());
+    CompletableFuture<Object> result;
+    try {
+      result = execute(argv, call);
+    } catch (Throwable e) {
+      eventListener.callEnded(call, e, System.nanoTime());
+      throw e;
+    }
+    result.whenComplete((r, t) -> eventListener.callEnded(call, t, System.nanoTime()));
+    return result;
+  }
+
+  private CompletableFuture<Object> execute(Object[] argv, Object call) {
+    Deadline deadline = findDeadline(argv, callTimeoutNanos);
+    long resolveStart = stageStart();
+    RequestTemplate template;
+    try {
+      template = buildTemplateFromArgs.create(argv);
+    } finally {
+      stageEnded(call, Stage.RESOLVE, resolveStart);
+    }
+    Invocation invocation = new Invocation(template, findOptions(argv, options), deadline, call);
+    // failures before the first request is sent, such as encoding, are thrown to the caller
+    invocation.attempt();
+    if (deadline != null) {
+      withDeadline(invocation.result, deadline);
+    }
+    return invocation.result;
+  }
+
+  /**
+   * Fails the future when the deadline passes first.
+   */
+  private void withDeadline(CompletableFuture<Object> result, Deadline deadline) {
+    if (result.isDone()) {
+      return;
+    }
+    ScheduledFuture<?> timeout = deadline.schedule(() -> result.completeExceptionally(
+        new DeadlineExceededException("Deadline exceeded executing " + metadata.configKey(),
+            null)));
+    result.whenComplete((r, t) -> timeout.cancel(false));
+  }
+
+  /**
+   * Applies the asynchronous interceptors in order, each once the previous one is done.
+   */
+  private CompletableFuture<Void> interceptAsync(RequestTemplate template) {
+    CompletableFuture<Void> ready =
+        asyncRequestInterceptors.get(0).apply(template).toCompletableFuture();
+    for (int i = 1; i < asyncRequestInterceptors.size(); i++) {
+      AsyncRequestInterceptor interceptor = asyncRequestInterceptors.get(i);
+      ready = ready.thenCompose(v -> interceptor.apply(template));
+    }
+    return ready;
+  }
+
+  long elapsedTime(long start) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  /**
+   * @return the start of a stage, or nothing when no listener reports it.
+   */
+  private long stageStart() {
+    return eventListener != null ? System.nanoTime() : 0L;
+  }
+
+  private void stageEnded(Object call, Stage stage, long start) {
+    if (eventListener != null) {
+      eventListener.stageEnded(call, stage, start, System.nanoTime());
+    }
+  }
+
+  /**
+   * The state of one call, across its attempts.
+   */
+  private final class Invocation {
+
+    private final RequestTemplate template;
+    private final Options options;
+    private final Deadline deadline;
+    private final Object call;
+    private final Retryer retryer = AsynchronousMethodHandler.this.retryer.clone();
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+    private RetryableException lastFailure;
+
+    Invocation(RequestTemplate template, Options options, Deadline deadline, Object call) {
+      this.template = template;
+      this.options = options;
+      this.deadline = deadline;
+      this.call = call;
+    }
+
+    void attempt() {
+      Options attemptOptions = deadline == null ? options
+          : attemptOptions(metadata, deadlineHeader, template, options, deadline, lastFailure);
+      long interceptStart = stageStart();
+      try {
+        for (RequestInterceptor interceptor : requestInterceptors) {
+          interceptor.apply(template);
+        }
+      } catch (RuntimeException e) {
+        stageEnded(call, Stage.INTERCEPT, interceptStart);
+        throw e;
+      }
+      if (asyncRequestInterceptors.isEmpty()) {
+        stageEnded(call, Stage.INTERCEPT, interceptStart);
+        send(attemptOptions);
+        return;
+      }
+      interceptAsync(template).whenComplete((v, t) -> {
+        stageEnded(call, Stage.INTERCEPT, interceptStart);
+        if (t != null) {
+          result.completeExceptionally(
+              t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+          return;
+        }
+        try {
+          send(attemptOptions);
+        } catch (RuntimeException e) {
+          result.completeExceptionally(e);
+        }
+      });
+    }
+
+    private void send(Options attemptOptions) {
+      Request request = target.apply(template);
+
+      String requestKey = feignLogger.logRequest(request);
+      if (logLevel != Logger.Level.NONE) {
+        logger.logRequest(metadata.configKey(), logLevel, request);
+      }
+
+      long start = System.nanoTime();
+      CompletableFuture<Response> responseFuture;
+      try {
+        responseFuture = client.execute(request, attemptOptions, context);
+      } catch (RuntimeException e) {
+        stageEnded(call, Stage.EXECUTE, start);
+        throw e;
+      }
+
+      result.whenComplete((r, t) -> {
+        // cancelled, or failed by its deadline before the response arrived
+        if (t != null) {
+          responseFuture.cancel(true);
+        }
+      });
+
+      if (responseFuture.isDone()) {
+        // nothing to wait for, the calling thread decodes
+        responseFuture.whenComplete((r, t) -> {
+          stageEnded(call, Stage.EXECUTE, start);
+          decode(request, requestKey, start, r, t);
+        });
+      } else {
+        responseFuture.whenComplete((r, t) -> {
+          stageEnded(call, Stage.EXECUTE, start);
+          offloadDecode(request, requestKey, start, r, t);
+        });
+      }
+    }
+
+    private void offloadDecode(Request request,
+                               String requestKey,
+                               long start,
+                               Response response,
+                               Throwable error) {
+      final long queuedNanos = System.nanoTime();
+      try {
+        decodeExecutor.execute(() -> {
+          decodeMetrics.offload(System.nanoTime() - queuedNanos);
+          stageEnded(call, Stage.DECODE_QUEUE, queuedNanos);
+          decode(request, requestKey, start, response, error);
+        });
+      } catch (RejectedExecutionException e) {
+        decode(request, requestKey, start, response, error);
+      }
+    }
+
+    private void decode(Request request,
+                        String requestKey,
+                        long start,
+                        Response response,
+                        Throwable error) {
+      decodeMetrics.decode();
+      long elapsedTime = elapsedTime(start);
+
+      if (error instanceof CompletionException && error.getCause() != null) {
+        error = error.getCause();
+      }
+      if (error instanceof IOException) {
+        IOException e = (IOException) error;
+        feignLogger.logIOException(requestKey, e, elapsedTime);
+        if (logLevel != Logger.Level.NONE) {
+          logger.logIOException(metadata.configKey(), logLevel, e, elapsedTime);
+        }
+        retry((RetryableException) errorExecuting(request, e), e);
+      } else if (error instanceof RetryableException) {
+        retry((RetryableException) error, error);
+      } else if (error != null) {
+        result.completeExceptionally(error);
+      } else {
+        CompletableFuture<Object> decoded = new CompletableFuture<>();
+        long decodeStart = stageStart();
+        responseHandler.handleResponse(decoded, metadata.configKey(), response,
+            methodInfo.underlyingReturnType(), elapsedTime, requestKey);
+        decoded.whenComplete((r, t) -> {
+          stageEnded(call, Stage.DECODE, decodeStart);
+          if (t instanceof RetryableException) {
+            retry((RetryableException) t, t);
+          } else if (t != null) {
+            result.completeExceptionally(t);
+          } else {
+            result.complete(r);
+          }
+        });
+      }
+    }
+
+    /**
+     * Asks the retryer whether to attempt again, and schedules the attempt after its backoff on the
+     * {@link SharedScheduler} rather than sleeping, so no thread waits for it.
+     *
+     * @param failure reported when the retryer gives up on {@code e}, for example the
+     *        {@link IOException} of the client.
+     */
+    private void retry(RetryableException e, Throwable failure) {
+      if (result.isDone()) {
+        return;
+      }
+      lastFailure = e;
+      long retryStart = stageStart();
+      long backoff;
+      try {
+        if (deadline != null && noTimeToRetry(deadline, retryer, e)) {
+          throw e;
+        }
+        backoff = retryer.nextBackoff(e);
+        stageEnded(call, Stage.RETRY, retryStart);
+      } catch (RetryableException th) {
+        stageEnded(call, Stage.RETRY, retryStart);
+        Throwable cause = th.getCause();
+        if (th == e && failure != e) {
+          result.completeExceptionally(failure);
+        } else if (propagationPolicy == UNWRAP && cause != null) {
+          result.completeExceptionally(cause);
+        } else {
+          result.completeExceptionally(th);
+        }
+        return;
+      }
+      feignLogger.logRetry(null);
+      if (logLevel != Logger.Level.NONE) {
+        logger.logRetry(metadata.configKey(), logLevel);
+      }
+      if (backoff <= 0) {
+        reattempt();
+        return;
+      }
+      ScheduledFuture<?> pending = SharedScheduler.instance()
+          .schedule(this::reattemptOnDecodeExecutor, backoff, TimeUnit.MILLISECONDS);
+      result.whenComplete((r, t) -> pending.cancel(false));
+    }
+
+    /**
+     * Keeps the interceptors and the client off the timer thread.
+     */
+    private void reattemptOnDecodeExecutor() {
+      try {
+        decodeExecutor.execute(this::reattempt);
+      } catch (RejectedExecutionException e) {
+        reattempt();
+      }
+    }
+
+    private void reattempt() {
+      if (result.isDone()) {
+        return;
+      }
+      try {
+        attempt();
+      } catch (RuntimeException th) {
+        result.completeExceptionally(th);
+      }
+    }
+  }
+
+  static class Factory<C> implements MethodHandlerFactory {
+
+    private final AsyncClient<C> client;
+    private final C context;
+    private final Retryer retryer;
+    private final List<RequestInterceptor> requestInterceptors;
+    private final List<AsyncRequestInterceptor> asyncRequestInterceptors;
+    private final Logger logger;
+    private final Logger.Level logLevel;
+    private final boolean decode404;
+    private final boolean closeAfterDecode;
+    private final ExceptionPropagationPolicy propagationPolicy;
+    private final FeignLogger feignLogger;
+    private final long callTimeoutNanos;
+    private final String deadlineHeader;
+    private final AsyncReturnTypeAdapter returnTypeAdapter;
+    private final Executor decodeExecutor;
+    private final DecodeMetrics decodeMetrics;
+    private final FeignEventListener eventListener;
+
+    Factory(AsyncClient<C> client, Retryer retryer, List<RequestInterceptor> requestInterceptors,
+        List<AsyncRequestInterceptor> asyncRequestInterceptors, Logger logger,
+        Logger.Level logLevel, boolean decode404, boolean closeAfterDecode,
+        ExceptionPropagationPolicy propagationPolicy, FeignLogger feignLogger,
+        long callTimeoutNanos, String deadlineHeader, AsyncReturnTypeAdapter returnTypeAdapter,
+        Executor decodeExecutor, DecodeMetrics decodeMetrics, FeignEventListener eventListener,
+        C context) {
+      this.client = checkNotNull(client, "client");
+      this.context = context;
+      this.retryer = checkNotNull(retryer, "retryer");
+      this.requestInterceptors = checkNotNull(requestInterceptors, "requestInterceptors");
+      this.asyncRequestInterceptors =
+          checkNotNull(asyncRequestInterceptors, "asyncRequestInterceptors");
+      this.logger = checkNotNull(logger, "logger");
+      this.logLevel = checkNotNull(logLevel, "logLevel");
+      this.decode404 = decode404;
+      this.closeAfterDecode = closeAfterDecode;
+      this.propagationPolicy = propagationPolicy;
+      this.feignLogger = feignLogger;
+      this.callTimeoutNanos = callTimeoutNanos;
+      this.deadlineHeader = deadlineHeader;
+      this.returnTypeAdapter = returnTypeAdapter;
+      this.decodeExecutor = checkNotNull(decodeExecutor, "decodeExecutor");
+      this.decodeMetrics = checkNotNull(decodeMetrics, "decodeMetrics");
+      this.eventListener = eventListener;
+    }
+
+    @Override
+    public MethodHandler create(Target<?> target,
+                                MethodMetadata md,
+                                RequestTemplate.Factory buildTemplateFromArgs,
+                                Options options,
+                                Decoder decoder,
+                                ErrorDecoder errorDecoder) {
+      return new AsynchronousMethodHandler<>(target, client, context, retryer,
+          requestInterceptors, asyncRequestInterceptors, logger, logLevel, md,
+          buildTemplateFromArgs, options, decoder,
+          errorDecoder, decode404, closeAfterDecode, propagationPolicy, feignLogger,
+          callTimeoutNanos, deadlineHeader, returnTypeAdapter, decodeExecutor, decodeMetrics,
+          eventListener);
+    }
+  }
+}
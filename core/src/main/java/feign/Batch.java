@@ -0,0 +1,66 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Collects the calls to a method taking a single key into calls to a {@link #method() batch method}
+ * of the same interface, which takes a {@link java.util.List} of keys. Calls are collected for
+ * {@link #window()} after the first one, or until {@link #maxSize()} distinct keys are waiting, and
+ * every caller gets its own result from the batch. <br>
+ * ex. <br>
+ *
+ * <pre>
+ * &#064;Batch(method = &quot;items&quot;, maxSize = 50)
+ * &#064;RequestLine(&quot;GET /items/{id}&quot;)
+ * Item item(&#64;Param(&quot;id&quot;) String id);
+ *
+ * &#064;RequestLine(&quot;GET /items?ids={ids}&quot;)
+ * Map&lt;String, Item&gt; items(&#64;Param(&quot;ids&quot;) List&lt;String&gt; ids);
+ * </pre>
+ *
+ * <br>
+ * The batch method returns either a {@link java.util.Map} from key to result, in which case keys
+ * missing from it get {@code null}, or a {@link java.util.List} of results in the order of the
+ * keys. Either may be wrapped in a {@link java.util.concurrent.CompletableFuture}. When the batch
+ * fails, every caller in it fails with the same cause. <br>
+ * Blocking callers wait for the window, so it should be short compared to the response time.
+ */
+@Experimental
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Batch {
+
+  /**
+   * Name of the batch method.
+   */
+  String method();
+
+  /**
+   * Number of distinct keys sent in one batch.
+   */
+  int maxSize() default 100;
+
+  /**
+   * How long, in {@link #unit()}, calls are collected after the first one.
+   */
+  long window() default 10;
+
+  TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles a method annotated with {@link Batch}: calls are collected by key, and sent together
+ * through the handler of the batch method.
+ */
+final class BatchingMethodHandler implements MethodHandler {
+
+  private final String configKey;
+  private final MethodHandler batchHandler;
+  private final int maxSize;
+  private final long windowNanos;
+  private final boolean async;
+  private PendingBatch pending;
+
+  BatchingMethodHandler(MethodMetadata metadata, MethodHandler batchHandler) {
+    this.configKey = metadata.configKey();
+    this.batchHandler = batchHandler;
+    Batch batch = metadata.batch();
+    this.maxSize = batch.maxSize();
+    this.windowNanos = batch.unit().toNanos(batch.window());
+    this.async = metadata.method().getReturnType() == CompletableFuture.class;
+  }
+
+  @Override
+  public Object invoke(Object[] argv) throws Throwable {
+    CompletableFuture<Object> result = add(argv[0]);
+    if (async) {
+      return result;
+    }
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      throw e.getCause() != null ? e.getCause() : e;
+    }
+  }
+
+  private CompletableFuture<Object> add(Object key) {
+    PendingBatch full = null;
+    CompletableFuture<Object> result;
+    synchronized (this) {
+      if (pending == null) {
+        PendingBatch started = new PendingBatch();
+        started.timer =
+            SharedScheduler.instance().schedule(() -> windowClosed(started), windowNanos,
+                TimeUnit.NANOSECONDS);
+        pending = started;
+      }
+      // callers of the same key share its result
+      result = pending.calls.computeIfAbsent(key, k -> new CompletableFuture<>());
+      if (pending.calls.size() >= maxSize) {
+        full = pending;
+        pending = null;
+      }
+    }
+    if (full != null) {
+      full.timer.cancel(false);
+      if (async) {
+        // the batch method may block, and asynchronous callers must not wait for it
+        PendingBatch batch = full;
+        Sender.instance.execute(() -> send(batch));
+      } else {
+        // sent by the caller which filled it, blocking callers wait for it anyway
+        send(full);
+      }
+    }
+    return result;
+  }
+
+  private void windowClosed(PendingBatch batch) {
+    synchronized (this) {
+      if (pending != batch) {
+        // already sent once full
+        return;
+      }
+      pending = null;
+    }
+    // the batch method may block, keep the timer free
+    Sender.instance.execute(() -> send(batch));
+  }
+
+  private void send(PendingBatch batch) {
+    List<Object> keys = new ArrayList<>(batch.calls.keySet());
+    Object results;
+    try {
+      results = batchHandler.invoke(new Object[] {keys});
+    } catch (Throwable e) {
+      batch.fail(e);
+      return;
+    }
+    if (results instanceof CompletionStage) {
+      ((CompletionStage<?>) results).whenComplete((value, error) -> {
+        if (error != null) {
+          batch.fail(error instanceof CompletionException && error.getCause() != null
+              ? error.getCause()
+              : error);
+        } else {
+          complete(batch, value);
+        }
+      });
+    } else {
+      complete(batch, results);
+    }
+  }
+
+  /**
+   * Hands each caller its own result.
+   */
+  private void complete(PendingBatch batch, Object results) {
+    if (results == null) {
+      batch.calls.values().forEach(result -> result.complete(null));
+    } else if (results instanceof Map) {
+      Map<?, ?> byKey = (Map<?, ?>) results;
+      batch.calls.forEach((key, result) -> result.complete(byKey.get(key)));
+    } else {
+      Collection<?> inOrder = (Collection<?>) results;
+      if (inOrder.size() != batch.calls.size()) {
+        batch.fail(new IllegalStateException(String.format(
+            "Batch of %s returned %s results for %s keys", configKey, inOrder.size(),
+            batch.calls.size())));
+        return;
+      }
+      Iterator<?> values = inOrder.iterator();
+      batch.calls.values().forEach(result -> result.complete(values.next()));
+    }
+  }
+
+  private static final class PendingBatch {
+
+    final Map<Object, CompletableFuture<Object>> calls = new LinkedHashMap<>();
+    ScheduledFuture<?> timer;
+
+    void fail(Throwable cause) {
+      calls.values().forEach(result -> result.completeExceptionally(cause));
+    }
+  }
+
+  /**
+   * Sends batches off the timer and off asynchronous callers. Bounded to one thread per processor,
+   * further batches wait in the queue, and idle threads stop after a minute.
+   */
+  private static class Sender {
+
+    private static final ExecutorService instance = newSender();
+
+    private static ExecutorService newSender() {
+      int threads = Runtime.getRuntime().availableProcessors();
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "feign-batch");
+            thread.setDaemon(true);
+            return thread;
+          });
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Bounds the whole call to a method, retries included, overriding
+ * {@link Feign.Builder#callTimeout(long, TimeUnit)}. A {@link Deadline} argument still applies when
+ * it is earlier.
+ */
+@Experimental
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface CallTimeout {
+
+  long value();
+
+  TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -20,6 +20,7 @@ import feign.Logger.Level;
 import feign.Request.Options;
 import feign.codec.Decoder;
 import feign.codec.Encoder;
+import feign.codec.ErrorDecoder;
 
 /**
  * Capabilities expose core feign artifacts to implementations so parts of core can be customized
@@ -104,6 +105,10 @@ public interface Capability {
     return decoder;
   }
 
+  default ErrorDecoder enrich(ErrorDecoder errorDecoder) {
+    return errorDecoder;
+  }
+
   default InvocationHandlerFactory enrich(InvocationHandlerFactory invocationHandlerFactory) {
     return invocationHandlerFactory;
   }
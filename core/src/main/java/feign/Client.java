@@ -163,10 +163,10 @@ public interface Client {
       connection.setRequestMethod(request.httpMethod().name());
 
       Collection<String> contentEncodingValues = request.headers().get(CONTENT_ENCODING);
-      boolean gzipEncodedRequest =
-          contentEncodingValues != null && contentEncodingValues.contains(ENCODING_GZIP);
-      boolean deflateEncodedRequest =
-          contentEncodingValues != null && contentEncodingValues.contains(ENCODING_DEFLATE);
+      boolean gzipEncodedRequest = !request.isContentEncoded()
+          && contentEncodingValues != null && contentEncodingValues.contains(ENCODING_GZIP);
+      boolean deflateEncodedRequest = !request.isContentEncoded()
+          && contentEncodingValues != null && contentEncodingValues.contains(ENCODING_DEFLATE);
 
       boolean hasAcceptHeader = false;
       Integer contentLength = null;
@@ -19,6 +19,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import feign.Request.HttpMethod;
@@ -64,6 +65,11 @@ public interface Contract {
             metadata.configKey());
         result.put(metadata.configKey(), metadata);
       }
+      for (final MethodMetadata metadata : result.values()) {
+        if (metadata.batch() != null) {
+          metadata.batchMethod(batchMethod(metadata, result.values()));
+        }
+      }
       return new ArrayList<>(result.values());
     }
 
@@ -92,7 +98,15 @@ public interface Contract {
 
 
       for (final Annotation methodAnnotation : method.getAnnotations()) {
-        processAnnotationOnMethod(data, methodAnnotation, method);
+        if (methodAnnotation instanceof Memoize) {
+          processMemoize(data, (Memoize) methodAnnotation);
+        } else if (methodAnnotation instanceof CallTimeout) {
+          processCallTimeout(data, (CallTimeout) methodAnnotation);
+        } else if (methodAnnotation instanceof Batch) {
+          processBatch(data, (Batch) methodAnnotation);
+        } else {
+          processAnnotationOnMethod(data, methodAnnotation, method);
+        }
       }
       if (data.isIgnored()) {
         return data;
@@ -117,7 +131,8 @@ public interface Contract {
 
         if (parameterTypes[i] == URI.class) {
           data.urlIndex(i);
-        } else if (!isHttpAnnotation && parameterTypes[i] != Request.Options.class) {
+        } else if (!isHttpAnnotation && parameterTypes[i] != Request.Options.class
+            && parameterTypes[i] != Deadline.class) {
           if (data.isAlreadyProcessed(i)) {
             checkState(data.formParams().isEmpty() || data.bodyIndex() == null,
                 "Body parameters cannot be used with form parameters.%s", data.warnings());
@@ -146,6 +161,75 @@ public interface Contract {
       return data;
     }
 
+    /**
+     * {@link Memoize} is handled here rather than by each contract, as it does not affect the
+     * request.
+     */
+    private static void processMemoize(MethodMetadata data, Memoize memoize) {
+      checkState(memoize.ttl() > 0, "Memoize ttl must be positive on method %s.",
+          data.configKey());
+      checkState(memoize.maxSize() > 0, "Memoize maxSize must be positive on method %s.",
+          data.configKey());
+      checkState(memoize.refreshAfter() >= 0 && memoize.refreshAfter() < memoize.ttl(),
+          "Memoize refreshAfter must be between 0 and ttl on method %s.", data.configKey());
+      final Class<?> rawType = Types.getRawType(data.returnType());
+      checkState(rawType != void.class && rawType != Response.class,
+          "Memoize cannot be used on method %s returning %s.", data.configKey(),
+          rawType.getSimpleName());
+      data.memoize(memoize);
+    }
+
+    private static void processCallTimeout(MethodMetadata data, CallTimeout callTimeout) {
+      checkState(callTimeout.value() > 0, "CallTimeout must be positive on method %s.",
+          data.configKey());
+      data.callTimeout(callTimeout);
+    }
+
+    private static void processBatch(MethodMetadata data, Batch batch) {
+      checkState(batch.maxSize() > 0, "Batch maxSize must be positive on method %s.",
+          data.configKey());
+      checkState(batch.window() >= 0, "Batch window must not be negative on method %s.",
+          data.configKey());
+      checkState(data.method().getParameterCount() == 1,
+          "Batch can only be used on method %s with a single parameter, its key.",
+          data.configKey());
+      data.batch(batch);
+    }
+
+    /**
+     * @return the config key of the method named by the {@link Batch} of {@code data}, once checked
+     *         it takes a list of keys.
+     */
+    private static String batchMethod(MethodMetadata data, Collection<MethodMetadata> methods) {
+      checkState(data.memoize() == null, "Batch cannot be used with Memoize on method %s.",
+          data.configKey());
+      MethodMetadata batchMethod = null;
+      for (MethodMetadata candidate : methods) {
+        if (!candidate.isIgnored()
+            && candidate.method().getName().equals(data.batch().method())) {
+          checkState(batchMethod == null, "Batch method %s of method %s is overloaded.",
+              data.batch().method(), data.configKey());
+          batchMethod = candidate;
+        }
+      }
+      checkState(batchMethod != null, "Batch method %s of method %s not found.",
+          data.batch().method(), data.configKey());
+      Class<?>[] parameterTypes = batchMethod.method().getParameterTypes();
+      checkState(batchMethod.batch() == null && parameterTypes.length == 1
+          && parameterTypes[0].isAssignableFrom(List.class),
+          "Batch method %s must take a single List parameter, the keys.",
+          batchMethod.configKey());
+      Type returnType = batchMethod.returnType();
+      if (returnType instanceof ParameterizedType
+          && Types.getRawType(returnType) == CompletableFuture.class) {
+        returnType = Util.resolveLastTypeParameter(returnType, CompletableFuture.class);
+      }
+      Class<?> rawType = Types.getRawType(returnType);
+      checkState(Map.class.isAssignableFrom(rawType) || Collection.class.isAssignableFrom(rawType),
+          "Batch method %s must return a Map or a List.", batchMethod.configKey());
+      return batchMethod.configKey();
+    }
+
     private static void checkMapString(String name, Class<?> type, Type genericType) {
       checkState(Map.class.isAssignableFrom(type),
           "%s parameter must be a Map: %s", name, type);
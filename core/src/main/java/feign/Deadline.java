@@ -0,0 +1,80 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time by which a call, retries included, must be over. Pass one as a method argument to bound
+ * a single call, or set a default with {@link Feign.Builder#callTimeout(long, TimeUnit)} or
+ * {@link CallTimeout}. Each attempt gets at most the time left as its timeouts, no retry starts
+ * when its backoff would leave too little time, and calls returning a
+ * {@link java.util.concurrent.CompletableFuture} fail with a {@link DeadlineExceededException} when
+ * it passes. <br>
+ * ex. <br>
+ *
+ * <pre>
+ * &#64;RequestLine(&quot;GET /repos/{owner}/{repo}/contributors&quot;)
+ * List&lt;Contributor&gt; contributors(&#64;Param(&quot;owner&quot;) String owner,
+ *                                &#64;Param(&quot;repo&quot;) String repo,
+ *                                Deadline deadline);
+ *
+ * github.contributors(&quot;OpenFeign&quot;, &quot;feign&quot;, Deadline.after(2, TimeUnit.SECONDS));
+ * </pre>
+ */
+@Experimental
+public final class Deadline {
+
+  private final long deadlineNanos;
+
+  private Deadline(long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  public static Deadline after(long timeout, TimeUnit unit) {
+    return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  /**
+   * @return the time left, or a negative value once the deadline passed.
+   */
+  public long remaining(TimeUnit unit) {
+    return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  public boolean isExpired() {
+    return deadlineNanos - System.nanoTime() <= 0;
+  }
+
+  /**
+   * @return the earlier of this deadline and {@code other}.
+   */
+  Deadline min(Deadline other) {
+    return other == null || deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+  }
+
+  /**
+   * Runs {@code task} when the deadline passes, on the {@link SharedScheduler}.
+   */
+  ScheduledFuture<?> schedule(Runnable task) {
+    return SharedScheduler.instance().schedule(task, deadlineNanos - System.nanoTime(),
+        TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return "Deadline(remaining=" + remaining(TimeUnit.MILLISECONDS) + "ms)";
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the responses {@link AsyncFeign} decoded, and how long they waited for the decode
+ * executor.
+ *
+ * @see AsyncFeign.AsyncBuilder#decodeExecutor(java.util.concurrent.Executor)
+ */
+@Experimental
+public final class DecodeMetrics {
+
+  private final LongAdder decoded = new LongAdder();
+  private final LongAdder offloaded = new LongAdder();
+  private final LongAdder queueNanos = new LongAdder();
+  private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+
+  DecodeMetrics() {}
+
+  /**
+   * @return number of responses decoded.
+   */
+  public long decoded() {
+    return decoded.sum();
+  }
+
+  /**
+   * @return number of responses handed over to the decode executor, the others arrived before the
+   *         call returned and were decoded by the calling thread.
+   */
+  public long offloaded() {
+    return offloaded.sum();
+  }
+
+  /**
+   * @return total time responses waited for the decode executor.
+   */
+  public long queueTime(TimeUnit unit) {
+    return unit.convert(queueNanos.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return longest time a response waited for the decode executor.
+   */
+  public long maxQueueTime(TimeUnit unit) {
+    return unit.convert(maxQueueNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  void decode() {
+    decoded.increment();
+  }
+
+  void offload(long queueNanos) {
+    offloaded.increment();
+    this.queueNanos.add(queueNanos);
+    maxQueueNanos.accumulate(queueNanos);
+  }
+
+  @Override
+  public String toString() {
+    return "DecodeMetrics{decoded=" + decoded()
+        + ", offloaded=" + offloaded()
+        + ", queueMillis=" + queueTime(TimeUnit.MILLISECONDS)
+        + ", maxQueueMillis=" + maxQueueTime(TimeUnit.MILLISECONDS) + "}";
+  }
+}
@@ -14,14 +14,19 @@
 package feign;
 
 import feign.logger.FeignLogger;
+import feign.logger.NoOpFeignLogger;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import feign.Logger.Level;
 import feign.Logger.NoOpLogger;
+import feign.ReflectiveFeign.MethodHandlerFactory;
 import feign.ReflectiveFeign.ParseHandlersByName;
 import feign.Request.Options;
 import feign.Target.HardCodedTarget;
@@ -30,6 +35,8 @@ import feign.codec.Encoder;
 import feign.codec.ErrorDecoder;
 import feign.querymap.FieldQueryMapEncoder;
 import static feign.ExceptionPropagationPolicy.NONE;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
 
 /**
  * Feign's purpose is to ease development against http apis that feign restfulness. <br>
@@ -115,9 +122,11 @@ public abstract class Feign {
     private boolean decode404;
     private boolean closeAfterDecode = true;
     private ExceptionPropagationPolicy propagationPolicy = NONE;
-    private boolean forceDecoding = false;
+    private long callTimeoutNanos;
+    private String deadlineHeader;
+    private FeignEventListener eventListener;
     private List<Capability> capabilities = new ArrayList<>();
-    private FeignLogger feignLogger = null; // TODO: 10.06.2020 CREATE DEFAULT
+    private FeignLogger feignLogger = new NoOpFeignLogger();
 
     public Builder logLevel(Logger.Level logLevel) {
       this.logLevel = logLevel;
@@ -255,16 +264,39 @@ public abstract class Feign {
       return this;
     }
 
-    public Builder addCapability(Capability capability) {
-      this.capabilities.add(capability);
+    /**
+     * Bounds every call, retries included. Each attempt gets at most the time left as its connect
+     * and read timeouts, and no retry starts once it is over.
+     *
+     * @see CallTimeout
+     * @see Deadline
+     */
+    public Builder callTimeout(long timeout, TimeUnit unit) {
+      checkArgument(timeout > 0, "callTimeout must be positive");
+      this.callTimeoutNanos = unit.toNanos(timeout);
       return this;
     }
 
     /**
-     * Internal - used to indicate that the decoder should be immediately called
+     * Sends the milliseconds left to the deadline of a call in this header of each attempt, so the
+     * server can give up when the client does.
      */
-    Builder forceDecoding() {
-      this.forceDecoding = true;
+    public Builder deadlineHeader(String name) {
+      this.deadlineHeader = checkNotNull(name, "name");
+      return this;
+    }
+
+    /**
+     * Reports the stages of every call, with their timings. Defaults to none.
+     */
+    @Experimental
+    public Builder eventListener(FeignEventListener eventListener) {
+      this.eventListener = checkNotNull(eventListener, "eventListener");
+      return this;
+    }
+
+    public Builder addCapability(Capability capability) {
+      this.capabilities.add(capability);
       return this;
     }
 
@@ -277,6 +309,30 @@ public abstract class Feign {
     }
 
     public Feign build() {
+      return build(null, null, null, null, null).apply(null);
+    }
+
+    /**
+     * Internal - builds the delegates of {@link AsyncFeign}, whose methods execute on
+     * {@code asyncClient} and return futures instead of blocking. Each delegate passes its context
+     * to the client; the components are enriched once, and shared by all of them.
+     */
+    <C> Function<C, ReflectiveFeign> buildAsync(AsyncClient<C> asyncClient,
+                                                List<AsyncRequestInterceptor> asyncRequestInterceptors,
+                                                AsyncReturnTypeAdapter returnTypeAdapter,
+                                                Executor decodeExecutor,
+                                                DecodeMetrics decodeMetrics) {
+      return build(checkNotNull(asyncClient, "asyncClient"),
+          checkNotNull(asyncRequestInterceptors, "asyncRequestInterceptors"), returnTypeAdapter,
+          checkNotNull(decodeExecutor, "decodeExecutor"),
+          checkNotNull(decodeMetrics, "decodeMetrics"));
+    }
+
+    private <C> Function<C, ReflectiveFeign> build(AsyncClient<C> asyncClient,
+                                                   List<AsyncRequestInterceptor> asyncRequestInterceptors,
+                                                   AsyncReturnTypeAdapter returnTypeAdapter,
+                                                   Executor decodeExecutor,
+                                                   DecodeMetrics decodeMetrics) {
       Client client = Capability.enrich(this.client, capabilities);
       Retryer retryer = Capability.enrich(this.retryer, capabilities);
       List<RequestInterceptor> requestInterceptors = this.requestInterceptors.stream()
@@ -287,19 +343,35 @@ public abstract class Feign {
       Options options = Capability.enrich(this.options, capabilities);
       Encoder encoder = Capability.enrich(this.encoder, capabilities);
       Decoder decoder = Capability.enrich(this.decoder, capabilities);
+      ErrorDecoder errorDecoder = Capability.enrich(this.errorDecoder, capabilities);
       InvocationHandlerFactory invocationHandlerFactory =
           Capability.enrich(this.invocationHandlerFactory, capabilities);
       QueryMapEncoder queryMapEncoder = Capability.enrich(this.queryMapEncoder, capabilities);
       FeignLogger feignLogger = Capability.enrich(this.feignLogger, capabilities);
 
-      SynchronousMethodHandler.Factory synchronousMethodHandlerFactory =
-          new SynchronousMethodHandler.Factory(client, retryer, requestInterceptors, logger,
-              logLevel, decode404, closeAfterDecode, propagationPolicy, forceDecoding,
-              feignLogger);
-      ParseHandlersByName handlersByName =
-          new ParseHandlersByName(contract, options, encoder, decoder, queryMapEncoder,
-              errorDecoder, synchronousMethodHandlerFactory);
-      return new ReflectiveFeign(handlersByName, invocationHandlerFactory, queryMapEncoder);
+      if (asyncClient == null) {
+        MethodHandlerFactory synchronousMethodHandlerFactory =
+            new SynchronousMethodHandler.Factory(client, retryer, requestInterceptors, logger,
+                logLevel, decode404, closeAfterDecode, propagationPolicy, feignLogger,
+                callTimeoutNanos, deadlineHeader, eventListener);
+        ParseHandlersByName handlersByName =
+            new ParseHandlersByName(contract, options, encoder, decoder, queryMapEncoder,
+                errorDecoder, synchronousMethodHandlerFactory);
+        ReflectiveFeign feign =
+            new ReflectiveFeign(handlersByName, invocationHandlerFactory, queryMapEncoder);
+        return context -> feign;
+      }
+      return context -> {
+        MethodHandlerFactory asynchronousMethodHandlerFactory =
+            new AsynchronousMethodHandler.Factory<>(asyncClient, retryer, requestInterceptors,
+                asyncRequestInterceptors, logger, logLevel, decode404, closeAfterDecode,
+                propagationPolicy, feignLogger, callTimeoutNanos, deadlineHeader,
+                returnTypeAdapter, decodeExecutor, decodeMetrics, eventListener, context);
+        ParseHandlersByName handlersByName =
+            new ParseHandlersByName(contract, options, encoder, decoder, queryMapEncoder,
+                errorDecoder, asynchronousMethodHandlerFactory);
+        return new ReflectiveFeign(handlersByName, invocationHandlerFactory, queryMapEncoder);
+      };
     }
   }
 
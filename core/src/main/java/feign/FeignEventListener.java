@@ -0,0 +1,102 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+/**
+ * Observes the stages of every call of a client, with {@link System#nanoTime()} stamps, for a
+ * latency breakdown finer than wrapping components allows: template resolution, interceptors, the
+ * client, decoding and retry backoff each get their own time. <br>
+ * <br>
+ * For example: <br>
+ *
+ * <pre>
+ * public Object callStarted(MethodMetadata metadata, Target&lt;?&gt; target, long startNanos) {
+ *   return metadata.configKey();
+ * }
+ *
+ * public void stageEnded(Object call, Stage stage, long startNanos, long endNanos) {
+ *   timers.get(call, stage).record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+ * }
+ * </pre>
+ *
+ * <br>
+ * <b>Configuration</b><br>
+ * <br>
+ * A listener is configured via {@link Feign.Builder#eventListener(FeignEventListener)}. When none
+ * is, the method handlers skip every callback, and allocate nothing for them. <br>
+ * <br>
+ * <b>Implementation notes</b><br>
+ * <br>
+ * Callbacks run on the thread running the stage, for {@link AsyncFeign} often an I/O or decode
+ * thread, so they must be quick and thread safe. The stages of every attempt are reported, so a
+ * retried call reports {@link Stage#EXECUTE} once per attempt.
+ */
+@Experimental
+public interface FeignEventListener {
+
+  enum Stage {
+
+    /**
+     * The template built from the arguments, body encoding included.
+     */
+    RESOLVE,
+
+    /**
+     * The request interceptors, asynchronous ones included.
+     */
+    INTERCEPT,
+
+    /**
+     * The client, until the response headers arrived. For an {@link AsyncClient}, queueing in the
+     * client is included.
+     */
+    EXECUTE,
+
+    /**
+     * Waiting for the decode executor of {@link AsyncFeign}, when the response arrived after the
+     * call returned.
+     */
+    DECODE_QUEUE,
+
+    /**
+     * The response decoded, or error decoded.
+     */
+    DECODE,
+
+    /**
+     * The retryer deciding to attempt again, backoff included.
+     */
+    RETRY
+  }
+
+  /**
+   * Called before anything else of a call.
+   *
+   * @return the context of the call, passed to the other callbacks. It may be {@code null}, or
+   *         shared by calls, such as the config key.
+   */
+  Object callStarted(MethodMetadata metadata, Target<?> target, long startNanos);
+
+  /**
+   * Called once a stage of a call ended, whether it succeeded or not.
+   */
+  void stageEnded(Object call, Stage stage, long startNanos, long endNanos);
+
+  /**
+   * Called once the result of a call is known.
+   *
+   * @param error why the call failed, or {@code null} when it succeeded.
+   */
+  void callEnded(Object call, Throwable error, long endNanos);
+}
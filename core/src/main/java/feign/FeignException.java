@@ -15,14 +15,16 @@ package feign;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.ObjectOutputStream;
 import java.io.Reader;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -40,7 +42,10 @@ public class FeignException extends RuntimeException {
   private static final long serialVersionUID = 0;
   private int status;
   private byte[] responseBody;
-  private Request request;
+  // not serializable, so not kept with the exception
+  private transient Request request;
+  private String lazyMessage;
+  private transient volatile FeignExceptionMessageBuilder messageBuilder;
 
   protected FeignException(int status, String message, Throwable cause) {
     super(message, cause);
@@ -95,6 +100,17 @@ public class FeignException extends RuntimeException {
     this.request = checkRequestNotNull(request);
   }
 
+  /**
+   * Used by {@link #errorStatus(String, Response, int, boolean)}, whose message is built lazily.
+   */
+  private FeignException(int status, Request request, byte[] responseBody,
+      boolean writableStackTrace) {
+    super(null, null, true, writableStackTrace);
+    this.status = status;
+    this.responseBody = responseBody;
+    this.request = checkRequestNotNull(request);
+  }
+
   private Request checkRequestNotNull(Request request) {
     return checkNotNull(request, EXCEPTION_MESSAGE_TEMPLATE_NULL_REQUEST);
   }
@@ -103,6 +119,24 @@ public class FeignException extends RuntimeException {
     return this.status;
   }
 
+  @Override
+  public String getMessage() {
+    FeignExceptionMessageBuilder builder = this.messageBuilder;
+    if (builder != null) {
+      lazyMessage = builder.build();
+      messageBuilder = null;
+    }
+    return lazyMessage != null ? lazyMessage : super.getMessage();
+  }
+
+  /**
+   * Builds the lazy message first, as its builder is not kept.
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    getMessage();
+    out.defaultWriteObject();
+  }
+
   /**
    * The Response Body, if present.
    *
@@ -152,34 +186,59 @@ public class FeignException extends RuntimeException {
   }
 
   public static FeignException errorStatus(String methodKey, Response response) {
+    return errorStatus(methodKey, response, Integer.MAX_VALUE, true);
+  }
 
-    byte[] body = {};
-    try {
-      if (response.body() != null) {
-        body = Util.toByteArray(response.body().asInputStream());
-      }
-    } catch (IOException ignored) { // NOPMD
+  /**
+   * Creates the exception for an error response, as {@link #errorStatus(String, Response)} does.
+   * Its message is only formatted when first asked for, as services using error statuses for
+   * control flow seldom read it.
+   *
+   * @param maxBodyBytes the most bytes of the body kept by the exception, the rest is not read.
+   * @param clientErrorStackTraces whether exceptions for {@code 4xx} statuses capture the stack
+   *        trace, which is most of the cost of creating them.
+   */
+  public static FeignException errorStatus(String methodKey,
+                                           Response response,
+                                           int maxBodyBytes,
+                                           boolean clientErrorStackTraces) {
+    byte[] body = readBody(response, maxBodyBytes);
+    int status = response.status();
+    FeignException exception;
+    if (isClientError(status)) {
+      exception = clientErrorStatus(status, response.request(), body, clientErrorStackTraces);
+    } else if (isServerError(status)) {
+      exception = serverErrorStatus(status, response.request(), body);
+    } else {
+      exception = new FeignException(status, response.request(), body, true);
     }
-
-    String message = new FeignExceptionMessageBuilder()
-        .withResponse(response)
-        .withMethodKey(methodKey)
-        .withBody(body).build();
-
-    return errorStatus(response.status(), message, response.request(), body);
+    exception.messageBuilder = new FeignExceptionMessageBuilder(response, methodKey, body);
+    return exception;
   }
 
-  private static FeignException errorStatus(int status,
-                                            String message,
-                                            Request request,
-                                            byte[] body) {
-    if (isClientError(status)) {
-      return clientErrorStatus(status, message, request, body);
+  private static byte[] readBody(Response response, int maxBodyBytes) {
+    if (response.body() == null) {
+      return new byte[0];
     }
-    if (isServerError(status)) {
-      return serverErrorStatus(status, message, request, body);
+    try {
+      InputStream in = response.body().asInputStream();
+      if (maxBodyBytes == Integer.MAX_VALUE) {
+        return Util.toByteArray(in);
+      }
+      Integer length = response.body().length();
+      byte[] body = new byte[length != null ? Math.min(length, maxBodyBytes) : maxBodyBytes];
+      int read = 0;
+      while (read < body.length) {
+        int count = in.read(body, read, body.length - read);
+        if (count == -1) {
+          break;
+        }
+        read += count;
+      }
+      return read == body.length ? body : Arrays.copyOf(body, read);
+    } catch (IOException ignored) { // NOPMD
+      return new byte[0];
     }
-    return new FeignException(status, message, request, body);
   }
 
   private static boolean isClientError(int status) {
@@ -187,34 +246,34 @@ public class FeignException extends RuntimeException {
   }
 
   private static FeignClientException clientErrorStatus(int status,
-                                                        String message,
                                                         Request request,
-                                                        byte[] body) {
+                                                        byte[] body,
+                                                        boolean stackTrace) {
     switch (status) {
       case 400:
-        return new BadRequest(message, request, body);
+        return new BadRequest(request, body, stackTrace);
       case 401:
-        return new Unauthorized(message, request, body);
+        return new Unauthorized(request, body, stackTrace);
       case 403:
-        return new Forbidden(message, request, body);
+        return new Forbidden(request, body, stackTrace);
       case 404:
-        return new NotFound(message, request, body);
+        return new NotFound(request, body, stackTrace);
       case 405:
-        return new MethodNotAllowed(message, request, body);
+        return new MethodNotAllowed(request, body, stackTrace);
       case 406:
-        return new NotAcceptable(message, request, body);
+        return new NotAcceptable(request, body, stackTrace);
       case 409:
-        return new Conflict(message, request, body);
+        return new Conflict(request, body, stackTrace);
       case 410:
-        return new Gone(message, request, body);
+        return new Gone(request, body, stackTrace);
       case 415:
-        return new UnsupportedMediaType(message, request, body);
+        return new UnsupportedMediaType(request, body, stackTrace);
       case 429:
-        return new TooManyRequests(message, request, body);
+        return new TooManyRequests(request, body, stackTrace);
       case 422:
-        return new UnprocessableEntity(message, request, body);
+        return new UnprocessableEntity(request, body, stackTrace);
       default:
-        return new FeignClientException(status, message, request, body);
+        return new FeignClientException(status, request, body, stackTrace);
     }
   }
 
@@ -223,22 +282,21 @@ public class FeignException extends RuntimeException {
   }
 
   private static FeignServerException serverErrorStatus(int status,
-                                                        String message,
                                                         Request request,
                                                         byte[] body) {
     switch (status) {
       case 500:
-        return new InternalServerError(message, request, body);
+        return new InternalServerError(null, request, body);
       case 501:
-        return new NotImplemented(message, request, body);
+        return new NotImplemented(null, request, body);
       case 502:
-        return new BadGateway(message, request, body);
+        return new BadGateway(null, request, body);
       case 503:
-        return new ServiceUnavailable(message, request, body);
+        return new ServiceUnavailable(null, request, body);
       case 504:
-        return new GatewayTimeout(message, request, body);
+        return new GatewayTimeout(null, request, body);
       default:
-        return new FeignServerException(status, message, request, body);
+        return new FeignServerException(status, null, request, body);
     }
   }
 
@@ -255,6 +313,10 @@ public class FeignException extends RuntimeException {
     public FeignClientException(int status, String message, Request request, byte[] body) {
       super(status, message, request, body);
     }
+
+    private FeignClientException(int status, Request request, byte[] body, boolean stackTrace) {
+      super(status, request, body, stackTrace);
+    }
   }
 
 
@@ -262,6 +324,10 @@ public class FeignException extends RuntimeException {
     public BadRequest(String message, Request request, byte[] body) {
       super(400, message, request, body);
     }
+
+    private BadRequest(Request request, byte[] body, boolean stackTrace) {
+      super(400, request, body, stackTrace);
+    }
   }
 
 
@@ -269,6 +335,10 @@ public class FeignException extends RuntimeException {
     public Unauthorized(String message, Request request, byte[] body) {
       super(401, message, request, body);
     }
+
+    private Unauthorized(Request request, byte[] body, boolean stackTrace) {
+      super(401, request, body, stackTrace);
+    }
   }
 
 
@@ -276,6 +346,10 @@ public class FeignException extends RuntimeException {
     public Forbidden(String message, Request request, byte[] body) {
       super(403, message, request, body);
     }
+
+    private Forbidden(Request request, byte[] body, boolean stackTrace) {
+      super(403, request, body, stackTrace);
+    }
   }
 
 
@@ -283,6 +357,10 @@ public class FeignException extends RuntimeException {
     public NotFound(String message, Request request, byte[] body) {
       super(404, message, request, body);
     }
+
+    private NotFound(Request request, byte[] body, boolean stackTrace) {
+      super(404, request, body, stackTrace);
+    }
   }
 
 
@@ -290,6 +368,10 @@ public class FeignException extends RuntimeException {
     public MethodNotAllowed(String message, Request request, byte[] body) {
       super(405, message, request, body);
     }
+
+    private MethodNotAllowed(Request request, byte[] body, boolean stackTrace) {
+      super(405, request, body, stackTrace);
+    }
   }
 
 
@@ -297,6 +379,10 @@ public class FeignException extends RuntimeException {
     public NotAcceptable(String message, Request request, byte[] body) {
       super(406, message, request, body);
     }
+
+    private NotAcceptable(Request request, byte[] body, boolean stackTrace) {
+      super(406, request, body, stackTrace);
+    }
   }
 
 
@@ -304,6 +390,10 @@ public class FeignException extends RuntimeException {
     public Conflict(String message, Request request, byte[] body) {
       super(409, message, request, body);
     }
+
+    private Conflict(Request request, byte[] body, boolean stackTrace) {
+      super(409, request, body, stackTrace);
+    }
   }
 
 
@@ -311,6 +401,10 @@ public class FeignException extends RuntimeException {
     public Gone(String message, Request request, byte[] body) {
       super(410, message, request, body);
     }
+
+    private Gone(Request request, byte[] body, boolean stackTrace) {
+      super(410, request, body, stackTrace);
+    }
   }
 
 
@@ -318,6 +412,10 @@ public class FeignException extends RuntimeException {
     public UnsupportedMediaType(String message, Request request, byte[] body) {
       super(415, message, request, body);
     }
+
+    private UnsupportedMediaType(Request request, byte[] body, boolean stackTrace) {
+      super(415, request, body, stackTrace);
+    }
   }
 
 
@@ -325,6 +423,10 @@ public class FeignException extends RuntimeException {
     public TooManyRequests(String message, Request request, byte[] body) {
       super(429, message, request, body);
     }
+
+    private TooManyRequests(Request request, byte[] body, boolean stackTrace) {
+      super(429, request, body, stackTrace);
+    }
   }
 
 
@@ -332,6 +434,10 @@ public class FeignException extends RuntimeException {
     public UnprocessableEntity(String message, Request request, byte[] body) {
       super(422, message, request, body);
     }
+
+    private UnprocessableEntity(Request request, byte[] body, boolean stackTrace) {
+      super(422, request, body, stackTrace);
+    }
   }
 
 
@@ -377,49 +483,53 @@ public class FeignException extends RuntimeException {
   }
 
 
+  /**
+   * Formats the message of an error status exception. It keeps what it needs rather than the
+   * response, so the response is not retained by exceptions whose message is never asked for.
+   */
   private static class FeignExceptionMessageBuilder {
 
     private static final int MAX_BODY_BYTES_LENGTH = 400;
     private static final int MAX_BODY_CHARS_LENGTH = 200;
-
-    private Response response;
-
-    private byte[] body;
-    private String methodKey;
-
-    public FeignExceptionMessageBuilder withResponse(Response response) {
-      this.response = response;
-      return this;
-    }
-
-    public FeignExceptionMessageBuilder withBody(byte[] body) {
-      this.body = body;
-      return this;
-    }
-
-    public FeignExceptionMessageBuilder withMethodKey(String methodKey) {
+    private static final Pattern CHARSET = Pattern.compile("charset=\\s*\"?([^\\s;\"]+)",
+        Pattern.CASE_INSENSITIVE);
+
+    private final int status;
+    private final String reason;
+    private final Request.HttpMethod httpMethod;
+    private final String url;
+    private final String methodKey;
+    private final byte[] body;
+    private final String contentType;
+
+    FeignExceptionMessageBuilder(Response response, String methodKey, byte[] body) {
+      this.status = response.status();
+      this.reason = response.reason();
+      this.httpMethod = response.request().httpMethod();
+      this.url = response.request().url();
       this.methodKey = methodKey;
-      return this;
+      this.body = body;
+      Collection<String> contentTypes = response.headers().get("content-type");
+      this.contentType = contentTypes == null || contentTypes.isEmpty() ? null
+          : contentTypes.iterator().next();
     }
 
-    public String build() {
-      StringBuilder result = new StringBuilder();
-
-      if (response.reason() != null) {
-        result.append(format("[%d %s]", response.status(), response.reason()));
-      } else {
-        result.append(format("[%d]", response.status()));
+    String build() {
+      StringBuilder result = new StringBuilder(96 + Math.min(body.length, MAX_BODY_BYTES_LENGTH));
+      result.append('[').append(status);
+      if (reason != null) {
+        result.append(' ').append(reason);
       }
-      result.append(format(" during [%s] to [%s] [%s]", response.request().httpMethod(),
-          response.request().url(), methodKey));
-
-      result.append(format(": [%s]", getBodyAsString(body, response.headers())));
-
+      result.append("] during [").append(httpMethod)
+          .append("] to [").append(url)
+          .append("] [").append(methodKey)
+          .append("]: [").append(getBodyAsString())
+          .append(']');
       return result.toString();
     }
 
-    private static String getBodyAsString(byte[] body, Map<String, Collection<String>> headers) {
-      Charset charset = getResponseCharset(headers);
+    private String getBodyAsString() {
+      Charset charset = getResponseCharset();
       if (charset == null) {
         charset = Util.UTF_8;
       }
@@ -447,25 +557,21 @@ public class FeignException extends RuntimeException {
       }
     }
 
-    private static Charset getResponseCharset(Map<String, Collection<String>> headers) {
-
-      Collection<String> strings = headers.get("content-type");
-      if (strings == null || strings.size() == 0) {
+    private Charset getResponseCharset() {
+      if (contentType == null) {
         return null;
       }
-
-      Pattern pattern = Pattern.compile("charset=([^\\s])");
-      Matcher matcher = pattern.matcher(strings.iterator().next());
-      if (!matcher.lookingAt()) {
+      Matcher matcher = CHARSET.matcher(contentType);
+      if (!matcher.find()) {
         return null;
       }
-
       String group = matcher.group(1);
-      if (!Charset.isSupported(group)) {
+      try {
+        return Charset.isSupported(group) ? Charset.forName(group) : null;
+      } catch (IllegalArgumentException e) {
+        // illegal charset name
         return null;
       }
-      return Charset.forName(group);
-
     }
   }
 }
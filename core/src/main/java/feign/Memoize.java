@@ -0,0 +1,63 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Reuses the decoded result of a method for the same arguments, until it is older than
+ * {@link #ttl()}. A hit skips the whole request pipeline: no template is built, no interceptor runs
+ * and nothing is sent. Arguments are compared with {@code equals}, arrays by content, and
+ * {@link Request.Options} and {@link Deadline} arguments are ignored. Failures are not memoized.
+ * <br>
+ * ex. <br>
+ *
+ * <pre>
+ * &#064;Memoize(ttl = 1, unit = TimeUnit.HOURS, maxSize = 100)
+ * &#064;RequestLine(&quot;GET /currencies/{code}&quot;)
+ * Currency currency(&#64;Param(&quot;code&quot;) String code);
+ * </pre>
+ *
+ * <br>
+ * The same instance is returned to every caller, so memoized results should not be modified.
+ */
+@Experimental
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Memoize {
+
+  /**
+   * How long a result is reused, in {@link #unit()}.
+   */
+  long ttl();
+
+  TimeUnit unit() default TimeUnit.SECONDS;
+
+  /**
+   * Number of argument tuples remembered, the least recently used are forgotten first.
+   */
+  int maxSize() default 1000;
+
+  /**
+   * Age, in {@link #unit()}, after which a hit on a method returning {@link CompletableFuture} also
+   * refreshes the result in the background, so it is replaced before it expires. {@code 0} disables
+   * refreshing ahead.
+   */
+  long refreshAfter() default 0;
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import feign.Request.Options;
+
+/**
+ * Results of a {@link Memoize memoized} method, by argument tuple. Synchronous results are stored
+ * once decoded. Futures are stored as soon as they are returned, so concurrent calls share the
+ * request in flight, and are dropped if they fail.
+ */
+final class Memoizer {
+
+  interface Loader {
+
+    Object load() throws Throwable;
+  }
+
+  private final long ttlNanos;
+  private final long refreshAfterNanos;
+  private final LongSupplier nanoTime;
+  private final LinkedHashMap<Key, Entry> entries;
+
+  Memoizer(Memoize memoize) {
+    this(memoize, System::nanoTime);
+  }
+
+  Memoizer(Memoize memoize, LongSupplier nanoTime) {
+    this.ttlNanos = memoize.unit().toNanos(memoize.ttl());
+    this.refreshAfterNanos = memoize.unit().toNanos(memoize.refreshAfter());
+    this.nanoTime = nanoTime;
+    final int maxSize = memoize.maxSize();
+    this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  Object get(Object[] argv, Loader loader) throws Throwable {
+    Key key = new Key(argv);
+    long now = nanoTime.getAsLong();
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry != null && now - entry.loadedNanos >= ttlNanos) {
+        entries.remove(key);
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      return load(key, loader, now);
+    }
+    if (entry.future == null) {
+      return entry.value;
+    }
+    if (refreshAfterNanos > 0 && now - entry.loadedNanos >= refreshAfterNanos
+        && entry.refreshing.compareAndSet(false, true)) {
+      refresh(key, entry, loader, now);
+    }
+    return copy(entry.future);
+  }
+
+  private Object load(Key key, Loader loader, long now) throws Throwable {
+    Object value = loader.load();
+    if (!(value instanceof CompletableFuture)) {
+      put(key, new Entry(now, value, null));
+      return value;
+    }
+    CompletableFuture<?> future = (CompletableFuture<?>) value;
+    Entry entry = new Entry(now, null, future);
+    put(key, entry);
+    future.whenComplete((result, error) -> {
+      if (error != null) {
+        remove(key, entry);
+      }
+    });
+    return copy(future);
+  }
+
+  private void refresh(Key key, Entry stale, Loader loader, long now) {
+    Object value;
+    try {
+      value = loader.load();
+    } catch (Throwable e) {
+      // the current result is still valid, the next hit will try again
+      stale.refreshing.set(false);
+      return;
+    }
+    if (!(value instanceof CompletableFuture)) {
+      replace(key, stale, new Entry(now, value, null));
+      return;
+    }
+    CompletableFuture<?> future = (CompletableFuture<?>) value;
+    future.whenComplete((result, error) -> {
+      if (error == null) {
+        replace(key, stale, new Entry(now, null, future));
+      } else {
+        stale.refreshing.set(false);
+      }
+    });
+  }
+
+  private void put(Key key, Entry entry) {
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+  }
+
+  private void replace(Key key, Entry expected, Entry entry) {
+    synchronized (entries) {
+      if (entries.get(key) == expected) {
+        entries.put(key, entry);
+      }
+    }
+  }
+
+  private void remove(Key key, Entry expected) {
+    synchronized (entries) {
+      if (entries.get(key) == expected) {
+        entries.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Each caller gets its own future, so completing or cancelling it does not affect the others.
+   */
+  private static CompletableFuture<?> copy(CompletableFuture<?> future) {
+    return future.thenApply(Function.identity());
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private static final class Entry {
+
+    final long loadedNanos;
+    final Object value;
+    final CompletableFuture<?> future;
+    final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(long loadedNanos, Object value, CompletableFuture<?> future) {
+      this.loadedNanos = loadedNanos;
+      this.value = value;
+      this.future = future;
+    }
+  }
+
+  private static final class Key {
+
+    private final Object[] args;
+    private final int hashCode;
+
+    Key(Object[] argv) {
+      this.args = argv == null ? new Object[0]
+          : Arrays.stream(argv)
+              .filter(arg -> !(arg instanceof Options) && !(arg instanceof Deadline))
+              .toArray();
+      this.hashCode = Arrays.deepHashCode(args);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && Arrays.deepEquals(args, ((Key) obj).args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -31,19 +31,34 @@ class MethodInfo {
   }
 
   MethodInfo(Class<?> targetType, Method method) {
+    this(targetType, method, null);
+  }
+
+  MethodInfo(Class<?> targetType, Method method, AsyncReturnTypeAdapter returnTypeAdapter) {
     this.configKey = Feign.configKey(targetType, method);
 
     final Type type = method.getGenericReturnType();
 
-    if (method.getReturnType() != CompletableFuture.class) {
+    if (isAdapted(method.getReturnType(), returnTypeAdapter)) {
+      this.asyncReturnType = true;
+      this.underlyingReturnType = returnTypeAdapter.underlyingType((ParameterizedType) type);
+    } else if (method.getReturnType() != CompletableFuture.class) {
       this.asyncReturnType = false;
       this.underlyingReturnType = type;
-    } else {
+    } else if (type instanceof ParameterizedType) {
       this.asyncReturnType = true;
       this.underlyingReturnType = ((ParameterizedType) type).getActualTypeArguments()[0];
+    } else {
+      // rejected by ReflectiveAsyncFeign once the handlers are created
+      this.asyncReturnType = true;
+      this.underlyingReturnType = Object.class;
     }
   }
 
+  private static boolean isAdapted(Class<?> returnType, AsyncReturnTypeAdapter returnTypeAdapter) {
+    return returnTypeAdapter != null && returnTypeAdapter.isAsyncReturnType(returnType);
+  }
+
   String configKey() {
     return configKey;
   }
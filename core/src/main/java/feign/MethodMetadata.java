@@ -43,6 +43,10 @@ public final class MethodMetadata implements Serializable {
   private boolean ignored;
   private transient Class<?> targetType;
   private transient Method method;
+  private transient Memoize memoize;
+  private transient CallTimeout callTimeout;
+  private transient Batch batch;
+  private transient String batchMethod;
   private transient final List<String> warnings = new ArrayList<>();
 
   MethodMetadata() {
@@ -242,6 +246,64 @@ public final class MethodMetadata implements Serializable {
     return method;
   }
 
+  @Experimental
+  public MethodMetadata memoize(Memoize memoize) {
+    this.memoize = memoize;
+    return this;
+  }
+
+  /**
+   * @return how results of this method are memoized, or {@code null} when they are not.
+   */
+  @Experimental
+  public Memoize memoize() {
+    return memoize;
+  }
+
+  @Experimental
+  public MethodMetadata callTimeout(CallTimeout callTimeout) {
+    this.callTimeout = callTimeout;
+    return this;
+  }
+
+  /**
+   * @return the bound on calls to this method, retries included, or {@code null} when the one of
+   *         the builder applies.
+   */
+  @Experimental
+  public CallTimeout callTimeout() {
+    return callTimeout;
+  }
+
+  @Experimental
+  public MethodMetadata batch(Batch batch) {
+    this.batch = batch;
+    return this;
+  }
+
+  /**
+   * @return how calls to this method are batched, or {@code null} when they are not.
+   */
+  @Experimental
+  public Batch batch() {
+    return batch;
+  }
+
+  @Experimental
+  public MethodMetadata batchMethod(String batchMethod) {
+    this.batchMethod = batchMethod;
+    return this;
+  }
+
+  /**
+   * @return the {@link #configKey() config key} of the method calls to this one are batched into,
+   *         or {@code null} when they are not.
+   */
+  @Experimental
+  public String batchMethod() {
+    return batchMethod;
+  }
+
   public void addWarning(String warning) {
     warnings.add(warning);
   }
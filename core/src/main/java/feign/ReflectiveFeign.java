@@ -120,6 +120,20 @@ public class ReflectiveFeign extends Feign {
     }
   }
 
+  /**
+   * Creates the handler of each method of a target, either {@link SynchronousMethodHandler} or
+   * {@link AsynchronousMethodHandler}.
+   */
+  interface MethodHandlerFactory {
+
+    MethodHandler create(Target<?> target,
+                         MethodMetadata md,
+                         RequestTemplate.Factory buildTemplateFromArgs,
+                         Options options,
+                         Decoder decoder,
+                         ErrorDecoder errorDecoder);
+  }
+
   static final class ParseHandlersByName {
 
     private final Contract contract;
@@ -128,7 +142,7 @@ public class ReflectiveFeign extends Feign {
     private final Decoder decoder;
     private final ErrorDecoder errorDecoder;
     private final QueryMapEncoder queryMapEncoder;
-    private final SynchronousMethodHandler.Factory factory;
+    private final MethodHandlerFactory factory;
 
     ParseHandlersByName(
         Contract contract,
@@ -137,7 +151,7 @@ public class ReflectiveFeign extends Feign {
         Decoder decoder,
         QueryMapEncoder queryMapEncoder,
         ErrorDecoder errorDecoder,
-        SynchronousMethodHandler.Factory factory) {
+        MethodHandlerFactory factory) {
       this.contract = contract;
       this.options = options;
       this.factory = factory;
@@ -169,6 +183,12 @@ public class ReflectiveFeign extends Feign {
               factory.create(target, md, buildTemplate, options, decoder, errorDecoder));
         }
       }
+      for (MethodMetadata md : metadata) {
+        if (md.batch() != null && !md.isIgnored()) {
+          result.put(md.configKey(),
+              new BatchingMethodHandler(md, result.get(md.batchMethod())));
+        }
+      }
       return result;
     }
   }
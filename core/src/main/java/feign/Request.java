@@ -194,6 +194,15 @@ public final class Request {
     return body.isBinary();
   }
 
+  /**
+   * @return whether the body is already in the {@code Content-Encoding} of this request.
+   * @see Body#contentEncoded(byte[])
+   */
+  @Experimental
+  public boolean isContentEncoded() {
+    return body.contentEncoded;
+  }
+
   /**
    * Request Length.
    *
@@ -378,6 +387,7 @@ public final class Request {
 
     private Charset encoding;
     private byte[] data;
+    private boolean contentEncoded;
 
     private Body() {
       super();
@@ -431,6 +441,17 @@ public final class Request {
       return new Body(data, charset);
     }
 
+    /**
+     * Creates a binary body which is already in the {@code Content-Encoding} of its request, ex.
+     * gzipped, so {@link Client.Default} sends it as it is instead of compressing it.
+     */
+    @Experimental
+    public static Body contentEncoded(byte[] data) {
+      Body body = new Body(data);
+      body.contentEncoded = true;
+      return body;
+    }
+
     /**
      * Creates a new Request Body with charset encoded data.
      *
@@ -26,6 +26,18 @@ public interface Retryer extends Cloneable {
    */
   void continueOrPropagate(RetryableException e);
 
+  /**
+   * if retry is permitted, return how many milliseconds to wait before it, without sleeping.
+   * Otherwise propagate the exception. Used by {@link AsyncFeign}, which schedules the next attempt
+   * instead of blocking a thread. Defaults to {@link #continueOrPropagate(RetryableException)},
+   * which may sleep, for implementations that don't override it.
+   */
+  @Experimental
+  default long nextBackoff(RetryableException e) {
+    continueOrPropagate(e);
+    return 0;
+  }
+
   Retryer clone();
 
   class Default implements Retryer {
@@ -53,21 +65,9 @@ public interface Retryer extends Cloneable {
     }
 
     public void continueOrPropagate(RetryableException e) {
-      if (attempt++ >= maxAttempts) {
-        throw e;
-      }
-
-      long interval;
-      if (e.retryAfter() != null) {
-        interval = e.retryAfter().getTime() - currentTimeMillis();
-        if (interval > maxPeriod) {
-          interval = maxPeriod;
-        }
-        if (interval < 0) {
-          return;
-        }
-      } else {
-        interval = nextMaxInterval();
+      long interval = nextBackoff(e);
+      if (interval <= 0) {
+        return;
       }
       try {
         Thread.sleep(interval);
@@ -78,6 +78,30 @@ public interface Retryer extends Cloneable {
       sleptForMillis += interval;
     }
 
+    @Override
+    public long nextBackoff(RetryableException e) {
+      if (attempt++ >= maxAttempts) {
+        throw e;
+      }
+      if (e.retryAfter() != null) {
+        long interval = e.retryAfter().getTime() - currentTimeMillis();
+        return Math.max(0, Math.min(interval, maxPeriod));
+      }
+      return nextMaxInterval();
+    }
+
+    /**
+     * @return the milliseconds {@link #continueOrPropagate(RetryableException)} would sleep before
+     *         retrying {@code e}.
+     */
+    long backoff(RetryableException e) {
+      if (e.retryAfter() != null) {
+        long interval = e.retryAfter().getTime() - currentTimeMillis();
+        return Math.max(0, Math.min(interval, maxPeriod));
+      }
+      return nextMaxInterval();
+    }
+
     /**
      * Calculates the time interval to a retry attempt. <br>
      * The interval increases exponentially with each attempt, at a rate of nextInterval *= 1.5
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The timer thread shared by Feign's deadlines, hedges, rate limits and batch windows, so they do
+ * not each keep an idle thread. Tasks must be quick and must not block; it is a daemon thread, and
+ * must not be shut down. Public only for the capabilities in other packages.
+ */
+@Experimental
+public final class SharedScheduler {
+
+  private SharedScheduler() {}
+
+  public static ScheduledExecutorService instance() {
+    return Holder.instance;
+  }
+
+  private static class Holder {
+
+    private static final ScheduledExecutorService instance =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "feign-scheduler");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+}
@@ -15,12 +15,15 @@ package feign;
 
 import feign.logger.FeignLogger;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
+import feign.FeignEventListener.Stage;
 import feign.InvocationHandlerFactory.MethodHandler;
+import feign.ReflectiveFeign.MethodHandlerFactory;
 import feign.Request.Options;
 import feign.codec.Decoder;
 import feign.codec.ErrorDecoder;
@@ -32,6 +35,11 @@ final class SynchronousMethodHandler implements MethodHandler {
 
   private static final long MAX_RESPONSE_BUFFER_SIZE = 8192L;
 
+  /**
+   * Below this, an attempt left after the backoff is not worth sending.
+   */
+  static final long MIN_ATTEMPT_MILLIS = 10;
+
   private final MethodMetadata metadata;
   private final Target<?> target;
   private final Client client;
@@ -43,10 +51,11 @@ final class SynchronousMethodHandler implements MethodHandler {
   private final RequestTemplate.Factory buildTemplateFromArgs;
   private final Options options;
   private final ExceptionPropagationPolicy propagationPolicy;
-
-  // only one of decoder and asyncResponseHandler will be non-null
-  private final Decoder decoder;
+  private final Memoizer memoizer;
+  private final long callTimeoutNanos;
+  private final String deadlineHeader;
   private final AsyncResponseHandler asyncResponseHandler;
+  private final FeignEventListener eventListener;
 
 
   private SynchronousMethodHandler(Target<?> target, Client client, Retryer retryer,
@@ -55,7 +64,8 @@ final class SynchronousMethodHandler implements MethodHandler {
       RequestTemplate.Factory buildTemplateFromArgs, Options options,
       Decoder decoder, ErrorDecoder errorDecoder, boolean decode404,
       boolean closeAfterDecode, ExceptionPropagationPolicy propagationPolicy,
-      boolean forceDecoding, FeignLogger feignLogger) {
+      FeignLogger feignLogger, long callTimeoutNanos, String deadlineHeader,
+      FeignEventListener eventListener) {
 
     this.target = checkNotNull(target, "target");
     this.client = checkNotNull(client, "client for %s", target);
@@ -69,29 +79,66 @@ final class SynchronousMethodHandler implements MethodHandler {
     this.options = checkNotNull(options, "options for %s", target);
     this.propagationPolicy = propagationPolicy;
     this.feignLogger = feignLogger;
-
-    if (forceDecoding) {
-      // internal only: usual handling will be short-circuited, and all responses will be passed to
-      // decoder directly!
-      this.decoder = decoder;
-      this.asyncResponseHandler = null;
-    } else {
-      this.decoder = null;
-      this.asyncResponseHandler = new AsyncResponseHandler(logLevel, logger, decoder, errorDecoder,
-          decode404, closeAfterDecode, feignLogger);
-    }
+    this.memoizer = metadata.memoize() == null ? null : new Memoizer(metadata.memoize());
+    CallTimeout callTimeout = metadata.callTimeout();
+    this.callTimeoutNanos =
+        callTimeout != null ? callTimeout.unit().toNanos(callTimeout.value()) : callTimeoutNanos;
+    this.deadlineHeader = deadlineHeader;
+    this.asyncResponseHandler = new AsyncResponseHandler(logLevel, logger, decoder, errorDecoder,
+        decode404, closeAfterDecode, feignLogger);
+    this.eventListener = eventListener;
   }
 
   @Override
   public Object invoke(Object[] argv) throws Throwable {
-    RequestTemplate template = buildTemplateFromArgs.create(argv);
-    Options options = findOptions(argv);
+    if (memoizer != null) {
+      return memoizer.get(argv, () -> execute(argv));
+    }
+    return execute(argv);
+  }
+
+  private Object execute(Object[] argv) throws Throwable {
+    if (eventListener == null) {
+      return execute(argv, null);
+    }
+    Object call = eventListener.callStarted(metadata, target, System.nanoTime());
+    try {
+      Object result = execute(argv, call);
+      eventListener.callEnded(call, null, System.nanoTime());
+      return result;
+    } catch (Throwable e) {
+      eventListener.callEnded(call, e, System.nanoTime());
+      throw e;
+    }
+  }
+
+  private Object execute(Object[] argv, Object call) throws Throwable {
+    long resolveStart = stageStart();
+    RequestTemplate template;
+    try {
+      template = buildTemplateFromArgs.create(argv);
+    } finally {
+      stageEnded(call, Stage.RESOLVE, resolveStart);
+    }
+    Options options = findOptions(argv, this.options);
+    Deadline deadline = findDeadline(argv, callTimeoutNanos);
     Retryer retryer = this.retryer.clone();
+    RetryableException lastFailure = null;
     while (true) {
       try {
-        return executeAndDecode(template, options);
+        if (deadline == null) {
+          return executeAndDecode(template, options, call);
+        }
+        return executeAndDecode(template,
+            attemptOptions(metadata, deadlineHeader, template, options, deadline, lastFailure),
+            call);
       } catch (RetryableException e) {
+        lastFailure = e;
+        long retryStart = stageStart();
         try {
+          if (deadline != null && noTimeToRetry(deadline, retryer, e)) {
+            throw e;
+          }
           retryer.continueOrPropagate(e);
         } catch (RetryableException th) {
           Throwable cause = th.getCause();
@@ -100,6 +147,8 @@ final class SynchronousMethodHandler implements MethodHandler {
           } else {
             throw th;
           }
+        } finally {
+          stageEnded(call, Stage.RETRY, retryStart);
         }
         feignLogger.logRetry(null);
         if (logLevel != Logger.Level.NONE) {
@@ -110,8 +159,60 @@ final class SynchronousMethodHandler implements MethodHandler {
     }
   }
 
-  Object executeAndDecode(RequestTemplate template, Options options) throws Throwable {
-    Request request = targetRequest(template);
+  /**
+   * Shrinks the timeouts of an attempt to the time left, and forwards it when a deadline header is
+   * configured.
+   */
+  static Options attemptOptions(MethodMetadata metadata,
+                                String deadlineHeader,
+                                RequestTemplate template,
+                                Options options,
+                                Deadline deadline,
+                                RetryableException lastFailure) {
+    long remaining = deadline.remaining(TimeUnit.MILLISECONDS);
+    if (remaining <= 0) {
+      throw new DeadlineExceededException(
+          "Deadline exceeded before executing " + metadata.configKey(), lastFailure);
+    }
+    if (deadlineHeader != null) {
+      template.removeHeader(deadlineHeader);
+      template.header(deadlineHeader, String.valueOf(remaining));
+    }
+    return new Options(
+        shrink(options.connectTimeoutMillis(), remaining), TimeUnit.MILLISECONDS,
+        shrink(options.readTimeoutMillis(), remaining), TimeUnit.MILLISECONDS,
+        options.isFollowRedirects());
+  }
+
+  /**
+   * @return whether the time left is too short for the backoff and another attempt. The backoff is
+   *         known for {@link Retryer.Default} and for a {@code Retry-After}, otherwise only the
+   *         attempt counts.
+   */
+  static boolean noTimeToRetry(Deadline deadline, Retryer retryer, RetryableException e) {
+    long backoff = 0;
+    if (retryer instanceof Retryer.Default) {
+      backoff = ((Retryer.Default) retryer).backoff(e);
+    } else if (e.retryAfter() != null) {
+      backoff = Math.max(0, e.retryAfter().getTime() - System.currentTimeMillis());
+    }
+    return deadline.remaining(TimeUnit.MILLISECONDS) - backoff < MIN_ATTEMPT_MILLIS;
+  }
+
+  private static long shrink(int timeoutMillis, long remaining) {
+    // zero means no timeout
+    return timeoutMillis <= 0 ? remaining : Math.min(timeoutMillis, remaining);
+  }
+
+  Object executeAndDecode(RequestTemplate template, Options options, Object call)
+      throws Throwable {
+    long interceptStart = stageStart();
+    Request request;
+    try {
+      request = targetRequest(template);
+    } finally {
+      stageEnded(call, Stage.INTERCEPT, interceptStart);
+    }
 
     String requestKey = feignLogger.logRequest(request);
     if (logLevel != Logger.Level.NONE) {
@@ -133,17 +234,20 @@ final class SynchronousMethodHandler implements MethodHandler {
         logger.logIOException(metadata.configKey(), logLevel, e, elapsedTime(start));
       }
       throw errorExecuting(request, e);
+    } finally {
+      stageEnded(call, Stage.EXECUTE, start);
     }
     long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
 
-
-    if (decoder != null)
-      return decoder.decode(response, metadata.returnType());
-
     CompletableFuture<Object> resultFuture = new CompletableFuture<>();
-    asyncResponseHandler.handleResponse(resultFuture, metadata.configKey(), response,
-        metadata.returnType(),
-        elapsedTime, requestKey);
+    long decodeStart = stageStart();
+    try {
+      asyncResponseHandler.handleResponse(resultFuture, metadata.configKey(), response,
+          metadata.returnType(),
+          elapsedTime, requestKey);
+    } finally {
+      stageEnded(call, Stage.DECODE, decodeStart);
+    }
 
     try {
       if (!resultFuture.isDone())
@@ -162,6 +266,19 @@ final class SynchronousMethodHandler implements MethodHandler {
     return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
   }
 
+  /**
+   * @return the start of a stage, or nothing when no listener reports it.
+   */
+  private long stageStart() {
+    return eventListener != null ? System.nanoTime() : 0L;
+  }
+
+  private void stageEnded(Object call, Stage stage, long start) {
+    if (eventListener != null) {
+      eventListener.stageEnded(call, stage, start, System.nanoTime());
+    }
+  }
+
   Request targetRequest(RequestTemplate template) {
     for (RequestInterceptor interceptor : requestInterceptors) {
       interceptor.apply(template);
@@ -169,18 +286,35 @@ final class SynchronousMethodHandler implements MethodHandler {
     return target.apply(template);
   }
 
-  Options findOptions(Object[] argv) {
+  static Options findOptions(Object[] argv, Options options) {
     if (argv == null || argv.length == 0) {
-      return this.options;
+      return options;
     }
     return Stream.of(argv)
         .filter(Options.class::isInstance)
         .map(Options.class::cast)
         .findFirst()
-        .orElse(this.options);
+        .orElse(options);
+  }
+
+  /**
+   * @return the earlier of a {@link Deadline} argument and the configured call timeout, or
+   *         {@code null} when the call is not bounded.
+   */
+  static Deadline findDeadline(Object[] argv, long callTimeoutNanos) {
+    Deadline deadline =
+        callTimeoutNanos > 0 ? Deadline.after(callTimeoutNanos, TimeUnit.NANOSECONDS) : null;
+    if (argv != null) {
+      for (Object arg : argv) {
+        if (arg instanceof Deadline) {
+          return ((Deadline) arg).min(deadline);
+        }
+      }
+    }
+    return deadline;
   }
 
-  static class Factory {
+  static class Factory implements MethodHandlerFactory {
 
     private final Client client;
     private final Retryer retryer;
@@ -190,13 +324,15 @@ final class SynchronousMethodHandler implements MethodHandler {
     private final boolean decode404;
     private final boolean closeAfterDecode;
     private final ExceptionPropagationPolicy propagationPolicy;
-    private final boolean forceDecoding;
     private final FeignLogger feignLogger;
+    private final long callTimeoutNanos;
+    private final String deadlineHeader;
+    private final FeignEventListener eventListener;
 
     Factory(Client client, Retryer retryer, List<RequestInterceptor> requestInterceptors,
         Logger logger, Logger.Level logLevel, boolean decode404, boolean closeAfterDecode,
-        ExceptionPropagationPolicy propagationPolicy, boolean forceDecoding,
-        FeignLogger feignLogger) {
+        ExceptionPropagationPolicy propagationPolicy, FeignLogger feignLogger,
+        long callTimeoutNanos, String deadlineHeader, FeignEventListener eventListener) {
       this.client = checkNotNull(client, "client");
       this.retryer = checkNotNull(retryer, "retryer");
       this.requestInterceptors = checkNotNull(requestInterceptors, "requestInterceptors");
@@ -205,10 +341,13 @@ final class SynchronousMethodHandler implements MethodHandler {
       this.decode404 = decode404;
       this.closeAfterDecode = closeAfterDecode;
       this.propagationPolicy = propagationPolicy;
-      this.forceDecoding = forceDecoding;
       this.feignLogger = feignLogger;
+      this.callTimeoutNanos = callTimeoutNanos;
+      this.deadlineHeader = deadlineHeader;
+      this.eventListener = eventListener;
     }
 
+    @Override
     public MethodHandler create(Target<?> target,
                                 MethodMetadata md,
                                 RequestTemplate.Factory buildTemplateFromArgs,
@@ -217,7 +356,8 @@ final class SynchronousMethodHandler implements MethodHandler {
                                 ErrorDecoder errorDecoder) {
       return new SynchronousMethodHandler(target, client, retryer, requestInterceptors, logger,
           logLevel, md, buildTemplateFromArgs, options, decoder,
-          errorDecoder, decode404, closeAfterDecode, propagationPolicy, forceDecoding, feignLogger);
+          errorDecoder, decode404, closeAfterDecode, propagationPolicy, feignLogger,
+          callTimeoutNanos, deadlineHeader, eventListener);
     }
   }
 }
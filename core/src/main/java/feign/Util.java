@@ -145,6 +145,20 @@ public class Util {
         && method.getDeclaringClass().isInterface();
   }
 
+  /**
+   * @return the scheme and authority of {@code url}, ex. {@code https://api.github.com} of
+   *         {@code https://api.github.com/repos?page=2}, without parsing it.
+   */
+  public static String schemeAndAuthority(String url) {
+    int start = url.indexOf("://");
+    start = start < 0 ? 0 : start + 3;
+    int end = start;
+    while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != '?') {
+      end++;
+    }
+    return url.substring(0, end);
+  }
+
   /**
    * Adapted from {@code com.google.common.base.Strings#emptyToNull}.
    */
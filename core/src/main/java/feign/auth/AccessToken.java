@@ -0,0 +1,52 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.auth;
+
+import java.util.concurrent.TimeUnit;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+
+/**
+ * A token fetched by a {@link TokenProvider}, and how long it stays valid from the moment it was
+ * fetched, as in the {@code expires_in} of an OAuth token response.
+ */
+public final class AccessToken {
+
+  private final String value;
+  private final long expiresInNanos;
+
+  private AccessToken(String value, long expiresInNanos) {
+    this.value = checkNotNull(value, "value");
+    this.expiresInNanos = expiresInNanos;
+  }
+
+  public static AccessToken of(String value, long expiresIn, TimeUnit unit) {
+    checkArgument(expiresIn > 0, "expiresIn must be positive");
+    return new AccessToken(value, unit.toNanos(expiresIn));
+  }
+
+  public String value() {
+    return value;
+  }
+
+  public long expiresIn(TimeUnit unit) {
+    return unit.convert(expiresInNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    // never log the token itself
+    return "AccessToken(expiresInMillis=" + expiresIn(TimeUnit.MILLISECONDS) + ")";
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.auth;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the refreshes of a {@link TokenRequestInterceptor}, and the requests which waited for one.
+ */
+public final class TokenMetrics {
+
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder refreshNanos = new LongAdder();
+  private final LongAccumulator maxRefreshNanos = new LongAccumulator(Math::max, 0);
+  private final LongAdder blocked = new LongAdder();
+
+  TokenMetrics() {}
+
+  /**
+   * @return number of tokens fetched.
+   */
+  public long refreshes() {
+    return refreshes.sum();
+  }
+
+  /**
+   * @return number of fetches which failed.
+   */
+  public long failures() {
+    return failures.sum();
+  }
+
+  /**
+   * @return total time spent fetching tokens, including failed fetches.
+   */
+  public long refreshTime(TimeUnit unit) {
+    return unit.convert(refreshNanos.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return longest time spent fetching a token.
+   */
+  public long maxRefreshTime(TimeUnit unit) {
+    return unit.convert(maxRefreshNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return number of requests which had no valid token, so waited for a fetch.
+   */
+  public long blocked() {
+    return blocked.sum();
+  }
+
+  void refresh(long nanos) {
+    refreshes.increment();
+    record(nanos);
+  }
+
+  void fail(long nanos) {
+    failures.increment();
+    record(nanos);
+  }
+
+  void block() {
+    blocked.increment();
+  }
+
+  private void record(long nanos) {
+    refreshNanos.add(nanos);
+    maxRefreshNanos.accumulate(nanos);
+  }
+
+  @Override
+  public String toString() {
+    return "TokenMetrics(refreshes=" + refreshes() + ", failures=" + failures()
+        + ", maxRefreshMillis=" + maxRefreshTime(TimeUnit.MILLISECONDS) + ", blocked="
+        + blocked() + ")";
+  }
+}
@@ -0,0 +1,288 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.auth;
+
+import feign.AsyncRequestInterceptor;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+
+/**
+ * Adds a token from a {@link TokenProvider} to every request, by default as
+ * {@code Authorization: Bearer <token>}. Ex.
+ *
+ * <pre>
+ * TokenRequestInterceptor tokens = TokenRequestInterceptor.builder(oauthClient::fetchToken)
+ *     .refreshAhead(1, TimeUnit.MINUTES)
+ *     .build();
+ * GitHub github = Feign.builder()
+ *     .requestInterceptor(tokens)
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * The token is cached until it expires. Once a request sees it is about to, it is refreshed in the
+ * background while requests keep using the valid one, so only the very first request, or requests
+ * after a token actually expired, wait for the provider. Only one refresh is ever in flight.
+ * {@link #asyncInterceptor()} adapts this interceptor to {@link feign.AsyncFeign}, where no thread
+ * waits for the provider.
+ */
+public class TokenRequestInterceptor implements RequestInterceptor {
+
+  private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+  private final TokenProvider provider;
+  private final String header;
+  private final String scheme;
+  private final long refreshAheadNanos;
+  private final Executor executor;
+  private final LongSupplier nanoTime;
+  private final TokenMetrics metrics = new TokenMetrics();
+  private final AtomicReference<CompletableFuture<Entry>> refreshing = new AtomicReference<>();
+  private volatile Entry current;
+
+  private TokenRequestInterceptor(Builder builder) {
+    this.provider = builder.provider;
+    this.header = builder.header;
+    this.scheme = builder.scheme;
+    this.refreshAheadNanos = builder.refreshAheadNanos;
+    this.executor = builder.executor != null ? builder.executor : DefaultExecutor.instance;
+    this.nanoTime = builder.nanoTime;
+  }
+
+  public static Builder builder(TokenProvider provider) {
+    return new Builder(provider);
+  }
+
+  @Override
+  public void apply(RequestTemplate template) {
+    Entry entry = validEntry();
+    if (entry == null) {
+      metrics.block();
+      try {
+        entry = refresh().join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw new UncheckedIOException((IOException) cause);
+        }
+        throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+      }
+    }
+    setHeader(template, entry);
+  }
+
+  /**
+   * @return this interceptor for {@link feign.AsyncFeign.AsyncBuilder#asyncRequestInterceptor}:
+   *         requests without a valid token are sent once it is fetched, instead of waiting for it.
+   */
+  public AsyncRequestInterceptor asyncInterceptor() {
+    return template -> {
+      Entry entry = validEntry();
+      if (entry != null) {
+        setHeader(template, entry);
+        return DONE;
+      }
+      metrics.block();
+      return refresh().thenAccept(fetched -> setHeader(template, fetched));
+    };
+  }
+
+  /**
+   * @return counts of the refreshes of this interceptor.
+   */
+  public TokenMetrics metrics() {
+    return metrics;
+  }
+
+  /**
+   * @return the current token if it is still valid, after starting a background refresh when it is
+   *         about to expire.
+   */
+  private Entry validEntry() {
+    Entry entry = current;
+    if (entry == null) {
+      return null;
+    }
+    long now = nanoTime.getAsLong();
+    if (now - entry.expiresAtNanos >= 0) {
+      return null;
+    }
+    if (now - entry.refreshAtNanos >= 0) {
+      refresh();
+    }
+    return entry;
+  }
+
+  private void setHeader(RequestTemplate template, Entry entry) {
+    // retries apply the interceptor again
+    template.removeHeader(header);
+    template.header(header, entry.headerValue);
+  }
+
+  /**
+   * Starts a refresh, unless one is in flight already.
+   */
+  private CompletableFuture<Entry> refresh() {
+    while (true) {
+      CompletableFuture<Entry> inFlight = refreshing.get();
+      if (inFlight != null) {
+        return inFlight;
+      }
+      CompletableFuture<Entry> started = new CompletableFuture<>();
+      if (refreshing.compareAndSet(null, started)) {
+        try {
+          executor.execute(() -> fetch(started));
+        } catch (RejectedExecutionException e) {
+          fetch(started);
+        }
+        return started;
+      }
+    }
+  }
+
+  private void fetch(CompletableFuture<Entry> started) {
+    long start = nanoTime.getAsLong();
+    try {
+      AccessToken token = checkNotNull(provider.fetch(), "token");
+      long now = nanoTime.getAsLong();
+      Entry entry = new Entry(token, headerValue(token), now);
+      current = entry;
+      metrics.refresh(now - start);
+      refreshing.set(null);
+      started.complete(entry);
+    } catch (Throwable e) {
+      long now = nanoTime.getAsLong();
+      metrics.fail(now - start);
+      Entry entry = current;
+      if (entry != null && now - entry.expiresAtNanos < 0) {
+        // keep the valid token, and try again halfway to its expiry
+        current = entry.refreshAt(now + (entry.expiresAtNanos - now) / 2);
+      }
+      refreshing.set(null);
+      started.completeExceptionally(e);
+    }
+  }
+
+  private String headerValue(AccessToken token) {
+    return scheme.isEmpty() ? token.value() : scheme + " " + token.value();
+  }
+
+  private final class Entry {
+
+    private final AccessToken token;
+    private final String headerValue;
+    private final long expiresAtNanos;
+    private final long refreshAtNanos;
+
+    Entry(AccessToken token, String headerValue, long fetchedAtNanos) {
+      this.token = token;
+      this.headerValue = headerValue;
+      long expiresInNanos = token.expiresIn(TimeUnit.NANOSECONDS);
+      this.expiresAtNanos = fetchedAtNanos + expiresInNanos;
+      // short-lived tokens are refreshed halfway
+      this.refreshAtNanos =
+          expiresAtNanos - Math.min(refreshAheadNanos, expiresInNanos / 2);
+    }
+
+    private Entry(Entry entry, long refreshAtNanos) {
+      this.token = entry.token;
+      this.headerValue = entry.headerValue;
+      this.expiresAtNanos = entry.expiresAtNanos;
+      this.refreshAtNanos = refreshAtNanos;
+    }
+
+    Entry refreshAt(long refreshAtNanos) {
+      return new Entry(this, refreshAtNanos);
+    }
+  }
+
+  private static class DefaultExecutor {
+
+    private static final ExecutorService instance = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "feign-token-refresh");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public static final class Builder {
+
+    final TokenProvider provider;
+    String header = "Authorization";
+    String scheme = "Bearer";
+    long refreshAheadNanos = TimeUnit.SECONDS.toNanos(30);
+    Executor executor;
+    LongSupplier nanoTime = System::nanoTime;
+
+    Builder(TokenProvider provider) {
+      this.provider = checkNotNull(provider, "provider");
+    }
+
+    /**
+     * Header the token is sent in. Defaults to {@code Authorization}.
+     */
+    public Builder header(String header) {
+      this.header = checkNotNull(header, "header");
+      return this;
+    }
+
+    /**
+     * Written before the token in the header, empty for none. Defaults to {@code Bearer}.
+     */
+    public Builder scheme(String scheme) {
+      this.scheme = checkNotNull(scheme, "scheme");
+      return this;
+    }
+
+    /**
+     * How long before its expiry a token is refreshed, at most half its lifetime. Defaults to 30
+     * seconds.
+     */
+    public Builder refreshAhead(long refreshAhead, TimeUnit unit) {
+      checkArgument(refreshAhead >= 0, "refreshAhead must not be negative");
+      this.refreshAheadNanos = unit.toNanos(refreshAhead);
+      return this;
+    }
+
+    /**
+     * Runs the provider. Defaults to a shared pool of daemon threads.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = checkNotNull(executor, "executor");
+      return this;
+    }
+
+    // visible for testing
+    Builder nanoTime(LongSupplier nanoTime) {
+      this.nanoTime = nanoTime;
+      return this;
+    }
+
+    public TokenRequestInterceptor build() {
+      return new TokenRequestInterceptor(this);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.bulk;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown by a {@link BulkInvoker} run under {@link FailurePolicy#CONTINUE} once every call
+ * finished, when some of them failed.
+ */
+public class BulkException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Map<Integer, Throwable> failures;
+  private final List<Object> results;
+
+  BulkException(Map<Integer, Throwable> failures, List<Object> results) {
+    super(String.format("%s calls failed", failures.size()),
+        failures.values().iterator().next());
+    this.failures = Collections.unmodifiableMap(failures);
+    this.results = Collections.unmodifiableList(results);
+  }
+
+  /**
+   * @return the cause of each failed call, by position of its arguments.
+   */
+  public Map<Integer, Throwable> failures() {
+    return failures;
+  }
+
+  /**
+   * @return for {@link BulkInvoker#gather(java.util.Collection)}, the results in the order of the
+   *         arguments, with {@code null} for the failed calls. Empty for streamed runs, whose
+   *         results were already handed over.
+   */
+  public List<Object> results() {
+    return results;
+  }
+}
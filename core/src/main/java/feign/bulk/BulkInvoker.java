@@ -0,0 +1,374 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.bulk;
+
+import feign.Experimental;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+
+/**
+ * Fans a call out over many arguments, with a bounded number of calls in flight. Ex.
+ *
+ * <pre>
+ * BulkInvoker&lt;String, Item&gt; items = BulkInvoker.builder(api::item)
+ *     .maxConcurrency(32)
+ *     .build();
+ * List&lt;Item&gt; found = items.gather(ids).join();
+ * </pre>
+ *
+ * Calls are made through any function returning a {@link CompletionStage}, typically a method of an
+ * {@link feign.AsyncFeign} proxy. Blocking {@link feign.Feign} proxies can be used through an
+ * executor: {@code id -> CompletableFuture.supplyAsync(() -> api.item(id), executor)}. <br>
+ * Calls start as others complete, on the completing thread, and no thread waits for them. When the
+ * arguments go to different hosts, {@link Builder#maxConcurrencyPerKey(int, Function)} also bounds
+ * the calls in flight to each.
+ */
+@Experimental
+public final class BulkInvoker<A, R> {
+
+  private final Function<? super A, ? extends CompletionStage<R>> call;
+  private final int maxConcurrency;
+  private final int maxConcurrencyPerKey;
+  private final Function<? super A, ?> key;
+  private final FailurePolicy failurePolicy;
+  private final BulkMetrics metrics = new BulkMetrics();
+
+  private BulkInvoker(Builder<A, R> builder) {
+    this.call = builder.call;
+    this.maxConcurrency = builder.maxConcurrency;
+    this.maxConcurrencyPerKey = builder.maxConcurrencyPerKey;
+    this.key = builder.key;
+    this.failurePolicy = builder.failurePolicy;
+  }
+
+  public static <A, R> Builder<A, R> builder(
+                                             Function<? super A, ? extends CompletionStage<R>> call) {
+    return new Builder<>(call);
+  }
+
+  /**
+   * Calls with each of {@code arguments}.
+   *
+   * @return the results in the order of the arguments, once every call completed.
+   */
+  public CompletableFuture<List<R>> gather(Collection<? extends A> arguments) {
+    Object[] results = new Object[arguments.size()];
+    Run run = new Run(arguments.iterator(), results, null);
+    run.start();
+    return run.done.thenApply(ignored -> {
+      @SuppressWarnings("unchecked")
+      List<R> gathered = (List<R>) Arrays.asList(results);
+      return gathered;
+    });
+  }
+
+  /**
+   * Calls with each of {@code arguments}, handing over results as they complete. {@code onResult}
+   * is called one result at a time, in the order the calls completed, so it should be quick.
+   *
+   * @return a future which completes once every call completed.
+   */
+  public CompletableFuture<Void> stream(Iterable<? extends A> arguments,
+                                        BiConsumer<? super A, ? super R> onResult) {
+    Run run = new Run(arguments.iterator(), null, checkNotNull(onResult, "onResult"));
+    run.start();
+    return run.done;
+  }
+
+  /**
+   * @return counts across the runs of this invoker.
+   */
+  public BulkMetrics metrics() {
+    return metrics;
+  }
+
+  private static final class Pending<A> {
+
+    final int index;
+    final A argument;
+    Key<A> key;
+
+    Pending(int index, A argument) {
+      this.index = index;
+      this.argument = argument;
+    }
+  }
+
+  private static final class Key<A> {
+
+    final Object id;
+    final ArrayDeque<Pending<A>> waiting = new ArrayDeque<>();
+    int inFlight;
+
+    Key(Object id) {
+      this.id = id;
+    }
+  }
+
+  /**
+   * The state of one {@link #gather} or {@link #stream}. Calls are started by a single thread at a
+   * time, so calls completing inline start the next ones in a loop rather than recursively.
+   */
+  private final class Run {
+
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final Iterator<? extends A> arguments;
+    private final Object[] results;
+    private final BiConsumer<? super A, ? super R> onResult;
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<R>> inFlight = new HashMap<>();
+    private final Map<Object, Key<A>> keys = new HashMap<>();
+    private final ArrayDeque<Pending<A>> ready = new ArrayDeque<>();
+    private final Map<Integer, Throwable> failures = new TreeMap<>();
+    private int next;
+    private int running;
+    private int parked;
+    private boolean stopped;
+
+    Run(Iterator<? extends A> arguments, Object[] results,
+        BiConsumer<? super A, ? super R> onResult) {
+      this.arguments = arguments;
+      this.results = results;
+      this.onResult = onResult;
+    }
+
+    void start() {
+      // failing fast, or cancelled by the caller
+      done.whenComplete((ignored, error) -> {
+        if (error != null) {
+          cancelInFlight();
+        }
+      });
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        Pending<A> pending;
+        while ((pending = poll()) != null) {
+          invoke(pending);
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    /**
+     * @return the next call to start, if the limits allow it.
+     */
+    private Pending<A> poll() {
+      Throwable failed = null;
+      synchronized (this) {
+        if (stopped || running >= maxConcurrency) {
+          return null;
+        }
+        // already counted against its key
+        Pending<A> pending = ready.poll();
+        while (pending == null && arguments.hasNext()) {
+          pending = new Pending<>(next++, arguments.next());
+          if (key != null && !acquire(pending)) {
+            pending = null;
+          }
+        }
+        if (pending != null) {
+          running++;
+          return pending;
+        }
+        if (running > 0 || parked > 0) {
+          return null;
+        }
+        stopped = true;
+        if (!failures.isEmpty()) {
+          failed = new BulkException(failures,
+              results != null ? Arrays.asList(results) : Collections.emptyList());
+        }
+      }
+      if (failed != null) {
+        done.completeExceptionally(failed);
+      } else {
+        done.complete(null);
+      }
+      return null;
+    }
+
+    private boolean acquire(Pending<A> pending) {
+      Key<A> state = keys.computeIfAbsent(key.apply(pending.argument), Key::new);
+      pending.key = state;
+      if (state.inFlight < maxConcurrencyPerKey) {
+        state.inFlight++;
+        return true;
+      }
+      state.waiting.add(pending);
+      parked++;
+      metrics.park();
+      return false;
+    }
+
+    private void release(Pending<A> pending) {
+      Key<A> state = pending.key;
+      Pending<A> waiting = state.waiting.poll();
+      if (waiting != null) {
+        parked--;
+        ready.add(waiting);
+      } else if (--state.inFlight == 0) {
+        keys.remove(state.id);
+      }
+    }
+
+    private void invoke(Pending<A> pending) {
+      metrics.call();
+      CompletableFuture<R> result;
+      try {
+        result = checkNotNull(call.apply(pending.argument), "call result").toCompletableFuture();
+      } catch (RuntimeException e) {
+        result = new CompletableFuture<>();
+        result.completeExceptionally(e);
+      }
+      boolean cancel;
+      synchronized (this) {
+        cancel = stopped;
+        if (!cancel && !result.isDone()) {
+          inFlight.put(pending.index, result);
+        }
+      }
+      if (cancel) {
+        result.cancel(true);
+        return;
+      }
+      result.whenComplete((value, error) -> complete(pending, value, error));
+    }
+
+    private void complete(Pending<A> pending, R value, Throwable error) {
+      Throwable failFast = null;
+      synchronized (this) {
+        if (stopped) {
+          return;
+        }
+        running--;
+        inFlight.remove(pending.index);
+        if (pending.key != null) {
+          release(pending);
+        }
+        if (error == null) {
+          error = accept(pending, value);
+        }
+        if (error != null) {
+          metrics.fail();
+          Throwable cause = error instanceof CompletionException && error.getCause() != null
+              ? error.getCause()
+              : error;
+          if (failurePolicy == FailurePolicy.FAIL_FAST) {
+            stopped = true;
+            failFast = cause;
+          } else {
+            failures.put(pending.index, cause);
+          }
+        }
+      }
+      if (failFast != null) {
+        done.completeExceptionally(failFast);
+      } else {
+        drain();
+      }
+    }
+
+    private Throwable accept(Pending<A> pending, R value) {
+      if (results != null) {
+        results[pending.index] = value;
+        return null;
+      }
+      try {
+        onResult.accept(pending.argument, value);
+        return null;
+      } catch (RuntimeException e) {
+        return e;
+      }
+    }
+
+    private void cancelInFlight() {
+      List<CompletableFuture<R>> cancelled;
+      synchronized (this) {
+        stopped = true;
+        cancelled = new ArrayList<>(inFlight.values());
+        inFlight.clear();
+      }
+      cancelled.forEach(result -> result.cancel(true));
+    }
+  }
+
+  public static final class Builder<A, R> {
+
+    final Function<? super A, ? extends CompletionStage<R>> call;
+    int maxConcurrency = 16;
+    int maxConcurrencyPerKey = Integer.MAX_VALUE;
+    Function<? super A, ?> key;
+    FailurePolicy failurePolicy = FailurePolicy.FAIL_FAST;
+
+    Builder(Function<? super A, ? extends CompletionStage<R>> call) {
+      this.call = checkNotNull(call, "call");
+    }
+
+    /**
+     * Calls in flight per run. Defaults to 16.
+     */
+    public Builder<A, R> maxConcurrency(int maxConcurrency) {
+      checkArgument(maxConcurrency > 0, "maxConcurrency must be positive");
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Calls in flight per run with arguments of the same {@code key}, such as the host they go to.
+     * Calls over it wait while calls with other keys go ahead. Defaults to no limit.
+     */
+    public Builder<A, R> maxConcurrencyPerKey(int maxConcurrencyPerKey,
+                                              Function<? super A, ?> key) {
+      checkArgument(maxConcurrencyPerKey > 0, "maxConcurrencyPerKey must be positive");
+      this.maxConcurrencyPerKey = maxConcurrencyPerKey;
+      this.key = checkNotNull(key, "key");
+      return this;
+    }
+
+    /**
+     * Defaults to {@link FailurePolicy#FAIL_FAST}.
+     */
+    public Builder<A, R> failurePolicy(FailurePolicy failurePolicy) {
+      this.failurePolicy = checkNotNull(failurePolicy, "failurePolicy");
+      return this;
+    }
+
+    public BulkInvoker<A, R> build() {
+      return new BulkInvoker<>(this);
+    }
+  }
+}
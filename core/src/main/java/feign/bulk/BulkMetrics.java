@@ -0,0 +1,68 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.bulk;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the calls made by a {@link BulkInvoker}, across its runs.
+ */
+public final class BulkMetrics {
+
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder parked = new LongAdder();
+
+  BulkMetrics() {}
+
+  /**
+   * @return number of calls which were started.
+   */
+  public long calls() {
+    return calls.sum();
+  }
+
+  /**
+   * @return number of calls which failed, not counting those cancelled by a failing run.
+   */
+  public long failures() {
+    return failures.sum();
+  }
+
+  /**
+   * @return number of calls which waited for the limit of their key, while calls for other keys
+   *         went ahead.
+   */
+  public long parked() {
+    return parked.sum();
+  }
+
+  void call() {
+    calls.increment();
+  }
+
+  void fail() {
+    failures.increment();
+  }
+
+  void park() {
+    parked.increment();
+  }
+
+  @Override
+  public String toString() {
+    return "BulkMetrics(calls=" + calls() + ", failures=" + failures() + ", parked=" + parked()
+        + ")";
+  }
+}
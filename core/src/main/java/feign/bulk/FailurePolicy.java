@@ -0,0 +1,31 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.bulk;
+
+/**
+ * What a {@link BulkInvoker} does once a call failed.
+ */
+public enum FailurePolicy {
+
+  /**
+   * Fails the whole run with the cause of the first failure, cancelling the calls in flight and
+   * starting no more.
+   */
+  FAIL_FAST,
+
+  /**
+   * Runs every call, then fails the run with a {@link BulkException} holding every failure.
+   */
+  CONTINUE
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import feign.AsyncClient;
+import feign.Capability;
+import feign.Client;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+
+/**
+ * Caches responses to GET requests as a private cache following RFC 7234: responses are stored
+ * according to their {@code Cache-Control}, {@code Expires}, {@code ETag} and {@code Last-Modified}
+ * headers and the {@code Vary} header selects which request headers must match. Stale responses are
+ * revalidated with {@code If-None-Match} and {@code If-Modified-Since}, or served while being
+ * revalidated in the background when the response allows {@code stale-while-revalidate}. Ex.
+ *
+ * <pre>
+ * CacheCapability cache = CacheCapability.builder()
+ *     .maxBytes(64 * 1024 * 1024)
+ *     .build();
+ * GitHub github = Feign.builder()
+ *     .addCapability(cache)
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * Every client enriched by the same capability shares its cache and {@link #metrics()}. Response
+ * bodies are read into memory before they are stored, so methods which stream large responses
+ * should not be cached.
+ */
+public class CacheCapability implements Capability {
+
+  private final ResponseCache cache;
+  private final CacheMetrics metrics;
+  private final Executor executor;
+
+  private CacheCapability(Builder builder, CacheMetrics metrics, DiskStore disk) {
+    this.metrics = metrics;
+    this.cache = new ResponseCache(builder.maxBytes, builder.maxEntryBytes, builder.clock,
+        metrics, disk);
+    this.executor = builder.executor != null ? builder.executor : defaultExecutor();
+  }
+
+  /**
+   * A cache of up to 10 MiB in memory.
+   */
+  public static CacheCapability create() {
+    return builder().build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public Client enrich(Client client) {
+    return new CachingClient(client, cache, executor);
+  }
+
+  /**
+   * Wraps an {@link AsyncClient}, for use with {@link feign.AsyncFeign.AsyncBuilder#client}.
+   */
+  public <C> AsyncClient<C> enrich(AsyncClient<C> client) {
+    return new CachingAsyncClient<>(client, cache);
+  }
+
+  /**
+   * @return counts shared by every client this capability wrapped.
+   */
+  public CacheMetrics metrics() {
+    return metrics;
+  }
+
+  /**
+   * Removes the stored responses for {@code url}.
+   */
+  public void invalidate(String url) {
+    cache.invalidate(url);
+  }
+
+  private static ExecutorService defaultExecutor() {
+    AtomicInteger threads = new AtomicInteger();
+    return Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "feign-cache-revalidate-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public static final class Builder {
+
+    private long maxBytes = 10 * 1024 * 1024;
+    private long maxEntryBytes = -1;
+    private Path diskDirectory;
+    private long maxDiskBytes;
+    private Executor executor;
+    private Clock clock = Clock.systemUTC();
+
+    Builder() {}
+
+    /**
+     * Approximate size of the responses kept in memory. Defaults to 10 MiB.
+     */
+    public Builder maxBytes(long maxBytes) {
+      checkArgument(maxBytes >= 0, "maxBytes must not be negative");
+      this.maxBytes = maxBytes;
+      return this;
+    }
+
+    /**
+     * Largest response kept in memory, larger ones only go to disk. Defaults to an eighth of
+     * {@link #maxBytes(long)}.
+     */
+    public Builder maxEntryBytes(long maxEntryBytes) {
+      checkArgument(maxEntryBytes >= 0, "maxEntryBytes must not be negative");
+      this.maxEntryBytes = maxEntryBytes;
+      return this;
+    }
+
+    /**
+     * Keeps responses evicted from memory, and those over {@link #maxEntryBytes(long)}, in files
+     * under {@code directory}. The files are memory-mapped when read, so their bodies are not
+     * copied onto the heap. They are not reused by another cache, so {@code directory} should be
+     * cleared when the application starts.
+     */
+    public Builder disk(Path directory, long maxBytes) {
+      checkArgument(maxBytes > 0, "maxBytes must be positive");
+      this.diskDirectory = checkNotNull(directory, "directory");
+      this.maxDiskBytes = maxBytes;
+      return this;
+    }
+
+    /**
+     * Runs the background revalidations of synchronous clients. Defaults to a cached pool of daemon
+     * threads.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = checkNotNull(executor, "executor");
+      return this;
+    }
+
+    /**
+     * Source of the current time used to compute the age of responses.
+     */
+    public Builder clock(Clock clock) {
+      this.clock = checkNotNull(clock, "clock");
+      return this;
+    }
+
+    public CacheCapability build() {
+      if (maxEntryBytes < 0) {
+        maxEntryBytes = maxBytes / 8;
+      }
+      CacheMetrics metrics = new CacheMetrics();
+      DiskStore disk = null;
+      if (diskDirectory != null) {
+        try {
+          Files.createDirectories(diskDirectory);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        disk = new DiskStore(diskDirectory, maxDiskBytes, metrics);
+      }
+      return new CacheCapability(this, metrics, disk);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The {@code Cache-Control} directives of a request or response which matter to a private cache.
+ */
+final class CacheControl {
+
+  static final CacheControl NONE = new CacheControl();
+
+  boolean noStore;
+  boolean noCache;
+  boolean mustRevalidate;
+  boolean onlyIfCached;
+  long maxAgeSeconds = -1;
+  long maxStaleSeconds = -1;
+  long minFreshSeconds = -1;
+  long staleWhileRevalidateSeconds = -1;
+
+  private CacheControl() {}
+
+  static CacheControl parse(Map<String, Collection<String>> headers) {
+    Collection<String> values = values(headers, "Cache-Control");
+    Collection<String> pragma = values(headers, "Pragma");
+    if (values.isEmpty() && pragma.isEmpty()) {
+      return NONE;
+    }
+    CacheControl cacheControl = new CacheControl();
+    for (String value : values) {
+      cacheControl.parse(value);
+    }
+    if (values.isEmpty()) {
+      for (String value : pragma) {
+        if (value.trim().equalsIgnoreCase("no-cache")) {
+          cacheControl.noCache = true;
+        }
+      }
+    }
+    return cacheControl;
+  }
+
+  /**
+   * Values of the header {@code name}, regardless of the case of the keys of {@code headers}.
+   */
+  static Collection<String> values(Map<String, Collection<String>> headers, String name) {
+    Collection<String> values = headers.get(name);
+    if (values != null) {
+      return values;
+    }
+    for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+      if (name.equalsIgnoreCase(header.getKey())) {
+        return header.getValue();
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  static String first(Map<String, Collection<String>> headers, String name) {
+    Collection<String> values = values(headers, name);
+    return values.isEmpty() ? null : values.iterator().next();
+  }
+
+  private void parse(String header) {
+    int position = 0;
+    int length = header.length();
+    while (position < length) {
+      int end = nextDelimiter(header, position);
+      String directive = header.substring(position, end).trim();
+      position = end + 1;
+      if (directive.isEmpty()) {
+        continue;
+      }
+      int equals = directive.indexOf('=');
+      String name = (equals < 0 ? directive : directive.substring(0, equals)).trim();
+      String argument = equals < 0 ? null : unquote(directive.substring(equals + 1).trim());
+      if (name.equalsIgnoreCase("no-store")) {
+        noStore = true;
+      } else if (name.equalsIgnoreCase("no-cache")) {
+        // a field-name argument only restricts headers, revalidating anyway is safe
+        noCache = true;
+      } else if (name.equalsIgnoreCase("must-revalidate")
+          || name.equalsIgnoreCase("proxy-revalidate")) {
+        mustRevalidate = true;
+      } else if (name.equalsIgnoreCase("only-if-cached")) {
+        onlyIfCached = true;
+      } else if (name.equalsIgnoreCase("max-age")) {
+        maxAgeSeconds = seconds(argument, maxAgeSeconds);
+      } else if (name.equalsIgnoreCase("max-stale")) {
+        // without an argument any staleness is accepted
+        maxStaleSeconds = argument == null ? Long.MAX_VALUE : seconds(argument, maxStaleSeconds);
+      } else if (name.equalsIgnoreCase("min-fresh")) {
+        minFreshSeconds = seconds(argument, minFreshSeconds);
+      } else if (name.equalsIgnoreCase("stale-while-revalidate")) {
+        staleWhileRevalidateSeconds = seconds(argument, staleWhileRevalidateSeconds);
+      }
+    }
+  }
+
+  /**
+   * Index of the next comma which is not part of a quoted string.
+   */
+  private static int nextDelimiter(String header, int from) {
+    boolean quoted = false;
+    for (int i = from; i < header.length(); i++) {
+      char c = header.charAt(i);
+      if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ',' && !quoted) {
+        return i;
+      }
+    }
+    return header.length();
+  }
+
+  private static String unquote(String value) {
+    if (value.length() >= 2 && value.charAt(0) == '"'
+        && value.charAt(value.length() - 1) == '"') {
+      return value.substring(1, value.length() - 1);
+    }
+    return value;
+  }
+
+  private static long seconds(String argument, long invalid) {
+    if (argument == null) {
+      return invalid;
+    }
+    try {
+      return Math.max(0, Long.parseLong(argument));
+    } catch (NumberFormatException e) {
+      // values too large for a long are treated as forever
+      return argument.chars().allMatch(Character::isDigit) && !argument.isEmpty()
+          ? Long.MAX_VALUE
+          : invalid;
+    }
+  }
+}
@@ -0,0 +1,322 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import feign.Request;
+import feign.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import static feign.Util.UTF_8;
+
+/**
+ * A response stored by the {@link ResponseCache}, along with the times needed to compute its age as
+ * described in RFC 7234.
+ */
+final class CacheEntry {
+
+  private static final long MAX_HEURISTIC_MILLIS = TimeUnit.DAYS.toMillis(1);
+  private static final int HEADER_OVERHEAD = 32;
+
+  final String key;
+  final String url;
+  final int status;
+  final String reason;
+  final Map<String, Collection<String>> headers;
+  /** null when the response had no body. */
+  final ByteBuffer body;
+  final long requestMillis;
+  final long responseMillis;
+  final CacheControl cacheControl;
+  /** Approximate number of bytes used by this entry. */
+  final long weight;
+
+  CacheEntry(String key, String url, int status, String reason,
+      Map<String, Collection<String>> headers, ByteBuffer body, long requestMillis,
+      long responseMillis) {
+    this.key = key;
+    this.url = url;
+    this.status = status;
+    this.reason = reason;
+    this.headers = headers;
+    this.body = body;
+    this.requestMillis = requestMillis;
+    this.responseMillis = responseMillis;
+    this.cacheControl = CacheControl.parse(headers);
+    this.weight = weight();
+  }
+
+  /**
+   * Age of this response at {@code nowMillis}, following RFC 7234 section 4.2.3.
+   */
+  long ageMillis(long nowMillis) {
+    long date = date("Date", responseMillis);
+    long apparentAge = Math.max(0, responseMillis - date);
+    long ageHeader = 0;
+    String age = CacheControl.first(headers, "Age");
+    if (age != null) {
+      try {
+        ageHeader = TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(age.trim())));
+      } catch (NumberFormatException ignored) {
+        // invalid ages are ignored
+      }
+    }
+    long correctedAge = ageHeader + (responseMillis - requestMillis);
+    return Math.max(apparentAge, correctedAge) + Math.max(0, nowMillis - responseMillis);
+  }
+
+  /**
+   * How long this response stays fresh, following RFC 7234 section 4.2.1.
+   */
+  long freshnessLifetimeMillis() {
+    if (cacheControl.maxAgeSeconds >= 0) {
+      return millis(cacheControl.maxAgeSeconds);
+    }
+    long date = date("Date", responseMillis);
+    if (!CacheControl.values(headers, "Expires").isEmpty()) {
+      // invalid dates, such as "0", mean already expired
+      return Math.max(0, date("Expires", date) - date);
+    }
+    long lastModified = date("Last-Modified", -1);
+    if (lastModified >= 0 && lastModified < date) {
+      return Math.min((date - lastModified) / 10, MAX_HEURISTIC_MILLIS);
+    }
+    return 0;
+  }
+
+  static long millis(long seconds) {
+    return seconds >= Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : seconds * 1000;
+  }
+
+  boolean hasValidator() {
+    return etag() != null || CacheControl.first(headers, "Last-Modified") != null;
+  }
+
+  private String etag() {
+    return CacheControl.first(headers, "ETag");
+  }
+
+  /**
+   * {@code request} made conditional on this response being current.
+   */
+  Request conditional(Request request) {
+    Map<String, Collection<String>> conditionalHeaders =
+        new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    conditionalHeaders.putAll(request.headers());
+    String etag = etag();
+    if (etag != null) {
+      conditionalHeaders.put("If-None-Match", Collections.singletonList(etag));
+    }
+    String lastModified = CacheControl.first(headers, "Last-Modified");
+    if (lastModified != null) {
+      conditionalHeaders.put("If-Modified-Since", Collections.singletonList(lastModified));
+    }
+    return Request.create(request.httpMethod(), request.url(), conditionalHeaders,
+        request.body(), request.charset(), request.requestTemplate());
+  }
+
+  /**
+   * This response with the headers of a {@code 304 Not Modified} response to its revalidation,
+   * following RFC 7234 section 4.3.4.
+   */
+  CacheEntry revalidated(Response notModified, long requestMillis, long responseMillis) {
+    Map<String, Collection<String>> updated = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    updated.putAll(headers);
+    for (Map.Entry<String, Collection<String>> header : notModified.headers().entrySet()) {
+      String name = header.getKey();
+      if (!name.equalsIgnoreCase("Content-Length")
+          && !name.equalsIgnoreCase("Content-Encoding")
+          && !name.equalsIgnoreCase("Transfer-Encoding")) {
+        updated.put(name, header.getValue());
+      }
+    }
+    return new CacheEntry(key, url, status, reason, updated, body, requestMillis, responseMillis);
+  }
+
+  /**
+   * @return this response to {@code request}, with its current age.
+   */
+  Response toResponse(Request request, long ageMillis) {
+    Map<String, Collection<String>> responseHeaders =
+        new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    responseHeaders.putAll(headers);
+    responseHeaders.put("Age",
+        Collections.singletonList(Long.toString(TimeUnit.MILLISECONDS.toSeconds(ageMillis))));
+    Response.Builder builder = Response.builder()
+        .status(status)
+        .reason(reason)
+        .headers(responseHeaders)
+        .request(request);
+    if (body != null) {
+      if (body.hasArray() && body.arrayOffset() == 0 && body.position() == 0
+          && body.remaining() == body.array().length) {
+        builder.body(body.array());
+      } else {
+        builder.body(new ByteBufferInputStream(body.duplicate()), body.remaining());
+      }
+    }
+    return builder.build();
+  }
+
+  int bodyLength() {
+    return body != null ? body.remaining() : 0;
+  }
+
+  private long weight() {
+    long weight = HEADER_OVERHEAD + key.length() + bodyLength();
+    for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+      weight += HEADER_OVERHEAD + header.getKey().length();
+      for (String value : header.getValue()) {
+        weight += value.length();
+      }
+    }
+    return weight;
+  }
+
+  private long date(String header, long defaultMillis) {
+    String value = CacheControl.first(headers, header);
+    if (value == null) {
+      return defaultMillis;
+    }
+    try {
+      return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+          .toInstant()
+          .toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return "Expires".equals(header) ? Long.MIN_VALUE / 2 : defaultMillis;
+    }
+  }
+
+  /**
+   * Serializes this entry for the {@link DiskStore}, the body last so it can be mapped in place.
+   */
+  byte[] metadata() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    writeString(out, key);
+    writeString(out, url);
+    out.writeInt(status);
+    writeString(out, reason);
+    out.writeLong(requestMillis);
+    out.writeLong(responseMillis);
+    out.writeInt(headers.size());
+    for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+      writeString(out, header.getKey());
+      out.writeInt(header.getValue().size());
+      for (String value : header.getValue()) {
+        writeString(out, value);
+      }
+    }
+    out.writeInt(body != null ? body.remaining() : -1);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Reads an entry written as {@link #metadata()} followed by the body. The body of the result is a
+   * view of {@code buffer}.
+   */
+  static CacheEntry read(ByteBuffer buffer) {
+    String key = readString(buffer);
+    String url = readString(buffer);
+    int status = buffer.getInt();
+    String reason = readString(buffer);
+    long requestMillis = buffer.getLong();
+    long responseMillis = buffer.getLong();
+    int headerCount = buffer.getInt();
+    Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (int i = 0; i < headerCount; i++) {
+      String name = readString(buffer);
+      int valueCount = buffer.getInt();
+      List<String> values = new ArrayList<>(valueCount);
+      for (int j = 0; j < valueCount; j++) {
+        values.add(readString(buffer));
+      }
+      headers.put(name, values);
+    }
+    int bodyLength = buffer.getInt();
+    ByteBuffer body = null;
+    if (bodyLength >= 0) {
+      body = buffer.slice();
+      ((Buffer) body).limit(bodyLength);
+    }
+    return new CacheEntry(key, url, status, reason, headers, body, requestMillis,
+        responseMillis);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how the requests seen by the clients of a {@link CacheCapability} were answered.
+ */
+public final class CacheMetrics {
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder revalidated = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder bytesServed = new LongAdder();
+  private final LongAdder bytesStored = new LongAdder();
+  private volatile long memoryBytes;
+  private volatile long diskBytes;
+
+  CacheMetrics() {}
+
+  /**
+   * @return responses served from the cache without contacting the server, including
+   *         {@link #staleHits()}.
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return stale responses served while they were revalidated in the background.
+   */
+  public long staleHits() {
+    return staleHits.sum();
+  }
+
+  /**
+   * @return responses served from the cache after the server confirmed them with a
+   *         {@code 304 Not Modified}.
+   */
+  public long revalidated() {
+    return revalidated.sum();
+  }
+
+  /**
+   * @return cacheable requests answered by the server.
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * @return share of requests served from the cache, revalidated or not, between 0 and 1.
+   */
+  public double hitRate() {
+    long served = hits() + revalidated();
+    long total = served + misses();
+    return total == 0 ? 0 : (double) served / total;
+  }
+
+  /**
+   * @return entries dropped to stay within the memory or disk capacity.
+   */
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return body bytes served from the cache.
+   */
+  public long bytesServed() {
+    return bytesServed.sum();
+  }
+
+  /**
+   * @return body bytes stored in the cache.
+   */
+  public long bytesStored() {
+    return bytesStored.sum();
+  }
+
+  /**
+   * @return approximate bytes currently held in memory.
+   */
+  public long memoryBytes() {
+    return memoryBytes;
+  }
+
+  /**
+   * @return bytes currently held on disk.
+   */
+  public long diskBytes() {
+    return diskBytes;
+  }
+
+  void hit(long bytes, boolean stale) {
+    hits.increment();
+    if (stale) {
+      staleHits.increment();
+    }
+    bytesServed.add(bytes);
+  }
+
+  void revalidated(long bytes) {
+    revalidated.increment();
+    bytesServed.add(bytes);
+  }
+
+  void miss() {
+    misses.increment();
+  }
+
+  void stored(long bytes) {
+    bytesStored.add(bytes);
+  }
+
+  void evicted() {
+    evictions.increment();
+  }
+
+  void memoryBytes(long bytes) {
+    memoryBytes = bytes;
+  }
+
+  void diskBytes(long bytes) {
+    diskBytes = bytes;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheMetrics(hits=" + hits() + ", staleHits=" + staleHits() + ", revalidated="
+        + revalidated() + ", misses=" + misses() + ", evictions=" + evictions() + ")";
+  }
+}
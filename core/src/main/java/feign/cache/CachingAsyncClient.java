@@ -0,0 +1,122 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import feign.AsyncClient;
+import feign.Experimental;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import static feign.Util.checkNotNull;
+import static feign.Util.ensureClosed;
+
+/**
+ * Asynchronous counterpart of {@link CachingClient}. Background revalidations are sent through the
+ * delegate, with the context of the request which found the stale response.
+ *
+ * @see CacheCapability#enrich(AsyncClient)
+ */
+@Experimental
+public class CachingAsyncClient<C> implements AsyncClient<C> {
+
+  private final AsyncClient<C> delegate;
+  private final ResponseCache cache;
+
+  CachingAsyncClient(AsyncClient<C> delegate, ResponseCache cache) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.cache = cache;
+  }
+
+  @Override
+  public CompletableFuture<Response> execute(Request request,
+                                             Options options,
+                                             Optional<C> requestContext) {
+    if (request.httpMethod() != HttpMethod.GET) {
+      return delegate.execute(request, options, requestContext)
+          .thenApply(response -> {
+            cache.invalidateIfUnsafe(request, response);
+            return response;
+          });
+    }
+    CacheControl cacheControl = CacheControl.parse(request.headers());
+    ResponseCache.Lookup lookup = cache.lookup(request, cacheControl);
+    switch (lookup.decision) {
+      case FRESH:
+        return CompletableFuture.completedFuture(cache.hit(lookup, request));
+      case STALE:
+        revalidateInBackground(request, cacheControl, lookup.entry, options, requestContext);
+        return CompletableFuture.completedFuture(cache.hit(lookup, request));
+      case UNSATISFIABLE:
+        return CompletableFuture.completedFuture(cache.unsatisfiable(request));
+      case REVALIDATE:
+        long revalidationMillis = cache.now();
+        return delegate.execute(lookup.entry.conditional(request), options, requestContext)
+            .thenCompose(response -> complete(() -> cache.revalidated(request, cacheControl,
+                lookup.entry, response, revalidationMillis)));
+      default:
+        long requestMillis = cache.now();
+        return delegate.execute(request, options, requestContext)
+            .thenCompose(response -> complete(
+                () -> cache.store(request, cacheControl, response, requestMillis)));
+    }
+  }
+
+  private void revalidateInBackground(Request request,
+                                      CacheControl cacheControl,
+                                      CacheEntry entry,
+                                      Options options,
+                                      Optional<C> requestContext) {
+    if (!cache.startRevalidation(entry)) {
+      return;
+    }
+    long requestMillis = cache.now();
+    CompletableFuture<Response> revalidation;
+    try {
+      revalidation = delegate.execute(entry.conditional(request), options, requestContext);
+    } catch (RuntimeException e) {
+      cache.endRevalidation(entry);
+      return;
+    }
+    revalidation.whenComplete((response, error) -> {
+      try {
+        if (response != null) {
+          ensureClosed(cache.revalidated(request, cacheControl, entry, response, requestMillis));
+        }
+      } catch (IOException | RuntimeException ignored) {
+        // the stale response was served, the next request will try again
+      } finally {
+        cache.endRevalidation(entry);
+      }
+    });
+  }
+
+  private interface CacheOperation {
+
+    Response apply() throws IOException;
+  }
+
+  private static CompletableFuture<Response> complete(CacheOperation operation) {
+    CompletableFuture<Response> result = new CompletableFuture<>();
+    try {
+      result.complete(operation.apply());
+    } catch (IOException | RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+}
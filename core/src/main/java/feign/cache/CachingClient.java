@@ -0,0 +1,99 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import static feign.Util.checkNotNull;
+import static feign.Util.ensureClosed;
+
+/**
+ * Answers GET requests from the cache of a {@link CacheCapability} when RFC 7234 allows it, and
+ * passes everything else to the delegate. Stale responses with a validator are revalidated with a
+ * conditional request, in the background when {@code stale-while-revalidate} allows the stale
+ * response to be served meanwhile.
+ *
+ * @see CacheCapability
+ */
+public class CachingClient implements Client {
+
+  private final Client delegate;
+  private final ResponseCache cache;
+  private final Executor executor;
+
+  CachingClient(Client delegate, ResponseCache cache, Executor executor) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.cache = cache;
+    this.executor = executor;
+  }
+
+  @Override
+  public Response execute(Request request, Options options) throws IOException {
+    if (request.httpMethod() != HttpMethod.GET) {
+      Response response = delegate.execute(request, options);
+      cache.invalidateIfUnsafe(request, response);
+      return response;
+    }
+    CacheControl cacheControl = CacheControl.parse(request.headers());
+    ResponseCache.Lookup lookup = cache.lookup(request, cacheControl);
+    switch (lookup.decision) {
+      case FRESH:
+        return cache.hit(lookup, request);
+      case STALE:
+        revalidateInBackground(request, cacheControl, lookup.entry, options);
+        return cache.hit(lookup, request);
+      case UNSATISFIABLE:
+        return cache.unsatisfiable(request);
+      case REVALIDATE:
+        long revalidationMillis = cache.now();
+        Response revalidation = delegate.execute(lookup.entry.conditional(request), options);
+        return cache.revalidated(request, cacheControl, lookup.entry, revalidation,
+            revalidationMillis);
+      default:
+        long requestMillis = cache.now();
+        Response response = delegate.execute(request, options);
+        return cache.store(request, cacheControl, response, requestMillis);
+    }
+  }
+
+  private void revalidateInBackground(Request request,
+                                      CacheControl cacheControl,
+                                      CacheEntry entry,
+                                      Options options) {
+    if (!cache.startRevalidation(entry)) {
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          long requestMillis = cache.now();
+          Response response = delegate.execute(entry.conditional(request), options);
+          ensureClosed(cache.revalidated(request, cacheControl, entry, response, requestMillis));
+        } catch (IOException | RuntimeException ignored) {
+          // the stale response was served, the next request will try again
+        } finally {
+          cache.endRevalidation(entry);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      cache.endRevalidation(entry);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Second tier of the {@link ResponseCache}, holding entries evicted from memory in files which are
+ * memory-mapped when read, so their bodies are not copied onto the heap. Files are least recently
+ * used first once {@code maxBytes} is exceeded. The index is only kept in memory, so entries do not
+ * outlive the cache.
+ */
+final class DiskStore {
+
+  private final Path directory;
+  private final long maxBytes;
+  private final CacheMetrics metrics;
+  private final AtomicLong sequence = new AtomicLong();
+  private final LinkedHashMap<String, DiskFile> files = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  DiskStore(Path directory, long maxBytes, CacheMetrics metrics) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.metrics = metrics;
+  }
+
+  void put(CacheEntry entry) {
+    long size;
+    Path path = directory.resolve(Long.toHexString(sequence.incrementAndGet()) + ".cache");
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer metadata = ByteBuffer.wrap(entry.metadata());
+      while (metadata.hasRemaining()) {
+        channel.write(metadata);
+      }
+      if (entry.body != null) {
+        ByteBuffer body = entry.body.duplicate();
+        while (body.hasRemaining()) {
+          channel.write(body);
+        }
+      }
+      size = channel.size();
+    } catch (IOException e) {
+      // the disk tier is best effort
+      delete(path);
+      return;
+    }
+    if (size > maxBytes) {
+      delete(path);
+      return;
+    }
+    List<DiskFile> removed = new ArrayList<>();
+    synchronized (files) {
+      DiskFile previous = files.put(entry.key, new DiskFile(path, size));
+      bytes += size;
+      if (previous != null) {
+        bytes -= previous.size;
+        removed.add(previous);
+      }
+      Iterator<DiskFile> eldest = files.values().iterator();
+      while (bytes > maxBytes && eldest.hasNext()) {
+        DiskFile file = eldest.next();
+        eldest.remove();
+        bytes -= file.size;
+        removed.add(file);
+        metrics.evicted();
+      }
+      metrics.diskBytes(bytes);
+    }
+    for (DiskFile file : removed) {
+      delete(file.path);
+    }
+  }
+
+  CacheEntry get(String key) {
+    DiskFile file;
+    synchronized (files) {
+      file = files.get(key);
+    }
+    if (file == null) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file.path, StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      return CacheEntry.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, file.size));
+    } catch (IOException | RuntimeException e) {
+      remove(key, file);
+      return null;
+    }
+  }
+
+  void remove(String key) {
+    DiskFile file;
+    synchronized (files) {
+      file = files.remove(key);
+      if (file != null) {
+        bytes -= file.size;
+        metrics.diskBytes(bytes);
+      }
+    }
+    if (file != null) {
+      delete(file.path);
+    }
+  }
+
+  private void remove(String key, DiskFile expected) {
+    synchronized (files) {
+      if (files.get(key) != expected) {
+        return;
+      }
+    }
+    remove(key);
+  }
+
+  void invalidate(String url) {
+    List<DiskFile> removed = new ArrayList<>();
+    synchronized (files) {
+      Iterator<Map.Entry<String, DiskFile>> entries = files.entrySet().iterator();
+      while (entries.hasNext()) {
+        Map.Entry<String, DiskFile> entry = entries.next();
+        if (ResponseCache.isKeyOf(entry.getKey(), url)) {
+          entries.remove();
+          bytes -= entry.getValue().size;
+          removed.add(entry.getValue());
+        }
+      }
+      metrics.diskBytes(bytes);
+    }
+    for (DiskFile file : removed) {
+      delete(file.path);
+    }
+  }
+
+  private static void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ignored) {
+      // a file still mapped may not be deletable on some platforms
+    }
+  }
+
+  private static final class DiskFile {
+
+    final Path path;
+    final long size;
+
+    DiskFile(Path path, long size) {
+      this.path = path;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,382 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import static feign.Util.ensureClosed;
+import static feign.Util.toByteArray;
+
+/**
+ * The storage and RFC 7234 policy shared by {@link CachingClient} and {@link CachingAsyncClient}.
+ * Entries are kept in memory, least recently used first, and optionally moved to a
+ * {@link DiskStore} when evicted.
+ */
+final class ResponseCache {
+
+  /** Statuses cacheable by default, RFC 7231 section 6.1. */
+  private static final Set<Integer> CACHEABLE_STATUSES =
+      new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501));
+
+  enum Decision {
+    /** Serve the stored response. */
+    FRESH,
+    /** Serve the stored response and revalidate it in the background. */
+    STALE,
+    /** Send a conditional request. */
+    REVALIDATE,
+    /** Send the request. */
+    MISS,
+    /** Nothing stored and the request asked for {@code only-if-cached}. */
+    UNSATISFIABLE
+  }
+
+  static final class Lookup {
+
+    final Decision decision;
+    final CacheEntry entry;
+    final long ageMillis;
+
+    Lookup(Decision decision, CacheEntry entry, long ageMillis) {
+      this.decision = decision;
+      this.entry = entry;
+      this.ageMillis = ageMillis;
+    }
+  }
+
+  private static final Lookup MISS = new Lookup(Decision.MISS, null, 0);
+  private static final Lookup UNSATISFIABLE = new Lookup(Decision.UNSATISFIABLE, null, 0);
+
+  private final long maxBytes;
+  private final long maxEntryBytes;
+  private final Clock clock;
+  private final CacheMetrics metrics;
+  private final DiskStore disk;
+  private final LinkedHashMap<String, CacheEntry> memory = new LinkedHashMap<>(16, 0.75f, true);
+  private final ConcurrentMap<String, List<String>> varyByUrl = new ConcurrentHashMap<>();
+  private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+  private long memoryBytes;
+
+  ResponseCache(long maxBytes, long maxEntryBytes, Clock clock, CacheMetrics metrics,
+      DiskStore disk) {
+    this.maxBytes = maxBytes;
+    this.maxEntryBytes = maxEntryBytes;
+    this.clock = clock;
+    this.metrics = metrics;
+    this.disk = disk;
+  }
+
+  long now() {
+    return clock.millis();
+  }
+
+  Lookup lookup(Request request, CacheControl requestCacheControl) {
+    if (requestCacheControl.noStore) {
+      return MISS;
+    }
+    CacheEntry entry = get(key(request.url(), varyByUrl.get(request.url()), request.headers()));
+    if (entry == null) {
+      return requestCacheControl.onlyIfCached ? UNSATISFIABLE : MISS;
+    }
+    long age = entry.ageMillis(now());
+    if (!requestCacheControl.noCache && !entry.cacheControl.noCache) {
+      long lifetime = entry.freshnessLifetimeMillis();
+      if (requestCacheControl.maxAgeSeconds >= 0) {
+        lifetime = Math.min(lifetime, CacheEntry.millis(requestCacheControl.maxAgeSeconds));
+      }
+      long requiredAge = requestCacheControl.minFreshSeconds >= 0
+          ? age + CacheEntry.millis(requestCacheControl.minFreshSeconds)
+          : age;
+      if (requiredAge < lifetime) {
+        return new Lookup(Decision.FRESH, entry, age);
+      }
+      long staleness = age - lifetime;
+      if (!entry.cacheControl.mustRevalidate) {
+        if (requestCacheControl.maxStaleSeconds >= 0
+            && staleness <= CacheEntry.millis(requestCacheControl.maxStaleSeconds)) {
+          return new Lookup(Decision.FRESH, entry, age);
+        }
+        if (entry.cacheControl.staleWhileRevalidateSeconds >= 0
+            && staleness <= CacheEntry.millis(entry.cacheControl.staleWhileRevalidateSeconds)) {
+          return new Lookup(Decision.STALE, entry, age);
+        }
+      }
+    }
+    if (requestCacheControl.onlyIfCached) {
+      return UNSATISFIABLE;
+    }
+    return entry.hasValidator() ? new Lookup(Decision.REVALIDATE, entry, age) : MISS;
+  }
+
+  Response hit(Lookup lookup, Request request) {
+    metrics.hit(lookup.entry.bodyLength(), lookup.decision == Decision.STALE);
+    return lookup.entry.toResponse(request, lookup.ageMillis);
+  }
+
+  /**
+   * The {@code 504 Gateway Timeout} required for {@code only-if-cached} requests which cannot be
+   * served from the cache.
+   */
+  Response unsatisfiable(Request request) {
+    return Response.builder()
+        .status(504)
+        .reason("Gateway Timeout")
+        .headers(Collections.emptyMap())
+        .request(request)
+        .build();
+  }
+
+  /**
+   * Starts a background revalidation of {@code entry} unless one is already running.
+   */
+  boolean startRevalidation(CacheEntry entry) {
+    return revalidating.add(entry.key);
+  }
+
+  void endRevalidation(CacheEntry entry) {
+    revalidating.remove(entry.key);
+  }
+
+  /**
+   * Stores {@code response} if it is cacheable.
+   *
+   * @return {@code response}, with its body read into memory if it was stored.
+   */
+  Response store(Request request,
+                 CacheControl requestCacheControl,
+                 Response response,
+                 long requestMillis)
+      throws IOException {
+    metrics.miss();
+    List<String> vary = vary(response);
+    if (!isCacheable(requestCacheControl, response, vary)) {
+      return response;
+    }
+    long responseMillis = now();
+    byte[] body = null;
+    if (response.body() != null) {
+      try {
+        body = toByteArray(response.body().asInputStream());
+      } finally {
+        ensureClosed(response.body());
+      }
+    }
+    String key = key(request.url(), vary, request.headers());
+    CacheEntry entry = new CacheEntry(key, request.url(), response.status(), response.reason(),
+        response.headers(), body != null ? ByteBuffer.wrap(body) : null, requestMillis,
+        responseMillis);
+    if (vary.isEmpty()) {
+      varyByUrl.remove(request.url());
+    } else {
+      varyByUrl.put(request.url(), vary);
+    }
+    put(entry);
+    metrics.stored(entry.bodyLength());
+    return response.toBuilder().request(request).body(body).build();
+  }
+
+  /**
+   * Handles the response to a conditional request made for {@code entry}.
+   *
+   * @return the stored response if the server confirmed it, otherwise {@code response}.
+   */
+  Response revalidated(Request request,
+                       CacheControl requestCacheControl,
+                       CacheEntry entry,
+                       Response response,
+                       long requestMillis)
+      throws IOException {
+    if (response.status() != 304) {
+      remove(entry.key);
+      return store(request, requestCacheControl, response, requestMillis);
+    }
+    ensureClosed(response);
+    CacheEntry updated = entry.revalidated(response, requestMillis, now());
+    put(updated);
+    metrics.revalidated(updated.bodyLength());
+    return updated.toResponse(request, updated.ageMillis(now()));
+  }
+
+  /**
+   * Invalidates the stored responses for the url of an unsafe request which succeeded, RFC 7234
+   * section 4.4.
+   */
+  void invalidateIfUnsafe(Request request, Response response) {
+    HttpMethod method = request.httpMethod();
+    if (method == HttpMethod.GET || method == HttpMethod.HEAD
+        || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE) {
+      return;
+    }
+    if (response.status() >= 400) {
+      return;
+    }
+    invalidate(request.url());
+  }
+
+  void invalidate(String url) {
+    synchronized (memory) {
+      Iterator<Map.Entry<String, CacheEntry>> entries = memory.entrySet().iterator();
+      while (entries.hasNext()) {
+        Map.Entry<String, CacheEntry> entry = entries.next();
+        if (isKeyOf(entry.getKey(), url)) {
+          entries.remove();
+          memoryBytes -= entry.getValue().weight;
+        }
+      }
+      metrics.memoryBytes(memoryBytes);
+    }
+    varyByUrl.remove(url);
+    if (disk != null) {
+      disk.invalidate(url);
+    }
+  }
+
+  private CacheEntry get(String key) {
+    CacheEntry entry;
+    synchronized (memory) {
+      entry = memory.get(key);
+    }
+    if (entry == null && disk != null) {
+      entry = disk.get(key);
+    }
+    return entry;
+  }
+
+  private void put(CacheEntry entry) {
+    if (entry.weight > maxEntryBytes) {
+      remove(entry.key);
+      if (disk != null) {
+        disk.put(entry);
+      }
+      return;
+    }
+    List<CacheEntry> evicted = new ArrayList<>();
+    synchronized (memory) {
+      CacheEntry previous = memory.put(entry.key, entry);
+      memoryBytes += entry.weight;
+      if (previous != null) {
+        memoryBytes -= previous.weight;
+      }
+      Iterator<CacheEntry> eldest = memory.values().iterator();
+      while (memoryBytes > maxBytes && eldest.hasNext()) {
+        CacheEntry candidate = eldest.next();
+        eldest.remove();
+        memoryBytes -= candidate.weight;
+        evicted.add(candidate);
+      }
+      metrics.memoryBytes(memoryBytes);
+    }
+    if (disk != null) {
+      disk.remove(entry.key);
+      for (CacheEntry candidate : evicted) {
+        disk.put(candidate);
+      }
+    } else {
+      for (int i = 0; i < evicted.size(); i++) {
+        metrics.evicted();
+      }
+    }
+  }
+
+  private void remove(String key) {
+    synchronized (memory) {
+      CacheEntry previous = memory.remove(key);
+      if (previous != null) {
+        memoryBytes -= previous.weight;
+        metrics.memoryBytes(memoryBytes);
+      }
+    }
+    if (disk != null) {
+      disk.remove(key);
+    }
+  }
+
+  private static boolean isCacheable(CacheControl requestCacheControl,
+                                     Response response,
+                                     List<String> vary) {
+    if (requestCacheControl.noStore || !CACHEABLE_STATUSES.contains(response.status())) {
+      return false;
+    }
+    if (vary.contains("*")) {
+      return false;
+    }
+    Map<String, Collection<String>> headers = response.headers();
+    CacheControl cacheControl = CacheControl.parse(headers);
+    if (cacheControl.noStore) {
+      return false;
+    }
+    return cacheControl.maxAgeSeconds >= 0
+        || !CacheControl.values(headers, "Expires").isEmpty()
+        || !CacheControl.values(headers, "ETag").isEmpty()
+        || !CacheControl.values(headers, "Last-Modified").isEmpty();
+  }
+
+  private static List<String> vary(Response response) {
+    Collection<String> values = CacheControl.values(response.headers(), "Vary");
+    if (values.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> names = new ArrayList<>();
+    for (String value : values) {
+      for (String name : value.split(",")) {
+        name = name.trim().toLowerCase();
+        if (!name.isEmpty() && !names.contains(name)) {
+          names.add(name);
+        }
+      }
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  /**
+   * The url alone, or followed by the values of the request headers named by {@code Vary}.
+   */
+  static String key(String url, List<String> vary, Map<String, Collection<String>> headers) {
+    if (vary == null || vary.isEmpty()) {
+      return url;
+    }
+    StringBuilder key = new StringBuilder(url);
+    for (String name : vary) {
+      key.append('\n').append(name).append(':');
+      String separator = "";
+      for (String value : CacheControl.values(headers, name)) {
+        key.append(separator).append(value);
+        separator = ",";
+      }
+    }
+    return key.toString();
+  }
+
+  static boolean isKeyOf(String key, String url) {
+    return key.startsWith(url)
+        && (key.length() == url.length() || key.charAt(url.length()) == '\n');
+  }
+}
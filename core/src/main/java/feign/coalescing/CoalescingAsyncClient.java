@@ -0,0 +1,95 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.coalescing;
+
+import feign.AsyncClient;
+import feign.Experimental;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import static feign.Util.checkNotNull;
+
+/**
+ * Asynchronous counterpart of {@link CoalescingClient}. Only the first of identical requests in
+ * flight is passed to the delegate, along with its context, and every caller is completed with its
+ * response. Cancelling the future of one caller does not cancel the shared call.
+ *
+ * @see CoalescingCapability#enrich(AsyncClient)
+ */
+@Experimental
+public class CoalescingAsyncClient<C> implements AsyncClient<C> {
+
+  private final AsyncClient<C> delegate;
+  private final Set<String> keyHeaders;
+  private final CoalescingMetrics metrics;
+  private final ConcurrentMap<CoalescingKey, CompletableFuture<Response>> calls =
+      new ConcurrentHashMap<>();
+
+  public CoalescingAsyncClient(AsyncClient<C> delegate) {
+    this(delegate, null, new CoalescingMetrics());
+  }
+
+  CoalescingAsyncClient(AsyncClient<C> delegate, Set<String> keyHeaders,
+      CoalescingMetrics metrics) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.keyHeaders = keyHeaders;
+    this.metrics = metrics;
+  }
+
+  public CoalescingMetrics metrics() {
+    return metrics;
+  }
+
+  @Override
+  public CompletableFuture<Response> execute(Request request,
+                                             Options options,
+                                             Optional<C> requestContext) {
+    CoalescingKey key = CoalescingKey.of(request, keyHeaders);
+    if (key == null) {
+      return delegate.execute(request, options, requestContext);
+    }
+    CompletableFuture<Response> call = new CompletableFuture<>();
+    CompletableFuture<Response> inFlight = calls.putIfAbsent(key, call);
+    metrics.record(inFlight != null);
+    if (inFlight != null) {
+      return inFlight.thenApply(response -> CoalescingKey.share(response, request));
+    }
+    CompletableFuture<Response> execution;
+    try {
+      execution = delegate.execute(request, options, requestContext);
+    } catch (RuntimeException e) {
+      calls.remove(key, call);
+      throw e;
+    }
+    execution.whenComplete((response, error) -> {
+      calls.remove(key, call);
+      if (error != null) {
+        call.completeExceptionally(error);
+        return;
+      }
+      try {
+        call.complete(CoalescingKey.buffer(response));
+      } catch (Throwable e) {
+        call.completeExceptionally(e);
+      }
+    });
+    // callers get a dependent future, so one of them cancelling leaves the others waiting
+    return call.thenApply(response -> response);
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.coalescing;
+
+import feign.AsyncClient;
+import feign.Capability;
+import feign.Client;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Coalesces identical GET and HEAD requests which are in flight at the same time into a single
+ * call, to avoid stampedes when many threads ask for the same resource at once. Ex.
+ *
+ * <pre>
+ * CoalescingCapability coalescing =
+ *     new CoalescingCapability(Arrays.asList("Accept", "Authorization"));
+ * GitHub github = Feign.builder()
+ *     .addCapability(coalescing)
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * Response bodies are read into memory before being shared, so this is not suited to methods which
+ * stream large responses. {@link #metrics()} counts how many requests were coalesced.
+ *
+ * @see CoalescingClient
+ */
+public class CoalescingCapability implements Capability {
+
+  private final Set<String> keyHeaders;
+  private final CoalescingMetrics metrics = new CoalescingMetrics();
+
+  /**
+   * Coalesces requests whose method, url and headers are all equal.
+   */
+  public CoalescingCapability() {
+    this.keyHeaders = null;
+  }
+
+  /**
+   * Coalesces requests whose method, url and {@code keyHeaders} are equal, ignoring other headers.
+   */
+  public CoalescingCapability(Collection<String> keyHeaders) {
+    this.keyHeaders = CoalescingKey.headerNames(keyHeaders);
+  }
+
+  @Override
+  public Client enrich(Client client) {
+    return new CoalescingClient(client, keyHeaders, metrics);
+  }
+
+  /**
+   * Wraps an {@link AsyncClient}, for use with {@link feign.AsyncFeign.AsyncBuilder#client}.
+   */
+  public <C> AsyncClient<C> enrich(AsyncClient<C> client) {
+    return new CoalescingAsyncClient<>(client, keyHeaders, metrics);
+  }
+
+  /**
+   * @return counts shared by every client this capability wrapped.
+   */
+  public CoalescingMetrics metrics() {
+    return metrics;
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.coalescing;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import static feign.Util.checkNotNull;
+
+/**
+ * Sends identical GET and HEAD requests which are in flight at the same time as a single call. The
+ * first request is executed by the delegate, the others wait for its response, whose body is read
+ * into memory and shared by all of them. Errors are shared the same way.
+ *
+ * <p>
+ * Requests are identical when their method, url and headers are equal. When only some headers
+ * matter, for example {@code Accept} and {@code Authorization}, the others can be left out of the
+ * comparison with {@link CoalescingCapability#CoalescingCapability(java.util.Collection)}.
+ * </p>
+ *
+ * @see CoalescingCapability
+ */
+public class CoalescingClient implements Client {
+
+  private final Client delegate;
+  private final Set<String> keyHeaders;
+  private final CoalescingMetrics metrics;
+  private final ConcurrentMap<CoalescingKey, CompletableFuture<Response>> calls =
+      new ConcurrentHashMap<>();
+
+  public CoalescingClient(Client delegate) {
+    this(delegate, null, new CoalescingMetrics());
+  }
+
+  CoalescingClient(Client delegate, Set<String> keyHeaders, CoalescingMetrics metrics) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.keyHeaders = keyHeaders;
+    this.metrics = metrics;
+  }
+
+  public CoalescingMetrics metrics() {
+    return metrics;
+  }
+
+  @Override
+  public Response execute(Request request, Options options) throws IOException {
+    CoalescingKey key = CoalescingKey.of(request, keyHeaders);
+    if (key == null) {
+      return delegate.execute(request, options);
+    }
+    CompletableFuture<Response> call = new CompletableFuture<>();
+    CompletableFuture<Response> inFlight = calls.putIfAbsent(key, call);
+    metrics.record(inFlight != null);
+    if (inFlight != null) {
+      return CoalescingKey.share(await(inFlight), request);
+    }
+    Response response;
+    try {
+      response = CoalescingKey.buffer(delegate.execute(request, options));
+    } catch (Throwable e) {
+      calls.remove(key, call);
+      call.completeExceptionally(e);
+      throw e;
+    }
+    calls.remove(key, call);
+    call.complete(response);
+    return response;
+  }
+
+  private static Response await(CompletableFuture<Response> inFlight) throws IOException {
+    try {
+      return inFlight.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted waiting for an identical request");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+}
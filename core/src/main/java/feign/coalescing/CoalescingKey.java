@@ -0,0 +1,133 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.coalescing;
+
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import static feign.Util.toByteArray;
+
+/**
+ * Identifies requests which can share a single response: the method, url and the values of the
+ * headers which are part of the key.
+ */
+final class CoalescingKey {
+
+  private final HttpMethod method;
+  private final String url;
+  private final List<String> headers;
+  private final int hashCode;
+
+  private CoalescingKey(HttpMethod method, String url, List<String> headers) {
+    this.method = method;
+    this.url = url;
+    this.headers = headers;
+    this.hashCode = 31 * (31 * method.hashCode() + url.hashCode()) + headers.hashCode();
+  }
+
+  /**
+   * @param keyHeaders names of the headers to compare, or null for all of them.
+   * @return the key of {@code request}, or null if it must not be coalesced.
+   */
+  static CoalescingKey of(Request request, Set<String> keyHeaders) {
+    HttpMethod method = request.httpMethod();
+    if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+      return null;
+    }
+    if (request.body() != null && request.body().length > 0) {
+      return null;
+    }
+    Map<String, Collection<String>> headers = request.headers();
+    if (headers.isEmpty()) {
+      return new CoalescingKey(method, request.url(), Collections.emptyList());
+    }
+    Map<String, Collection<String>> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    sorted.putAll(headers);
+    List<String> values = new ArrayList<>();
+    for (Map.Entry<String, Collection<String>> header : sorted.entrySet()) {
+      if (keyHeaders == null || keyHeaders.contains(header.getKey())) {
+        values.add(header.getKey().toLowerCase());
+        values.addAll(header.getValue());
+        // separates the values of one header from the name of the next
+        values.add(null);
+      }
+    }
+    return new CoalescingKey(method, request.url(), values);
+  }
+
+  static Set<String> headerNames(Collection<String> names) {
+    Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    set.addAll(names);
+    return set;
+  }
+
+  /**
+   * Reads the body of {@code response} into memory, so it can be shared by every caller.
+   */
+  static Response buffer(Response response) throws IOException {
+    Response.Body body = response.body();
+    if (body == null || body.isRepeatable()) {
+      return response;
+    }
+    try {
+      return response.toBuilder().body(toByteArray(body.asInputStream())).build();
+    } finally {
+      response.close();
+    }
+  }
+
+  /**
+   * @return {@code shared} as the response to {@code request}.
+   */
+  static Response share(Response shared, Request request) {
+    if (shared.request() == request) {
+      return shared;
+    }
+    return shared.toBuilder().request(request).build();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CoalescingKey)) {
+      return false;
+    }
+    CoalescingKey other = (CoalescingKey) obj;
+    return hashCode == other.hashCode
+        && method == other.method
+        && url.equals(other.url)
+        && headers.equals(other.headers);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return method + " " + url;
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.coalescing;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests seen by the coalescing clients of a {@link CoalescingCapability}.
+ */
+public final class CoalescingMetrics {
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  CoalescingMetrics() {}
+
+  /**
+   * @return number of requests which could have been coalesced: GET and HEAD requests without a
+   *         body.
+   */
+  public long requests() {
+    return requests.sum();
+  }
+
+  /**
+   * @return number of requests answered with the response of an identical request already in
+   *         flight, instead of a call of their own.
+   */
+  public long coalesced() {
+    return coalesced.sum();
+  }
+
+  /**
+   * @return share of {@link #requests()} which were {@link #coalesced()}, between 0 and 1.
+   */
+  public double hitRate() {
+    long requests = requests();
+    return requests == 0 ? 0 : (double) coalesced() / requests;
+  }
+
+  void record(boolean hit) {
+    requests.increment();
+    if (hit) {
+      coalesced.increment();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CoalescingMetrics(requests=" + requests() + ", coalesced=" + coalesced() + ")";
+  }
+}
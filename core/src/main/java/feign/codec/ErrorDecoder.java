@@ -15,6 +15,7 @@ package feign.codec;
 
 import static feign.FeignException.errorStatus;
 import static feign.Util.RETRY_AFTER;
+import static feign.Util.checkArgument;
 import static feign.Util.checkNotNull;
 import static java.util.Locale.US;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -86,10 +87,32 @@ public interface ErrorDecoder {
   public static class Default implements ErrorDecoder {
 
     private final RetryAfterDecoder retryAfterDecoder = new RetryAfterDecoder();
+    private final int maxBodyBytes;
+    private final boolean clientErrorStackTraces;
+
+    public Default() {
+      this(Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * For services answering with client errors as a matter of course, ex. {@code 404} for a
+     * missing entity.
+     *
+     * @param maxBodyBytes the most bytes of the response body kept by exceptions.
+     * @param clientErrorStackTraces whether exceptions for {@code 4xx} statuses capture the stack
+     *        trace, which is most of the cost of creating them.
+     * @see FeignException#errorStatus(String, Response, int, boolean)
+     */
+    public Default(int maxBodyBytes, boolean clientErrorStackTraces) {
+      checkArgument(maxBodyBytes >= 0, "maxBodyBytes must not be negative");
+      this.maxBodyBytes = maxBodyBytes;
+      this.clientErrorStackTraces = clientErrorStackTraces;
+    }
 
     @Override
     public Exception decode(String methodKey, Response response) {
-      FeignException exception = errorStatus(methodKey, response);
+      FeignException exception =
+          errorStatus(methodKey, response, maxBodyBytes, clientErrorStackTraces);
       Date retryAfter = retryAfterDecoder.apply(firstOrNull(response.headers(), RETRY_AFTER));
       if (retryAfter != null) {
         return new RetryableException(
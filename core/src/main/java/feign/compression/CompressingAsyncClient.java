@@ -0,0 +1,57 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import feign.AsyncClient;
+import feign.Experimental;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import static feign.Util.checkNotNull;
+
+/**
+ * Asynchronous counterpart of {@link CompressingClient}.
+ *
+ * @see CompressionCapability#enrich(AsyncClient)
+ */
+@Experimental
+public class CompressingAsyncClient<C> implements AsyncClient<C> {
+
+  private final AsyncClient<C> delegate;
+  private final Compression compression;
+
+  CompressingAsyncClient(AsyncClient<C> delegate, Compression compression) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.compression = compression;
+  }
+
+  @Override
+  public CompletableFuture<Response> execute(Request request,
+                                             Options options,
+                                             Optional<C> requestContext) {
+    Request compressed;
+    try {
+      compressed = compression.compress(request);
+    } catch (IOException e) {
+      CompletableFuture<Response> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+    return delegate.execute(compressed, options, requestContext)
+        .thenApply(compression::decompress);
+  }
+}
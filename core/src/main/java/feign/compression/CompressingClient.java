@@ -0,0 +1,42 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+import static feign.Util.checkNotNull;
+
+/**
+ * Compresses large request bodies and decompresses responses for the delegate.
+ *
+ * @see CompressionCapability
+ */
+public class CompressingClient implements Client {
+
+  private final Client delegate;
+  private final Compression compression;
+
+  CompressingClient(Client delegate, Compression compression) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.compression = compression;
+  }
+
+  @Override
+  public Response execute(Request request, Options options) throws IOException {
+    return compression.decompress(delegate.execute(compression.compress(request), options));
+  }
+}
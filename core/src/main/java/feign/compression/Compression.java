@@ -0,0 +1,165 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import static feign.Util.CONTENT_ENCODING;
+import static feign.Util.CONTENT_LENGTH;
+
+/**
+ * What the clients of a {@link CompressionCapability} share: the codecs by encoding, and when to
+ * compress requests.
+ */
+final class Compression {
+
+  static final String ACCEPT_ENCODING = "Accept-Encoding";
+  private static final String CONTENT_TYPE = "Content-Type";
+
+  private final Map<String, CompressionCodec> codecs;
+  private final String acceptEncoding;
+  private final CompressionCodec requestCodec;
+  private final int minRequestSize;
+  private final Set<String> mimeTypes;
+  private final boolean decompressResponses;
+  private final CompressionMetrics metrics;
+
+  Compression(Map<String, CompressionCodec> codecs, CompressionCodec requestCodec,
+      int minRequestSize, Set<String> mimeTypes, boolean decompressResponses,
+      CompressionMetrics metrics) {
+    this.codecs = codecs;
+    this.acceptEncoding = String.join(", ", codecs.keySet());
+    this.requestCodec = requestCodec;
+    this.minRequestSize = minRequestSize;
+    this.mimeTypes = mimeTypes;
+    this.decompressResponses = decompressResponses;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Advertises the codecs in {@code Accept-Encoding}, and compresses the body when it is large
+   * enough and not encoded already.
+   */
+  Request compress(Request request) throws IOException {
+    Map<String, Collection<String>> headers = request.headers();
+    boolean advertise = decompressResponses && !hasHeader(headers, ACCEPT_ENCODING);
+    boolean compress = shouldCompress(request);
+    if (!advertise && !compress) {
+      return request;
+    }
+    Map<String, Collection<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    copy.putAll(headers);
+    if (advertise) {
+      copy.put(ACCEPT_ENCODING, Collections.singletonList(acceptEncoding));
+    }
+    if (!compress) {
+      return Request.create(request.httpMethod(), request.url(), copy, request.body(),
+          request.charset(), request.requestTemplate());
+    }
+    byte[] body = request.body();
+    byte[] compressed = requestCodec.compress(body);
+    metrics.compressed(body.length, compressed.length);
+    copy.put(CONTENT_ENCODING, Collections.singletonList(requestCodec.encoding()));
+    copy.remove(CONTENT_LENGTH);
+    copy.put(CONTENT_LENGTH, Collections.singletonList(String.valueOf(compressed.length)));
+    // marked so Client.Default does not compress it again
+    return Request.create(request.httpMethod(), request.url(), copy,
+        Request.Body.contentEncoded(compressed), request.requestTemplate());
+  }
+
+  private boolean shouldCompress(Request request) {
+    if (requestCodec == null || request.body() == null
+        || request.body().length < minRequestSize
+        || hasHeader(request.headers(), CONTENT_ENCODING)) {
+      return false;
+    }
+    if (mimeTypes == null) {
+      return true;
+    }
+    Collection<String> contentTypes = header(request.headers(), CONTENT_TYPE);
+    if (contentTypes == null || contentTypes.isEmpty()) {
+      return false;
+    }
+    String contentType = contentTypes.iterator().next();
+    int parameters = contentType.indexOf(';');
+    if (parameters >= 0) {
+      contentType = contentType.substring(0, parameters);
+    }
+    return mimeTypes.contains(contentType.trim().toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Wraps the body of a response whose {@code Content-Encoding} only lists known codecs, so it is
+   * decompressed as it is read.
+   */
+  Response decompress(Response response) {
+    if (!decompressResponses || response.body() == null) {
+      return response;
+    }
+    Collection<String> encodings = response.headers().get(CONTENT_ENCODING);
+    if (encodings == null) {
+      return response;
+    }
+    List<CompressionCodec> undo = new ArrayList<>();
+    for (String value : encodings) {
+      for (String token : value.split(",")) {
+        String encoding = token.trim().toLowerCase(Locale.ROOT);
+        if (encoding.isEmpty() || encoding.equals("identity")) {
+          continue;
+        }
+        CompressionCodec codec = codecs.get(encoding);
+        if (codec == null) {
+          // left to the caller, who may know it
+          return response;
+        }
+        undo.add(0, codec);
+      }
+    }
+    if (undo.isEmpty()) {
+      return response;
+    }
+    Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(response.headers());
+    headers.remove(CONTENT_ENCODING);
+    headers.remove(CONTENT_LENGTH);
+    metrics.decompressed();
+    return response.toBuilder()
+        .headers(headers)
+        .body(new DecompressedBody(response.body(), undo))
+        .build();
+  }
+
+  private static boolean hasHeader(Map<String, Collection<String>> headers, String name) {
+    Collection<String> values = header(headers, name);
+    return values != null && !values.isEmpty();
+  }
+
+  private static Collection<String> header(Map<String, Collection<String>> headers, String name) {
+    for (Map.Entry<String, Collection<String>> entry : headers.entrySet()) {
+      if (entry.getKey().equalsIgnoreCase(name)) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+}
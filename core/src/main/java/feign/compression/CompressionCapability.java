@@ -0,0 +1,165 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import feign.AsyncClient;
+import feign.Capability;
+import feign.Client;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+import static feign.Util.checkState;
+
+/**
+ * Compresses request bodies over a size threshold and transparently decompresses responses. Every
+ * request advertises the known codecs in {@code Accept-Encoding}, unless it sets one itself, and
+ * responses are decompressed as they are read, without buffering. Ex.
+ *
+ * <pre>
+ * CompressionCapability compression = CompressionCapability.builder()
+ *     .minRequestSize(4096)
+ *     .mimeTypes("application/json")
+ *     .build();
+ * GitHub github = Feign.builder()
+ *     .addCapability(compression)
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * Gzip and deflate are built in and reuse pooled {@link java.util.zip.Deflater} and
+ * {@link java.util.zip.Inflater} instances, other encodings can be added with
+ * {@link Builder#codec(CompressionCodec)}.
+ */
+public class CompressionCapability implements Capability {
+
+  private final Compression compression;
+  private final CompressionMetrics metrics;
+
+  private CompressionCapability(Compression compression, CompressionMetrics metrics) {
+    this.compression = compression;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Gzips request bodies of 1 KiB or more, and decompresses gzip and deflate responses.
+   */
+  public static CompressionCapability create() {
+    return builder().build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public Client enrich(Client client) {
+    return new CompressingClient(client, compression);
+  }
+
+  /**
+   * Wraps an {@link AsyncClient}, for use with {@link feign.AsyncFeign.AsyncBuilder#client}.
+   */
+  public <C> AsyncClient<C> enrich(AsyncClient<C> client) {
+    return new CompressingAsyncClient<>(client, compression);
+  }
+
+  /**
+   * @return counts shared by every client this capability wrapped.
+   */
+  public CompressionMetrics metrics() {
+    return metrics;
+  }
+
+  public static final class Builder {
+
+    private final Map<String, CompressionCodec> codecs = new LinkedHashMap<>();
+    private String requestEncoding = CompressionCodec.gzip().encoding();
+    private int minRequestSize = 1024;
+    private Set<String> mimeTypes;
+    private boolean decompressResponses = true;
+
+    Builder() {
+      codec(CompressionCodec.gzip());
+      codec(CompressionCodec.deflate());
+    }
+
+    /**
+     * Adds a codec, or replaces the one of the same encoding.
+     */
+    public Builder codec(CompressionCodec codec) {
+      checkNotNull(codec, "codec");
+      codecs.put(codec.encoding().toLowerCase(Locale.ROOT), codec);
+      return this;
+    }
+
+    /**
+     * Encoding of the compressed request bodies, one of the codecs. Defaults to {@code gzip}.
+     */
+    public Builder requestEncoding(String encoding) {
+      this.requestEncoding = checkNotNull(encoding, "encoding").toLowerCase(Locale.ROOT);
+      return this;
+    }
+
+    /**
+     * Smallest request body which is compressed, as compressing small ones costs more than it
+     * saves. Defaults to 1 KiB.
+     */
+    public Builder minRequestSize(int bytes) {
+      checkArgument(bytes >= 0, "minRequestSize must not be negative");
+      this.minRequestSize = bytes;
+      return this;
+    }
+
+    /**
+     * Only compresses request bodies of these content types. Defaults to any.
+     */
+    public Builder mimeTypes(String... mimeTypes) {
+      this.mimeTypes = new HashSet<>();
+      for (String mimeType : mimeTypes) {
+        this.mimeTypes.add(mimeType.toLowerCase(Locale.ROOT));
+      }
+      return this;
+    }
+
+    /**
+     * Leaves request bodies as they are.
+     */
+    public Builder disableRequestCompression() {
+      this.requestEncoding = null;
+      return this;
+    }
+
+    /**
+     * Neither advertises {@code Accept-Encoding} nor decompresses responses.
+     */
+    public Builder disableResponseDecompression() {
+      this.decompressResponses = false;
+      return this;
+    }
+
+    public CompressionCapability build() {
+      CompressionCodec requestCodec = null;
+      if (requestEncoding != null) {
+        requestCodec = codecs.get(requestEncoding);
+        checkState(requestCodec != null, "No codec for the request encoding %s", requestEncoding);
+      }
+      CompressionMetrics metrics = new CompressionMetrics();
+      return new CompressionCapability(new Compression(new LinkedHashMap<>(codecs), requestCodec,
+          minRequestSize, mimeTypes, decompressResponses, metrics), metrics);
+    }
+  }
+}
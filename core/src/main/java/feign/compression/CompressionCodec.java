@@ -0,0 +1,52 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@code Content-Encoding} understood by a {@link CompressionCapability}. Implementations must be
+ * thread-safe. {@link #gzip()} and {@link #deflate()} are built in, others such as brotli or zstd
+ * can be plugged in with {@link CompressionCapability.Builder#codec(CompressionCodec)}.
+ */
+public interface CompressionCodec {
+
+  /**
+   * @return the {@code Content-Encoding} token of this codec, ex. {@code gzip}.
+   */
+  String encoding();
+
+  byte[] compress(byte[] data) throws IOException;
+
+  /**
+   * @return a stream of the decompressed bytes of {@code in}, which closes {@code in} when closed.
+   */
+  InputStream decompress(InputStream in) throws IOException;
+
+  /**
+   * Gzip, using pooled {@link java.util.zip.Deflater} and {@link java.util.zip.Inflater} instances.
+   */
+  static CompressionCodec gzip() {
+    return ZipCodec.GZIP;
+  }
+
+  /**
+   * Zlib deflate, using pooled {@link java.util.zip.Deflater} and {@link java.util.zip.Inflater}
+   * instances.
+   */
+  static CompressionCodec deflate() {
+    return ZipCodec.DEFLATE;
+  }
+}
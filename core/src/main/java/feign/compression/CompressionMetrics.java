@@ -0,0 +1,75 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the work done by the clients of a {@link CompressionCapability}.
+ */
+public final class CompressionMetrics {
+
+  private final LongAdder compressedRequests = new LongAdder();
+  private final LongAdder requestBytes = new LongAdder();
+  private final LongAdder compressedRequestBytes = new LongAdder();
+  private final LongAdder decompressedResponses = new LongAdder();
+
+  CompressionMetrics() {}
+
+  /**
+   * @return number of request bodies which were compressed.
+   */
+  public long compressedRequests() {
+    return compressedRequests.sum();
+  }
+
+  /**
+   * @return size of the request bodies before they were compressed.
+   */
+  public long requestBytes() {
+    return requestBytes.sum();
+  }
+
+  /**
+   * @return size of the request bodies once compressed.
+   */
+  public long compressedRequestBytes() {
+    return compressedRequestBytes.sum();
+  }
+
+  /**
+   * @return number of response bodies which were decompressed.
+   */
+  public long decompressedResponses() {
+    return decompressedResponses.sum();
+  }
+
+  void compressed(int bytes, int compressedBytes) {
+    compressedRequests.increment();
+    requestBytes.add(bytes);
+    compressedRequestBytes.add(compressedBytes);
+  }
+
+  void decompressed() {
+    decompressedResponses.increment();
+  }
+
+  @Override
+  public String toString() {
+    return "CompressionMetrics{compressedRequests=" + compressedRequests()
+        + ", requestBytes=" + requestBytes()
+        + ", compressedRequestBytes=" + compressedRequestBytes()
+        + ", decompressedResponses=" + decompressedResponses() + "}";
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import feign.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * A response body decompressed as it is read. Codecs are listed in the order they are undone, the
+ * reverse of the {@code Content-Encoding} header.
+ */
+final class DecompressedBody implements Response.Body {
+
+  private final Response.Body delegate;
+  private final List<CompressionCodec> codecs;
+  private InputStream stream;
+
+  DecompressedBody(Response.Body delegate, List<CompressionCodec> codecs) {
+    this.delegate = delegate;
+    this.codecs = codecs;
+  }
+
+  @Override
+  public Integer length() {
+    // unknown until read
+    return null;
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return delegate.isRepeatable();
+  }
+
+  @Override
+  public InputStream asInputStream() throws IOException {
+    InputStream in = delegate.asInputStream();
+    for (CompressionCodec codec : codecs) {
+      in = codec.decompress(in);
+    }
+    stream = in;
+    return in;
+  }
+
+  @Override
+  public Reader asReader(Charset charset) throws IOException {
+    return new InputStreamReader(asInputStream(), charset);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (stream != null) {
+        // gives the inflaters of a partially read body back
+        stream.close();
+      }
+    } finally {
+      delegate.close();
+    }
+  }
+}
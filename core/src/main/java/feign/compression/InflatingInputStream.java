@@ -0,0 +1,200 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Streams the decompressed bytes of a gzip or zlib stream with a pooled {@link Inflater}, which is
+ * given back once the end of the data is reached or the stream is closed.
+ * {@link java.util.zip.GZIPInputStream} cannot be used as it always allocates its own inflater.
+ */
+final class InflatingInputStream extends InputStream {
+
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private final InputStream in;
+  private final Pool<Inflater> pool;
+  private final boolean gzip;
+  private final CRC32 crc;
+  private final byte[] buffer = new byte[8192];
+  private int position;
+  private int limit;
+  private Inflater inflater;
+  private boolean started;
+  private boolean finished;
+  private boolean closed;
+
+  InflatingInputStream(InputStream in, Pool<Inflater> pool, boolean gzip) {
+    this.in = in;
+    this.pool = pool;
+    this.gzip = gzip;
+    this.crc = gzip ? new CRC32() : null;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (finished) {
+      return -1;
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!started) {
+      started = true;
+      // an empty body is left empty, as sent in responses to HEAD requests
+      if (!fill()) {
+        finish();
+        return -1;
+      }
+      inflater = pool.acquire();
+      if (gzip) {
+        readHeader();
+      }
+    }
+    try {
+      while (true) {
+        int read = inflater.inflate(b, off, len);
+        if (read > 0) {
+          if (gzip) {
+            crc.update(b, off, read);
+          }
+          return read;
+        }
+        if (inflater.finished()) {
+          position = limit - inflater.getRemaining();
+          if (gzip) {
+            readTrailer();
+          }
+          finish();
+          return -1;
+        }
+        if (inflater.needsDictionary()) {
+          throw new ZipException("Preset dictionaries are not supported");
+        }
+        if (inflater.needsInput()) {
+          if (position == limit && !fill()) {
+            throw new EOFException("Unexpected end of compressed data");
+          }
+          inflater.setInput(buffer, position, limit - position);
+          position = limit;
+        }
+      }
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage());
+    }
+  }
+
+  private void readHeader() throws IOException {
+    if (readByte() != 0x1f || readByte() != 0x8b) {
+      throw new ZipException("Not in gzip format");
+    }
+    if (readByte() != 8) {
+      throw new ZipException("Unsupported compression method");
+    }
+    int flags = readByte();
+    skip(6);
+    if ((flags & FEXTRA) != 0) {
+      skip(readByte() | readByte() << 8);
+    }
+    if ((flags & FNAME) != 0) {
+      skipString();
+    }
+    if ((flags & FCOMMENT) != 0) {
+      skipString();
+    }
+    if ((flags & FHCRC) != 0) {
+      skip(2);
+    }
+  }
+
+  private void readTrailer() throws IOException {
+    long expectedCrc = readInt() & 0xffffffffL;
+    long expectedSize = readInt() & 0xffffffffL;
+    if (expectedCrc != crc.getValue()) {
+      throw new ZipException("Corrupt gzip data, invalid CRC");
+    }
+    if (expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+      throw new ZipException("Corrupt gzip data, invalid size");
+    }
+  }
+
+  private int readInt() throws IOException {
+    return readByte() | readByte() << 8 | readByte() << 16 | readByte() << 24;
+  }
+
+  private void skipString() throws IOException {
+    while (readByte() != 0) {
+      // skip up to the zero terminating the string
+    }
+  }
+
+  private void skip(int count) throws IOException {
+    for (int i = 0; i < count; i++) {
+      readByte();
+    }
+  }
+
+  private int readByte() throws IOException {
+    if (position == limit && !fill()) {
+      throw new EOFException("Unexpected end of gzip data");
+    }
+    return buffer[position++] & 0xff;
+  }
+
+  private boolean fill() throws IOException {
+    int read = in.read(buffer, 0, buffer.length);
+    if (read == -1) {
+      return false;
+    }
+    position = 0;
+    limit = read;
+    return true;
+  }
+
+  private void finish() {
+    finished = true;
+    if (inflater != null) {
+      pool.release(inflater);
+      inflater = null;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      finish();
+      in.close();
+    }
+  }
+}
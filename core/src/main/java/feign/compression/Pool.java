@@ -0,0 +1,50 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps up to {@code capacity} released instances for reuse. Deflaters and inflaters hold native
+ * memory which is only freed by {@code end()} or finalization, so reusing them avoids both the
+ * allocation and the pressure on finalization.
+ */
+final class Pool<T> {
+
+  private final ArrayBlockingQueue<T> idle;
+  private final Supplier<T> factory;
+  private final Consumer<T> reset;
+  private final Consumer<T> end;
+
+  Pool(int capacity, Supplier<T> factory, Consumer<T> reset, Consumer<T> end) {
+    this.idle = new ArrayBlockingQueue<>(capacity);
+    this.factory = factory;
+    this.reset = reset;
+    this.end = end;
+  }
+
+  T acquire() {
+    T instance = idle.poll();
+    return instance != null ? instance : factory.get();
+  }
+
+  void release(T instance) {
+    reset.accept(instance);
+    if (!idle.offer(instance)) {
+      end.accept(instance);
+    }
+  }
+}
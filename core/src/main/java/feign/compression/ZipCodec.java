@@ -0,0 +1,93 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import static feign.Util.ENCODING_DEFLATE;
+import static feign.Util.ENCODING_GZIP;
+
+/**
+ * The gzip and deflate codecs. Both deflate with pooled instances, gzip only adds its header and
+ * trailer around raw deflate data.
+ */
+final class ZipCodec implements CompressionCodec {
+
+  private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0,
+      0, (byte) 0xff};
+
+  // declared after POOL_SIZE, which they need once created
+  static final ZipCodec GZIP = new ZipCodec(true);
+  static final ZipCodec DEFLATE = new ZipCodec(false);
+
+  private final boolean gzip;
+  private final Pool<Deflater> deflaters;
+  private final Pool<Inflater> inflaters;
+
+  private ZipCodec(boolean gzip) {
+    this.gzip = gzip;
+    this.deflaters = new Pool<>(POOL_SIZE, () -> new Deflater(Deflater.DEFAULT_COMPRESSION, gzip),
+        Deflater::reset, Deflater::end);
+    this.inflaters = new Pool<>(POOL_SIZE, () -> new Inflater(gzip), Inflater::reset,
+        Inflater::end);
+  }
+
+  @Override
+  public String encoding() {
+    return gzip ? ENCODING_GZIP : ENCODING_DEFLATE;
+  }
+
+  @Override
+  public byte[] compress(byte[] data) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 32);
+    if (gzip) {
+      out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+    }
+    Deflater deflater = deflaters.acquire();
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      byte[] buffer = new byte[Math.min(Math.max(data.length / 2, 512), 8192)];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+    } finally {
+      deflaters.release(deflater);
+    }
+    if (gzip) {
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, data.length);
+      writeInt(out, (int) crc.getValue());
+      writeInt(out, data.length);
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public InputStream decompress(InputStream in) {
+    return new InflatingInputStream(in, inflaters, gzip);
+  }
+
+  private static void writeInt(ByteArrayOutputStream out, int value) {
+    // gzip is little endian
+    out.write(value);
+    out.write(value >>> 8);
+    out.write(value >>> 16);
+    out.write(value >>> 24);
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket capping hedges to a share of requests: each request earns {@code ratio} of a hedge
+ * and each hedge spends a whole one, so hedging adds at most {@code ratio} to the load, plus a
+ * small burst.
+ */
+final class HedgeBudget {
+
+  private static final long UNIT = 1000;
+  private static final long MAX_BURST = 10;
+
+  private final long deposit;
+  private final AtomicLong balance = new AtomicLong();
+
+  HedgeBudget(double ratio) {
+    this.deposit = Math.round(ratio * UNIT);
+  }
+
+  void deposit() {
+    balance.accumulateAndGet(deposit, (balance, deposit) -> Math.min(MAX_BURST * UNIT,
+        balance + deposit));
+  }
+
+  boolean tryAcquire() {
+    long current;
+    do {
+      current = balance.get();
+      if (current < UNIT) {
+        return false;
+      }
+    } while (!balance.compareAndSet(current, current - UNIT));
+    return true;
+  }
+}
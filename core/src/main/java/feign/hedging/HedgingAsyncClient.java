@@ -0,0 +1,339 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.hedging;
+
+import feign.AsyncClient;
+import feign.Experimental;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Request.Options;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.SharedScheduler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+import static feign.Util.ensureClosed;
+
+/**
+ * Cuts tail latency of idempotent requests: when the response to a request is late, the same
+ * request is sent again through the delegate, the first successful response wins and the other
+ * request is cancelled. A response is successful unless its status is 5xx. Ex.
+ *
+ * <pre>
+ * HedgingAsyncClient&lt;Void&gt; hedging = HedgingAsyncClient.builder()
+ *     .percentile(95)
+ *     .budget(0.05)
+ *     .build(new AsyncClient.Default&lt;&gt;(new Client.Default(null, null), executor));
+ * GitHub github = AsyncFeign.&lt;Void&gt;asyncBuilder()
+ *     .client(hedging)
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * The delay before the duplicate is either fixed or the recent response time percentile of the
+ * method. Duplicates are paid from a budget earned by every request, so hedging never adds more
+ * than the configured share of load, even when every replica is slow.
+ */
+@Experimental
+public class HedgingAsyncClient<C> implements AsyncClient<C> {
+
+  private final AsyncClient<C> delegate;
+  private final Set<HttpMethod> methods;
+  private final long delayNanos;
+  private final double percentile;
+  private final int window;
+  private final int minSamples;
+  private final HedgeBudget budget;
+  private final ScheduledExecutorService scheduler;
+  private final HedgingMetrics metrics = new HedgingMetrics();
+  private final ConcurrentMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+  private HedgingAsyncClient(AsyncClient<C> delegate, Builder builder) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.methods = EnumSet.copyOf(builder.methods);
+    this.delayNanos = builder.delayNanos;
+    this.percentile = builder.percentile;
+    this.window = builder.window;
+    this.minSamples = builder.minSamples;
+    this.budget = new HedgeBudget(builder.budget);
+    this.scheduler = builder.scheduler != null ? builder.scheduler : SharedScheduler.instance();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public CompletableFuture<Response> execute(Request request,
+                                             Options options,
+                                             Optional<C> requestContext) {
+    if (!methods.contains(request.httpMethod())) {
+      return delegate.execute(request, options, requestContext);
+    }
+    metrics.request();
+    budget.deposit();
+    LatencyWindow latency = percentile > 0
+        ? latencies.computeIfAbsent(key(request),
+            key -> new LatencyWindow(window, percentile, minSamples))
+        : null;
+    long delay = latency != null && latency.percentileNanos() >= 0
+        ? latency.percentileNanos()
+        : delayNanos;
+    return new HedgedCall(request, options, requestContext, latency).start(delay);
+  }
+
+  /**
+   * @return counts of the requests seen by this client.
+   */
+  public HedgingMetrics metrics() {
+    return metrics;
+  }
+
+  private static String key(Request request) {
+    RequestTemplate template = request.requestTemplate();
+    if (template != null && template.methodMetadata() != null) {
+      return template.methodMetadata().configKey();
+    }
+    return request.httpMethod() + " " + request.url();
+  }
+
+  /**
+   * The original request and its duplicate. Attempts complete on the delegate's threads, so their
+   * outcomes are reconciled under the call's lock, while the result is completed outside of it.
+   */
+  private final class HedgedCall {
+
+    private final Request request;
+    private final Options options;
+    private final Optional<C> requestContext;
+    private final LatencyWindow latency;
+    private final CompletableFuture<Response> result = new CompletableFuture<>();
+    private final List<CompletableFuture<Response>> attempts = new ArrayList<>(2);
+    private ScheduledFuture<?> timer;
+    private int pending;
+    private boolean done;
+    private CompletableFuture<Response> winner;
+    private Response failedResponse;
+
+    HedgedCall(Request request, Options options, Optional<C> requestContext,
+        LatencyWindow latency) {
+      this.request = request;
+      this.options = options;
+      this.requestContext = requestContext;
+      this.latency = latency;
+    }
+
+    CompletableFuture<Response> start(long delayNanos) {
+      result.whenComplete((response, error) -> cancelLosers());
+      attempt(false);
+      synchronized (this) {
+        if (!done) {
+          timer = scheduler.schedule(this::hedge, delayNanos, TimeUnit.NANOSECONDS);
+        }
+      }
+      return result;
+    }
+
+    private void hedge() {
+      synchronized (this) {
+        if (done || result.isDone()) {
+          return;
+        }
+      }
+      if (!budget.tryAcquire()) {
+        metrics.noBudget();
+        return;
+      }
+      metrics.hedge();
+      attempt(true);
+    }
+
+    private void attempt(boolean hedge) {
+      synchronized (this) {
+        if (done || result.isDone()) {
+          return;
+        }
+        // counted before it is sent, so a failure of the other attempt waits for this one
+        pending++;
+      }
+      long start = System.nanoTime();
+      CompletableFuture<Response> attempt;
+      try {
+        attempt = delegate.execute(request, options, requestContext);
+      } catch (RuntimeException e) {
+        attempt = new CompletableFuture<>();
+        attempt.completeExceptionally(e);
+      }
+      synchronized (this) {
+        if (done || result.isDone()) {
+          attempt.cancel(true);
+          return;
+        }
+        attempts.add(attempt);
+      }
+      CompletableFuture<Response> self = attempt;
+      attempt.whenComplete((response, error) -> completed(self, hedge, start, response, error));
+    }
+
+    private void completed(CompletableFuture<Response> attempt,
+                           boolean hedge,
+                           long start,
+                           Response response,
+                           Throwable error) {
+      if (response != null && latency != null) {
+        latency.record(System.nanoTime() - start);
+      }
+      Response discarded = null;
+      Response completion = response;
+      boolean won = false;
+      boolean success = response != null && response.status() < 500;
+      synchronized (this) {
+        pending--;
+        if (done || result.isDone()) {
+          ensureClosed(response);
+          return;
+        }
+        if (success || pending == 0) {
+          done = true;
+          winner = attempt;
+          won = true;
+          if (response == null && failedResponse != null) {
+            // the error response of the other attempt tells the caller more than this exception
+            completion = failedResponse;
+          } else {
+            discarded = failedResponse;
+          }
+        } else if (response != null) {
+          // the other attempt may still succeed
+          discarded = failedResponse;
+          failedResponse = response;
+        }
+      }
+      ensureClosed(discarded);
+      if (!won) {
+        return;
+      }
+      if (hedge && success) {
+        metrics.hedgeWin();
+      }
+      if (completion != null) {
+        result.complete(completion);
+      } else {
+        result.completeExceptionally(error);
+      }
+    }
+
+    private void cancelLosers() {
+      List<CompletableFuture<Response>> losers;
+      synchronized (this) {
+        done = true;
+        if (timer != null) {
+          timer.cancel(false);
+        }
+        losers = new ArrayList<>(attempts);
+        losers.remove(winner);
+      }
+      for (CompletableFuture<Response> loser : losers) {
+        loser.cancel(true);
+      }
+    }
+  }
+
+  public static final class Builder {
+
+    private Set<HttpMethod> methods =
+        EnumSet.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+    private long delayNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private double percentile;
+    private int window = 1000;
+    private int minSamples = 100;
+    private double budget = 0.1;
+    private ScheduledExecutorService scheduler;
+
+    Builder() {}
+
+    /**
+     * Idempotent methods which may be sent twice. Defaults to GET, HEAD and OPTIONS.
+     */
+    public Builder methods(HttpMethod... methods) {
+      checkArgument(methods.length > 0, "methods must not be empty");
+      this.methods = EnumSet.copyOf(Arrays.asList(methods));
+      return this;
+    }
+
+    /**
+     * Fixed delay before the duplicate is sent, also used by {@link #percentile(double)} until
+     * enough responses were seen. Defaults to 100 milliseconds.
+     */
+    public Builder delay(long delay, TimeUnit unit) {
+      checkArgument(delay >= 0, "delay must not be negative");
+      this.delayNanos = unit.toNanos(delay);
+      return this;
+    }
+
+    /**
+     * Sends the duplicate once the request is slower than this percentile of the last
+     * {@link #window(int, int) responses} of its method, for example {@code 95}.
+     */
+    public Builder percentile(double percentile) {
+      checkArgument(percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+      this.percentile = percentile;
+      return this;
+    }
+
+    /**
+     * Number of responses the {@link #percentile(double)} is computed over, and how many are needed
+     * before it replaces the fixed {@link #delay(long, TimeUnit)}. Defaults to 1000 and 100.
+     */
+    public Builder window(int size, int minSamples) {
+      checkArgument(size > 0, "size must be positive");
+      checkArgument(minSamples > 0, "minSamples must be positive");
+      this.window = size;
+      this.minSamples = minSamples;
+      return this;
+    }
+
+    /**
+     * Maximum share of requests which are duplicated, between 0 and 1. Defaults to 0.1.
+     */
+    public Builder budget(double ratio) {
+      checkArgument(ratio >= 0 && ratio <= 1, "ratio must be between 0 and 1");
+      this.budget = ratio;
+      return this;
+    }
+
+    /**
+     * Scheduler of the duplicates. Defaults to the {@link SharedScheduler}.
+     */
+    public Builder scheduler(ScheduledExecutorService scheduler) {
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      return this;
+    }
+
+    public <C> HedgingAsyncClient<C> build(AsyncClient<C> delegate) {
+      return new HedgingAsyncClient<>(delegate, this);
+    }
+  }
+}
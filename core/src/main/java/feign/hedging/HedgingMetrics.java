@@ -0,0 +1,87 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.hedging;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests seen by a {@link HedgingAsyncClient}.
+ */
+public final class HedgingMetrics {
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+  private final LongAdder budgetExhausted = new LongAdder();
+
+  HedgingMetrics() {}
+
+  /**
+   * @return number of requests which could be hedged.
+   */
+  public long requests() {
+    return requests.sum();
+  }
+
+  /**
+   * @return number of duplicate requests sent.
+   */
+  public long hedges() {
+    return hedges.sum();
+  }
+
+  /**
+   * @return number of requests answered by their duplicate rather than the original.
+   */
+  public long hedgeWins() {
+    return hedgeWins.sum();
+  }
+
+  /**
+   * @return number of duplicates which were due but not sent, as the budget was spent.
+   */
+  public long budgetExhausted() {
+    return budgetExhausted.sum();
+  }
+
+  /**
+   * @return share of {@link #requests()} which were {@link #hedges() hedged}, between 0 and 1.
+   */
+  public double hedgeRate() {
+    long requests = requests();
+    return requests == 0 ? 0 : (double) hedges() / requests;
+  }
+
+  void request() {
+    requests.increment();
+  }
+
+  void hedge() {
+    hedges.increment();
+  }
+
+  void hedgeWin() {
+    hedgeWins.increment();
+  }
+
+  void noBudget() {
+    budgetExhausted.increment();
+  }
+
+  @Override
+  public String toString() {
+    return "HedgingMetrics(requests=" + requests() + ", hedges=" + hedges() + ", hedgeWins="
+        + hedgeWins() + ", budgetExhausted=" + budgetExhausted() + ")";
+  }
+}
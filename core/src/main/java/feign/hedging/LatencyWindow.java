@@ -0,0 +1,65 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latest response times of a method, in a ring buffer. The percentile is recomputed every few
+ * samples rather than on each read, so choosing a hedge delay costs a volatile read.
+ */
+final class LatencyWindow {
+
+  private static final int RECOMPUTE_EVERY = 32;
+
+  private final AtomicLongArray samples;
+  private final AtomicLong count = new AtomicLong();
+  private final double percentile;
+  private final int minSamples;
+  private volatile long percentileNanos = -1;
+
+  LatencyWindow(int size, double percentile, int minSamples) {
+    this.samples = new AtomicLongArray(size);
+    this.percentile = percentile;
+    this.minSamples = Math.min(minSamples, size);
+  }
+
+  void record(long nanos) {
+    long index = count.getAndIncrement();
+    samples.set((int) (index % samples.length()), nanos);
+    long recorded = index + 1;
+    if (recorded == minSamples || (recorded > minSamples && recorded % RECOMPUTE_EVERY == 0)) {
+      recompute((int) Math.min(recorded, samples.length()));
+    }
+  }
+
+  /**
+   * @return the percentile of the window, or {@code -1} until it holds enough samples.
+   */
+  long percentileNanos() {
+    return percentileNanos;
+  }
+
+  private void recompute(int size) {
+    long[] sorted = new long[size];
+    for (int i = 0; i < size; i++) {
+      sorted[i] = samples.get(i);
+    }
+    Arrays.sort(sorted);
+    int rank = (int) Math.ceil(percentile / 100 * size) - 1;
+    percentileNanos = sorted[Math.max(0, Math.min(size - 1, rank))];
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import feign.AsyncClient;
+import feign.Capability;
+import feign.Client;
+import java.util.concurrent.TimeUnit;
+import static feign.Util.checkArgument;
+
+/**
+ * Limits the requests in flight to each target, so a slow service sheds load instead of piling up
+ * threads and queued calls. The limit adapts to the observed response times: it grows while they
+ * stay close to the fastest seen and shrinks when they rise, or when requests fail or are answered
+ * with {@code 429} or {@code 503}. Ex.
+ *
+ * <pre>
+ * ConcurrencyLimitCapability limit = ConcurrencyLimitCapability.builder()
+ *     .maxLimit(200)
+ *     .maxWait(10, TimeUnit.MILLISECONDS)
+ *     .build();
+ * GitHub github = Feign.builder()
+ *     .addCapability(limit)
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * Requests over the limit fail with a {@link ConcurrencyLimitExceededException}. Targets are told
+ * apart by {@link feign.Target#name() name}, so every client enriched by the same capability shares
+ * the limit of a target.
+ */
+public class ConcurrencyLimitCapability implements Capability {
+
+  private final Limiters limiters;
+
+  private ConcurrencyLimitCapability(Builder builder) {
+    this.limiters = new Limiters(builder);
+  }
+
+  /**
+   * A limit per target, starting at 20 requests in flight and rejecting requests over it.
+   */
+  public static ConcurrencyLimitCapability create() {
+    return builder().build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public Client enrich(Client client) {
+    return new LimitingClient(client, limiters);
+  }
+
+  /**
+   * Wraps an {@link AsyncClient}, for use with {@link feign.AsyncFeign.AsyncBuilder#client}.
+   */
+  public <C> AsyncClient<C> enrich(AsyncClient<C> client) {
+    return new LimitingAsyncClient<>(client, limiters);
+  }
+
+  /**
+   * @return counts shared by every client this capability wrapped.
+   */
+  public ConcurrencyLimitMetrics metrics() {
+    return limiters.metrics;
+  }
+
+  public static final class Builder {
+
+    int initialLimit = 20;
+    int minLimit = 1;
+    int maxLimit = 1000;
+    boolean perMethod;
+    long maxWaitNanos;
+
+    Builder() {}
+
+    /**
+     * Limit before any response was seen. Defaults to 20.
+     */
+    public Builder initialLimit(int initialLimit) {
+      checkArgument(initialLimit > 0, "initialLimit must be positive");
+      this.initialLimit = initialLimit;
+      return this;
+    }
+
+    /**
+     * Defaults to 1.
+     */
+    public Builder minLimit(int minLimit) {
+      checkArgument(minLimit > 0, "minLimit must be positive");
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    /**
+     * Defaults to 1000.
+     */
+    public Builder maxLimit(int maxLimit) {
+      checkArgument(maxLimit > 0, "maxLimit must be positive");
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    /**
+     * Limits each method of a target separately, for services whose endpoints do not share
+     * resources.
+     */
+    public Builder perMethod() {
+      this.perMethod = true;
+      return this;
+    }
+
+    /**
+     * How long synchronous requests over the limit wait for a permit before they are rejected.
+     * Defaults to not waiting. Asynchronous requests never wait.
+     */
+    public Builder maxWait(long maxWait, TimeUnit unit) {
+      checkArgument(maxWait >= 0, "maxWait must not be negative");
+      this.maxWaitNanos = unit.toNanos(maxWait);
+      return this;
+    }
+
+    public ConcurrencyLimitCapability build() {
+      checkArgument(minLimit <= initialLimit && initialLimit <= maxLimit,
+          "initialLimit must be between minLimit and maxLimit");
+      return new ConcurrencyLimitCapability(this);
+    }
+  }
+}
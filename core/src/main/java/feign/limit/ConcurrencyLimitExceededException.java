@@ -0,0 +1,40 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import feign.FeignException;
+import feign.Request;
+
+/**
+ * Thrown instead of sending a request when the concurrency limit of its target is reached. It is
+ * not a {@link feign.RetryableException}, as retrying would add to the load being shed.
+ */
+public class ConcurrencyLimitExceededException extends FeignException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int limit;
+
+  public ConcurrencyLimitExceededException(int limit, String target, Request request) {
+    super(-1, String.format("Concurrency limit of %s reached for %s", limit, target), request);
+    this.limit = limit;
+  }
+
+  /**
+   * @return the limit at the time the request was rejected.
+   */
+  public int limit() {
+    return limit;
+  }
+}
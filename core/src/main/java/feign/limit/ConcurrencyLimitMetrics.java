@@ -0,0 +1,78 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests seen by the clients of a {@link ConcurrencyLimitCapability}, and exposes the
+ * current limits.
+ */
+public final class ConcurrencyLimitMetrics {
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final Map<String, Limiter> limiters;
+
+  ConcurrencyLimitMetrics(Map<String, Limiter> limiters) {
+    this.limiters = limiters;
+  }
+
+  /**
+   * @return number of requests which were sent.
+   */
+  public long requests() {
+    return requests.sum();
+  }
+
+  /**
+   * @return number of requests rejected with a {@link ConcurrencyLimitExceededException}.
+   */
+  public long rejected() {
+    return rejected.sum();
+  }
+
+  /**
+   * @return the current limit of each target, or target and method.
+   */
+  public Map<String, Integer> limits() {
+    Map<String, Integer> limits = new TreeMap<>();
+    limiters.forEach((key, limiter) -> limits.put(key, limiter.limit()));
+    return Collections.unmodifiableMap(limits);
+  }
+
+  /**
+   * @return number of requests currently in flight, across targets.
+   */
+  public int inFlight() {
+    return limiters.values().stream().mapToInt(Limiter::inFlight).sum();
+  }
+
+  void request() {
+    requests.increment();
+  }
+
+  void reject() {
+    rejected.increment();
+  }
+
+  @Override
+  public String toString() {
+    return "ConcurrencyLimitMetrics(requests=" + requests() + ", rejected=" + rejected()
+        + ", limits=" + limits() + ")";
+  }
+}
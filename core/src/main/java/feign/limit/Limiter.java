@@ -0,0 +1,95 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Permits for the requests to one target, or one method of a target. Permits are taken without
+ * locking; only callers waiting for one synchronize, and are woken up by releases.
+ */
+final class Limiter {
+
+  private final VegasLimit algorithm;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private volatile int limit;
+
+  Limiter(VegasLimit algorithm, int initialLimit) {
+    this.algorithm = algorithm;
+    this.limit = initialLimit;
+  }
+
+  boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  boolean acquire(long maxWaitNanos) throws InterruptedException {
+    if (tryAcquire()) {
+      return true;
+    }
+    if (maxWaitNanos <= 0) {
+      return false;
+    }
+    long deadline = System.nanoTime() + maxWaitNanos;
+    waiters.incrementAndGet();
+    try {
+      synchronized (this) {
+        while (!tryAcquire()) {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            return false;
+          }
+          TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+      }
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * @param rttNanos response time of the request, or {@code -1} when it should not affect the
+   *        limit, for example when it was cancelled.
+   */
+  void release(long rttNanos, boolean dropped) {
+    int current = inFlight.getAndDecrement();
+    if (rttNanos >= 0) {
+      limit = algorithm.onSample(rttNanos, current, dropped);
+    }
+    if (waiters.get() > 0) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  int limit() {
+    return limit;
+  }
+
+  int inFlight() {
+    return inFlight.get();
+  }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Util;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link Limiter limiters} of a {@link ConcurrencyLimitCapability}, by target name and, when
+ * limited per method, config key.
+ */
+final class Limiters {
+
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final boolean perMethod;
+  final long maxWaitNanos;
+  final ConcurrencyLimitMetrics metrics;
+  final ConcurrentMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+  Limiters(ConcurrencyLimitCapability.Builder builder) {
+    this.initialLimit = builder.initialLimit;
+    this.minLimit = builder.minLimit;
+    this.maxLimit = builder.maxLimit;
+    this.perMethod = builder.perMethod;
+    this.maxWaitNanos = builder.maxWaitNanos;
+    this.metrics = new ConcurrencyLimitMetrics(limiters);
+  }
+
+  Limiter limiter(String key) {
+    return limiters.computeIfAbsent(key, k -> new Limiter(
+        new VegasLimit(initialLimit, minLimit, maxLimit, 1000), initialLimit));
+  }
+
+  String key(Request request) {
+    RequestTemplate template = request.requestTemplate();
+    if (template == null || template.feignTarget() == null) {
+      return Util.schemeAndAuthority(request.url());
+    }
+    String target = template.feignTarget().name();
+    if (perMethod && template.methodMetadata() != null) {
+      return target + " " + template.methodMetadata().configKey();
+    }
+    return target;
+  }
+
+  /**
+   * Overload responses which should shrink the limit like failures do.
+   */
+  static boolean dropped(int status) {
+    return status == 429 || status == 503;
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import feign.AsyncClient;
+import feign.Experimental;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import static feign.Util.checkNotNull;
+
+/**
+ * Asynchronous counterpart of {@link LimitingClient}. Requests over the limit are rejected straight
+ * away with a future failed with a {@link ConcurrencyLimitExceededException}, as waiting for a
+ * permit would block the caller.
+ *
+ * @see ConcurrencyLimitCapability#enrich(AsyncClient)
+ */
+@Experimental
+public class LimitingAsyncClient<C> implements AsyncClient<C> {
+
+  private final AsyncClient<C> delegate;
+  private final Limiters limiters;
+
+  LimitingAsyncClient(AsyncClient<C> delegate, Limiters limiters) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.limiters = limiters;
+  }
+
+  @Override
+  public CompletableFuture<Response> execute(Request request,
+                                             Options options,
+                                             Optional<C> requestContext) {
+    String key = limiters.key(request);
+    Limiter limiter = limiters.limiter(key);
+    if (!limiter.tryAcquire()) {
+      limiters.metrics.reject();
+      CompletableFuture<Response> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(
+          new ConcurrencyLimitExceededException(limiter.limit(), key, request));
+      return rejected;
+    }
+    limiters.metrics.request();
+    long start = System.nanoTime();
+    CompletableFuture<Response> response;
+    try {
+      response = delegate.execute(request, options, requestContext);
+    } catch (RuntimeException e) {
+      limiter.release(System.nanoTime() - start, true);
+      throw e;
+    }
+    response.whenComplete((r, error) -> {
+      if (response.isCancelled()) {
+        limiter.release(-1, false);
+      } else {
+        limiter.release(System.nanoTime() - start, r == null || Limiters.dropped(r.status()));
+      }
+    });
+    return response;
+  }
+}
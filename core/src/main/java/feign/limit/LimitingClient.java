@@ -0,0 +1,67 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+import static feign.Util.checkNotNull;
+
+/**
+ * Sends a request only when its target is under its concurrency limit, waiting up to the configured
+ * time for a permit, and otherwise throws a {@link ConcurrencyLimitExceededException}.
+ *
+ * @see ConcurrencyLimitCapability
+ */
+public class LimitingClient implements Client {
+
+  private final Client delegate;
+  private final Limiters limiters;
+
+  LimitingClient(Client delegate, Limiters limiters) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.limiters = limiters;
+  }
+
+  @Override
+  public Response execute(Request request, Options options) throws IOException {
+    String key = limiters.key(request);
+    Limiter limiter = limiters.limiter(key);
+    if (!acquire(limiter)) {
+      limiters.metrics.reject();
+      throw new ConcurrencyLimitExceededException(limiter.limit(), key, request);
+    }
+    limiters.metrics.request();
+    long start = System.nanoTime();
+    boolean dropped = true;
+    try {
+      Response response = delegate.execute(request, options);
+      dropped = Limiters.dropped(response.status());
+      return response;
+    } finally {
+      limiter.release(System.nanoTime() - start, dropped);
+    }
+  }
+
+  private boolean acquire(Limiter limiter) {
+    try {
+      return limiter.acquire(limiters.maxWaitNanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+/**
+ * Concurrency limit following TCP Vegas: the queue building up downstream is estimated from how
+ * much slower than the fastest recent response the latest one was. The limit grows while that queue
+ * is short and shrinks when it gets long or requests are dropped. Steps are logarithmic in the
+ * limit, so it converges quickly from far away without oscillating around the target.
+ */
+final class VegasLimit {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final int probeEvery;
+  private double limit;
+  private long rttNoLoadNanos;
+  private long samples;
+
+  VegasLimit(int initialLimit, int minLimit, int maxLimit, int probeEvery) {
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.probeEvery = probeEvery;
+  }
+
+  /**
+   * @param rttNanos response time of the request.
+   * @param inFlight requests in flight when it was answered, itself included.
+   * @param dropped whether the request failed or was turned down for lack of capacity.
+   * @return the new limit.
+   */
+  synchronized int onSample(long rttNanos, int inFlight, boolean dropped) {
+    samples++;
+    if (!dropped && (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos
+        || samples % probeEvery == 0)) {
+      // also forget the fastest response time now and then, in case the service got slower
+      rttNoLoadNanos = rttNanos;
+      return (int) limit;
+    }
+    double step = Math.max(1, Math.log10(limit));
+    if (dropped) {
+      limit = Math.max(minLimit, limit - step);
+    } else if (inFlight * 2 >= limit) {
+      // with fewer requests in flight, the response time says nothing about the limit
+      double queue = Math.ceil(limit * (1 - (double) rttNoLoadNanos / rttNanos));
+      if (queue < 3 * step) {
+        limit = Math.min(maxLimit, limit + step);
+      } else if (queue > 6 * step) {
+        limit = Math.max(minLimit, limit - step);
+      }
+    }
+    return (int) limit;
+  }
+}
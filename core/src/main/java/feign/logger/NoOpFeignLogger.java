@@ -0,0 +1,38 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.logger;
+
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+
+/**
+ * Default {@link FeignLogger}, used when none was configured. Does nothing.
+ */
+public class NoOpFeignLogger implements FeignLogger {
+
+  @Override
+  public String logRequest(Request request) {
+    return null;
+  }
+
+  @Override
+  public void logResponse(String requestKey, Response response, long elapsedTime) {}
+
+  @Override
+  public void logRetry(String requestKey) {}
+
+  @Override
+  public void logIOException(String requestKey, IOException ioe, long elapsedTime) {}
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Util;
+import feign.Response;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import static feign.Util.RETRY_AFTER;
+
+/**
+ * The {@link TokenBucket buckets} of a {@link RateLimitCapability}: one per target name, and one
+ * per target and config key for methods with a rate of their own.
+ */
+final class Buckets {
+
+  private final double permitsPerSecond;
+  private final Map<String, Double> methodPermitsPerSecond;
+  private final int burst;
+  final long maxWaitNanos;
+  final RateLimitMetrics metrics = new RateLimitMetrics();
+  private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+  Buckets(RateLimitCapability.Builder builder) {
+    this.permitsPerSecond = builder.permitsPerSecond;
+    this.methodPermitsPerSecond = new HashMap<>(builder.methodPermitsPerSecond);
+    this.burst = builder.burst;
+    this.maxWaitNanos = builder.maxWaitNanos;
+  }
+
+  /**
+   * @return the bucket of the request, or {@code null} if it is not rate limited.
+   */
+  TokenBucket bucket(Request request) {
+    RequestTemplate template = request.requestTemplate();
+    String target = template != null && template.feignTarget() != null
+        ? template.feignTarget().name()
+        : Util.schemeAndAuthority(request.url());
+    if (template != null && template.methodMetadata() != null) {
+      String configKey = template.methodMetadata().configKey();
+      Double methodRate = methodPermitsPerSecond.get(configKey);
+      if (methodRate != null) {
+        return bucket(target + " " + configKey, methodRate);
+      }
+    }
+    return permitsPerSecond > 0 ? bucket(target, permitsPerSecond) : null;
+  }
+
+  private TokenBucket bucket(String key, double rate) {
+    TokenBucket bucket = buckets.get(key);
+    if (bucket == null) {
+      bucket = buckets.computeIfAbsent(key,
+          k -> new TokenBucket(k, rate, burst, System.nanoTime()));
+    }
+    return bucket;
+  }
+
+  /**
+   * Follows the server's view of the quota: {@code Retry-After} on {@code 429} and {@code 503}
+   * pauses the bucket, and {@code RateLimit-Remaining} with {@code RateLimit-Reset} (or their
+   * {@code X-} prefixed variants) spreads the remaining requests over the rest of the window.
+   */
+  void adapt(TokenBucket bucket, Response response) {
+    long nowNanos = System.nanoTime();
+    Map<String, Collection<String>> headers = response.headers();
+    if (response.status() == 429 || response.status() == 503) {
+      metrics.throttle();
+      long retryAfterNanos = retryAfterNanos(first(headers, RETRY_AFTER));
+      if (retryAfterNanos > 0) {
+        bucket.pauseUntil(nowNanos + retryAfterNanos);
+      }
+    }
+    Long remaining = number(headers, "RateLimit-Remaining", "X-RateLimit-Remaining");
+    Long reset = number(headers, "RateLimit-Reset", "X-RateLimit-Reset");
+    if (remaining == null || reset == null) {
+      return;
+    }
+    long resetSeconds = reset > 1_000_000_000L
+        // an epoch timestamp rather than a delay
+        ? reset - TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())
+        : reset;
+    if (resetSeconds <= 0) {
+      return;
+    }
+    long resetNanos = TimeUnit.SECONDS.toNanos(resetSeconds);
+    if (remaining <= 0) {
+      bucket.pauseUntil(nowNanos + resetNanos);
+    } else {
+      bucket.slowDown(resetNanos / remaining, nowNanos + resetNanos);
+    }
+  }
+
+  static long retryAfterNanos(String retryAfter) {
+    if (retryAfter == null) {
+      return 0;
+    }
+    try {
+      return TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim()));
+    } catch (NumberFormatException notSeconds) {
+      try {
+        long millis = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+            .toInstant().toEpochMilli() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+      } catch (DateTimeParseException e) {
+        return 0;
+      }
+    }
+  }
+
+  private static Long number(Map<String, Collection<String>> headers, String... names) {
+    for (String name : names) {
+      String value = first(headers, name);
+      if (value != null) {
+        try {
+          return Long.parseLong(value.trim());
+        } catch (NumberFormatException ignored) {
+          // try the next variant
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String first(Map<String, Collection<String>> headers, String name) {
+    Collection<String> values = headers.get(name);
+    return values == null || values.isEmpty() ? null : values.iterator().next();
+  }
+}
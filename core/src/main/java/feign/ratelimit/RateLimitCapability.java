@@ -0,0 +1,145 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import feign.AsyncClient;
+import feign.Capability;
+import feign.Client;
+import feign.SharedScheduler;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+
+/**
+ * Keeps requests within the published quota of a service, so they wait on the client instead of
+ * being answered with {@code 429}. Each target has a token bucket, and methods can have a rate of
+ * their own, by {@link feign.MethodMetadata#configKey() config key}. Ex.
+ *
+ * <pre>
+ * RateLimitCapability rateLimit = RateLimitCapability.builder()
+ *     .permitsPerSecond(10)
+ *     .permitsPerSecond("GitHub#search(String)", 0.5)
+ *     .build();
+ * GitHub github = Feign.builder()
+ *     .addCapability(rateLimit)
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * The buckets follow the server's view of the quota: {@code Retry-After} pauses them and
+ * {@code RateLimit-Remaining} with {@code RateLimit-Reset} spreads the remaining requests over the
+ * window. Every client enriched by the same capability shares its buckets.
+ */
+public class RateLimitCapability implements Capability {
+
+  private final Buckets buckets;
+  private final ScheduledExecutorService scheduler;
+
+  private RateLimitCapability(Builder builder) {
+    this.buckets = new Buckets(builder);
+    this.scheduler = builder.scheduler != null ? builder.scheduler : SharedScheduler.instance();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public Client enrich(Client client) {
+    return new RateLimitingClient(client, buckets);
+  }
+
+  /**
+   * Wraps an {@link AsyncClient}, for use with {@link feign.AsyncFeign.AsyncBuilder#client}.
+   */
+  public <C> AsyncClient<C> enrich(AsyncClient<C> client) {
+    return new RateLimitingAsyncClient<>(client, buckets, scheduler);
+  }
+
+  /**
+   * @return counts shared by every client this capability wrapped.
+   */
+  public RateLimitMetrics metrics() {
+    return buckets.metrics;
+  }
+
+  public static final class Builder {
+
+    double permitsPerSecond;
+    final Map<String, Double> methodPermitsPerSecond = new HashMap<>();
+    int burst = 1;
+    long maxWaitNanos = Long.MAX_VALUE;
+    ScheduledExecutorService scheduler;
+
+    Builder() {}
+
+    /**
+     * Rate of each target.
+     */
+    public Builder permitsPerSecond(double permitsPerSecond) {
+      checkArgument(permitsPerSecond > 0, "permitsPerSecond must be positive");
+      this.permitsPerSecond = permitsPerSecond;
+      return this;
+    }
+
+    /**
+     * Rate of one method, in place of the rate of its target.
+     *
+     * @param configKey as in {@link feign.Feign#configKey(Class, java.lang.reflect.Method)}, for
+     *        example {@code GitHub#search(String)}.
+     */
+    public Builder permitsPerSecond(String configKey, double permitsPerSecond) {
+      checkNotNull(configKey, "configKey");
+      checkArgument(permitsPerSecond > 0, "permitsPerSecond must be positive");
+      this.methodPermitsPerSecond.put(configKey, permitsPerSecond);
+      return this;
+    }
+
+    /**
+     * Requests which may be sent back to back after a quiet period. Defaults to 1.
+     */
+    public Builder burst(int burst) {
+      checkArgument(burst > 0, "burst must be positive");
+      this.burst = burst;
+      return this;
+    }
+
+    /**
+     * How long a request may wait for a permit before it is rejected with a
+     * {@link RateLimitExceededException}. Defaults to waiting as long as needed.
+     */
+    public Builder maxWait(long maxWait, TimeUnit unit) {
+      checkArgument(maxWait >= 0, "maxWait must not be negative");
+      this.maxWaitNanos = unit.toNanos(maxWait);
+      return this;
+    }
+
+    /**
+     * Scheduler of the asynchronous requests waiting for a permit. Defaults to the
+     * {@link SharedScheduler}.
+     */
+    public Builder scheduler(ScheduledExecutorService scheduler) {
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      return this;
+    }
+
+    public RateLimitCapability build() {
+      checkArgument(permitsPerSecond > 0 || !methodPermitsPerSecond.isEmpty(),
+          "permitsPerSecond must be set for targets or methods");
+      return new RateLimitCapability(this);
+    }
+  }
+}
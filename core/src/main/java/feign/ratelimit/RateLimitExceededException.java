@@ -0,0 +1,30 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import feign.FeignException;
+import feign.Request;
+
+/**
+ * Thrown instead of sending a request when it would wait for a permit longer than the
+ * {@link RateLimitCapability.Builder#maxWait(long, java.util.concurrent.TimeUnit) maximum wait}.
+ */
+public class RateLimitExceededException extends FeignException {
+
+  private static final long serialVersionUID = 1L;
+
+  public RateLimitExceededException(String bucket, Request request) {
+    super(-1, String.format("Rate limit reached for %s", bucket), request);
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests seen by the clients of a {@link RateLimitCapability}.
+ */
+public final class RateLimitMetrics {
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder delayed = new LongAdder();
+  private final LongAdder delayNanos = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder throttled = new LongAdder();
+
+  RateLimitMetrics() {}
+
+  /**
+   * @return number of rate limited requests which were sent.
+   */
+  public long requests() {
+    return requests.sum();
+  }
+
+  /**
+   * @return number of requests which waited for a permit.
+   */
+  public long delayed() {
+    return delayed.sum();
+  }
+
+  /**
+   * @return total time requests waited for a permit, in milliseconds.
+   */
+  public long delayMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(delayNanos.sum());
+  }
+
+  /**
+   * @return number of requests rejected with a {@link RateLimitExceededException}.
+   */
+  public long rejected() {
+    return rejected.sum();
+  }
+
+  /**
+   * @return number of {@code 429} and {@code 503} responses, which the limit should make rare.
+   */
+  public long throttled() {
+    return throttled.sum();
+  }
+
+  void request(long waitNanos) {
+    requests.increment();
+    if (waitNanos > 0) {
+      delayed.increment();
+      delayNanos.add(waitNanos);
+    }
+  }
+
+  void reject() {
+    rejected.increment();
+  }
+
+  void throttle() {
+    throttled.increment();
+  }
+
+  @Override
+  public String toString() {
+    return "RateLimitMetrics(requests=" + requests() + ", delayed=" + delayed() + ", rejected="
+        + rejected() + ", throttled=" + throttled() + ")";
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import feign.AsyncClient;
+import feign.Experimental;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import static feign.Util.checkNotNull;
+import static feign.Util.ensureClosed;
+
+/**
+ * Asynchronous counterpart of {@link RateLimitingClient}. Requests waiting for a permit are
+ * scheduled instead of blocking the caller. A waiting request whose result is cancelled is not
+ * sent, although its permit is spent.
+ *
+ * @see RateLimitCapability#enrich(AsyncClient)
+ */
+@Experimental
+public class RateLimitingAsyncClient<C> implements AsyncClient<C> {
+
+  private final AsyncClient<C> delegate;
+  private final Buckets buckets;
+  private final ScheduledExecutorService scheduler;
+
+  RateLimitingAsyncClient(AsyncClient<C> delegate, Buckets buckets,
+      ScheduledExecutorService scheduler) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.buckets = buckets;
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public CompletableFuture<Response> execute(Request request,
+                                             Options options,
+                                             Optional<C> requestContext) {
+    TokenBucket bucket = buckets.bucket(request);
+    if (bucket == null) {
+      return delegate.execute(request, options, requestContext);
+    }
+    long waitNanos = bucket.reserve(System.nanoTime(), buckets.maxWaitNanos);
+    if (waitNanos < 0) {
+      buckets.metrics.reject();
+      CompletableFuture<Response> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(new RateLimitExceededException(bucket.key, request));
+      return rejected;
+    }
+    buckets.metrics.request(waitNanos);
+    if (waitNanos == 0) {
+      return send(bucket, request, options, requestContext);
+    }
+    CompletableFuture<Response> result = new CompletableFuture<>();
+    ScheduledFuture<?> scheduled = scheduler.schedule(() -> {
+      if (result.isDone()) {
+        return;
+      }
+      CompletableFuture<Response> sent;
+      try {
+        sent = send(bucket, request, options, requestContext);
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+        return;
+      }
+      result.whenComplete((response, error) -> {
+        if (result.isCancelled()) {
+          sent.cancel(true);
+        }
+      });
+      sent.whenComplete((response, error) -> {
+        if (error != null) {
+          result.completeExceptionally(error);
+        } else if (!result.complete(response)) {
+          ensureClosed(response);
+        }
+      });
+    }, waitNanos, TimeUnit.NANOSECONDS);
+    result.whenComplete((response, error) -> {
+      if (result.isCancelled()) {
+        scheduled.cancel(false);
+      }
+    });
+    return result;
+  }
+
+  private CompletableFuture<Response> send(TokenBucket bucket,
+                                           Request request,
+                                           Options options,
+                                           Optional<C> requestContext) {
+    CompletableFuture<Response> response = delegate.execute(request, options, requestContext);
+    response.thenAccept(r -> buckets.adapt(bucket, r));
+    return response;
+  }
+}
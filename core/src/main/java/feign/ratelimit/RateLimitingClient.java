@@ -0,0 +1,65 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import static feign.Util.checkNotNull;
+
+/**
+ * Blocks the calling thread until the bucket of the request has a permit, or throws a
+ * {@link RateLimitExceededException} when it would wait too long.
+ *
+ * @see RateLimitCapability
+ */
+public class RateLimitingClient implements Client {
+
+  private final Client delegate;
+  private final Buckets buckets;
+
+  RateLimitingClient(Client delegate, Buckets buckets) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.buckets = buckets;
+  }
+
+  @Override
+  public Response execute(Request request, Options options) throws IOException {
+    TokenBucket bucket = buckets.bucket(request);
+    if (bucket == null) {
+      return delegate.execute(request, options);
+    }
+    long waitNanos = bucket.reserve(System.nanoTime(), buckets.maxWaitNanos);
+    if (waitNanos < 0) {
+      buckets.metrics.reject();
+      throw new RateLimitExceededException(bucket.key, request);
+    }
+    buckets.metrics.request(waitNanos);
+    if (waitNanos > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting for a permit of " + bucket.key);
+      }
+    }
+    Response response = delegate.execute(request, options);
+    buckets.adapt(bucket, response);
+    return response;
+  }
+}
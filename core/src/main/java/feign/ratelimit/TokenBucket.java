@@ -0,0 +1,86 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket implemented as a generic cell rate algorithm: instead of a token count refilled over
+ * time, it keeps the theoretical arrival time of the next request, so a permit is reserved with a
+ * single compare-and-set and no refill bookkeeping. Up to {@code burst} requests may go back to
+ * back, then requests are spaced by the interval of the rate.
+ */
+final class TokenBucket {
+
+  final String key;
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private final AtomicLong arrival;
+  private volatile long slowIntervalNanos;
+  private volatile long slowUntilNanos;
+
+  TokenBucket(String key, double permitsPerSecond, int burst, long nowNanos) {
+    this.key = key;
+    this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+    this.toleranceNanos = (burst - 1) * intervalNanos;
+    this.arrival = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Reserves a permit, unless the caller would have to wait longer than {@code maxWaitNanos}.
+   *
+   * @return how long to wait before sending the request, or {@code -1} if no permit was reserved.
+   */
+  long reserve(long nowNanos, long maxWaitNanos) {
+    long interval = interval(nowNanos);
+    while (true) {
+      long current = arrival.get();
+      long next = current - nowNanos > 0 ? current : nowNanos;
+      long wait = Math.max(0, next - toleranceNanos - nowNanos);
+      if (wait > maxWaitNanos) {
+        return -1;
+      }
+      if (arrival.compareAndSet(current, next + interval)) {
+        return wait;
+      }
+    }
+  }
+
+  /**
+   * No permit is given before {@code untilNanos}, for example when the server asked to retry after
+   * some time.
+   */
+  void pauseUntil(long untilNanos) {
+    long earliest = untilNanos + toleranceNanos;
+    arrival.accumulateAndGet(earliest,
+        (current, update) -> update - current > 0 ? update : current);
+  }
+
+  /**
+   * Spaces requests by at least {@code intervalNanos} until {@code untilNanos}, for example to
+   * spread the quota left over the rest of the server's window. Never speeds up the configured
+   * rate.
+   */
+  void slowDown(long intervalNanos, long untilNanos) {
+    this.slowIntervalNanos = intervalNanos;
+    this.slowUntilNanos = untilNanos;
+  }
+
+  private long interval(long nowNanos) {
+    if (slowUntilNanos - nowNanos > 0) {
+      return Math.max(intervalNanos, slowIntervalNanos);
+    }
+    return intervalNanos;
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.retry;
+
+import feign.RetryableException;
+import feign.Retryer;
+
+/**
+ * Retries as its delegate does, as long as the {@link RetryBudget} allows it. Each clone counts as
+ * a request, as {@link Retryer retryers} are cloned for each call.
+ */
+final class BudgetedRetryer implements Retryer {
+
+  private final Retryer delegate;
+  private final RetryBudget budget;
+
+  BudgetedRetryer(Retryer delegate, RetryBudget budget) {
+    this.delegate = delegate;
+    this.budget = budget;
+  }
+
+  @Override
+  public void continueOrPropagate(RetryableException e) {
+    // reserved before the delegate backs off, so concurrent failures cannot all pass the check
+    long now = budget.now();
+    if (!budget.tryReserve(now)) {
+      budget.exhausted();
+      throw e;
+    }
+    try {
+      delegate.continueOrPropagate(e);
+    } catch (RuntimeException propagated) {
+      // calls out of attempts do not spend the budget
+      budget.refund(now);
+      throw propagated;
+    }
+    budget.retried();
+  }
+
+  @Override
+  public long nextBackoff(RetryableException e) {
+    long now = budget.now();
+    if (!budget.tryReserve(now)) {
+      budget.exhausted();
+      throw e;
+    }
+    long backoff;
+    try {
+      backoff = delegate.nextBackoff(e);
+    } catch (RuntimeException propagated) {
+      budget.refund(now);
+      throw propagated;
+    }
+    budget.retried();
+    return backoff;
+  }
+
+  @Override
+  public Retryer clone() {
+    budget.requested();
+    return new BudgetedRetryer(delegate.clone(), budget);
+  }
+}
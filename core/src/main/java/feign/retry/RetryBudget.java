@@ -0,0 +1,154 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.retry;
+
+import feign.Retryer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+
+/**
+ * Caps retries to a share of recent calls, so retries smooth over blips but do not multiply the
+ * load on a service which is already failing. {@link Retryer.Default} retries every call up to five
+ * times; behind a budget of 10%, an outage costs at most 10% more requests. A minimum rate keeps
+ * retries possible when there are few calls. Ex.
+ *
+ * <pre>
+ * RetryBudget budget = RetryBudget.builder()
+ *     .ratio(0.1)
+ *     .minRetriesPerSecond(5)
+ *     .build();
+ * GitHub github = Feign.builder()
+ *     .retryer(budget.retryer(new Retryer.Default()))
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * Every retryer of a budget shares it, so one budget can cover several clients of a service.
+ */
+public final class RetryBudget {
+
+  private final double ratio;
+  private final long minRetries;
+  private final SlidingWindow window;
+  private final LongSupplier nanoTime;
+  private final RetryBudgetMetrics metrics = new RetryBudgetMetrics();
+
+  private RetryBudget(Builder builder) {
+    this.ratio = builder.ratio;
+    this.minRetries = (long) (builder.minRetriesPerSecond * builder.windowNanos / 1e9);
+    this.window = new SlidingWindow(builder.windowNanos, 10);
+    this.nanoTime = builder.nanoTime;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return a retryer which retries as {@code delegate} does, within this budget.
+   */
+  public Retryer retryer(Retryer delegate) {
+    return new BudgetedRetryer(checkNotNull(delegate, "delegate"), this);
+  }
+
+  public RetryBudgetMetrics metrics() {
+    return metrics;
+  }
+
+  long now() {
+    return nanoTime.getAsLong();
+  }
+
+  /**
+   * Checks the budget and counts the retry at once.
+   *
+   * @return whether the retry fits in the budget.
+   */
+  synchronized boolean tryReserve(long now) {
+    long allowed = Math.max(minRetries, (long) (ratio * window.requests(now)));
+    if (window.retries(now) >= allowed) {
+      return false;
+    }
+    window.retry(now);
+    return true;
+  }
+
+  /**
+   * Gives back a retry reserved at {@code reservedNanos} which did not happen.
+   */
+  void refund(long reservedNanos) {
+    window.refund(reservedNanos);
+  }
+
+  void requested() {
+    window.request(nanoTime.getAsLong());
+    metrics.request();
+  }
+
+  void retried() {
+    metrics.retry();
+  }
+
+  void exhausted() {
+    metrics.exhaust();
+  }
+
+  public static final class Builder {
+
+    private double ratio = 0.2;
+    private double minRetriesPerSecond = 10;
+    private long windowNanos = TimeUnit.SECONDS.toNanos(10);
+    private LongSupplier nanoTime = System::nanoTime;
+
+    Builder() {}
+
+    /**
+     * Retries allowed per call in the window. Defaults to 0.2.
+     */
+    public Builder ratio(double ratio) {
+      checkArgument(ratio >= 0, "ratio must not be negative");
+      this.ratio = ratio;
+      return this;
+    }
+
+    /**
+     * Retries allowed whatever the number of calls. Defaults to 10 per second.
+     */
+    public Builder minRetriesPerSecond(double minRetriesPerSecond) {
+      checkArgument(minRetriesPerSecond >= 0, "minRetriesPerSecond must not be negative");
+      this.minRetriesPerSecond = minRetriesPerSecond;
+      return this;
+    }
+
+    /**
+     * How far back calls and retries are counted. Defaults to 10 seconds.
+     */
+    public Builder window(long window, TimeUnit unit) {
+      checkArgument(window > 0, "window must be positive");
+      this.windowNanos = unit.toNanos(window);
+      return this;
+    }
+
+    // visible for testing
+    Builder nanoTime(LongSupplier nanoTime) {
+      this.nanoTime = nanoTime;
+      return this;
+    }
+
+    public RetryBudget build() {
+      return new RetryBudget(this);
+    }
+  }
+}
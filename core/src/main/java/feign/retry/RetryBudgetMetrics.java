@@ -0,0 +1,67 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.retry;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the calls seen by the retryers of a {@link RetryBudget}.
+ */
+public final class RetryBudgetMetrics {
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder exhausted = new LongAdder();
+
+  RetryBudgetMetrics() {}
+
+  /**
+   * @return number of calls, not counting their retries.
+   */
+  public long requests() {
+    return requests.sum();
+  }
+
+  /**
+   * @return number of retries allowed by the budget.
+   */
+  public long retries() {
+    return retries.sum();
+  }
+
+  /**
+   * @return number of retries refused because the budget was spent.
+   */
+  public long exhausted() {
+    return exhausted.sum();
+  }
+
+  void request() {
+    requests.increment();
+  }
+
+  void retry() {
+    retries.increment();
+  }
+
+  void exhaust() {
+    exhausted.increment();
+  }
+
+  @Override
+  public String toString() {
+    return "RetryBudgetMetrics(requests=" + requests() + ", retries=" + retries() + ", exhausted="
+        + exhausted() + ")";
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.retry;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts requests and retries over a sliding window, split in slots which are reset when the window
+ * moves past them. Counting is lock free; a slot being reset concurrently may lose a few counts,
+ * which only makes the budget slightly approximate.
+ */
+final class SlidingWindow {
+
+  private final int slots;
+  private final long slotNanos;
+  private final AtomicLongArray epochs;
+  private final AtomicLongArray requests;
+  private final AtomicLongArray retries;
+
+  SlidingWindow(long windowNanos, int slots) {
+    this.slots = slots;
+    this.slotNanos = Math.max(1, windowNanos / slots);
+    this.epochs = new AtomicLongArray(slots);
+    this.requests = new AtomicLongArray(slots);
+    this.retries = new AtomicLongArray(slots);
+    for (int i = 0; i < slots; i++) {
+      epochs.set(i, Long.MIN_VALUE);
+    }
+  }
+
+  void request(long nowNanos) {
+    requests.incrementAndGet(slot(nowNanos));
+  }
+
+  void retry(long nowNanos) {
+    retries.incrementAndGet(slot(nowNanos));
+  }
+
+  /**
+   * Uncounts a retry, unless its slot was reset since.
+   */
+  void refund(long retryNanos) {
+    long epoch = Math.floorDiv(retryNanos, slotNanos);
+    int slot = (int) Math.floorMod(epoch, (long) slots);
+    if (epochs.get(slot) == epoch) {
+      retries.decrementAndGet(slot);
+    }
+  }
+
+  long requests(long nowNanos) {
+    return sum(requests, nowNanos);
+  }
+
+  long retries(long nowNanos) {
+    return sum(retries, nowNanos);
+  }
+
+  private int slot(long nowNanos) {
+    long epoch = Math.floorDiv(nowNanos, slotNanos);
+    int slot = (int) Math.floorMod(epoch, (long) slots);
+    long current = epochs.get(slot);
+    if (current != epoch && epochs.compareAndSet(slot, current, epoch)) {
+      requests.set(slot, 0);
+      retries.set(slot, 0);
+    }
+    return slot;
+  }
+
+  private long sum(AtomicLongArray counts, long nowNanos) {
+    long epoch = Math.floorDiv(nowNanos, slotNanos);
+    long sum = 0;
+    for (int slot = 0; slot < slots; slot++) {
+      if (epochs.get(slot) > epoch - slots) {
+        sum += counts.get(slot);
+      }
+    }
+    return sum;
+  }
+}
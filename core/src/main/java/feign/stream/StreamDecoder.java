@@ -21,7 +21,9 @@ import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Iterator;
+import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import static feign.Util.ensureClosed;
@@ -43,13 +45,23 @@ import static feign.Util.ensureClosed;
  *   Stream<Contributor> contributors(@Param("owner") String owner, @Param("repo") String repo);
  * }</code>
  * </pre>
+ * <p>
+ * Elements are read lazily, in order. When the stream is processed in parallel, use
+ * {@link #create(Decoder, int)} to hand fixed size batches of elements to the other workers as soon
+ * as they are read.
  */
 public final class StreamDecoder implements Decoder {
 
   private final Decoder iteratorDecoder;
+  private final int batchSize;
 
   StreamDecoder(Decoder iteratorDecoder) {
+    this(iteratorDecoder, 0);
+  }
+
+  StreamDecoder(Decoder iteratorDecoder, int batchSize) {
     this.iteratorDecoder = iteratorDecoder;
+    this.batchSize = batchSize;
   }
 
   @Override
@@ -65,8 +77,10 @@ public final class StreamDecoder implements Decoder {
     Iterator<?> iterator =
         (Iterator) iteratorDecoder.decode(response, new IteratorParameterizedType(streamType));
 
-    return StreamSupport.stream(
-        Spliterators.spliteratorUnknownSize(iterator, 0), false)
+    Spliterator<?> spliterator = batchSize > 0
+        ? new BatchSpliterator<>(iterator, batchSize)
+        : Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+    return StreamSupport.stream(spliterator, false)
         .onClose(() -> {
           if (iterator instanceof Closeable) {
             ensureClosed((Closeable) iterator);
@@ -80,6 +94,71 @@ public final class StreamDecoder implements Decoder {
     return new StreamDecoder(iteratorDecoder);
   }
 
+  /**
+   * @param iteratorDecoder decodes the response to an {@link Iterator}.
+   * @param batchSize number of elements split off at a time when the stream is processed in
+   *        parallel.
+   */
+  public static StreamDecoder create(Decoder iteratorDecoder, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    return new StreamDecoder(iteratorDecoder, batchSize);
+  }
+
+  /**
+   * Splits off batches of {@code batchSize} elements, instead of the growing batches of
+   * {@link Spliterators#spliteratorUnknownSize(Iterator, int)} which buffer at least 1024 elements
+   * before any of them can be processed by another thread.
+   */
+  static final class BatchSpliterator<T> implements Spliterator<T> {
+
+    private final Iterator<? extends T> iterator;
+    private final int batchSize;
+
+    BatchSpliterator(Iterator<? extends T> iterator, int batchSize) {
+      this.iterator = iterator;
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (!iterator.hasNext()) {
+        return false;
+      }
+      action.accept(iterator.next());
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      iterator.forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      Object[] batch = new Object[batchSize];
+      int size = 0;
+      while (size < batchSize && iterator.hasNext()) {
+        batch[size++] = iterator.next();
+      }
+      if (size == 0) {
+        return null;
+      }
+      return Spliterators.spliterator(batch, 0, size, Spliterator.ORDERED);
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return Spliterator.ORDERED;
+    }
+  }
+
   static final class IteratorParameterizedType implements ParameterizedType {
 
     private final ParameterizedType streamType;
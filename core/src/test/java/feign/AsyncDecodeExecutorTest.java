@@ -0,0 +1,112 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import feign.codec.Decoder;
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncDecodeExecutorTest {
+
+  interface Api {
+
+    @RequestLine("GET /")
+    CompletableFuture<String> get();
+  }
+
+  private final ExecutorService io = Executors.newSingleThreadExecutor(r -> new Thread(r, "io"));
+  private final ExecutorService decoding =
+      Executors.newSingleThreadExecutor(r -> new Thread(r, "decoding"));
+  private final AtomicReference<String> decodedBy = new AtomicReference<>();
+
+  private final Decoder decoder = (response, type) -> {
+    decodedBy.set(Thread.currentThread().getName());
+    return Util.toString(response.body().asReader(Util.UTF_8));
+  };
+
+  @After
+  public void shutdown() {
+    io.shutdownNow();
+    decoding.shutdownNow();
+  }
+
+  @Test
+  public void decodesLateResponsesOnTheDecodeExecutor() throws Exception {
+    CompletableFuture<Void> sent = new CompletableFuture<>();
+    AsyncFeign<Void> feign = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> sent.thenApplyAsync(
+            ignored -> response(request), io))
+        .decoder(decoder)
+        .decodeExecutor(decoding)
+        .build();
+    Api api = feign.newInstance(new Target.HardCodedTarget<>(Api.class, "http://localhost"));
+
+    CompletableFuture<String> result = api.get();
+    // the response only arrives once the call returned
+    sent.complete(null);
+
+    assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo("hello");
+    assertThat(decodedBy.get()).isEqualTo("decoding");
+    assertThat(feign.decodeMetrics().decoded()).isEqualTo(1);
+    assertThat(feign.decodeMetrics().offloaded()).isEqualTo(1);
+  }
+
+  @Test
+  public void decodesCompletedResponsesOnTheCallingThread() throws Exception {
+    AsyncFeign<Void> feign = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> CompletableFuture.completedFuture(
+            response(request)))
+        .decoder(decoder)
+        .decodeExecutor(decoding)
+        .build();
+    Api api = feign.newInstance(new Target.HardCodedTarget<>(Api.class, "http://localhost"));
+
+    assertThat(api.get().get(1, TimeUnit.SECONDS)).isEqualTo("hello");
+    assertThat(decodedBy.get()).isEqualTo(Thread.currentThread().getName());
+    assertThat(feign.decodeMetrics().offloaded()).isZero();
+  }
+
+  @Test
+  public void decodesOnTheCompletingThreadWhenRejected() throws Exception {
+    AsyncFeign<Void> feign = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> CompletableFuture.supplyAsync(
+            () -> response(request), io))
+        .decoder(decoder)
+        .decodeExecutor(command -> {
+          throw new RejectedExecutionException();
+        })
+        .build();
+    Api api = feign.newInstance(new Target.HardCodedTarget<>(Api.class, "http://localhost"));
+
+    assertThat(api.get().get(1, TimeUnit.SECONDS)).isEqualTo("hello");
+    assertThat(decodedBy.get()).isIn("io", Thread.currentThread().getName());
+  }
+
+  private static Response response(Request request) {
+    return Response.builder()
+        .status(200)
+        .headers(Collections.emptyMap())
+        .request(request)
+        .body("hello", Util.UTF_8)
+        .build();
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class AsyncRequestInterceptorTest {
+
+  interface Api {
+
+    @RequestLine("GET /")
+    CompletableFuture<String> get();
+  }
+
+  private final List<Request> sent = new ArrayList<>();
+
+  private final AsyncClient<Void> client = (request, options, context) -> {
+    sent.add(request);
+    return CompletableFuture.completedFuture(Response.builder()
+        .status(200)
+        .headers(Collections.emptyMap())
+        .request(request)
+        .body("hello", Util.UTF_8)
+        .build());
+  };
+
+  @Test
+  public void sendsOnceTheInterceptorCompletes() throws Exception {
+    CompletableFuture<String> token = new CompletableFuture<>();
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client(client)
+        .asyncRequestInterceptor(template -> token.thenAccept(
+            value -> template.header("Authorization", "Bearer " + value)))
+        .target(Api.class, "http://localhost");
+
+    CompletableFuture<String> result = api.get();
+    assertThat(sent).isEmpty();
+    assertThat(result).isNotDone();
+
+    token.complete("abc");
+
+    assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo("hello");
+    assertThat(sent).hasSize(1);
+    assertThat(sent.get(0).headers().get("Authorization")).containsExactly("Bearer abc");
+  }
+
+  @Test
+  public void appliesInterceptorsInOrderAfterTheSynchronousOnes() throws Exception {
+    List<String> applied = new ArrayList<>();
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client(client)
+        .requestInterceptor(template -> applied.add("sync"))
+        .asyncRequestInterceptor(template -> CompletableFuture.runAsync(() -> applied.add("first")))
+        .asyncRequestInterceptor(template -> {
+          applied.add("second");
+          return CompletableFuture.completedFuture(null);
+        })
+        .target(Api.class, "http://localhost");
+
+    api.get().get(1, TimeUnit.SECONDS);
+
+    assertThat(applied).containsExactly("sync", "first", "second");
+  }
+
+  @Test
+  public void failsWithoutSendingWhenAnInterceptorFails() {
+    IllegalStateException unavailable = new IllegalStateException("token service unavailable");
+    CompletableFuture<Void> failed = new CompletableFuture<>();
+    failed.completeExceptionally(unavailable);
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client(client)
+        .asyncRequestInterceptor(template -> failed)
+        .target(Api.class, "http://localhost");
+
+    assertThatThrownBy(() -> api.get().get(1, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCause(unavailable);
+    assertThat(sent).isEmpty();
+  }
+}
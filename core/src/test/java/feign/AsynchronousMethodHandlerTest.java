@@ -0,0 +1,144 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class AsynchronousMethodHandlerTest {
+
+  interface Api {
+
+    @RequestLine("GET /")
+    CompletableFuture<String> get();
+
+    @RequestLine("GET /")
+    String getNow();
+  }
+
+  private final AtomicInteger attempts = new AtomicInteger();
+
+  @Test
+  public void retriesWithTheRetryer() throws Exception {
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> attempts.incrementAndGet() == 1
+            ? failed(new IOException("connection reset"))
+            : CompletableFuture.completedFuture(response(request, 200)))
+        .retryer(new Retryer.Default(1, 1, 3))
+        .target(Api.class, "http://localhost");
+
+    assertThat(api.get().get(1, TimeUnit.SECONDS)).isEqualTo("hello");
+    assertThat(attempts).hasValue(2);
+  }
+
+  @Test
+  public void schedulesTheBackoffInsteadOfSleeping() throws Exception {
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> attempts.incrementAndGet() == 1
+            ? failed(new IOException("connection reset"))
+            : CompletableFuture.completedFuture(response(request, 200)))
+        .retryer(new Retryer.Default(500, 500, 2))
+        .target(Api.class, "http://localhost");
+
+    // the first attempt fails at once, on the calling thread
+    long start = System.nanoTime();
+    CompletableFuture<String> result = api.get();
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(250);
+    assertThat(result).isNotDone();
+
+    assertThat(result.get(2, TimeUnit.SECONDS)).isEqualTo("hello");
+    assertThat(attempts).hasValue(2);
+  }
+
+  @Test
+  public void doesNotRetryByDefault() {
+    IOException reset = new IOException("connection reset");
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> {
+          attempts.incrementAndGet();
+          return failed(reset);
+        })
+        .target(Api.class, "http://localhost");
+
+    assertThatThrownBy(() -> api.get().get(1, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCause(reset);
+    assertThat(attempts).hasValue(1);
+  }
+
+  @Test
+  public void retriesRetryableErrorsOfTheErrorDecoder() throws Exception {
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> CompletableFuture.completedFuture(
+            response(request, attempts.incrementAndGet() == 1 ? 503 : 200)))
+        .errorDecoder((methodKey, response) -> new RetryableException(response.status(),
+            "unavailable", response.request().httpMethod(), null, response.request()))
+        .retryer(new Retryer.Default(1, 1, 3))
+        .target(Api.class, "http://localhost");
+
+    assertThat(api.get().get(1, TimeUnit.SECONDS)).isEqualTo("hello");
+    assertThat(attempts).hasValue(2);
+  }
+
+  @Test
+  public void passesTheContextOfTheInstance() throws Exception {
+    AtomicReference<Optional<String>> seen = new AtomicReference<>();
+    AsyncFeign<String> feign = AsyncFeign.<String>asyncBuilder()
+        .client((request, options, context) -> {
+          seen.set(context);
+          return CompletableFuture.completedFuture(response(request, 200));
+        })
+        .build();
+
+    Api api = feign.newInstance(new Target.HardCodedTarget<>(Api.class, "http://localhost"),
+        "session");
+
+    assertThat(api.get().get(1, TimeUnit.SECONDS)).isEqualTo("hello");
+    assertThat(seen.get()).contains("session");
+  }
+
+  @Test
+  public void synchronousMethodsThrowTheCause() {
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> CompletableFuture.completedFuture(
+            response(request, 404)))
+        .target(Api.class, "http://localhost");
+
+    assertThatThrownBy(api::getNow).isInstanceOf(FeignException.NotFound.class);
+  }
+
+  private static CompletableFuture<Response> failed(Throwable cause) {
+    CompletableFuture<Response> result = new CompletableFuture<>();
+    result.completeExceptionally(cause);
+    return result;
+  }
+
+  private static Response response(Request request, int status) {
+    return Response.builder()
+        .status(status)
+        .headers(Collections.emptyMap())
+        .request(request)
+        .body("hello", Util.UTF_8)
+        .build();
+  }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import static feign.Util.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import feign.codec.Decoder;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class BatchTest {
+
+  @Rule
+  public final MockWebServer server = new MockWebServer();
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  public interface Items {
+
+    @Batch(method = "items", window = 200)
+    @RequestLine("GET /items/{id}")
+    String item(@Param("id") String id);
+
+    @RequestLine(value = "GET /items?ids={ids}", collectionFormat = CollectionFormat.CSV)
+    Map<String, String> items(@Param("ids") List<String> ids);
+
+    @Batch(method = "itemsInOrder", maxSize = 2, window = 1, unit = TimeUnit.HOURS)
+    @RequestLine("GET /items/{id}")
+    String itemInOrder(@Param("id") String id);
+
+    @RequestLine(value = "GET /items?ids={ids}", collectionFormat = CollectionFormat.CSV)
+    List<String> itemsInOrder(@Param("ids") List<String> ids);
+  }
+
+  public interface AsyncItems {
+
+    @Batch(method = "items", maxSize = 2, window = 1, unit = TimeUnit.HOURS)
+    @RequestLine("GET /items/{id}")
+    CompletableFuture<String> item(@Param("id") String id);
+
+    @RequestLine(value = "GET /items?ids={ids}", collectionFormat = CollectionFormat.CSV)
+    CompletableFuture<Map<String, String>> items(@Param("ids") List<String> ids);
+  }
+
+  public interface AsyncItemsFromBlockingBatch {
+
+    @Batch(method = "items", maxSize = 2, window = 1, unit = TimeUnit.HOURS)
+    @RequestLine("GET /items/{id}")
+    CompletableFuture<String> item(@Param("id") String id);
+
+    @RequestLine(value = "GET /items?ids={ids}", collectionFormat = CollectionFormat.CSV)
+    Map<String, String> items(@Param("ids") List<String> ids);
+  }
+
+  interface Invalid {
+
+    @Batch(method = "missing")
+    @RequestLine("GET /items/{id}")
+    String item(@Param("id") String id);
+  }
+
+  /**
+   * Decodes {@code 1=one,2=two} as a map, or {@code one,two} as a list.
+   */
+  private final Decoder decoder = (response, type) -> {
+    String body = Util.toString(response.body().asReader(UTF_8));
+    Class<?> rawType = Types.getRawType(type);
+    if (rawType == List.class) {
+      return Arrays.asList(body.split(","));
+    }
+    if (rawType == Map.class) {
+      Map<String, String> items = new LinkedHashMap<>();
+      for (String item : body.split(",")) {
+        String[] keyAndValue = item.split("=");
+        items.put(keyAndValue[0], keyAndValue[1]);
+      }
+      return items;
+    }
+    return body;
+  };
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void collectsCallsWithinTheWindow() throws Exception {
+    server.enqueue(new MockResponse().setBody("1=one,2=two"));
+    Items api = Feign.builder().decoder(decoder).target(Items.class, url());
+
+    Future<String> one = executor.submit(() -> api.item("1"));
+    Future<String> two = executor.submit(() -> api.item("2"));
+
+    assertThat(one.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+    assertThat(two.get(5, TimeUnit.SECONDS)).isEqualTo("two");
+    assertThat(server.getRequestCount()).isEqualTo(1);
+    assertThat(server.takeRequest().getPath()).startsWith("/items?ids=");
+  }
+
+  @Test
+  public void sendsOnceFull() throws Exception {
+    server.enqueue(new MockResponse().setBody("1=one,2=two"));
+    AsyncItems api = AsyncFeign.<Void>asyncBuilder()
+        .decoder(decoder)
+        .target(AsyncItems.class, url());
+
+    CompletableFuture<String> one = api.item("1");
+    CompletableFuture<String> sameKey = api.item("1");
+    CompletableFuture<String> two = api.item("2");
+
+    assertThat(one.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+    assertThat(sameKey.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+    assertThat(two.get(5, TimeUnit.SECONDS)).isEqualTo("two");
+    assertThat(server.takeRequest().getPath()).isEqualTo("/items?ids=1%2C2");
+  }
+
+  @Test
+  public void asyncCallerWhichFillsTheBatchDoesNotWaitForIt() throws Exception {
+    server.enqueue(
+        new MockResponse().setBody("1=one,2=two").setBodyDelay(500, TimeUnit.MILLISECONDS));
+    AsyncItemsFromBlockingBatch api = AsyncFeign.<Void>asyncBuilder()
+        .decoder(decoder)
+        .target(AsyncItemsFromBlockingBatch.class, url());
+
+    CompletableFuture<String> one = api.item("1");
+    long start = System.nanoTime();
+    CompletableFuture<String> two = api.item("2");
+
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(250);
+    assertThat(two).isNotDone();
+    assertThat(one.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+    assertThat(two.get(5, TimeUnit.SECONDS)).isEqualTo("two");
+  }
+
+  @Test
+  public void demultiplexesListsByPosition() throws Exception {
+    server.enqueue(new MockResponse().setBody("one,two"));
+    Items api = Feign.builder().decoder(decoder).target(Items.class, url());
+
+    Future<String> one = executor.submit(() -> api.itemInOrder("1"));
+    Future<String> two = executor.submit(() -> api.itemInOrder("2"));
+
+    assertThat(Arrays.asList(one.get(5, TimeUnit.SECONDS), two.get(5, TimeUnit.SECONDS)))
+        .containsExactlyInAnyOrder("one", "two");
+    String path = server.takeRequest().getPath();
+    assertThat(one.get()).isEqualTo(path.endsWith("=1%2C2") ? "one" : "two");
+  }
+
+  @Test
+  public void failsEveryCallerWhenTheBatchFails() {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    AsyncItems api = AsyncFeign.<Void>asyncBuilder()
+        .decoder(decoder)
+        .target(AsyncItems.class, url());
+
+    CompletableFuture<String> one = api.item("1");
+    CompletableFuture<String> two = api.item("2");
+
+    assertThatThrownBy(() -> one.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(FeignException.ServiceUnavailable.class);
+    assertThatThrownBy(() -> two.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(FeignException.ServiceUnavailable.class);
+  }
+
+  @Test
+  public void batchMethodMustExist() {
+    assertThatThrownBy(() -> Feign.builder().target(Invalid.class, url()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Batch method missing of method Invalid#item(String) not found.");
+  }
+
+  private String url() {
+    return "http://localhost:" + server.getPort();
+  }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import feign.Request.Options;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class DeadlineTest {
+
+  @Rule
+  public final MockWebServer server = new MockWebServer();
+
+  public interface Quotes {
+
+    @RequestLine("GET /quotes")
+    String quotes();
+
+    @RequestLine("GET /quotes")
+    String quotes(Deadline deadline);
+
+    @CallTimeout(value = 2, unit = TimeUnit.SECONDS)
+    @RequestLine("GET /quotes/latest")
+    String latest();
+
+    @RequestLine("GET /quotes")
+    CompletableFuture<String> quotesAsync();
+  }
+
+  interface Invalid {
+
+    @CallTimeout(0)
+    @RequestLine("GET /quotes")
+    String quotes();
+  }
+
+  @Test
+  public void attemptTimeoutsAreShrunkToTheTimeLeft() {
+    AtomicReference<Options> used = new AtomicReference<>();
+    Quotes api = Feign.builder()
+        .client(recording(used))
+        .options(new Options(10, TimeUnit.SECONDS, 60, TimeUnit.SECONDS, true))
+        .callTimeout(500, TimeUnit.MILLISECONDS)
+        .target(Quotes.class, "http://localhost");
+
+    api.quotes();
+
+    assertThat(used.get().connectTimeoutMillis()).isBetween(1, 500);
+    assertThat(used.get().readTimeoutMillis()).isBetween(1, 500);
+    assertThat(used.get().isFollowRedirects()).isTrue();
+  }
+
+  @Test
+  public void callTimeoutAnnotationOverridesTheBuilder() {
+    AtomicReference<Options> used = new AtomicReference<>();
+    Quotes api = Feign.builder()
+        .client(recording(used))
+        .callTimeout(100, TimeUnit.MILLISECONDS)
+        .target(Quotes.class, "http://localhost");
+
+    api.latest();
+
+    assertThat(used.get().readTimeoutMillis()).isBetween(101, 2000);
+  }
+
+  @Test
+  public void withoutDeadlineOptionsAreUnchanged() {
+    AtomicReference<Options> used = new AtomicReference<>();
+    Options options = new Options();
+    Quotes api = Feign.builder()
+        .client(recording(used))
+        .options(options)
+        .target(Quotes.class, "http://localhost");
+
+    api.quotes();
+
+    assertThat(used.get()).isSameAs(options);
+  }
+
+  @Test
+  public void expiredDeadlineArgumentSkipsTheRequest() {
+    Quotes api = Feign.builder().target(Quotes.class, "http://localhost:" + server.getPort());
+
+    assertThatThrownBy(() -> api.quotes(Deadline.after(0, TimeUnit.MILLISECONDS)))
+        .isInstanceOf(DeadlineExceededException.class);
+    assertThat(server.getRequestCount()).isZero();
+  }
+
+  @Test
+  public void retriesStopAtTheDeadline() {
+    AtomicInteger attempts = new AtomicInteger();
+    Quotes api = Feign.builder()
+        .client((request, options) -> {
+          attempts.incrementAndGet();
+          throw new RetryableException(503, "unavailable", request.httpMethod(), null, request);
+        })
+        .retryer(new Retryer.Default(100, 100, 100))
+        .callTimeout(250, TimeUnit.MILLISECONDS)
+        .target(Quotes.class, "http://localhost");
+
+    assertThatThrownBy(api::quotes).isInstanceOf(FeignException.class);
+    assertThat(attempts.get()).isBetween(2, 4);
+  }
+
+  @Test
+  public void retryIsSkippedWhenTheBackoffOutlastsTheDeadline() {
+    AtomicInteger attempts = new AtomicInteger();
+    Quotes api = Feign.builder()
+        .client((request, options) -> {
+          attempts.incrementAndGet();
+          throw new RetryableException(503, "unavailable", request.httpMethod(), null, request);
+        })
+        .retryer(new Retryer.Default(5000, 5000, 3))
+        .callTimeout(1, TimeUnit.SECONDS)
+        .target(Quotes.class, "http://localhost");
+
+    long start = System.nanoTime();
+    assertThatThrownBy(api::quotes).isInstanceOf(RetryableException.class);
+    assertThat(attempts.get()).isEqualTo(1);
+    assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+  }
+
+  @Test
+  public void forwardsTheTimeLeftAsHeader() throws InterruptedException {
+    server.enqueue(new MockResponse().setBody("quotes"));
+    Quotes api = Feign.builder()
+        .deadlineHeader("X-Deadline-Ms")
+        .target(Quotes.class, "http://localhost:" + server.getPort());
+
+    api.quotes(Deadline.after(5, TimeUnit.SECONDS));
+
+    assertThat(Long.parseLong(server.takeRequest().getHeader("X-Deadline-Ms")))
+        .isBetween(1L, 5000L);
+  }
+
+  @Test
+  public void callTimeoutIsRecordedByTheContract() {
+    MethodMetadata md = new Contract.Default()
+        .parseAndValidateMetadata(Quotes.class).stream()
+        .filter(m -> m.configKey().equals("Quotes#latest()"))
+        .findFirst()
+        .get();
+
+    assertThat(md.callTimeout().value()).isEqualTo(2);
+    assertThat(md.callTimeout().unit()).isEqualTo(TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void callTimeoutMustBePositive() {
+    assertThatThrownBy(() -> new Contract.Default().parseAndValidateMetadata(Invalid.class))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("CallTimeout must be positive");
+  }
+
+  @Test
+  public void asyncCallFailsWhenTheDeadlinePasses() throws InterruptedException {
+    CompletableFuture<Response> pending = new CompletableFuture<>();
+    Quotes api = AsyncFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> pending)
+        .callTimeout(100, TimeUnit.MILLISECONDS)
+        .target(Quotes.class, "http://localhost");
+
+    CompletableFuture<String> quotes = api.quotesAsync();
+
+    assertThatThrownBy(quotes::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(DeadlineExceededException.class);
+    // the request is cancelled by a callback which may still be running
+    for (int i = 0; i < 100 && !pending.isDone(); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(pending.isCancelled()).isTrue();
+  }
+
+  private static Client recording(AtomicReference<Options> used) {
+    return (request, options) -> {
+      used.set(options);
+      return Response.builder()
+          .status(200)
+          .headers(Collections.emptyMap())
+          .request(request)
+          .body("quotes", Util.UTF_8)
+          .build();
+    };
+  }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import feign.FeignEventListener.Stage;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class FeignEventListenerTest {
+
+  @Rule
+  public final MockWebServer server = new MockWebServer();
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  /**
+   * Records the callbacks as {@code context:stage}, checking the stamps are ordered.
+   */
+  private final List<String> events = new CopyOnWriteArrayList<>();
+  private final CountDownLatch ended = new CountDownLatch(1);
+
+  private final FeignEventListener listener = new FeignEventListener() {
+
+    @Override
+    public Object callStarted(MethodMetadata metadata, Target<?> target, long startNanos) {
+      events.add(metadata.configKey() + ":started");
+      return metadata.configKey();
+    }
+
+    @Override
+    public void stageEnded(Object call, Stage stage, long startNanos, long endNanos) {
+      assertThat(endNanos).isGreaterThanOrEqualTo(startNanos);
+      events.add(call + ":" + stage);
+    }
+
+    @Override
+    public void callEnded(Object call, Throwable error, long endNanos) {
+      events.add(call + ":" + (error == null ? "ended" : error.getClass().getSimpleName()));
+      ended.countDown();
+    }
+  };
+
+  interface Api {
+
+    @RequestLine("GET /")
+    String get();
+  }
+
+  interface AsyncApi {
+
+    @RequestLine("GET /")
+    CompletableFuture<String> get();
+  }
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void reportsEachStage() {
+    server.enqueue(new MockResponse().setBody("hello"));
+    Api api = Feign.builder()
+        .eventListener(listener)
+        .target(Api.class, url());
+
+    assertThat(api.get()).isEqualTo("hello");
+
+    assertThat(events).containsExactly(
+        "Api#get():started",
+        "Api#get():RESOLVE",
+        "Api#get():INTERCEPT",
+        "Api#get():EXECUTE",
+        "Api#get():DECODE",
+        "Api#get():ended");
+  }
+
+  @Test
+  public void reportsEveryAttempt() {
+    server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "0"));
+    server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "0"));
+    Api api = Feign.builder()
+        .eventListener(listener)
+        .retryer(new Retryer.Default(1, 1, 2))
+        .target(Api.class, url());
+
+    assertThatThrownBy(api::get).isInstanceOf(RetryableException.class);
+
+    assertThat(events).containsExactly(
+        "Api#get():started",
+        "Api#get():RESOLVE",
+        "Api#get():INTERCEPT",
+        "Api#get():EXECUTE",
+        "Api#get():DECODE",
+        "Api#get():RETRY",
+        "Api#get():INTERCEPT",
+        "Api#get():EXECUTE",
+        "Api#get():DECODE",
+        "Api#get():RETRY",
+        "Api#get():RetryableException");
+  }
+
+  @Test
+  public void reportsAsynchronousStages() throws Exception {
+    CompletableFuture<Void> sent = new CompletableFuture<>();
+    AsyncClient<Void> client = (request, options, context) -> sent.thenApplyAsync(
+        ignored -> Response.builder()
+            .status(200)
+            .headers(Collections.emptyMap())
+            .request(request)
+            .body("hello", Util.UTF_8)
+            .build(),
+        executor);
+    AsyncApi api = AsyncFeign.<Void>asyncBuilder()
+        .client(client)
+        .eventListener(listener)
+        .asyncRequestInterceptor(template -> CompletableFuture.completedFuture(null))
+        .target(AsyncApi.class, url());
+
+    CompletableFuture<String> result = api.get();
+    sent.complete(null);
+
+    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("hello");
+    // the result may complete the caller before the listener
+    assertThat(ended.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(events).containsExactly(
+        "AsyncApi#get():started",
+        "AsyncApi#get():RESOLVE",
+        "AsyncApi#get():INTERCEPT",
+        "AsyncApi#get():EXECUTE",
+        "AsyncApi#get():DECODE_QUEUE",
+        "AsyncApi#get():DECODE",
+        "AsyncApi#get():ended");
+  }
+
+  private String url() {
+    return "http://localhost:" + server.getPort();
+  }
+}
@@ -14,7 +14,11 @@
 package feign;
 
 import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -78,6 +82,83 @@ public class FeignExceptionTest {
     new Derived(404, "message", null, new byte[1]);
   }
 
+  @Test
+  public void errorStatusMessage() {
+    FeignException exception = FeignException.errorStatus("Api#get()", response(404, "missing"));
+
+    assertThat(exception).isInstanceOf(FeignException.NotFound.class);
+    assertThat(exception.getMessage())
+        .isEqualTo("[404 Not Found] during [GET] to [/home] [Api#get()]: [missing]");
+  }
+
+  @Test
+  public void lazyMessageSurvivesSerialization() throws Exception {
+    FeignException exception = FeignException.errorStatus("Api#get()", response(404, "missing"));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(exception);
+    }
+    FeignException copy;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (FeignException) in.readObject();
+    }
+
+    assertThat(copy).isInstanceOf(FeignException.NotFound.class);
+    assertThat(copy.getMessage())
+        .isEqualTo("[404 Not Found] during [GET] to [/home] [Api#get()]: [missing]");
+    assertThat(copy.status()).isEqualTo(404);
+    assertThat(copy.contentUTF8()).isEqualTo("missing");
+  }
+
+  @Test
+  public void clientErrorsCanSkipTheStackTrace() {
+    FeignException notFound =
+        FeignException.errorStatus("Api#get()", response(404, "missing"), 1024, false);
+    FeignException unavailable =
+        FeignException.errorStatus("Api#get()", response(503, "down"), 1024, false);
+
+    assertThat(notFound).isInstanceOf(FeignException.NotFound.class);
+    assertThat(notFound.getStackTrace()).isEmpty();
+    assertThat(notFound.getMessage()).endsWith("[missing]");
+    assertThat(unavailable.getStackTrace()).isNotEmpty();
+  }
+
+  @Test
+  public void errorStatusBodyIsBounded() {
+    FeignException exception =
+        FeignException.errorStatus("Api#get()", response(409, "conflicting"), 4, true);
+
+    assertThat(exception.contentUTF8()).isEqualTo("conf");
+    assertThat(exception.getMessage()).endsWith("[conf]");
+  }
+
+  @Test
+  public void errorStatusMessageUsesTheResponseCharset() {
+    Response response = response(400, "")
+        .toBuilder()
+        .headers(Collections.singletonMap("Content-Type",
+            Collections.singletonList("text/plain; charset=ISO-8859-1")))
+        .body("caf\u00e9".getBytes(StandardCharsets.ISO_8859_1))
+        .build();
+
+    assertThat(FeignException.errorStatus("Api#get()", response).getMessage())
+        .endsWith("[caf\u00e9]");
+  }
+
+  private static Response response(int status, String body) {
+    Request request = Request.create(Request.HttpMethod.GET,
+        "/home", Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+    return Response.builder()
+        .status(status)
+        .reason(status == 404 ? "Not Found" : null)
+        .headers(Collections.emptyMap())
+        .body(body.getBytes(StandardCharsets.UTF_8))
+        .request(request)
+        .build();
+  }
+
   static class Derived extends FeignException {
 
     public Derived(int status, String message, Request request, Throwable cause) {
@@ -180,6 +180,20 @@ public class FeignTest {
         .hasDeflatedBody("[netflix, denominator, password]".getBytes(UTF_8));
   }
 
+  @Test
+  public void postDeflateEncodedBodyWhichLooksCompressed() throws Exception {
+    server.enqueue(new MockResponse().setBody("foo"));
+
+    TestInterface api = new TestInterfaceBuilder().target("http://localhost:" + server.getPort());
+
+    // starts like a zlib header
+    api.deflateText("x^ is not compressed");
+
+    assertThat(server.takeRequest())
+        .hasNoHeaderNamed("Content-Length")
+        .hasDeflatedBody("x^ is not compressed".getBytes(UTF_8));
+  }
+
   @Test
   public void singleInterceptor() throws Exception {
     server.enqueue(new MockResponse().setBody("foo"));
@@ -948,6 +962,10 @@ public class FeignTest {
     @Headers("Content-Encoding: deflate")
     void deflateBody(List<String> contents);
 
+    @RequestLine("POST /")
+    @Headers("Content-Encoding: deflate")
+    void deflateText(String contents);
+
     @RequestLine("POST /")
     void form(
               @Param("customer_name") String customer,
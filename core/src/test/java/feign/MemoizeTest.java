@@ -0,0 +1,235 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class MemoizeTest {
+
+  @Rule
+  public final MockWebServer server = new MockWebServer();
+
+  public interface Currencies {
+
+    @Memoize(ttl = 1, unit = TimeUnit.HOURS)
+    @RequestLine("GET /currencies/{code}")
+    String currency(@Param("code") String code);
+
+    @Memoize(ttl = 1, unit = TimeUnit.HOURS)
+    @RequestLine("GET /currencies/{code}")
+    String currency(@Param("code") String code, Request.Options options);
+
+    @Memoize(ttl = 1, unit = TimeUnit.HOURS)
+    @RequestLine("GET /currencies/{code}")
+    String currency(@Param("code") String code, Deadline deadline);
+
+    @RequestLine("GET /rates/{code}")
+    String rate(@Param("code") String code);
+
+    @Memoize(ttl = 10, maxSize = 2, refreshAfter = 5)
+    @RequestLine("GET /currencies/{code}")
+    CompletableFuture<String> currencyAsync(@Param("code") String code);
+  }
+
+  interface Invalid {
+
+    @Memoize(ttl = 1)
+    @RequestLine("DELETE /currencies/{code}")
+    void delete(@Param("code") String code);
+  }
+
+  @Test
+  public void hitsSkipTheRequest() {
+    server.enqueue(new MockResponse().setBody("euro"));
+    server.enqueue(new MockResponse().setBody("dollar"));
+    Currencies api = Feign.builder().target(Currencies.class, url());
+
+    assertThat(api.currency("EUR")).isEqualTo("euro");
+    assertThat(api.currency("USD")).isEqualTo("dollar");
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void deadlinesAreNotPartOfTheKey() {
+    server.enqueue(new MockResponse().setBody("euro"));
+    Currencies api = Feign.builder().target(Currencies.class, url());
+
+    assertThat(api.currency("EUR", Deadline.after(5, TimeUnit.SECONDS))).isEqualTo("euro");
+    assertThat(api.currency("EUR", Deadline.after(5, TimeUnit.SECONDS))).isEqualTo("euro");
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void optionsAreNotPartOfTheKey() {
+    server.enqueue(new MockResponse().setBody("euro"));
+    Currencies api = Feign.builder().target(Currencies.class, url());
+
+    assertThat(api.currency("EUR", new Request.Options())).isEqualTo("euro");
+    assertThat(api.currency("EUR", new Request.Options(1, TimeUnit.SECONDS, 1, TimeUnit.SECONDS,
+        true))).isEqualTo("euro");
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void failuresAreNotMemoized() {
+    server.enqueue(new MockResponse().setResponseCode(500));
+    server.enqueue(new MockResponse().setBody("euro"));
+    Currencies api = Feign.builder().target(Currencies.class, url());
+
+    assertThatThrownBy(() -> api.currency("EUR")).isInstanceOf(FeignException.class);
+    assertThat(api.currency("EUR")).isEqualTo("euro");
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void unannotatedMethodsAreNotMemoized() {
+    server.enqueue(new MockResponse().setBody("1.1"));
+    server.enqueue(new MockResponse().setBody("1.2"));
+    Currencies api = Feign.builder().target(Currencies.class, url());
+
+    assertThat(api.rate("EUR")).isEqualTo("1.1");
+    assertThat(api.rate("EUR")).isEqualTo("1.2");
+  }
+
+  @Test
+  public void asyncCallsShareTheFuture() throws Exception {
+    server.enqueue(new MockResponse().setBody("euro"));
+    Currencies api = AsyncFeign.<Void>asyncBuilder().target(Currencies.class, url());
+
+    CompletableFuture<String> first = api.currencyAsync("EUR");
+    CompletableFuture<String> second = api.currencyAsync("EUR");
+
+    assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo("euro");
+    assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo("euro");
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void contractRejectsVoidMethods() {
+    assertThatThrownBy(() -> new Contract.Default().parseAndValidateMetadata(Invalid.class))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Memoize cannot be used on method Invalid#delete(String)");
+  }
+
+  @Test
+  public void contractRecordsMemoize() {
+    List<MethodMetadata> metadata =
+        new Contract.Default().parseAndValidateMetadata(Currencies.class);
+
+    assertThat(metadata)
+        .filteredOn(md -> md.configKey().equals("Currencies#currencyAsync(String)"))
+        .extracting(md -> md.memoize().maxSize())
+        .containsExactly(2);
+    assertThat(metadata)
+        .filteredOn(md -> md.configKey().equals("Currencies#rate(String)"))
+        .extracting(MethodMetadata::memoize)
+        .containsOnlyNulls();
+  }
+
+  @Test
+  public void resultsExpire() throws Throwable {
+    AtomicLong nanos = new AtomicLong();
+    AtomicInteger loads = new AtomicInteger();
+    Memoizer memoizer = new Memoizer(memoize(), nanos::get);
+    Object[] argv = {"EUR"};
+
+    memoizer.get(argv, loads::incrementAndGet);
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(9));
+    assertThat(memoizer.get(argv, loads::incrementAndGet)).isEqualTo(1);
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertThat(memoizer.get(argv, loads::incrementAndGet)).isEqualTo(2);
+  }
+
+  @Test
+  public void leastRecentlyUsedArgumentsAreForgotten() throws Throwable {
+    AtomicInteger loads = new AtomicInteger();
+    Memoizer memoizer = new Memoizer(memoize(), () -> 0);
+
+    memoizer.get(new Object[] {"EUR"}, loads::incrementAndGet);
+    memoizer.get(new Object[] {"USD"}, loads::incrementAndGet);
+    memoizer.get(new Object[] {"EUR"}, loads::incrementAndGet);
+    memoizer.get(new Object[] {"GBP"}, loads::incrementAndGet);
+
+    assertThat(memoizer.size()).isEqualTo(2);
+    assertThat(memoizer.get(new Object[] {"EUR"}, loads::incrementAndGet)).isEqualTo(1);
+    assertThat(memoizer.get(new Object[] {"USD"}, loads::incrementAndGet)).isEqualTo(4);
+  }
+
+  @Test
+  public void arrayArgumentsAreComparedByContent() throws Throwable {
+    AtomicInteger loads = new AtomicInteger();
+    Memoizer memoizer = new Memoizer(memoize(), () -> 0);
+
+    memoizer.get(new Object[] {new String[] {"EUR"}}, loads::incrementAndGet);
+
+    assertThat(memoizer.get(new Object[] {new String[] {"EUR"}}, loads::incrementAndGet))
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void refreshesAheadOfExpiry() throws Throwable {
+    AtomicLong nanos = new AtomicLong();
+    Memoizer memoizer = new Memoizer(memoize(), nanos::get);
+    Object[] argv = {"EUR"};
+    CompletableFuture<String> refresh = new CompletableFuture<>();
+
+    memoizer.get(argv, () -> CompletableFuture.completedFuture("v1"));
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(6));
+
+    assertThat(value(memoizer.get(argv, () -> refresh))).isEqualTo("v1");
+    assertThat(value(memoizer.get(argv, () -> {
+      throw new AssertionError("refresh already in flight");
+    }))).isEqualTo("v1");
+    refresh.complete("v2");
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(4));
+    assertThat(value(memoizer.get(argv, () -> {
+      throw new AssertionError("refreshed result expires later");
+    }))).isEqualTo("v2");
+  }
+
+  @Test
+  public void failedFuturesAreForgotten() throws Throwable {
+    Memoizer memoizer = new Memoizer(memoize(), () -> 0);
+    Object[] argv = {"EUR"};
+    CompletableFuture<String> failed = new CompletableFuture<>();
+
+    memoizer.get(argv, () -> failed);
+    failed.completeExceptionally(new IllegalStateException());
+
+    assertThat(memoizer.size()).isZero();
+  }
+
+  private static Memoize memoize() throws NoSuchMethodException {
+    return Currencies.class.getMethod("currencyAsync", String.class)
+        .getAnnotation(Memoize.class);
+  }
+
+  private static Object value(Object future) {
+    return ((CompletableFuture<?>) future).join();
+  }
+
+  private String url() {
+    return "http://localhost:" + server.getPort();
+  }
+}
@@ -52,6 +52,15 @@ public class UtilTest {
         .containsExactly(23);
   }
 
+  @Test
+  public void schemeAndAuthority() {
+    assertThat(Util.schemeAndAuthority("https://api.github.com/repos?page=2"))
+        .isEqualTo("https://api.github.com");
+    assertThat(Util.schemeAndAuthority("http://localhost:8080?q"))
+        .isEqualTo("http://localhost:8080");
+    assertThat(Util.schemeAndAuthority("localhost/path")).isEqualTo("localhost");
+  }
+
   @Test
   public void emptyValueOf() throws Exception {
     assertEquals(false, Util.emptyValueOf(boolean.class));
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import feign.RequestTemplate;
+
+public class TokenRequestInterceptorTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger fetches = new AtomicInteger();
+  private final Queue<Runnable> refreshes = new ArrayDeque<>();
+
+  private final TokenProvider provider =
+      () -> AccessToken.of("token-" + fetches.incrementAndGet(), 100, TimeUnit.SECONDS);
+
+  @Test
+  public void cachesTheToken() {
+    TokenRequestInterceptor interceptor = TokenRequestInterceptor.builder(provider)
+        .executor(Runnable::run)
+        .nanoTime(now::get)
+        .build();
+
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-1");
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-1");
+    assertThat(fetches).hasValue(1);
+    assertThat(interceptor.metrics().refreshes()).isEqualTo(1);
+    assertThat(interceptor.metrics().blocked()).isEqualTo(1);
+  }
+
+  @Test
+  public void refreshesInTheBackgroundAheadOfExpiry() {
+    TokenRequestInterceptor interceptor = TokenRequestInterceptor.builder(provider)
+        .refreshAhead(30, TimeUnit.SECONDS)
+        .executor(refreshes::add)
+        .nanoTime(now::get)
+        .build();
+    interceptor.asyncInterceptor().apply(new RequestTemplate());
+    refreshes.poll().run();
+
+    now.set(TimeUnit.SECONDS.toNanos(80));
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-1");
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-1");
+    assertThat(refreshes).as("a single refresh in flight").hasSize(1);
+
+    refreshes.poll().run();
+
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-2");
+    assertThat(interceptor.metrics().refreshes()).isEqualTo(2);
+  }
+
+  @Test
+  public void keepsTheValidTokenWhenARefreshFails() {
+    AtomicInteger calls = new AtomicInteger();
+    TokenRequestInterceptor interceptor = TokenRequestInterceptor.builder(() -> {
+      if (calls.incrementAndGet() == 2) {
+        throw new IOException("token endpoint unavailable");
+      }
+      return AccessToken.of("token-" + calls.get(), 100, TimeUnit.SECONDS);
+    })
+        .executor(Runnable::run)
+        .nanoTime(now::get)
+        .build();
+    authorization(interceptor);
+
+    now.set(TimeUnit.SECONDS.toNanos(80));
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-1");
+    assertThat(interceptor.metrics().failures()).isEqualTo(1);
+
+    // the next attempt waits until halfway to the expiry
+    now.set(TimeUnit.SECONDS.toNanos(85));
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-1");
+    assertThat(calls).hasValue(2);
+    now.set(TimeUnit.SECONDS.toNanos(91));
+    authorization(interceptor);
+    assertThat(calls).hasValue(3);
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-3");
+  }
+
+  @Test
+  public void waitsForANewTokenOnceExpired() {
+    TokenRequestInterceptor interceptor = TokenRequestInterceptor.builder(provider)
+        .executor(Runnable::run)
+        .nanoTime(now::get)
+        .build();
+    authorization(interceptor);
+
+    now.set(TimeUnit.SECONDS.toNanos(100));
+
+    assertThat(authorization(interceptor)).isEqualTo("Bearer token-2");
+    assertThat(interceptor.metrics().blocked()).isEqualTo(2);
+  }
+
+  @Test
+  public void throwsWhenNoTokenCanBeFetched() {
+    IOException unavailable = new IOException("token endpoint unavailable");
+    TokenRequestInterceptor interceptor = TokenRequestInterceptor.builder(() -> {
+      throw unavailable;
+    }).executor(Runnable::run).build();
+
+    assertThatThrownBy(() -> interceptor.apply(new RequestTemplate()))
+        .isInstanceOf(UncheckedIOException.class)
+        .hasCause(unavailable);
+  }
+
+  @Test
+  public void replacesTheHeaderOnRetries() {
+    TokenRequestInterceptor interceptor = TokenRequestInterceptor.builder(provider)
+        .header("X-Api-Token")
+        .scheme("")
+        .executor(Runnable::run)
+        .build();
+    RequestTemplate template = new RequestTemplate();
+
+    interceptor.apply(template);
+    interceptor.apply(template);
+
+    assertThat(template.headers().get("X-Api-Token")).containsExactly("token-1");
+  }
+
+  @Test
+  public void asyncInterceptorDoesNotWaitForTheToken() throws Exception {
+    TokenRequestInterceptor interceptor = TokenRequestInterceptor.builder(provider)
+        .executor(refreshes::add)
+        .nanoTime(now::get)
+        .build();
+    RequestTemplate template = new RequestTemplate();
+
+    CompletableFuture<Void> ready =
+        interceptor.asyncInterceptor().apply(template).toCompletableFuture();
+    assertThat(ready).isNotDone();
+
+    refreshes.poll().run();
+
+    ready.get(1, TimeUnit.SECONDS);
+    assertThat(template.headers().get("Authorization")).containsExactly("Bearer token-1");
+    assertThat(interceptor.asyncInterceptor().apply(new RequestTemplate()).toCompletableFuture())
+        .isDone();
+  }
+
+  private static String authorization(TokenRequestInterceptor interceptor) {
+    RequestTemplate template = new RequestTemplate();
+    interceptor.apply(template);
+    return template.headers().get("Authorization").iterator().next();
+  }
+}
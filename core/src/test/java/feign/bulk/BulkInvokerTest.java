@@ -0,0 +1,210 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import feign.AsyncClient;
+import feign.AsyncFeign;
+import feign.Param;
+import feign.RequestLine;
+import feign.Response;
+import feign.Util;
+
+public class BulkInvokerTest {
+
+  /**
+   * Calls in flight, by argument, completed by the test.
+   */
+  private final Map<String, CompletableFuture<String>> calls = new LinkedHashMap<>();
+
+  private CompletableFuture<String> call(String argument) {
+    CompletableFuture<String> call = new CompletableFuture<>();
+    calls.put(argument, call);
+    return call;
+  }
+
+  private void complete(String argument) {
+    calls.get(argument).complete(argument.toUpperCase());
+  }
+
+  @Test
+  public void gathersResultsInTheOrderOfTheArguments() throws Exception {
+    BulkInvoker<String, String> invoker = BulkInvoker.builder(this::call).build();
+
+    CompletableFuture<List<String>> results = invoker.gather(Arrays.asList("a", "b", "c"));
+    complete("c");
+    complete("a");
+    assertThat(results).isNotDone();
+    complete("b");
+
+    assertThat(results.get(1, TimeUnit.SECONDS)).containsExactly("A", "B", "C");
+    assertThat(invoker.metrics().calls()).isEqualTo(3);
+  }
+
+  @Test
+  public void boundsTheCallsInFlight() {
+    BulkInvoker<String, String> invoker = BulkInvoker.builder(this::call)
+        .maxConcurrency(2)
+        .build();
+
+    CompletableFuture<List<String>> results = invoker.gather(Arrays.asList("a", "b", "c", "d"));
+    assertThat(calls).containsOnlyKeys("a", "b");
+
+    complete("b");
+    assertThat(calls).containsOnlyKeys("a", "b", "c");
+    complete("a");
+    complete("c");
+    complete("d");
+
+    assertThat(results.join()).containsExactly("A", "B", "C", "D");
+  }
+
+  @Test
+  public void boundsTheCallsInFlightPerKey() {
+    BulkInvoker<String, String> invoker = BulkInvoker.builder(this::call)
+        .maxConcurrency(10)
+        .maxConcurrencyPerKey(1, argument -> argument.charAt(0))
+        .build();
+
+    CompletableFuture<List<String>> results =
+        invoker.gather(Arrays.asList("a1", "a2", "b1", "a3", "b2"));
+    assertThat(calls).as("other keys go ahead").containsOnlyKeys("a1", "b1");
+
+    complete("a1");
+    assertThat(calls).containsOnlyKeys("a1", "b1", "a2");
+    complete("a2");
+    complete("a3");
+    complete("b1");
+    complete("b2");
+
+    assertThat(results.join()).containsExactly("A1", "A2", "B1", "A3", "B2");
+    assertThat(invoker.metrics().parked()).isEqualTo(3);
+  }
+
+  @Test
+  public void failFastCancelsTheCallsInFlight() {
+    IllegalStateException unavailable = new IllegalStateException("unavailable");
+    BulkInvoker<String, String> invoker = BulkInvoker.builder(this::call)
+        .maxConcurrency(2)
+        .build();
+
+    CompletableFuture<List<String>> results = invoker.gather(Arrays.asList("a", "b", "c"));
+    calls.get("a").completeExceptionally(unavailable);
+
+    assertThatThrownBy(results::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasCause(unavailable);
+    assertThat(calls.get("b")).isCancelled();
+    assertThat(calls).as("no more calls").containsOnlyKeys("a", "b");
+    assertThat(invoker.metrics().failures()).isEqualTo(1);
+  }
+
+  @Test
+  public void continueCollectsEveryFailure() {
+    IllegalStateException unavailable = new IllegalStateException("unavailable");
+    BulkInvoker<String, String> invoker = BulkInvoker.builder(this::call)
+        .failurePolicy(FailurePolicy.CONTINUE)
+        .build();
+
+    CompletableFuture<List<String>> results = invoker.gather(Arrays.asList("a", "b", "c"));
+    calls.get("b").completeExceptionally(unavailable);
+    assertThat(results).isNotDone();
+    complete("a");
+    complete("c");
+
+    assertThatThrownBy(results::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(BulkException.class)
+        .satisfies(e -> {
+          BulkException bulk = (BulkException) e.getCause();
+          assertThat(bulk.failures()).containsOnly(entry(1, unavailable));
+          assertThat(bulk.results()).containsExactly("A", null, "C");
+        });
+  }
+
+  @Test
+  public void streamsResultsAsTheyComplete() {
+    List<String> streamed = new ArrayList<>();
+    BulkInvoker<String, String> invoker = BulkInvoker.builder(this::call).build();
+
+    CompletableFuture<Void> done =
+        invoker.stream(Arrays.asList("a", "b"), (argument, result) -> streamed.add(result));
+    complete("b");
+    assertThat(streamed).containsExactly("B");
+    complete("a");
+
+    assertThat(streamed).containsExactly("B", "A");
+    assertThat(done).isCompleted();
+  }
+
+  @Test
+  public void completesAnEmptyRun() {
+    BulkInvoker<String, String> invoker = BulkInvoker.builder(this::call).build();
+
+    assertThat(invoker.gather(Collections.emptyList()).join()).isEmpty();
+  }
+
+  @Test
+  public void callsCompletingInlineDoNotRecurse() {
+    BulkInvoker<Integer, Integer> invoker =
+        BulkInvoker.<Integer, Integer>builder(CompletableFuture::completedFuture)
+            .maxConcurrency(1)
+            .build();
+    List<Integer> arguments = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+
+    assertThat(invoker.gather(arguments).join()).isEqualTo(arguments);
+  }
+
+  interface Api {
+
+    @RequestLine("GET /items/{id}")
+    CompletableFuture<String> item(@Param("id") String id);
+  }
+
+  @Test
+  public void fansOutAsyncFeignCalls() {
+    AsyncClient<Void> client = (request, options, context) -> CompletableFuture.supplyAsync(
+        () -> Response.builder()
+            .status(200)
+            .headers(Collections.emptyMap())
+            .request(request)
+            .body(request.url().substring(request.url().lastIndexOf('/') + 1), Util.UTF_8)
+            .build());
+    Api api = AsyncFeign.<Void>asyncBuilder()
+        .client(client)
+        .target(Api.class, "http://localhost");
+    List<String> ids = IntStream.range(0, 500).mapToObj(String::valueOf)
+        .collect(Collectors.toList());
+
+    BulkInvoker<String, String> items = BulkInvoker.builder(api::item)
+        .maxConcurrency(8)
+        .build();
+
+    assertThat(items.gather(ids).join()).isEqualTo(ids);
+  }
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.cache;
+
+import static feign.Util.UTF_8;
+import static feign.Util.toByteArray;
+import static org.assertj.core.api.Assertions.assertThat;
+import feign.AsyncClient;
+import feign.Client;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CacheCapabilityTest {
+
+  @Rule
+  public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private final MutableClock clock = new MutableClock();
+  private final Deque<Response.Builder> responses = new ArrayDeque<>();
+  private final List<Request> requests = new ArrayList<>();
+
+  private final Client server = (request, options) -> {
+    requests.add(request);
+    return responses.remove().request(request).build();
+  };
+
+  private Client client(CacheCapability cache) {
+    return cache.enrich(server);
+  }
+
+  private CacheCapability.Builder cache() {
+    return CacheCapability.builder()
+        .clock(clock)
+        .executor(Runnable::run);
+  }
+
+  @Test
+  public void servesFreshResponseFromCache() throws IOException {
+    CacheCapability cache = cache().build();
+    Client client = client(cache);
+    respond(200, "hello", "Cache-Control", "max-age=60");
+
+    assertThat(body(client.execute(get("/a"), new Request.Options()))).isEqualTo("hello");
+    clock.advance(30);
+    Response cached = client.execute(get("/a"), new Request.Options());
+
+    assertThat(body(cached)).isEqualTo("hello");
+    assertThat(cached.headers().get("Age")).containsExactly("30");
+    assertThat(requests).hasSize(1);
+    assertThat(cache.metrics().hits()).isEqualTo(1);
+    assertThat(cache.metrics().misses()).isEqualTo(1);
+    assertThat(cache.metrics().bytesServed()).isEqualTo(5);
+  }
+
+  @Test
+  public void expiredResponseWithoutValidatorIsFetchedAgain() throws IOException {
+    Client client = client(cache().build());
+    respond(200, "hello", "Cache-Control", "max-age=60");
+    respond(200, "again", "Cache-Control", "max-age=60");
+
+    client.execute(get("/a"), new Request.Options()).close();
+    clock.advance(61);
+
+    assertThat(body(client.execute(get("/a"), new Request.Options()))).isEqualTo("again");
+    assertThat(requests).hasSize(2);
+  }
+
+  @Test
+  public void revalidatesWithETag() throws IOException {
+    CacheCapability cache = cache().build();
+    Client client = client(cache);
+    respond(200, "hello", "Cache-Control", "no-cache", "ETag", "\"v1\"");
+    respond(304, null, "Cache-Control", "max-age=60");
+
+    client.execute(get("/a"), new Request.Options()).close();
+    Response revalidated = client.execute(get("/a"), new Request.Options());
+
+    assertThat(body(revalidated)).isEqualTo("hello");
+    assertThat(revalidated.status()).isEqualTo(200);
+    assertThat(requests.get(1).headers().get("If-None-Match")).containsExactly("\"v1\"");
+    assertThat(cache.metrics().revalidated()).isEqualTo(1);
+  }
+
+  @Test
+  public void revalidatesWithLastModified() throws IOException {
+    Client client = client(cache().build());
+    respond(200, "hello", "Cache-Control", "max-age=0", "Last-Modified",
+        "Wed, 21 Oct 2015 07:28:00 GMT");
+    respond(200, "changed", "Cache-Control", "max-age=0");
+
+    client.execute(get("/a"), new Request.Options()).close();
+    Response changed = client.execute(get("/a"), new Request.Options());
+
+    assertThat(body(changed)).isEqualTo("changed");
+    assertThat(requests.get(1).headers().get("If-Modified-Since"))
+        .containsExactly("Wed, 21 Oct 2015 07:28:00 GMT");
+  }
+
+  @Test
+  public void doesNotStoreNoStore() throws IOException {
+    Client client = client(cache().build());
+    respond(200, "hello", "Cache-Control", "no-store, max-age=60");
+    respond(200, "hello", "Cache-Control", "no-store, max-age=60");
+
+    client.execute(get("/a"), new Request.Options()).close();
+    client.execute(get("/a"), new Request.Options()).close();
+
+    assertThat(requests).hasSize(2);
+  }
+
+  @Test
+  public void varyMatchesRequestHeaders() throws IOException {
+    Client client = client(cache().build());
+    respond(200, "json", "Cache-Control", "max-age=60", "Vary", "Accept");
+    respond(200, "xml", "Cache-Control", "max-age=60", "Vary", "Accept");
+
+    client.execute(get("/a", "Accept", "application/json"), new Request.Options()).close();
+    client.execute(get("/a", "Accept", "application/xml"), new Request.Options()).close();
+
+    assertThat(body(client.execute(get("/a", "accept", "application/json"),
+        new Request.Options()))).isEqualTo("json");
+    assertThat(body(client.execute(get("/a", "Accept", "application/xml"),
+        new Request.Options()))).isEqualTo("xml");
+    assertThat(requests).hasSize(2);
+  }
+
+  @Test
+  public void servesStaleWhileRevalidating() throws IOException {
+    CacheCapability cache = cache().build();
+    Client client = client(cache);
+    respond(200, "hello", "Cache-Control", "max-age=1, stale-while-revalidate=60", "ETag",
+        "\"v1\"");
+    respond(200, "updated", "Cache-Control", "max-age=60", "ETag", "\"v2\"");
+
+    client.execute(get("/a"), new Request.Options()).close();
+    clock.advance(10);
+
+    assertThat(body(client.execute(get("/a"), new Request.Options()))).isEqualTo("hello");
+    assertThat(requests).hasSize(2);
+    assertThat(requests.get(1).headers().get("If-None-Match")).containsExactly("\"v1\"");
+    assertThat(body(client.execute(get("/a"), new Request.Options()))).isEqualTo("updated");
+    assertThat(cache.metrics().staleHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void mustRevalidateIsNeverServedStale() throws IOException {
+    Client client = client(cache().build());
+    respond(200, "hello",
+        "Cache-Control", "max-age=1, must-revalidate, stale-while-revalidate=60", "ETag", "\"v1\"");
+    respond(304, null);
+
+    client.execute(get("/a"), new Request.Options()).close();
+    clock.advance(10);
+    client.execute(get("/a"), new Request.Options()).close();
+
+    assertThat(requests).hasSize(2);
+  }
+
+  @Test
+  public void unsafeRequestsInvalidate() throws IOException {
+    Client client = client(cache().build());
+    respond(200, "hello", "Cache-Control", "max-age=60");
+    respond(204, null);
+    respond(200, "updated", "Cache-Control", "max-age=60");
+
+    client.execute(get("/a"), new Request.Options()).close();
+    client.execute(Request.create(HttpMethod.PUT, "http://localhost/a", Collections.emptyMap(),
+        new byte[0], UTF_8, null), new Request.Options()).close();
+
+    assertThat(body(client.execute(get("/a"), new Request.Options()))).isEqualTo("updated");
+  }
+
+  @Test
+  public void onlyIfCachedWithoutResponse() throws IOException {
+    Client client = client(cache().build());
+
+    Response response =
+        client.execute(get("/a", "Cache-Control", "only-if-cached"), new Request.Options());
+
+    assertThat(response.status()).isEqualTo(504);
+    assertThat(requests).isEmpty();
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() throws IOException {
+    CacheCapability cache = cache().maxBytes(250).maxEntryBytes(250).build();
+    Client client = client(cache);
+    for (int i = 0; i < 4; i++) {
+      respond(200, "hello", "Cache-Control", "max-age=60");
+    }
+
+    client.execute(get("/a"), new Request.Options()).close();
+    client.execute(get("/b"), new Request.Options()).close();
+    client.execute(get("/a"), new Request.Options()).close();
+    client.execute(get("/c"), new Request.Options()).close();
+    client.execute(get("/b"), new Request.Options()).close();
+
+    assertThat(cache.metrics().evictions()).isGreaterThan(0);
+    assertThat(requests).extracting(Request::url)
+        .containsExactly("http://localhost/a", "http://localhost/b", "http://localhost/c",
+            "http://localhost/b");
+  }
+
+  @Test
+  public void largeResponsesGoToDisk() throws IOException {
+    CacheCapability cache = cache()
+        .maxEntryBytes(0)
+        .disk(tmp.getRoot().toPath(), 1024 * 1024)
+        .build();
+    Client client = client(cache);
+    respond(200, "hello from disk", "Cache-Control", "max-age=60", "ETag", "\"v1\"");
+
+    client.execute(get("/a"), new Request.Options()).close();
+    Response cached = client.execute(get("/a"), new Request.Options());
+
+    assertThat(body(cached)).isEqualTo("hello from disk");
+    assertThat(cached.headers().get("ETag")).containsExactly("\"v1\"");
+    assertThat(requests).hasSize(1);
+    assertThat(cache.metrics().memoryBytes()).isZero();
+    assertThat(cache.metrics().diskBytes()).isGreaterThan(0);
+  }
+
+  @Test
+  public void asyncClientSharesCache() throws Exception {
+    CacheCapability cache = cache().build();
+    Client client = client(cache);
+    AsyncClient<Void> asyncClient = cache.enrich((AsyncClient<Void>) (request,
+                                                                      options,
+                                                                      context) -> {
+      requests.add(request);
+      return CompletableFuture.completedFuture(responses.remove().request(request).build());
+    });
+    respond(200, "hello", "Cache-Control", "max-age=60");
+
+    client.execute(get("/a"), new Request.Options()).close();
+    Response cached =
+        asyncClient.execute(get("/a"), new Request.Options(), Optional.empty()).get();
+
+    assertThat(body(cached)).isEqualTo("hello");
+    assertThat(requests).hasSize(1);
+  }
+
+  private void respond(int status, String body, String... headers) {
+    Map<String, Collection<String>> headerMap = new LinkedHashMap<>();
+    for (int i = 0; i < headers.length; i += 2) {
+      headerMap.put(headers[i], Collections.singletonList(headers[i + 1]));
+    }
+    Response.Builder response = Response.builder()
+        .status(status)
+        .headers(headerMap);
+    if (body != null) {
+      byte[] bytes = body.getBytes(UTF_8);
+      response.body(new ByteArrayInputStream(bytes), bytes.length);
+    }
+    responses.add(response);
+  }
+
+  private static Request get(String path, String... headers) {
+    Map<String, Collection<String>> headerMap = new LinkedHashMap<>();
+    for (int i = 0; i < headers.length; i += 2) {
+      headerMap.put(headers[i], Collections.singletonList(headers[i + 1]));
+    }
+    return Request.create(HttpMethod.GET, "http://localhost" + path, headerMap, null, UTF_8,
+        null);
+  }
+
+  private static String body(Response response) throws IOException {
+    return new String(toByteArray(response.body().asInputStream()), UTF_8);
+  }
+
+  static final class MutableClock extends Clock {
+
+    private long millis = 1_000_000;
+
+    void advance(long seconds) {
+      millis += TimeUnit.SECONDS.toMillis(seconds);
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.coalescing;
+
+import static feign.Util.UTF_8;
+import static feign.Util.toByteArray;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import feign.AsyncClient;
+import feign.Client;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class CoalescingClientTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final AtomicInteger calls = new AtomicInteger();
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /** Blocks until released, so concurrent requests overlap. */
+  private final Client slowClient = (request, options) -> {
+    calls.incrementAndGet();
+    try {
+      release.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+    byte[] body = request.url().getBytes(UTF_8);
+    return Response.builder()
+        .status(200)
+        .headers(Collections.emptyMap())
+        .request(request)
+        .body(new ByteArrayInputStream(body), body.length)
+        .build();
+  };
+
+  @Test
+  public void coalescesConcurrentIdenticalRequests() throws Exception {
+    CoalescingCapability capability = new CoalescingCapability();
+    Client client = capability.enrich(slowClient);
+
+    List<Future<Response>> responses = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Request request = get("http://localhost/a", Collections.emptyMap());
+      responses.add(executor.submit(() -> client.execute(request, new Request.Options())));
+    }
+    awaitRequests(capability.metrics(), 10);
+    release.countDown();
+
+    for (Future<Response> response : responses) {
+      assertThat(body(response.get())).isEqualTo("http://localhost/a");
+    }
+    assertThat(calls).hasValue(1);
+    assertThat(capability.metrics().coalesced()).isEqualTo(9);
+    assertThat(capability.metrics().hitRate()).isEqualTo(0.9);
+  }
+
+  @Test
+  public void sharedResponseIsForEachRequest() throws Exception {
+    Client client = new CoalescingClient(slowClient);
+    Request first = get("http://localhost/a", Collections.emptyMap());
+    Request second = get("http://localhost/a", Collections.emptyMap());
+
+    Future<Response> firstResponse =
+        executor.submit(() -> client.execute(first, new Request.Options()));
+    awaitRequests(((CoalescingClient) client).metrics(), 1);
+    Future<Response> secondResponse =
+        executor.submit(() -> client.execute(second, new Request.Options()));
+    awaitRequests(((CoalescingClient) client).metrics(), 2);
+    release.countDown();
+
+    assertThat(firstResponse.get().request()).isSameAs(first);
+    assertThat(secondResponse.get().request()).isSameAs(second);
+    assertThat(body(secondResponse.get())).isEqualTo(body(firstResponse.get()));
+  }
+
+  @Test
+  public void doesNotCoalesceDifferentRequests() throws Exception {
+    release.countDown();
+    Client client = new CoalescingCapability(Arrays.asList("Authorization"))
+        .enrich(slowClient);
+
+    client.execute(get("http://localhost/a", Collections.emptyMap()), new Request.Options());
+    client.execute(get("http://localhost/b", Collections.emptyMap()), new Request.Options());
+    client.execute(Request.create(HttpMethod.POST, "http://localhost/a", Collections.emptyMap(),
+        new byte[0], UTF_8, null), new Request.Options());
+
+    assertThat(calls).hasValue(3);
+  }
+
+  @Test
+  public void keyHeadersAreCompared() {
+    CoalescingKey alice = CoalescingKey.of(
+        get("http://localhost/a", headers("Authorization", "alice", "X-Trace", "1")),
+        CoalescingKey.headerNames(Arrays.asList("authorization")));
+    CoalescingKey bob = CoalescingKey.of(
+        get("http://localhost/a", headers("Authorization", "bob", "X-Trace", "1")),
+        CoalescingKey.headerNames(Arrays.asList("authorization")));
+    CoalescingKey aliceAgain = CoalescingKey.of(
+        get("http://localhost/a", headers("authorization", "alice", "X-Trace", "2")),
+        CoalescingKey.headerNames(Arrays.asList("authorization")));
+
+    assertThat(alice).isNotEqualTo(bob).isEqualTo(aliceAgain);
+    assertThat(CoalescingKey.of(
+        get("http://localhost/a", headers("Authorization", "alice", "X-Trace", "1")), null))
+            .isNotEqualTo(CoalescingKey.of(
+                get("http://localhost/a", headers("Authorization", "alice", "X-Trace", "2")),
+                null));
+  }
+
+  @Test
+  public void sharesErrors() throws Exception {
+    IOException error = new IOException("connection refused");
+    CountDownLatch failing = new CountDownLatch(1);
+    CoalescingClient client = new CoalescingClient((request, options) -> {
+      calls.incrementAndGet();
+      try {
+        failing.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      throw error;
+    });
+
+    List<Future<Response>> responses = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Request request = get("http://localhost/a", Collections.emptyMap());
+      responses.add(executor.submit(() -> client.execute(request, new Request.Options())));
+    }
+    awaitRequests(client.metrics(), 3);
+    failing.countDown();
+
+    for (Future<Response> response : responses) {
+      try {
+        response.get();
+        fail();
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isSameAs(error);
+      }
+    }
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  public void coalescesAsyncRequests() throws Exception {
+    CompletableFuture<Response> pending = new CompletableFuture<>();
+    AsyncClient<Void> delegate = (request, options, context) -> {
+      calls.incrementAndGet();
+      return pending;
+    };
+    CoalescingCapability capability = new CoalescingCapability();
+    AsyncClient<Void> client = capability.enrich(delegate);
+
+    Request request = get("http://localhost/a", Collections.emptyMap());
+    CompletableFuture<Response> first =
+        client.execute(request, new Request.Options(), Optional.empty());
+    CompletableFuture<Response> second =
+        client.execute(request, new Request.Options(), Optional.empty());
+    first.cancel(true);
+    pending.complete(response(request));
+
+    assertThat(second.isCompletedExceptionally()).isFalse();
+    assertThat(body(second.get())).isEqualTo("hello");
+    assertThat(calls).hasValue(1);
+    assertThat(capability.metrics().coalesced()).isEqualTo(1);
+
+    client.execute(request, new Request.Options(), Optional.empty());
+    assertThat(calls).hasValue(2);
+  }
+
+  private static Response response(Request request) {
+    byte[] body = "hello".getBytes(UTF_8);
+    return Response.builder()
+        .status(200)
+        .headers(Collections.emptyMap())
+        .request(request)
+        .body(new ByteArrayInputStream(body), body.length)
+        .build();
+  }
+
+  private static void awaitRequests(CoalescingMetrics metrics, int requests)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (metrics.requests() < requests && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+  }
+
+  private static Request get(String url, Map<String, Collection<String>> headers) {
+    return Request.create(HttpMethod.GET, url, headers, null, UTF_8, null);
+  }
+
+  private static Map<String, Collection<String>> headers(String... namesAndValues) {
+    Map<String, Collection<String>> headers = new LinkedHashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      headers.put(namesAndValues[i], Collections.singletonList(namesAndValues[i + 1]));
+    }
+    return headers;
+  }
+
+  private static String body(Response response) throws IOException {
+    return new String(toByteArray(response.body().asInputStream()), UTF_8);
+  }
+}
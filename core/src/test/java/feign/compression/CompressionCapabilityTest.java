@@ -0,0 +1,310 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.compression;
+
+import static feign.Util.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import feign.AsyncClient;
+import feign.Client;
+import feign.Feign;
+import feign.Headers;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.RequestLine;
+import feign.Response;
+import feign.Util;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class CompressionCapabilityTest {
+
+  @Rule
+  public final MockWebServer server = new MockWebServer();
+
+  private static final String LARGE = repeat("{\"name\":\"feign\"},", 200);
+
+  interface Api {
+
+    @RequestLine("GET /")
+    String get();
+
+    @RequestLine("POST /")
+    @Headers("Content-Type: application/json; charset=UTF-8")
+    void postJson(String body);
+
+    @RequestLine("POST /")
+    @Headers("Content-Type: text/plain")
+    void postText(String body);
+  }
+
+  @Test
+  public void gzipInteroperatesWithTheJdk() throws IOException {
+    byte[] data = LARGE.getBytes(UTF_8);
+
+    byte[] compressed = CompressionCodec.gzip().compress(data);
+
+    assertThat(Util.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))))
+        .isEqualTo(data);
+    assertThat(Util.toByteArray(CompressionCodec.gzip().decompress(
+        new ByteArrayInputStream(gzip(data))))).isEqualTo(data);
+  }
+
+  @Test
+  public void deflateInteroperatesWithTheJdk() throws IOException {
+    byte[] data = LARGE.getBytes(UTF_8);
+    ByteArrayOutputStream jdk = new ByteArrayOutputStream();
+    try (DeflaterOutputStream out = new DeflaterOutputStream(jdk)) {
+      out.write(data);
+    }
+
+    byte[] compressed = CompressionCodec.deflate().compress(data);
+
+    assertThat(Util.toByteArray(CompressionCodec.deflate().decompress(
+        new ByteArrayInputStream(compressed)))).isEqualTo(data);
+    assertThat(Util.toByteArray(CompressionCodec.deflate().decompress(
+        new ByteArrayInputStream(jdk.toByteArray())))).isEqualTo(data);
+  }
+
+  @Test
+  public void corruptGzipFails() throws IOException {
+    byte[] compressed = CompressionCodec.gzip().compress(LARGE.getBytes(UTF_8));
+    compressed[compressed.length - 5]++;
+
+    InputStream in = CompressionCodec.gzip().decompress(new ByteArrayInputStream(compressed));
+
+    assertThatThrownBy(() -> Util.toByteArray(in)).isInstanceOf(ZipException.class);
+  }
+
+  @Test
+  public void emptyBodyStaysEmpty() throws IOException {
+    assertThat(Util.toByteArray(CompressionCodec.gzip().decompress(
+        new ByteArrayInputStream(new byte[0])))).isEmpty();
+  }
+
+  @Test
+  public void decompressesResponses() throws Exception {
+    server.enqueue(new MockResponse()
+        .addHeader("Content-Encoding", "gzip")
+        .setBody(new Buffer().write(gzip(LARGE.getBytes(UTF_8)))));
+    CompressionCapability compression = CompressionCapability.create();
+    Api api = Feign.builder()
+        .addCapability(compression)
+        .target(Api.class, "http://localhost:" + server.getPort());
+
+    assertThat(api.get()).isEqualTo(LARGE);
+    assertThat(server.takeRequest().getHeader("Accept-Encoding")).isEqualTo("gzip, deflate");
+    assertThat(compression.metrics().decompressedResponses()).isEqualTo(1);
+  }
+
+  @Test
+  public void unknownEncodingsAreLeftAlone() throws IOException {
+    Response response = CompressionCapability.create()
+        .enrich(respondWith("br", new byte[] {1, 2, 3}))
+        .execute(get(), new Request.Options());
+
+    assertThat(response.headers().get("Content-Encoding")).containsExactly("br");
+    assertThat(Util.toByteArray(response.body().asInputStream())).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void undoesEncodingsInReverseOrder() throws IOException {
+    byte[] data = LARGE.getBytes(UTF_8);
+    byte[] twice = CompressionCodec.gzip().compress(CompressionCodec.deflate().compress(data));
+
+    Response response = CompressionCapability.create()
+        .enrich(respondWith("deflate, gzip", twice))
+        .execute(get(), new Request.Options());
+
+    assertThat(response.headers()).doesNotContainKeys("Content-Encoding", "Content-Length");
+    assertThat(Util.toByteArray(response.body().asInputStream())).isEqualTo(data);
+  }
+
+  @Test
+  public void compressesLargeRequestsOnce() throws Exception {
+    server.enqueue(new MockResponse());
+    server.enqueue(new MockResponse());
+    CompressionCapability compression = CompressionCapability.create();
+    Api api = Feign.builder()
+        .addCapability(compression)
+        .target(Api.class, "http://localhost:" + server.getPort());
+
+    api.postJson(LARGE);
+    api.postJson("small");
+
+    RecordedRequest large = server.takeRequest();
+    assertThat(large.getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(Util.toByteArray(new GZIPInputStream(large.getBody().inputStream())))
+        .isEqualTo(LARGE.getBytes(UTF_8));
+    RecordedRequest small = server.takeRequest();
+    assertThat(small.getHeader("Content-Encoding")).isNull();
+    assertThat(small.getBody().readUtf8()).isEqualTo("small");
+    assertThat(compression.metrics().compressedRequests()).isEqualTo(1);
+    assertThat(compression.metrics().compressedRequestBytes())
+        .isLessThan(compression.metrics().requestBytes());
+  }
+
+  @Test
+  public void asyncDefaultClientCompressesOnce() throws Exception {
+    server.enqueue(new MockResponse());
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      AsyncClient<Void> client = CompressionCapability.create()
+          .enrich(new AsyncClient.Default<>(new Client.Default(null, null), executor));
+      Request request = Request.create(HttpMethod.POST, "http://localhost:" + server.getPort(),
+          Collections.emptyMap(), LARGE.getBytes(UTF_8), UTF_8, null);
+
+      client.execute(request, new Request.Options(), Optional.empty()).get();
+
+      RecordedRequest recorded = server.takeRequest();
+      assertThat(recorded.getHeader("Content-Encoding")).isEqualTo("gzip");
+      assertThat(Util.toByteArray(new GZIPInputStream(recorded.getBody().inputStream())))
+          .isEqualTo(LARGE.getBytes(UTF_8));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void onlyCompressesListedMimeTypes() throws Exception {
+    server.enqueue(new MockResponse());
+    server.enqueue(new MockResponse());
+    Api api = Feign.builder()
+        .addCapability(CompressionCapability.builder()
+            .mimeTypes("application/json")
+            .minRequestSize(0)
+            .build())
+        .target(Api.class, "http://localhost:" + server.getPort());
+
+    api.postJson("{}");
+    api.postText("text");
+
+    assertThat(server.takeRequest().getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(server.takeRequest().getHeader("Content-Encoding")).isNull();
+  }
+
+  @Test
+  public void customCodecs() throws IOException {
+    CompressionCodec reversed = new ReversedCodec();
+    CompressionCapability compression = CompressionCapability.builder()
+        .codec(reversed)
+        .requestEncoding("reversed")
+        .minRequestSize(0)
+        .build();
+    byte[][] sent = new byte[1][];
+    Client client = compression.enrich((Client) (request, options) -> {
+      sent[0] = request.body();
+      return Response.builder()
+          .status(200)
+          .headers(Collections.singletonMap("Content-Encoding",
+              Collections.singletonList("reversed")))
+          .request(request)
+          .body(reversed.compress("olleh".getBytes(UTF_8)))
+          .build();
+    });
+
+    Response response = client.execute(Request.create(HttpMethod.POST, "http://localhost",
+        Collections.emptyMap(), "abc".getBytes(UTF_8), UTF_8, null), new Request.Options());
+
+    assertThat(new String(sent[0], UTF_8)).isEqualTo("cba");
+    assertThat(Util.toString(response.body().asReader(UTF_8))).isEqualTo("olleh");
+  }
+
+  @Test
+  public void asyncClientDecompresses() throws Exception {
+    byte[] data = LARGE.getBytes(UTF_8);
+    byte[] compressed = gzip(data);
+    AsyncClient<Void> client = CompressionCapability.create()
+        .enrich((AsyncClient<Void>) (request, options, context) -> CompletableFuture
+            .completedFuture(encodedResponse(request, "gzip", compressed)));
+
+    Response response = client.execute(get(), new Request.Options(), Optional.empty()).get();
+
+    assertThat(Util.toByteArray(response.body().asInputStream())).isEqualTo(data);
+  }
+
+  private static Client respondWith(String encoding, byte[] body) {
+    return (request, options) -> encodedResponse(request, encoding, body);
+  }
+
+  private static Response encodedResponse(Request request, String encoding, byte[] body) {
+    return Response.builder()
+        .status(200)
+        .headers(Collections.singletonMap("Content-Encoding",
+            Collections.singletonList(encoding)))
+        .request(request)
+        .body(body)
+        .build();
+  }
+
+  private static Request get() {
+    return Request.create(HttpMethod.GET, "http://localhost", Collections.emptyMap(), null, UTF_8,
+        null);
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(data);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static String repeat(String value, int times) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+
+  static final class ReversedCodec implements CompressionCodec {
+
+    @Override
+    public String encoding() {
+      return "reversed";
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+      byte[] reversed = new byte[data.length];
+      for (int i = 0; i < data.length; i++) {
+        reversed[i] = data[data.length - 1 - i];
+      }
+      return reversed;
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+      return new ByteArrayInputStream(compress(Util.toByteArray(in)));
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.hedging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class HedgeBudgetTest {
+
+  @Test
+  public void hedgesAreLimitedToTheRatioOfRequests() {
+    HedgeBudget budget = new HedgeBudget(0.25);
+    int hedges = 0;
+    for (int i = 0; i < 100; i++) {
+      budget.deposit();
+      if (budget.tryAcquire()) {
+        hedges++;
+      }
+    }
+
+    assertThat(hedges).isEqualTo(25);
+  }
+
+  @Test
+  public void unusedBudgetIsCapped() {
+    HedgeBudget budget = new HedgeBudget(1);
+    for (int i = 0; i < 100; i++) {
+      budget.deposit();
+    }
+    int hedges = 0;
+    while (budget.tryAcquire()) {
+      hedges++;
+    }
+
+    assertThat(hedges).isEqualTo(10);
+  }
+
+  @Test
+  public void windowPercentileNeedsEnoughSamples() {
+    LatencyWindow window = new LatencyWindow(100, 90, 10);
+    for (int i = 1; i < 10; i++) {
+      window.record(i);
+    }
+    assertThat(window.percentileNanos()).isEqualTo(-1);
+
+    window.record(10);
+    assertThat(window.percentileNanos()).isEqualTo(9);
+  }
+}
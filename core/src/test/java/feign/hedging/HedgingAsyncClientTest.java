@@ -0,0 +1,190 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.hedging;
+
+import static feign.Util.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import feign.AsyncClient;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class HedgingAsyncClientTest {
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final BlockingQueue<CompletableFuture<Response>> attempts = new LinkedBlockingQueue<>();
+  private final AsyncClient<Void> delegate = (request, options, context) -> {
+    CompletableFuture<Response> attempt = new CompletableFuture<>();
+    attempts.add(attempt);
+    return attempt;
+  };
+
+  @After
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  private HedgingAsyncClient.Builder hedging() {
+    return HedgingAsyncClient.builder()
+        .delay(10, TimeUnit.MILLISECONDS)
+        .budget(1)
+        .scheduler(scheduler);
+  }
+
+  @Test
+  public void slowRequestIsHedged() throws Exception {
+    HedgingAsyncClient<Void> client = withBudget(hedging().build(delegate));
+
+    CompletableFuture<Response> result = execute(client, HttpMethod.GET);
+    CompletableFuture<Response> original = attempts.take();
+    CompletableFuture<Response> hedge = attempts.poll(5, TimeUnit.SECONDS);
+    hedge.complete(response(200));
+
+    assertThat(result.get(5, TimeUnit.SECONDS).status()).isEqualTo(200);
+    assertThat(original).isCancelled();
+    assertThat(client.metrics().hedges()).isEqualTo(1);
+    assertThat(client.metrics().hedgeWins()).isEqualTo(1);
+  }
+
+  @Test
+  public void fastRequestIsNotHedged() throws Exception {
+    HedgingAsyncClient<Void> client = hedging().delay(1, TimeUnit.HOURS).build(delegate);
+
+    CompletableFuture<Response> result = execute(client, HttpMethod.GET);
+    attempts.take().complete(response(200));
+
+    assertThat(result.get(5, TimeUnit.SECONDS).status()).isEqualTo(200);
+    assertThat(attempts).isEmpty();
+    assertThat(client.metrics().requests()).isEqualTo(1);
+    assertThat(client.metrics().hedges()).isZero();
+  }
+
+  @Test
+  public void failedAttemptWaitsForTheOther() throws Exception {
+    HedgingAsyncClient<Void> client = withBudget(hedging().build(delegate));
+
+    CompletableFuture<Response> result = execute(client, HttpMethod.GET);
+    CompletableFuture<Response> original = attempts.take();
+    CompletableFuture<Response> hedge = attempts.poll(5, TimeUnit.SECONDS);
+    original.complete(response(503));
+
+    assertThat(result).isNotDone();
+    hedge.complete(response(200));
+    assertThat(result.get(5, TimeUnit.SECONDS).status()).isEqualTo(200);
+  }
+
+  @Test
+  public void errorResponseIsPreferredToALaterException() throws Exception {
+    HedgingAsyncClient<Void> client = withBudget(hedging().build(delegate));
+
+    CompletableFuture<Response> result = execute(client, HttpMethod.GET);
+    CompletableFuture<Response> original = attempts.take();
+    CompletableFuture<Response> hedge = attempts.poll(5, TimeUnit.SECONDS);
+    original.complete(response(503));
+    hedge.completeExceptionally(new IOException("connection reset"));
+
+    assertThat(result.get(5, TimeUnit.SECONDS).status()).isEqualTo(503);
+  }
+
+  @Test
+  public void lastFailureIsReturned() throws Exception {
+    HedgingAsyncClient<Void> client = hedging().delay(1, TimeUnit.HOURS).build(delegate);
+
+    CompletableFuture<Response> result = execute(client, HttpMethod.GET);
+    attempts.take().complete(response(503));
+
+    assertThat(result.get(5, TimeUnit.SECONDS).status()).isEqualTo(503);
+  }
+
+  @Test
+  public void budgetLimitsHedges() throws Exception {
+    HedgingAsyncClient<Void> client = hedging().budget(0).build(delegate);
+
+    CompletableFuture<Response> result = execute(client, HttpMethod.GET);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (client.metrics().budgetExhausted() == 0 && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    attempts.take().complete(response(200));
+
+    assertThat(result.get(5, TimeUnit.SECONDS).status()).isEqualTo(200);
+    assertThat(client.metrics().budgetExhausted()).isEqualTo(1);
+    assertThat(attempts).isEmpty();
+  }
+
+  @Test
+  public void nonIdempotentRequestsAreNotHedged() throws Exception {
+    HedgingAsyncClient<Void> client = hedging().delay(0, TimeUnit.MILLISECONDS).build(delegate);
+
+    CompletableFuture<Response> result = execute(client, HttpMethod.POST);
+    attempts.take().complete(response(200));
+
+    assertThat(result.get(5, TimeUnit.SECONDS).status()).isEqualTo(200);
+    assertThat(client.metrics().requests()).isZero();
+  }
+
+  @Test
+  public void cancellingTheResultCancelsAttempts() throws Exception {
+    HedgingAsyncClient<Void> client = withBudget(hedging().build(delegate));
+
+    CompletableFuture<Response> result = execute(client, HttpMethod.GET);
+    CompletableFuture<Response> original = attempts.take();
+    CompletableFuture<Response> hedge = attempts.poll(5, TimeUnit.SECONDS);
+    result.cancel(true);
+
+    assertThat(original).isCancelled();
+    // the hedge may not be registered yet, in which case it is cancelled once it is
+    hedge.handle((response, error) -> null).get(5, TimeUnit.SECONDS);
+    assertThat(hedge).isCancelled();
+  }
+
+  /**
+   * Earns the budget of a hedge with requests answered straight away.
+   */
+  private HedgingAsyncClient<Void> withBudget(HedgingAsyncClient<Void> client)
+      throws InterruptedException {
+    execute(client, HttpMethod.GET);
+    attempts.take().complete(response(200));
+    return client;
+  }
+
+  private static CompletableFuture<Response> execute(AsyncClient<Void> client,
+                                                     HttpMethod method) {
+    return client.execute(request(method), new Request.Options(), Optional.empty());
+  }
+
+  private static Request request(HttpMethod method) {
+    return Request.create(method, "http://localhost/a", Collections.emptyMap(), null, UTF_8,
+        null);
+  }
+
+  private static Response response(int status) {
+    return Response.builder()
+        .status(status)
+        .request(request(HttpMethod.GET))
+        .headers(Collections.emptyMap())
+        .build();
+  }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import static feign.Util.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import feign.AsyncClient;
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.RequestLine;
+import feign.Response;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class ConcurrencyLimitCapabilityTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final CountDownLatch sent = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final Client blocking = (request, options) -> {
+    sent.countDown();
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return response(request, 200);
+  };
+
+  interface Api {
+
+    @RequestLine("GET /")
+    String get();
+
+    @RequestLine("GET /other")
+    String other();
+  }
+
+  @After
+  public void shutdown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  private ConcurrencyLimitCapability.Builder limit() {
+    return ConcurrencyLimitCapability.builder().initialLimit(1).minLimit(1);
+  }
+
+  private Api api(ConcurrencyLimitCapability capability, String url) {
+    return Feign.builder()
+        .client(blocking)
+        .addCapability(capability)
+        .target(Api.class, url);
+  }
+
+  @Test
+  public void rejectsRequestsOverTheLimit() throws Exception {
+    ConcurrencyLimitCapability capability = limit().build();
+    Api api = api(capability, "http://localhost");
+
+    Future<String> first = executor.submit(api::get);
+    sent.await(5, TimeUnit.SECONDS);
+
+    assertThatThrownBy(api::get)
+        .isInstanceOf(ConcurrencyLimitExceededException.class)
+        .hasMessage("Concurrency limit of 1 reached for http://localhost");
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    assertThat(capability.metrics().rejected()).isEqualTo(1);
+    assertThat(capability.metrics().requests()).isEqualTo(1);
+    assertThat(capability.metrics().inFlight()).isZero();
+  }
+
+  @Test
+  public void waitsForAPermit() throws Exception {
+    ConcurrencyLimitCapability capability = limit().maxWait(5, TimeUnit.SECONDS).build();
+    Api api = api(capability, "http://localhost");
+
+    Future<String> first = executor.submit(api::get);
+    sent.await(5, TimeUnit.SECONDS);
+    Future<String> second = executor.submit(api::get);
+    release.countDown();
+
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    assertThat(capability.metrics().rejected()).isZero();
+  }
+
+  @Test
+  public void targetsHaveTheirOwnLimit() throws Exception {
+    ConcurrencyLimitCapability capability = limit().build();
+
+    executor.submit(api(capability, "http://localhost")::get);
+    sent.await(5, TimeUnit.SECONDS);
+    Future<String> other = executor.submit(api(capability, "http://otherhost")::get);
+    release.countDown();
+
+    other.get(5, TimeUnit.SECONDS);
+    assertThat(capability.metrics().limits()).containsOnlyKeys("http://localhost",
+        "http://otherhost");
+  }
+
+  @Test
+  public void methodsHaveTheirOwnLimitWhenConfigured() throws Exception {
+    ConcurrencyLimitCapability capability = limit().perMethod().build();
+    Api api = api(capability, "http://localhost");
+
+    executor.submit(api::get);
+    sent.await(5, TimeUnit.SECONDS);
+    Future<String> other = executor.submit(api::other);
+    release.countDown();
+
+    other.get(5, TimeUnit.SECONDS);
+    assertThat(capability.metrics().limits()).containsOnlyKeys("http://localhost Api#get()",
+        "http://localhost Api#other()");
+  }
+
+  @Test
+  public void asyncRequestsOverTheLimitFailImmediately() {
+    ConcurrencyLimitCapability capability = limit().build();
+    CompletableFuture<Response> pending = new CompletableFuture<>();
+    AsyncClient<Void> client = capability.enrich((AsyncClient<Void>) (request,
+                                                                      options,
+                                                                      context) -> pending);
+
+    CompletableFuture<Response> first = execute(client);
+    CompletableFuture<Response> second = execute(client);
+
+    assertThatThrownBy(second::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(ConcurrencyLimitExceededException.class);
+    pending.complete(response(request(), 200));
+    assertThat(first).isCompleted();
+    assertThat(capability.metrics().inFlight()).isZero();
+  }
+
+  private static CompletableFuture<Response> execute(AsyncClient<Void> client) {
+    return client.execute(request(), new Request.Options(), Optional.empty());
+  }
+
+  private static Request request() {
+    return Request.create(HttpMethod.GET, "http://localhost/", Collections.emptyMap(), null,
+        UTF_8, null);
+  }
+
+  private static Response response(Request request, int status) {
+    return Response.builder()
+        .status(status)
+        .request(request)
+        .headers(Collections.emptyMap())
+        .body("ok", UTF_8)
+        .build();
+  }
+}
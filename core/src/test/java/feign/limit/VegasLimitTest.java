@@ -0,0 +1,66 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class VegasLimitTest {
+
+  private final VegasLimit limit = new VegasLimit(20, 1, 100, 1000);
+
+  @Test
+  public void growsWhileResponsesStayFast() {
+    limit.onSample(10, 20, false);
+
+    assertThat(limit.onSample(10, 20, false)).isEqualTo(21);
+  }
+
+  @Test
+  public void shrinksWhenResponsesSlowDown() {
+    limit.onSample(10, 20, false);
+
+    assertThat(limit.onSample(20, 20, false)).isEqualTo(18);
+  }
+
+  @Test
+  public void shrinksOnDrops() {
+    limit.onSample(10, 20, false);
+
+    assertThat(limit.onSample(10, 20, true)).isEqualTo(18);
+  }
+
+  @Test
+  public void ignoresResponseTimesWhenFarBelowTheLimit() {
+    limit.onSample(10, 2, false);
+
+    assertThat(limit.onSample(100, 2, false)).isEqualTo(20);
+    assertThat(limit.onSample(10, 2, false)).isEqualTo(20);
+  }
+
+  @Test
+  public void staysWithinBounds() {
+    VegasLimit bounded = new VegasLimit(2, 1, 3, 1000);
+    bounded.onSample(10, 2, false);
+    for (int i = 0; i < 10; i++) {
+      bounded.onSample(10, 3, false);
+    }
+    assertThat(bounded.onSample(10, 3, false)).isEqualTo(3);
+
+    for (int i = 0; i < 10; i++) {
+      bounded.onSample(10, 3, true);
+    }
+    assertThat(bounded.onSample(10, 1, true)).isEqualTo(1);
+  }
+}
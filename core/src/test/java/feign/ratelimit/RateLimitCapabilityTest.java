@@ -0,0 +1,197 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import static feign.Util.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import feign.AsyncClient;
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.RequestLine;
+import feign.Response;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class RateLimitCapabilityTest {
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private Map<String, Collection<String>> headers = Collections.emptyMap();
+  private int status = 200;
+  private final AtomicInteger sent = new AtomicInteger();
+
+  private final Client client = (request, options) -> {
+    sent.incrementAndGet();
+    return Response.builder()
+        .status(status)
+        .request(request)
+        .headers(headers)
+        .body("ok", UTF_8)
+        .build();
+  };
+
+  interface Api {
+
+    @RequestLine("GET /")
+    String get();
+
+    @RequestLine("GET /search")
+    String search();
+  }
+
+  @After
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  private Api api(RateLimitCapability rateLimit) {
+    return Feign.builder()
+        .client(client)
+        .addCapability(rateLimit)
+        .target(Api.class, "http://localhost");
+  }
+
+  @Test
+  public void waitsForPermits() {
+    RateLimitCapability rateLimit = RateLimitCapability.builder().permitsPerSecond(20).build();
+    Api api = api(rateLimit);
+
+    long start = System.nanoTime();
+    api.get();
+    api.get();
+    api.get();
+
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS
+        .toNanos(90));
+    assertThat(rateLimit.metrics().requests()).isEqualTo(3);
+    assertThat(rateLimit.metrics().delayed()).isEqualTo(2);
+  }
+
+  @Test
+  public void rejectsRequestsWhichWouldWaitTooLong() {
+    RateLimitCapability rateLimit = RateLimitCapability.builder()
+        .permitsPerSecond(1)
+        .maxWait(0, TimeUnit.SECONDS)
+        .build();
+    Api api = api(rateLimit);
+
+    api.get();
+
+    assertThatThrownBy(api::get)
+        .isInstanceOf(RateLimitExceededException.class)
+        .hasMessage("Rate limit reached for http://localhost");
+    assertThat(rateLimit.metrics().rejected()).isEqualTo(1);
+  }
+
+  @Test
+  public void methodsCanHaveTheirOwnRate() {
+    RateLimitCapability rateLimit = RateLimitCapability.builder()
+        .permitsPerSecond("Api#search()", 1)
+        .maxWait(0, TimeUnit.SECONDS)
+        .build();
+    Api api = api(rateLimit);
+
+    api.search();
+    api.get();
+    api.get();
+
+    assertThatThrownBy(api::search)
+        .hasMessage("Rate limit reached for http://localhost Api#search()");
+  }
+
+  @Test
+  public void pausesAfterRetryAfter() {
+    RateLimitCapability rateLimit = RateLimitCapability.builder()
+        .permitsPerSecond(100)
+        .maxWait(1, TimeUnit.SECONDS)
+        .build();
+    Api api = api(rateLimit);
+    status = 429;
+    headers = header("Retry-After", "60");
+
+    // the retry waits on the client rather than going back to the server
+    assertThatThrownBy(api::get).isInstanceOf(RateLimitExceededException.class);
+    assertThat(sent).hasValue(1);
+    assertThat(rateLimit.metrics().throttled()).isEqualTo(1);
+  }
+
+  @Test
+  public void pausesWhenTheQuotaIsSpent() {
+    RateLimitCapability rateLimit = RateLimitCapability.builder()
+        .permitsPerSecond(100)
+        .maxWait(1, TimeUnit.SECONDS)
+        .build();
+    Api api = api(rateLimit);
+    headers = new LinkedHashMap<>();
+    headers.put("RateLimit-Remaining", Collections.singletonList("0"));
+    headers.put("RateLimit-Reset", Collections.singletonList("60"));
+
+    api.get();
+
+    assertThatThrownBy(api::get).isInstanceOf(RateLimitExceededException.class);
+  }
+
+  @Test
+  public void asyncRequestsAreScheduled() throws Exception {
+    RateLimitCapability rateLimit = RateLimitCapability.builder()
+        .permitsPerSecond(20)
+        .scheduler(scheduler)
+        .build();
+    AsyncClient<Void> asyncClient = rateLimit.enrich(new AsyncClient.Pseudo<Void>(client));
+
+    CompletableFuture<Response> first = execute(asyncClient);
+    CompletableFuture<Response> second = execute(asyncClient);
+
+    assertThat(first).isCompleted();
+    assertThat(second.get(5, TimeUnit.SECONDS).status()).isEqualTo(200);
+    assertThat(rateLimit.metrics().delayed()).isEqualTo(1);
+  }
+
+  @Test
+  public void cancelledAsyncRequestsAreNotSent() throws InterruptedException {
+    RateLimitCapability rateLimit = RateLimitCapability.builder()
+        .permitsPerSecond(20)
+        .scheduler(scheduler)
+        .build();
+    AsyncClient<Void> asyncClient = rateLimit.enrich(new AsyncClient.Pseudo<Void>(client));
+
+    execute(asyncClient);
+    CompletableFuture<Response> second = execute(asyncClient);
+    second.cancel(true);
+    Thread.sleep(100);
+
+    assertThat(sent).hasValue(1);
+  }
+
+  private static CompletableFuture<Response> execute(AsyncClient<Void> client) {
+    return client.execute(Request.create(HttpMethod.GET, "http://localhost/",
+        Collections.emptyMap(), null, UTF_8, null), new Request.Options(), Optional.empty());
+  }
+
+  private static Map<String, Collection<String>> header(String name, String value) {
+    return Collections.singletonMap(name, Collections.singletonList(value));
+  }
+}
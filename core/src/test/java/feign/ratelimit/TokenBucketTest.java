@@ -0,0 +1,73 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  public void burstThenSpacedByTheRate() {
+    TokenBucket bucket = new TokenBucket("api", 10, 2, 0);
+
+    assertThat(bucket.reserve(0, Long.MAX_VALUE)).isZero();
+    assertThat(bucket.reserve(0, Long.MAX_VALUE)).isZero();
+    assertThat(bucket.reserve(0, Long.MAX_VALUE)).isEqualTo(100 * MS);
+    assertThat(bucket.reserve(0, Long.MAX_VALUE)).isEqualTo(200 * MS);
+  }
+
+  @Test
+  public void rejectsWithoutReservingWhenTheWaitIsTooLong() {
+    TokenBucket bucket = new TokenBucket("api", 10, 1, 0);
+    bucket.reserve(0, Long.MAX_VALUE);
+
+    assertThat(bucket.reserve(0, 50 * MS)).isEqualTo(-1);
+    assertThat(bucket.reserve(0, Long.MAX_VALUE)).isEqualTo(100 * MS);
+  }
+
+  @Test
+  public void refillsWhileIdle() {
+    TokenBucket bucket = new TokenBucket("api", 10, 2, 0);
+    bucket.reserve(0, Long.MAX_VALUE);
+    bucket.reserve(0, Long.MAX_VALUE);
+
+    assertThat(bucket.reserve(1000 * MS, Long.MAX_VALUE)).isZero();
+    assertThat(bucket.reserve(1000 * MS, Long.MAX_VALUE)).isZero();
+  }
+
+  @Test
+  public void pauses() {
+    TokenBucket bucket = new TokenBucket("api", 10, 1, 0);
+
+    bucket.pauseUntil(5000 * MS);
+
+    assertThat(bucket.reserve(0, Long.MAX_VALUE)).isEqualTo(5000 * MS);
+  }
+
+  @Test
+  public void slowsDownUntilTheEndOfTheWindow() {
+    TokenBucket bucket = new TokenBucket("api", 10, 1, 0);
+
+    bucket.slowDown(1000 * MS, 2000 * MS);
+
+    assertThat(bucket.reserve(0, Long.MAX_VALUE)).isZero();
+    assertThat(bucket.reserve(0, Long.MAX_VALUE)).isEqualTo(1000 * MS);
+    assertThat(bucket.reserve(3000 * MS, Long.MAX_VALUE)).isZero();
+    assertThat(bucket.reserve(3000 * MS, Long.MAX_VALUE)).isEqualTo(100 * MS);
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.retry;
+
+import static feign.Util.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import feign.Feign;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.RequestLine;
+import feign.RetryableException;
+import feign.Retryer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class RetryBudgetTest {
+
+  @Rule
+  public final MockWebServer server = new MockWebServer();
+
+  private static final RetryableException FAILURE = new RetryableException(503, "unavailable",
+      HttpMethod.GET, null, Request.create(HttpMethod.GET, "http://localhost/",
+          Collections.emptyMap(), null, UTF_8, null));
+
+  /**
+   * Retries any number of times without sleeping.
+   */
+  private static final Retryer ALWAYS = new Retryer() {
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {}
+
+    @Override
+    public Retryer clone() {
+      return this;
+    }
+  };
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private RetryBudget.Builder budget() {
+    return RetryBudget.builder().minRetriesPerSecond(0).nanoTime(nanos::get);
+  }
+
+  @Test
+  public void retriesAreLimitedToTheRatioOfCalls() {
+    RetryBudget budget = budget().ratio(0.5).build();
+    Retryer retryer = budget.retryer(ALWAYS);
+    for (int i = 0; i < 9; i++) {
+      retryer.clone();
+    }
+    Retryer call = retryer.clone();
+
+    for (int i = 0; i < 5; i++) {
+      call.continueOrPropagate(FAILURE);
+    }
+    assertThatThrownBy(() -> call.continueOrPropagate(FAILURE)).isSameAs(FAILURE);
+    assertThat(budget.metrics().requests()).isEqualTo(10);
+    assertThat(budget.metrics().retries()).isEqualTo(5);
+    assertThat(budget.metrics().exhausted()).isEqualTo(1);
+  }
+
+  @Test
+  public void minimumRateAllowsRetriesWithFewCalls() {
+    RetryBudget budget = budget().ratio(0).minRetriesPerSecond(1)
+        .window(3, TimeUnit.SECONDS).build();
+    Retryer call = budget.retryer(ALWAYS).clone();
+
+    for (int i = 0; i < 3; i++) {
+      call.continueOrPropagate(FAILURE);
+    }
+    assertThatThrownBy(() -> call.continueOrPropagate(FAILURE)).isSameAs(FAILURE);
+  }
+
+  @Test
+  public void oldCallsAreForgotten() {
+    RetryBudget budget = budget().ratio(1).window(10, TimeUnit.SECONDS).build();
+    Retryer retryer = budget.retryer(ALWAYS);
+    for (int i = 0; i < 10; i++) {
+      retryer.clone();
+    }
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+    Retryer call = retryer.clone();
+
+    call.continueOrPropagate(FAILURE);
+    assertThatThrownBy(() -> call.continueOrPropagate(FAILURE)).isSameAs(FAILURE);
+  }
+
+  @Test
+  public void retriesRefusedByTheDelegateDoNotSpendTheBudget() {
+    RetryBudget budget = budget().ratio(1).build();
+    Retryer call = budget.retryer(Retryer.NEVER_RETRY).clone();
+
+    assertThatThrownBy(() -> call.continueOrPropagate(FAILURE)).isSameAs(FAILURE);
+    assertThat(budget.metrics().retries()).isZero();
+    assertThat(budget.metrics().exhausted()).isZero();
+  }
+
+  @Test
+  public void concurrentFailuresCannotOverspendTheBudget() throws Exception {
+    RetryBudget budget = budget().ratio(0).minRetriesPerSecond(0.5)
+        .window(10, TimeUnit.SECONDS).build();
+    CountDownLatch backoff = new CountDownLatch(1);
+    CountDownLatch refusals = new CountDownLatch(15);
+    // backs off until released, as Retryer.Default sleeps, while the other calls fail
+    Retryer slow = new Retryer() {
+
+      @Override
+      public void continueOrPropagate(RetryableException e) {
+        try {
+          backoff.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override
+      public Retryer clone() {
+        return this;
+      }
+    };
+    Retryer retryer = budget.retryer(slow);
+    ExecutorService executor = Executors.newFixedThreadPool(20);
+    try {
+      List<Future<Boolean>> calls = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        Retryer call = retryer.clone();
+        calls.add(executor.submit(() -> {
+          try {
+            call.continueOrPropagate(FAILURE);
+            return true;
+          } catch (RetryableException e) {
+            refusals.countDown();
+            return false;
+          }
+        }));
+      }
+      // without reserving, every call would pass the check and back off
+      assertThat(refusals.await(5, TimeUnit.SECONDS)).isTrue();
+      backoff.countDown();
+      int retried = 0;
+      for (Future<Boolean> call : calls) {
+        retried += call.get(10, TimeUnit.SECONDS) ? 1 : 0;
+      }
+      assertThat(retried).isEqualTo(5);
+      assertThat(budget.metrics().retries()).isEqualTo(5);
+      assertThat(budget.metrics().exhausted()).isEqualTo(15);
+    } finally {
+      backoff.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  interface Api {
+
+    @RequestLine("GET /")
+    String get();
+  }
+
+  @Test
+  public void exhaustedBudgetPropagatesTheFirstFailure() {
+    server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "0"));
+    RetryBudget budget = RetryBudget.builder().ratio(0).minRetriesPerSecond(0).build();
+    Api api = Feign.builder()
+        .retryer(budget.retryer(new Retryer.Default()))
+        .target(Api.class, "http://localhost:" + server.getPort());
+
+    assertThatThrownBy(api::get).isInstanceOf(RetryableException.class);
+    assertThat(server.getRequestCount()).isEqualTo(1);
+    assertThat(budget.metrics().exhausted()).isEqualTo(1);
+  }
+}
@@ -26,7 +26,9 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.Spliterator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -101,6 +103,55 @@ public class StreamDecoderTest {
     }
   }
 
+  @Test
+  public void streamIsOrdered() throws IOException {
+    StreamDecoder decoder = StreamDecoder.create((r, t) -> Arrays.asList("a", "b").iterator());
+
+    try (Stream<?> stream = (Stream) decoder.decode(response(),
+        new TypeReference<Stream<String>>() {}.getType())) {
+      assertThat(stream.spliterator().hasCharacteristics(Spliterator.ORDERED)).isTrue();
+    }
+  }
+
+  @Test
+  public void batchingSplitsFixedSizeBatches() throws IOException {
+    StreamDecoder decoder = StreamDecoder.create(
+        (r, t) -> IntStream.range(0, 5).boxed().iterator(), 2);
+
+    try (Stream<?> stream = (Stream) decoder.decode(response(),
+        new TypeReference<Stream<Integer>>() {}.getType())) {
+      Spliterator<?> spliterator = stream.spliterator();
+      Spliterator<?> batch = spliterator.trySplit();
+      assertThat(batch.hasCharacteristics(Spliterator.ORDERED)).isTrue();
+      assertThat(batch.getExactSizeIfKnown()).isEqualTo(2);
+      assertThat(spliterator.trySplit().getExactSizeIfKnown()).isEqualTo(2);
+      assertThat(spliterator.trySplit().getExactSizeIfKnown()).isEqualTo(1);
+      assertThat(spliterator.trySplit()).isNull();
+    }
+  }
+
+  @Test
+  public void batchingKeepsEncounterOrderInParallel() throws IOException {
+    StreamDecoder decoder = StreamDecoder.create(
+        (r, t) -> IntStream.range(0, 1000).boxed().iterator(), 16);
+
+    try (Stream<?> stream = (Stream) decoder.decode(response(),
+        new TypeReference<Stream<Integer>>() {}.getType())) {
+      assertThat(stream.parallel().collect(Collectors.toList()))
+          .isEqualTo(IntStream.range(0, 1000).boxed().collect(Collectors.toList()));
+    }
+  }
+
+  private static Response response() {
+    return Response.builder()
+        .status(200)
+        .reason("OK")
+        .headers(Collections.emptyMap())
+        .request(Request.create(HttpMethod.GET, "/api", Collections.emptyMap(), null, Util.UTF_8))
+        .body("", UTF_8)
+        .build();
+  }
+
   static class TestCloseableIterator implements Iterator<String>, Closeable {
     boolean called;
     boolean closed;
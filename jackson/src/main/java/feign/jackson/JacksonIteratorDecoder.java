@@ -20,16 +20,20 @@ import com.fasterxml.jackson.databind.*;
 import feign.Response;
 import feign.codec.DecodeException;
 import feign.codec.Decoder;
-import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.Reader;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.NoSuchElementException;
-import static feign.Util.UTF_8;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import static feign.Util.ensureClosed;
 
 /**
@@ -38,6 +42,11 @@ import static feign.Util.ensureClosed;
  * not fetched till the end, it has to be casted to {@code Closeable} and explicity
  * {@code Closeable#close} by the consumer.
  * <p>
+ * The body is either a json array, whose elements are returned one by one, or a sequence of json
+ * values such as newline delimited json. Responses with a {@code application/x-ndjson},
+ * {@code application/ndjson} or {@code application/jsonl} content type are always read as a
+ * sequence of values, so that each line may itself be an array.
+ * <p>
  * <p>
  * <p>
  * Example: <br>
@@ -56,7 +65,12 @@ import static feign.Util.ensureClosed;
  */
 public final class JacksonIteratorDecoder implements Decoder {
 
+  private static final Set<String> LINE_DELIMITED_TYPES = new HashSet<>(Arrays.asList(
+      "application/x-ndjson", "application/ndjson", "application/jsonl",
+      "application/x-jsonlines"));
+
   private final ObjectMapper mapper;
+  private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
 
   JacksonIteratorDecoder(ObjectMapper mapper) {
     this.mapper = mapper;
@@ -66,25 +80,43 @@ public final class JacksonIteratorDecoder implements Decoder {
   public Object decode(Response response, Type type) throws IOException {
     if (response.body() == null)
       return null;
-    Reader reader = response.body().asReader(UTF_8);
-    if (!reader.markSupported()) {
-      reader = new BufferedReader(reader, 1);
-    }
+    // parse the bytes directly, letting jackson detect the encoding and buffer the stream
+    JsonParser parser = mapper.getFactory().createParser(response.body().asInputStream());
     try {
-      // Read the first byte to see if we have any data
-      reader.mark(1);
-      if (reader.read() == -1) {
+      // Read the first token to see if we have any data
+      if (parser.nextToken() == null) {
+        ensureClosed(response);
         return null; // Eagerly returning null avoids "No content to map due to end-of-input"
       }
-      reader.reset();
-      return new JacksonIterator<Object>(actualIteratorTypeArgument(type), mapper, response,
-          reader);
-    } catch (RuntimeJsonMappingException e) {
-      if (e.getCause() != null && e.getCause() instanceof IOException) {
-        throw IOException.class.cast(e.getCause());
-      }
+    } catch (IOException e) {
+      ensureClosed(response);
       throw e;
     }
+    return new JacksonIterator<Object>(reader(actualIteratorTypeArgument(type)), response, parser,
+        isLineDelimited(response));
+  }
+
+  private ObjectReader reader(Type type) {
+    ObjectReader reader = readers.get(type);
+    if (reader == null) {
+      reader = readers.computeIfAbsent(type, t -> mapper.readerFor(mapper.constructType(t)));
+    }
+    return reader;
+  }
+
+  private static boolean isLineDelimited(Response response) {
+    Collection<String> contentTypes = response.headers().get("Content-Type");
+    if (contentTypes == null) {
+      return false;
+    }
+    for (String contentType : contentTypes) {
+      int parameters = contentType.indexOf(';');
+      String mediaType = parameters == -1 ? contentType : contentType.substring(0, parameters);
+      if (LINE_DELIMITED_TYPES.contains(mediaType.trim().toLowerCase(Locale.ROOT))) {
+        return true;
+      }
+    }
+    return false;
   }
 
   private static Type actualIteratorTypeArgument(Type type) {
@@ -117,14 +149,18 @@ public final class JacksonIteratorDecoder implements Decoder {
     private final Response response;
     private final JsonParser parser;
     private final ObjectReader objectReader;
+    private final boolean lineDelimited;
 
+    private boolean started;
+    private boolean inArray;
     private T current;
 
-    JacksonIterator(Type type, ObjectMapper mapper, Response response, Reader reader)
-        throws IOException {
+    JacksonIterator(ObjectReader objectReader, Response response, JsonParser parser,
+        boolean lineDelimited) {
       this.response = response;
-      this.parser = mapper.getFactory().createParser(reader);
-      this.objectReader = mapper.reader().forType(mapper.constructType(type));
+      this.parser = parser;
+      this.objectReader = objectReader;
+      this.lineDelimited = lineDelimited;
     }
 
     @Override
@@ -137,16 +173,20 @@ public final class JacksonIteratorDecoder implements Decoder {
 
     private T readNext() {
       try {
-        JsonToken jsonToken = parser.nextToken();
-        if (jsonToken == null) {
-          return null;
-        }
-
-        if (jsonToken == JsonToken.START_ARRAY) {
+        JsonToken jsonToken;
+        if (!started) {
+          started = true;
+          // the decoder may already have read the first token
+          jsonToken = parser.hasCurrentToken() ? parser.getCurrentToken() : parser.nextToken();
+          if (jsonToken == JsonToken.START_ARRAY && !lineDelimited) {
+            inArray = true;
+            jsonToken = parser.nextToken();
+          }
+        } else {
           jsonToken = parser.nextToken();
         }
 
-        if (jsonToken == JsonToken.END_ARRAY) {
+        if (jsonToken == null || (inArray && jsonToken == JsonToken.END_ARRAY)) {
           ensureClosed(this);
           return null;
         }
@@ -13,6 +13,7 @@
  */
 package feign.jackson;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import feign.Request;
 import feign.Request.HttpMethod;
@@ -26,8 +27,12 @@ import org.junit.rules.ExpectedException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import static feign.Util.UTF_8;
@@ -35,7 +40,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.hamcrest.core.Is.isA;
 
-@SuppressWarnings("deprecation")
+@SuppressWarnings({"deprecation", "unchecked"})
 public class JacksonIteratorTest {
 
   @Rule
@@ -153,6 +158,62 @@ public class JacksonIteratorTest {
     }
   }
 
+  @Test
+  public void shouldDecodeNestedArrays() throws IOException {
+    assertThat(iterator(int[].class, "[[0,1],[2]]")).containsExactly(new int[] {0, 1},
+        new int[] {2});
+  }
+
+  @Test
+  public void shouldDecodeSequenceOfValues() throws IOException {
+    assertThat(iterator(User.class, "{\"login\":\"bob\"}\n{\"login\":\"joe\"}\n"))
+        .containsExactly(new User("bob"), new User("joe"));
+  }
+
+  @Test
+  public void lineDelimitedArraysAreSingleElements() throws IOException {
+    Response response = response("[0,1]\n[2]\n", "application/x-ndjson; charset=UTF-8");
+
+    Iterator<Object> iterator = (Iterator<Object>) JacksonIteratorDecoder.create()
+        .decode(response, new TypeReference<Iterator<List<Integer>>>() {}.getType());
+
+    assertThat(iterator).containsExactly(Arrays.asList(0, 1), Collections.singletonList(2));
+  }
+
+  @Test
+  public void decoderReusesReaderAcrossResponses() throws IOException {
+    JacksonIteratorDecoder decoder = JacksonIteratorDecoder.create();
+    Type type = new TypeReference<Iterator<User>>() {}.getType();
+
+    assertThat((Iterator<Object>) decoder.decode(response("[{\"login\":\"bob\"}]", "application/json"),
+        type)).containsExactly(new User("bob"));
+    assertThat((Iterator<Object>) decoder.decode(response("[{\"login\":\"joe\"}]", "application/json"),
+        type)).containsExactly(new User("joe"));
+  }
+
+  @Test
+  public void decoderReturnsNullAndClosesEmptyBody() throws IOException {
+    final AtomicBoolean closed = new AtomicBoolean();
+    InputStream inputStream = new ByteArrayInputStream(new byte[0]) {
+      @Override
+      public void close() throws IOException {
+        closed.set(true);
+        super.close();
+      }
+    };
+    Response response = Response.builder()
+        .status(200)
+        .reason("OK")
+        .request(Request.create(HttpMethod.GET, "/api", Collections.emptyMap(), null, Util.UTF_8))
+        .headers(Collections.emptyMap())
+        .body(inputStream, 0)
+        .build();
+
+    assertThat(JacksonIteratorDecoder.create().decode(response,
+        new TypeReference<Iterator<User>>() {}.getType())).isNull();
+    assertThat(closed.get()).isTrue();
+  }
+
   static class User extends LinkedHashMap<String, Object> {
 
     private static final long serialVersionUID = 1L;
@@ -178,8 +239,19 @@ public class JacksonIteratorTest {
   }
 
   <T> JacksonIterator<T> iterator(Class<T> type, Response response) throws IOException {
-    return new JacksonIterator<T>(type.getGenericSuperclass(), new ObjectMapper(),
-        response, response.body().asReader());
+    ObjectMapper mapper = new ObjectMapper();
+    return new JacksonIterator<T>(mapper.readerFor(type), response,
+        mapper.getFactory().createParser(response.body().asInputStream()), false);
+  }
+
+  Response response(String json, String contentType) {
+    return Response.builder()
+        .status(200)
+        .reason("OK")
+        .request(Request.create(HttpMethod.GET, "/api", Collections.emptyMap(), null, Util.UTF_8))
+        .headers(Collections.singletonMap("Content-Type", Collections.singletonList(contentType)))
+        .body(json, UTF_8)
+        .build();
   }
 
 }
@@ -27,12 +27,13 @@ import java.net.http.HttpRequest.Builder;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import feign.*;
 import feign.Request.Options;
 
-public class Http2Client implements Client {
+public class Http2Client implements Client, AsyncClient<Object> {
 
   private final HttpClient client;
 
@@ -58,9 +59,38 @@ public class Http2Client implements Client {
       throw new IOException("Invalid uri " + request.url(), e);
     }
 
+    return toFeignResponse(request, httpResponse);
+  }
+
+  @Override
+  public CompletableFuture<Response> execute(Request request,
+                                             Options options,
+                                             Optional<Object> requestContext) {
+    final HttpRequest httpRequest;
+    try {
+      httpRequest = newRequestBuilder(request).build();
+    } catch (final IOException e) {
+      final CompletableFuture<Response> result = new CompletableFuture<>();
+      result.completeExceptionally(e);
+      return result;
+    }
+
+    final CompletableFuture<HttpResponse<byte[]>> future =
+        client.sendAsync(httpRequest, BodyHandlers.ofByteArray());
+    final CompletableFuture<Response> result =
+        future.thenApply(httpResponse -> toFeignResponse(request, httpResponse));
+    result.whenComplete((response, throwable) -> {
+      if (result.isCancelled()) {
+        future.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  private Response toFeignResponse(Request request, HttpResponse<byte[]> httpResponse) {
     final OptionalLong length = httpResponse.headers().firstValueAsLong("Content-Length");
 
-    final Response response = Response.builder()
+    return Response.builder()
         .body(new ByteArrayInputStream(httpResponse.body()),
             length.isPresent() ? (int) length.getAsLong() : null)
         .reason(httpResponse.headers().firstValue("Reason-Phrase").orElse("OK"))
@@ -68,7 +98,6 @@ public class Http2Client implements Client {
         .status(httpResponse.statusCode())
         .headers(castMapCollectType(httpResponse.headers().map()))
         .build();
-    return response;
   }
 
   private Builder newRequestBuilder(Request request) throws IOException {
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("feign.Execute")
+@Label("Feign Execute")
+@Description("A request sent by a client, until its response headers arrived")
+final class ExecuteEvent extends FeignEvent {
+
+  @Label("Method")
+  String method;
+
+  @Label("URL")
+  String url;
+
+  @Label("Status")
+  int status;
+
+  @Label("Request Bytes")
+  @DataAmount
+  long requestBytes;
+
+  @Label("Response Bytes")
+  @Description("-1 when not known before the body is read")
+  @DataAmount
+  long responseBytes;
+
+  @Label("Failure")
+  String failure;
+}
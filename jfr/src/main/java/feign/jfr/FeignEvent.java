@@ -0,0 +1,58 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Target;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Fields shared by the events of a call. They are only filled in when the event is committed.
+ */
+@Category("Feign")
+@StackTrace(false)
+abstract class FeignEvent extends Event {
+
+  @Label("Config Key")
+  String configKey;
+
+  @Label("Target")
+  String target;
+
+  /**
+   * Ends the event, and commits it unless it is disabled or below its threshold.
+   */
+  void commit(RequestTemplate template) {
+    end();
+    if (!shouldCommit()) {
+      return;
+    }
+    if (template != null) {
+      MethodMetadata metadata = template.methodMetadata();
+      configKey = metadata != null ? metadata.configKey() : null;
+      Target<?> feignTarget = template.feignTarget();
+      target = feignTarget != null ? feignTarget.name() : null;
+    }
+    commit();
+  }
+
+  static RequestTemplate template(Request request) {
+    return request != null ? request.requestTemplate() : null;
+  }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.AsyncClient;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+final class JfrAsyncClient<C> implements AsyncClient<C> {
+
+  private final AsyncClient<C> delegate;
+
+  JfrAsyncClient(AsyncClient<C> delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public CompletableFuture<Response> execute(Request request,
+                                             Options options,
+                                             Optional<C> requestContext) {
+    ExecuteEvent event = new ExecuteEvent();
+    if (!event.isEnabled()) {
+      return delegate.execute(request, options, requestContext);
+    }
+    event.begin();
+    CompletableFuture<Response> response;
+    try {
+      response = delegate.execute(request, options, requestContext);
+    } catch (RuntimeException e) {
+      event.failure = e.getClass().getName();
+      event.commit(FeignEvent.template(request));
+      throw e;
+    }
+    // the event ends with the response, on the thread completing it
+    response.whenComplete((r, error) -> {
+      if (r != null) {
+        JfrClient.describe(event, request, r);
+      } else {
+        event.failure = error.getClass().getName();
+      }
+      event.commit(FeignEvent.template(request));
+    });
+    return response;
+  }
+}
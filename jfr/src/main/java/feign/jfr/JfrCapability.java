@@ -0,0 +1,77 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.AsyncClient;
+import feign.Capability;
+import feign.Client;
+import feign.RequestInterceptor;
+import feign.Retryer;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+import feign.codec.ErrorDecoder;
+
+/**
+ * Records a Java Flight Recorder event for each stage of a call: interceptors, encoding, the
+ * request itself, decoding, error decoding and retries. Each event carries the config key of the
+ * method and the name of its target. Ex.
+ *
+ * <pre>
+ * GitHub github = Feign.builder()
+ *     .addCapability(new JfrCapability())
+ *     .target(GitHub.class, "https://api.github.com");
+ * </pre>
+ *
+ * Events are in the {@code Feign} category, named {@code feign.Execute}, {@code feign.Decode} and
+ * so on. While they are disabled, each stage only pays for a check that they are.
+ */
+public class JfrCapability implements Capability {
+
+  @Override
+  public Client enrich(Client client) {
+    return new JfrClient(client);
+  }
+
+  /**
+   * Wraps an {@link AsyncClient}, for use with {@link feign.AsyncFeign.AsyncBuilder#client}.
+   */
+  public <C> AsyncClient<C> enrich(AsyncClient<C> client) {
+    return new JfrAsyncClient<>(client);
+  }
+
+  @Override
+  public RequestInterceptor enrich(RequestInterceptor requestInterceptor) {
+    return new JfrRequestInterceptor(requestInterceptor);
+  }
+
+  @Override
+  public Encoder enrich(Encoder encoder) {
+    return new JfrEncoder(encoder);
+  }
+
+  @Override
+  public Decoder enrich(Decoder decoder) {
+    return new JfrDecoder(decoder);
+  }
+
+  @Override
+  public ErrorDecoder enrich(ErrorDecoder errorDecoder) {
+    return new JfrErrorDecoder(errorDecoder);
+  }
+
+  @Override
+  public Retryer enrich(Retryer retryer) {
+    return new JfrRetryer(retryer);
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+
+final class JfrClient implements Client {
+
+  private final Client delegate;
+
+  JfrClient(Client delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Response execute(Request request, Options options) throws IOException {
+    ExecuteEvent event = new ExecuteEvent();
+    if (!event.isEnabled()) {
+      return delegate.execute(request, options);
+    }
+    event.begin();
+    try {
+      Response response = delegate.execute(request, options);
+      describe(event, request, response);
+      return response;
+    } catch (IOException | RuntimeException e) {
+      event.failure = e.getClass().getName();
+      throw e;
+    } finally {
+      event.commit(FeignEvent.template(request));
+    }
+  }
+
+  static void describe(ExecuteEvent event, Request request, Response response) {
+    event.method = request.httpMethod().name();
+    event.url = request.url();
+    event.requestBytes = request.body() != null ? request.body().length : 0;
+    event.status = response.status();
+    Integer length = response.body() != null ? response.body().length() : Integer.valueOf(0);
+    event.responseBytes = length != null ? length : -1;
+  }
+}
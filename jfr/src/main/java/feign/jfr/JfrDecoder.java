@@ -0,0 +1,47 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.FeignException;
+import feign.Response;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+final class JfrDecoder implements Decoder {
+
+  private final Decoder delegate;
+
+  JfrDecoder(Decoder delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Object decode(Response response, Type type)
+      throws IOException, DecodeException, FeignException {
+    DecodeEvent event = new DecodeEvent();
+    if (!event.isEnabled()) {
+      return delegate.decode(response, type);
+    }
+    event.begin();
+    try {
+      return delegate.decode(response, type);
+    } finally {
+      event.type = type.getTypeName();
+      event.status = response.status();
+      event.commit(FeignEvent.template(response.request()));
+    }
+  }
+}
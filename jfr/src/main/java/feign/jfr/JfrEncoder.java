@@ -0,0 +1,46 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+import java.lang.reflect.Type;
+
+final class JfrEncoder implements Encoder {
+
+  private final Encoder delegate;
+
+  JfrEncoder(Encoder delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void encode(Object object, Type bodyType, RequestTemplate template)
+      throws EncodeException {
+    EncodeEvent event = new EncodeEvent();
+    if (!event.isEnabled()) {
+      delegate.encode(object, bodyType, template);
+      return;
+    }
+    event.begin();
+    try {
+      delegate.encode(object, bodyType, template);
+    } finally {
+      event.bodyType = bodyType.getTypeName();
+      event.bodyBytes = template.body() != null ? template.body().length : 0;
+      event.commit(template);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.Response;
+import feign.codec.ErrorDecoder;
+
+final class JfrErrorDecoder implements ErrorDecoder {
+
+  private final ErrorDecoder delegate;
+
+  JfrErrorDecoder(ErrorDecoder delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Exception decode(String methodKey, Response response) {
+    ErrorDecodeEvent event = new ErrorDecodeEvent();
+    if (!event.isEnabled()) {
+      return delegate.decode(methodKey, response);
+    }
+    event.begin();
+    Exception exception = null;
+    try {
+      exception = delegate.decode(methodKey, response);
+      return exception;
+    } finally {
+      event.status = response.status();
+      event.exception = exception != null ? exception.getClass().getName() : null;
+      event.commit(FeignEvent.template(response.request()));
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+final class JfrRequestInterceptor implements RequestInterceptor {
+
+  private final RequestInterceptor delegate;
+
+  JfrRequestInterceptor(RequestInterceptor delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void apply(RequestTemplate template) {
+    InterceptEvent event = new InterceptEvent();
+    if (!event.isEnabled()) {
+      delegate.apply(template);
+      return;
+    }
+    event.begin();
+    try {
+      delegate.apply(template);
+    } finally {
+      event.interceptor = delegate.getClass().getName();
+      event.commit(template);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import feign.RetryableException;
+import feign.Retryer;
+
+final class JfrRetryer implements Retryer {
+
+  private final Retryer delegate;
+  private int attempt = 1;
+
+  JfrRetryer(Retryer delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void continueOrPropagate(RetryableException e) {
+    RetryEvent event = new RetryEvent();
+    if (!event.isEnabled()) {
+      delegate.continueOrPropagate(e);
+      return;
+    }
+    event.begin();
+    boolean propagated = true;
+    try {
+      delegate.continueOrPropagate(e);
+      propagated = false;
+    } finally {
+      event.attempt = attempt++;
+      event.status = e.status();
+      event.cause = e.getClass().getName();
+      event.propagated = propagated;
+      event.commit(FeignEvent.template(e.request()));
+    }
+  }
+
+  @Override
+  public Retryer clone() {
+    // retryers are cloned for every call
+    return new JfrRetryer(delegate.clone());
+  }
+}
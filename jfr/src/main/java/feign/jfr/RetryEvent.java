@@ -0,0 +1,37 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("feign.Retry")
+@Label("Feign Retry")
+@Description("A retryer deciding on a failed attempt, its backoff included")
+final class RetryEvent extends FeignEvent {
+
+  @Label("Attempt")
+  int attempt;
+
+  @Label("Status")
+  int status;
+
+  @Label("Cause")
+  String cause;
+
+  @Label("Propagated")
+  @Description("Whether the retryer gave up")
+  boolean propagated;
+}
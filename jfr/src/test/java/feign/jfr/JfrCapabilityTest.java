@@ -0,0 +1,178 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import feign.AsyncClient;
+import feign.AsyncFeign;
+import feign.Body;
+import feign.Client;
+import feign.Feign;
+import feign.RequestLine;
+import feign.RetryableException;
+import feign.Retryer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class JfrCapabilityTest {
+
+  @Rule
+  public final MockWebServer server = new MockWebServer();
+
+  private final Recording recording = new Recording();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  interface Api {
+
+    @RequestLine("POST /")
+    @Body("hello")
+    String post();
+  }
+
+  interface AsyncApi {
+
+    @RequestLine("GET /")
+    CompletableFuture<String> get();
+  }
+
+  @After
+  public void close() {
+    recording.close();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void recordsEachStage() throws Exception {
+    server.enqueue(new MockResponse().setBody("world"));
+    Api api = Feign.builder()
+        .addCapability(new JfrCapability())
+        .requestInterceptor(template -> template.header("X-Test", "true"))
+        .target(Api.class, url());
+
+    List<RecordedEvent> events = record(api::post);
+
+    assertThat(names(events))
+        .containsExactly("feign.Intercept", "feign.Execute", "feign.Decode");
+    RecordedEvent execute = events.get(1);
+    assertThat(execute.getString("configKey")).isEqualTo("Api#post()");
+    assertThat(execute.getString("target")).isEqualTo(url());
+    assertThat(execute.getString("method")).isEqualTo("POST");
+    assertThat(execute.getInt("status")).isEqualTo(200);
+    assertThat(execute.getLong("requestBytes")).isEqualTo(5);
+    assertThat(execute.getLong("responseBytes")).isEqualTo(5);
+    assertThat(events.get(2).getString("type")).isEqualTo("java.lang.String");
+  }
+
+  @Test
+  public void recordsErrorDecodingAndRetries() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "0"));
+    Api api = Feign.builder()
+        .addCapability(new JfrCapability())
+        .retryer(new Retryer.Default(1, 1, 1))
+        .target(Api.class, url());
+
+    List<RecordedEvent> events = record(() -> {
+      assertThatThrownBy(api::post).isInstanceOf(RetryableException.class);
+      return null;
+    });
+
+    assertThat(names(events))
+        .containsExactly("feign.Execute", "feign.ErrorDecode", "feign.Retry");
+    assertThat(events.get(1).getString("exception")).endsWith("RetryableException");
+    RecordedEvent retry = events.get(2);
+    assertThat(retry.getInt("attempt")).isEqualTo(1);
+    assertThat(retry.getInt("status")).isEqualTo(503);
+    assertThat(retry.getBoolean("propagated")).isTrue();
+    assertThat(retry.getString("configKey")).isEqualTo("Api#post()");
+  }
+
+  @Test
+  public void recordsAsynchronousRequests() throws Exception {
+    server.enqueue(new MockResponse().setBody("world"));
+    JfrCapability capability = new JfrCapability();
+    AsyncApi api = AsyncFeign.<Void>asyncBuilder()
+        .addCapability(capability)
+        .client(capability.enrich(new AsyncClient.Default<>(new Client.Default(null, null),
+            executor)))
+        .target(AsyncApi.class, url());
+
+    List<RecordedEvent> events = record(() -> api.get().join());
+
+    assertThat(names(events)).containsExactly("feign.Execute", "feign.Decode");
+    assertThat(events.get(0).getString("configKey")).isEqualTo("AsyncApi#get()");
+  }
+
+  @Test
+  public void recordsOnlyEnabledEvents() throws Exception {
+    server.enqueue(new MockResponse().setBody("world"));
+    Api api = Feign.builder()
+        .addCapability(new JfrCapability())
+        .target(Api.class, url());
+
+    List<RecordedEvent> events = record(() -> {
+      recording.disable("feign.Execute");
+      return api.post();
+    });
+
+    assertThat(names(events)).containsExactly("feign.Decode");
+  }
+
+  private List<RecordedEvent> record(Callable<?> call) throws Exception {
+    for (String name : new String[] {"feign.Intercept", "feign.Encode", "feign.Execute",
+        "feign.Decode", "feign.ErrorDecode", "feign.Retry"}) {
+      recording.enable(name).withoutThreshold();
+    }
+    recording.start();
+    call.call();
+    recording.stop();
+    return read();
+  }
+
+  private List<RecordedEvent> read() throws Exception {
+    Path file = Files.createTempFile("feign", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().startsWith("feign."))
+          .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+          .collect(Collectors.toList());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static List<String> names(List<RecordedEvent> events) {
+    return events.stream().map(event -> event.getEventType().getName())
+        .collect(Collectors.toList());
+  }
+
+  private String url() {
+    return "http://localhost:" + server.getPort();
+  }
+}
@@ -0,0 +1,266 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import static feign.Util.checkArgument;
+import static feign.Util.checkNotNull;
+
+/**
+ * Chooses a {@link Server} for each request using the power of two choices: two servers are picked
+ * at random and the one with the lower latency, weighted by its requests in flight, is used. This
+ * avoids both herding on a single "best" server and the cost of comparing every server.
+ *
+ * <p>
+ * A server is ejected for {@link Builder#ejectionTime(long, TimeUnit) a while} after
+ * {@link Builder#consecutiveFailures(int) too many consecutive failures}, unless that would eject
+ * more than {@link Builder#maxEjectionPercent(int) a share} of the servers. When every server is
+ * ejected, they are all considered anyway.
+ * </p>
+ *
+ * <p>
+ * The server list is read from a supplier before each choice. Return the same collection instance
+ * while the list is unchanged, the servers are only rebuilt when it changes. Statistics are kept
+ * for servers which remain in the list.
+ * </p>
+ *
+ * <pre>
+ * LoadBalancer loadBalancer = LoadBalancer.builder()
+ *     .servers("10.0.0.1:8080", "10.0.0.2:8080")
+ *     .build();
+ * </pre>
+ */
+public final class LoadBalancer {
+
+  private final Supplier<? extends Collection<String>> servers;
+  private final long decayNanos;
+  private final int failureThreshold;
+  private final long ejectionNanos;
+  private final int maxEjectionPercent;
+  private volatile Snapshot snapshot = new Snapshot(null, new Server[0]);
+
+  private LoadBalancer(Builder builder) {
+    this.servers = builder.servers;
+    this.decayNanos = builder.decayNanos;
+    this.failureThreshold = builder.failureThreshold;
+    this.ejectionNanos = builder.ejectionNanos;
+    this.maxEjectionPercent = builder.maxEjectionPercent;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return the current servers and their statistics.
+   */
+  public List<Server> servers() {
+    return Collections.unmodifiableList(Arrays.asList(current()));
+  }
+
+  /**
+   * Chooses the server for the next request. The caller must {@link #start(Server) start} and
+   * {@link #end(Server, long, boolean) end} the request for the statistics to be accurate.
+   *
+   * @throws IllegalStateException if there are no servers.
+   */
+  public Server choose() {
+    Server[] servers = current();
+    int size = servers.length;
+    if (size == 0) {
+      throw new IllegalStateException("no servers available");
+    }
+    if (size == 1) {
+      return servers[0];
+    }
+    long now = System.nanoTime();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(size);
+    int second = random.nextInt(size - 1);
+    if (second >= first) {
+      second++;
+    }
+    Server a = servers[first];
+    Server b = servers[second];
+    boolean aAvailable = a.isAvailable(now);
+    boolean bAvailable = b.isAvailable(now);
+    if (aAvailable && bAvailable) {
+      return a.cost(now) <= b.cost(now) ? a : b;
+    }
+    if (aAvailable) {
+      return a;
+    }
+    if (bAvailable) {
+      return b;
+    }
+    for (int i = 1; i < size; i++) {
+      Server server = servers[(first + i) % size];
+      if (server.isAvailable(now)) {
+        return server;
+      }
+    }
+    // every server is ejected, prefer any of them to failing the request
+    return a.cost(now) <= b.cost(now) ? a : b;
+  }
+
+  /**
+   * Marks the start of a request to {@code server}.
+   *
+   * @return the start time to pass to {@link #end(Server, long, boolean)}.
+   */
+  public long start(Server server) {
+    server.start();
+    return System.nanoTime();
+  }
+
+  /**
+   * Records the outcome of a request to {@code server}, ejecting it if it failed too many times in
+   * a row.
+   */
+  public void end(Server server, long startNanos, boolean success) {
+    long now = System.nanoTime();
+    if (server.end(startNanos, now, success, failureThreshold) && canEject(now)) {
+      server.eject(now + ejectionNanos);
+    }
+  }
+
+  private boolean canEject(long now) {
+    Server[] servers = current();
+    int ejected = 1;
+    for (Server server : servers) {
+      if (!server.isAvailable(now)) {
+        ejected++;
+      }
+    }
+    return ejected * 100 <= servers.length * maxEjectionPercent;
+  }
+
+  private Server[] current() {
+    Collection<String> hostPorts = checkNotNull(servers.get(), "servers");
+    Snapshot current = snapshot;
+    if (current.hostPorts == hostPorts
+        || (current.hostPorts != null && current.hostPorts.equals(hostPorts))) {
+      return current.servers;
+    }
+    Map<String, Server> existing = new HashMap<>();
+    for (Server server : current.servers) {
+      existing.put(server.hostPort(), server);
+    }
+    long now = System.nanoTime();
+    List<Server> updated = new ArrayList<>(hostPorts.size());
+    for (String hostPort : hostPorts) {
+      Server server = existing.remove(hostPort);
+      updated.add(server != null ? server : new Server(hostPort, decayNanos, now));
+    }
+    Snapshot next = new Snapshot(hostPorts, updated.toArray(new Server[0]));
+    // a concurrent refresh may win, either result reflects the supplier
+    snapshot = next;
+    return next.servers;
+  }
+
+  @Override
+  public String toString() {
+    return "LoadBalancer" + Arrays.toString(current());
+  }
+
+  private static final class Snapshot {
+
+    final Collection<String> hostPorts;
+    final Server[] servers;
+
+    Snapshot(Collection<String> hostPorts, Server[] servers) {
+      this.hostPorts = hostPorts;
+      this.servers = servers;
+    }
+  }
+
+  public static final class Builder {
+
+    private Supplier<? extends Collection<String>> servers;
+    private long decayNanos = TimeUnit.SECONDS.toNanos(10);
+    private int failureThreshold = 5;
+    private long ejectionNanos = TimeUnit.SECONDS.toNanos(30);
+    private int maxEjectionPercent = 50;
+
+    Builder() {}
+
+    /**
+     * A fixed list of servers, each formatted as {@code host:port}.
+     */
+    public Builder servers(String... servers) {
+      List<String> hostPorts = Collections.unmodifiableList(Arrays.asList(servers.clone()));
+      return servers(() -> hostPorts);
+    }
+
+    /**
+     * Servers formatted as {@code host:port}, read before every choice so it can change at any
+     * time.
+     */
+    public Builder servers(Supplier<? extends Collection<String>> servers) {
+      this.servers = checkNotNull(servers, "servers");
+      return this;
+    }
+
+    /**
+     * How quickly old latency samples are forgotten. Defaults to 10 seconds.
+     */
+    public Builder decay(long decay, TimeUnit unit) {
+      checkArgument(decay > 0, "decay must be positive");
+      this.decayNanos = unit.toNanos(decay);
+      return this;
+    }
+
+    /**
+     * Consecutive failures after which a server is ejected. Defaults to 5.
+     */
+    public Builder consecutiveFailures(int consecutiveFailures) {
+      checkArgument(consecutiveFailures > 0, "consecutiveFailures must be positive");
+      this.failureThreshold = consecutiveFailures;
+      return this;
+    }
+
+    /**
+     * How long an ejected server is left out. Defaults to 30 seconds.
+     */
+    public Builder ejectionTime(long ejectionTime, TimeUnit unit) {
+      checkArgument(ejectionTime >= 0, "ejectionTime must not be negative");
+      this.ejectionNanos = unit.toNanos(ejectionTime);
+      return this;
+    }
+
+    /**
+     * The largest share of the servers which may be ejected at once. Defaults to 50.
+     */
+    public Builder maxEjectionPercent(int maxEjectionPercent) {
+      checkArgument(maxEjectionPercent >= 0 && maxEjectionPercent <= 100,
+          "maxEjectionPercent must be between 0 and 100");
+      this.maxEjectionPercent = maxEjectionPercent;
+      return this;
+    }
+
+    public LoadBalancer build() {
+      checkNotNull(servers, "servers");
+      return new LoadBalancer(this);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.loadbalancer;
+
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import java.io.IOException;
+import static feign.Util.checkNotNull;
+
+/**
+ * Sends the requests of a {@link LoadBalancingTarget} to the server its {@link LoadBalancer}
+ * chooses, and reports their latency and outcome back to it. Requests for other targets are passed
+ * to the delegate unchanged.
+ *
+ * <p>
+ * A request fails when the delegate throws or the server responds with a 5xx status. Latency is
+ * measured until the response headers are received.
+ * </p>
+ */
+public class LoadBalancingClient implements Client {
+
+  private final Client delegate;
+
+  public LoadBalancingClient() {
+    this(new Client.Default(null, null));
+  }
+
+  public LoadBalancingClient(Client delegate) {
+    this.delegate = checkNotNull(delegate, "delegate");
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    LoadBalancer loadBalancer = loadBalancer(request);
+    if (loadBalancer == null) {
+      return delegate.execute(request, options);
+    }
+    Server server = loadBalancer.choose();
+    Request balanced = Request.create(request.httpMethod(),
+        replaceHostPort(request.url(), server.hostPort()),
+        request.headers(),
+        request.body(),
+        request.charset(),
+        request.requestTemplate());
+    long start = loadBalancer.start(server);
+    boolean success = false;
+    try {
+      Response response = delegate.execute(balanced, options);
+      success = response.status() < 500;
+      return response;
+    } finally {
+      loadBalancer.end(server, start, success);
+    }
+  }
+
+  private static LoadBalancer loadBalancer(Request request) {
+    RequestTemplate template = request.requestTemplate();
+    Target<?> target = template != null ? template.feignTarget() : null;
+    return target instanceof LoadBalancingTarget
+        ? ((LoadBalancingTarget<?>) target).loadBalancer()
+        : null;
+  }
+
+  static String replaceHostPort(String url, String hostPort) {
+    int start = url.indexOf("://");
+    if (start < 0) {
+      throw new IllegalArgumentException("not an absolute url: " + url);
+    }
+    start += 3;
+    int end = start;
+    while (end < url.length()) {
+      char c = url.charAt(end);
+      if (c == '/' || c == '?' || c == '#') {
+        break;
+      }
+      end++;
+    }
+    return new StringBuilder(url.length() + hostPort.length())
+        .append(url, 0, start)
+        .append(hostPort)
+        .append(url, end, url.length())
+        .toString();
+  }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.loadbalancer;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Target;
+import java.net.URI;
+import static feign.Util.checkNotNull;
+
+/**
+ * Target whose requests are spread over the servers of a {@link LoadBalancer} by a
+ * {@link LoadBalancingClient}. Ex.
+ *
+ * <pre>
+ * MyService api = Feign.builder()
+ *     .client(new LoadBalancingClient())
+ *     .target(LoadBalancingTarget.create(MyService.class, "http://myAppProd/api", loadBalancer));
+ * </pre>
+ *
+ * Where {@code myAppProd} only names the target, the host and port of each request are those of the
+ * server chosen.
+ *
+ * @param <T> corresponds to {@link feign.Target#type()}
+ */
+public class LoadBalancingTarget<T> implements Target<T> {
+
+  private final Class<T> type;
+  private final String name;
+  private final String url;
+  private final LoadBalancer loadBalancer;
+
+  protected LoadBalancingTarget(Class<T> type, String name, String url,
+      LoadBalancer loadBalancer) {
+    this.type = checkNotNull(type, "type");
+    this.name = checkNotNull(name, "name");
+    this.url = checkNotNull(url, "url");
+    this.loadBalancer = checkNotNull(loadBalancer, "loadBalancer");
+  }
+
+  /**
+   * @param type corresponds to {@link feign.Target#type()}
+   * @param url naming convention is {@code https://name} or {@code http://name/api/v2}, where the
+   *        scheme and path are kept and the host is replaced by each server chosen.
+   * @param loadBalancer chooses the server of each request.
+   */
+  public static <T> LoadBalancingTarget<T> create(Class<T> type,
+                                                  String url,
+                                                  LoadBalancer loadBalancer) {
+    String name = URI.create(url).getHost();
+    checkNotNull(name, "host of %s", url);
+    return new LoadBalancingTarget<T>(type, name, url, loadBalancer);
+  }
+
+  @Override
+  public Class<T> type() {
+    return type;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public String url() {
+    return url;
+  }
+
+  /**
+   * current load balancer for the target.
+   */
+  public LoadBalancer loadBalancer() {
+    return loadBalancer;
+  }
+
+  @Override
+  public Request apply(RequestTemplate input) {
+    if (input.url().indexOf("http") != 0) {
+      input.target(url());
+    }
+    return input.request();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof LoadBalancingTarget) {
+      LoadBalancingTarget<?> other = (LoadBalancingTarget<?>) obj;
+      return type.equals(other.type)
+          && url.equals(other.url)
+          && loadBalancer == other.loadBalancer;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 17;
+    result = 31 * result + type.hashCode();
+    result = 31 * result + url.hashCode();
+    result = 31 * result + loadBalancer.hashCode();
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "LoadBalancingTarget(type=" + type.getSimpleName() + ", url=" + url + ")";
+  }
+}
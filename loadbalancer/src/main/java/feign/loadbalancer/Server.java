@@ -0,0 +1,169 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.loadbalancer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A server chosen by a {@link LoadBalancer}, along with the statistics used to choose it. All
+ * updates are lock-free, so a server can be shared by any number of concurrent requests.
+ *
+ * <p>
+ * Latency is tracked as a peak-sensitive moving average: a sample slower than the current average
+ * replaces it immediately, faster samples are averaged in with a weight that depends on the time
+ * since the last one. The average decays towards zero while no requests complete, so a server that
+ * was slow gets tried again eventually.
+ * </p>
+ */
+public final class Server {
+
+  /**
+   * Cost of a server with requests in flight and no latency samples yet, as in Finagle's peak EWMA.
+   * High enough to lose to any sampled server, so an unsampled server is sent one request at a time
+   * until the first one completes.
+   */
+  private static final double PENALTY_NANOS = Long.MAX_VALUE >> 16;
+
+  private static final AtomicIntegerFieldUpdater<Server> IN_FLIGHT =
+      AtomicIntegerFieldUpdater.newUpdater(Server.class, "inFlight");
+  private static final AtomicIntegerFieldUpdater<Server> CONSECUTIVE_FAILURES =
+      AtomicIntegerFieldUpdater.newUpdater(Server.class, "consecutiveFailures");
+  private static final AtomicLongFieldUpdater<Server> LATENCY =
+      AtomicLongFieldUpdater.newUpdater(Server.class, "latencyBits");
+
+  private final String hostPort;
+  private final double decayNanos;
+
+  private volatile int inFlight;
+  private volatile int consecutiveFailures;
+  private volatile long latencyBits = Double.doubleToRawLongBits(0);
+  private volatile long lastSampleNanos;
+  private volatile long ejectedUntilNanos;
+  private volatile boolean ejected;
+
+  Server(String hostPort, long decayNanos, long nowNanos) {
+    this.hostPort = hostPort;
+    this.decayNanos = decayNanos;
+    this.lastSampleNanos = nowNanos;
+  }
+
+  /**
+   * @return the {@code host:port} requests are sent to.
+   */
+  public String hostPort() {
+    return hostPort;
+  }
+
+  /**
+   * @return number of requests sent to this server which have not completed yet.
+   */
+  public int inFlight() {
+    return inFlight;
+  }
+
+  /**
+   * @return the moving average of the latency of this server.
+   */
+  public long latency(TimeUnit unit) {
+    return unit.convert((long) latencyNanos(System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return number of failures since the last success, or since this server was last ejected.
+   */
+  public int consecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  /**
+   * @return true while this server is ejected after too many consecutive failures.
+   */
+  public boolean isEjected() {
+    return !isAvailable(System.nanoTime());
+  }
+
+  boolean isAvailable(long nowNanos) {
+    return !ejected || nowNanos - ejectedUntilNanos >= 0;
+  }
+
+  /**
+   * Cost of sending one more request to this server: its latency weighted by the requests it
+   * already has in flight. A server without samples costs nothing while idle, so it gets tried, and
+   * {@link #PENALTY_NANOS} once it has requests in flight, as their latency is unknown.
+   */
+  double cost(long nowNanos) {
+    int inFlight = this.inFlight;
+    if (latencyBits == 0 && inFlight != 0) {
+      return PENALTY_NANOS + inFlight;
+    }
+    return latencyNanos(nowNanos) * (inFlight + 1);
+  }
+
+  private double latencyNanos(long nowNanos) {
+    double latency = Double.longBitsToDouble(latencyBits);
+    long elapsed = Math.max(0, nowNanos - lastSampleNanos);
+    return latency * Math.exp(-elapsed / decayNanos);
+  }
+
+  void start() {
+    IN_FLIGHT.incrementAndGet(this);
+  }
+
+  /**
+   * Records the outcome of a request started with {@link #start()}.
+   *
+   * @return true if the failure threshold was reached and this server should be ejected.
+   */
+  boolean end(long startNanos, long nowNanos, boolean success, int failureThreshold) {
+    IN_FLIGHT.decrementAndGet(this);
+    observe(nowNanos - startNanos, nowNanos);
+    if (success) {
+      if (consecutiveFailures != 0) {
+        consecutiveFailures = 0;
+      }
+      return false;
+    }
+    return CONSECUTIVE_FAILURES.incrementAndGet(this) >= failureThreshold
+        && isAvailable(nowNanos);
+  }
+
+  private void observe(long sampleNanos, long nowNanos) {
+    long previousSample = lastSampleNanos;
+    lastSampleNanos = nowNanos;
+    double weight = Math.exp(-Math.max(0, nowNanos - previousSample) / decayNanos);
+    long current;
+    long updated;
+    do {
+      current = latencyBits;
+      double latency = Double.longBitsToDouble(current);
+      double next = sampleNanos > latency
+          ? sampleNanos
+          : latency * weight + sampleNanos * (1 - weight);
+      updated = Double.doubleToRawLongBits(next);
+    } while (!LATENCY.compareAndSet(this, current, updated));
+  }
+
+  void eject(long untilNanos) {
+    consecutiveFailures = 0;
+    ejectedUntilNanos = untilNanos;
+    ejected = true;
+  }
+
+  @Override
+  public String toString() {
+    return "Server(" + hostPort + ", inFlight=" + inFlight + ", ejected=" + isEjected() + ")";
+  }
+}
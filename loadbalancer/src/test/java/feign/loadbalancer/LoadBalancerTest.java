@@ -0,0 +1,209 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class LoadBalancerTest {
+
+  @Rule
+  public final ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void choosesEveryServerWhenIdle() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers("a:80", "b:80", "c:80")
+        .build();
+
+    Set<String> chosen = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      chosen.add(loadBalancer.choose().hostPort());
+    }
+
+    assertThat(chosen).containsOnly("a:80", "b:80", "c:80");
+  }
+
+  @Test
+  public void avoidsServerWithRequestsInFlight() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers("a:80", "b:80")
+        .build();
+    Server a = server(loadBalancer, "a:80");
+    Server b = server(loadBalancer, "b:80");
+    loadBalancer.end(a, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10), true);
+    loadBalancer.end(b, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10), true);
+
+    loadBalancer.start(a);
+    loadBalancer.start(a);
+
+    for (int i = 0; i < 20; i++) {
+      assertThat(loadBalancer.choose()).isSameAs(b);
+    }
+  }
+
+  @Test
+  public void avoidsSlowServer() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers("a:80", "b:80")
+        .build();
+    Server a = server(loadBalancer, "a:80");
+    Server b = server(loadBalancer, "b:80");
+
+    loadBalancer.end(a, loadBalancer.start(a) - TimeUnit.SECONDS.toNanos(1), true);
+    loadBalancer.end(b, loadBalancer.start(b), true);
+
+    assertThat(a.latency(TimeUnit.MILLISECONDS)).isGreaterThan(b.latency(TimeUnit.MILLISECONDS));
+    for (int i = 0; i < 20; i++) {
+      assertThat(loadBalancer.choose()).isSameAs(b);
+    }
+  }
+
+  @Test
+  public void avoidsUnsampledServerWithRequestsInFlight() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers("a:80", "b:80")
+        .build();
+    Server a = server(loadBalancer, "a:80");
+    Server b = server(loadBalancer, "b:80");
+    loadBalancer.end(a, loadBalancer.start(a) - TimeUnit.MILLISECONDS.toNanos(10), true);
+    loadBalancer.start(a);
+
+    // none of these completed, so b has no latency to weigh them by
+    for (int i = 0; i < 10; i++) {
+      loadBalancer.start(b);
+    }
+
+    for (int i = 0; i < 20; i++) {
+      assertThat(loadBalancer.choose()).isSameAs(a);
+    }
+  }
+
+  @Test
+  public void ejectsAfterConsecutiveFailures() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers("a:80", "b:80")
+        .consecutiveFailures(3)
+        .build();
+    Server a = server(loadBalancer, "a:80");
+    Server b = server(loadBalancer, "b:80");
+
+    loadBalancer.end(a, loadBalancer.start(a), false);
+    loadBalancer.end(a, loadBalancer.start(a), true);
+    loadBalancer.end(a, loadBalancer.start(a), false);
+    loadBalancer.end(a, loadBalancer.start(a), false);
+    assertThat(a.isEjected()).isFalse();
+    assertThat(a.consecutiveFailures()).isEqualTo(2);
+
+    loadBalancer.end(a, loadBalancer.start(a), false);
+    assertThat(a.isEjected()).isTrue();
+    for (int i = 0; i < 20; i++) {
+      assertThat(loadBalancer.choose()).isSameAs(b);
+    }
+  }
+
+  @Test
+  public void ejectionExpires() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers("a:80", "b:80")
+        .consecutiveFailures(1)
+        .ejectionTime(0, TimeUnit.MILLISECONDS)
+        .build();
+    Server a = server(loadBalancer, "a:80");
+
+    loadBalancer.end(a, loadBalancer.start(a), false);
+
+    assertThat(a.isEjected()).isFalse();
+    assertThat(a.consecutiveFailures()).isZero();
+  }
+
+  @Test
+  public void doesNotEjectMoreThanMaxPercent() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers("a:80", "b:80")
+        .consecutiveFailures(1)
+        .build();
+    Server a = server(loadBalancer, "a:80");
+    Server b = server(loadBalancer, "b:80");
+
+    loadBalancer.end(a, loadBalancer.start(a), false);
+    loadBalancer.end(b, loadBalancer.start(b), false);
+
+    assertThat(a.isEjected()).isTrue();
+    assertThat(b.isEjected()).isFalse();
+  }
+
+  @Test
+  public void choosesEjectedServerWhenNoneAreLeft() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers("a:80")
+        .consecutiveFailures(1)
+        .maxEjectionPercent(100)
+        .build();
+    Server a = server(loadBalancer, "a:80");
+
+    loadBalancer.end(a, loadBalancer.start(a), false);
+
+    assertThat(a.isEjected()).isTrue();
+    assertThat(loadBalancer.choose()).isSameAs(a);
+  }
+
+  @Test
+  public void keepsStatisticsWhenServersChange() {
+    AtomicReference<List<String>> servers =
+        new AtomicReference<>(Arrays.asList("a:80", "b:80"));
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers(servers::get)
+        .build();
+    Server a = server(loadBalancer, "a:80");
+    loadBalancer.start(a);
+
+    servers.set(Arrays.asList("a:80", "c:80"));
+
+    assertThat(loadBalancer.servers())
+        .extracting(Server::hostPort)
+        .containsExactly("a:80", "c:80");
+    assertThat(server(loadBalancer, "a:80")).isSameAs(a);
+    assertThat(a.inFlight()).isEqualTo(1);
+  }
+
+  @Test
+  public void failsWithoutServers() {
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers()
+        .build();
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("no servers available");
+
+    loadBalancer.choose();
+  }
+
+  private static Server server(LoadBalancer loadBalancer, String hostPort) {
+    for (Server server : loadBalancer.servers()) {
+      if (server.hostPort().equals(hostPort)) {
+        return server;
+      }
+    }
+    throw new AssertionError(hostPort);
+  }
+}
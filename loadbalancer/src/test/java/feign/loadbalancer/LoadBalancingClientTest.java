@@ -0,0 +1,126 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Rule;
+import org.junit.Test;
+import feign.Feign;
+import feign.FeignException;
+import feign.RequestLine;
+
+public class LoadBalancingClientTest {
+
+  @Rule
+  public final MockWebServer server1 = new MockWebServer();
+  @Rule
+  public final MockWebServer server2 = new MockWebServer();
+
+  interface TestInterface {
+
+    @RequestLine("GET /")
+    String get();
+  }
+
+  private TestInterface api(LoadBalancer loadBalancer, String url) {
+    return Feign.builder()
+        .client(new LoadBalancingClient())
+        .target(LoadBalancingTarget.create(TestInterface.class, url, loadBalancer));
+  }
+
+  private static String hostPort(MockWebServer server) {
+    return "localhost:" + server.getPort();
+  }
+
+  @Test
+  public void sendsRequestsToChosenServer() throws Exception {
+    server1.enqueue(new MockResponse().setBody("success!"));
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers(hostPort(server1))
+        .build();
+
+    assertThat(api(loadBalancer, "http://myApp/context-path").get()).isEqualTo("success!");
+
+    assertThat(server1.takeRequest().getPath()).isEqualTo("/context-path/");
+    assertThat(loadBalancer.servers().get(0).inFlight()).isZero();
+  }
+
+  @Test
+  public void avoidsSlowServer() {
+    for (int i = 0; i < 20; i++) {
+      server1
+          .enqueue(new MockResponse().setBody("slow").setHeadersDelay(200, TimeUnit.MILLISECONDS));
+      server2.enqueue(new MockResponse().setBody("fast"));
+    }
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers(hostPort(server1), hostPort(server2))
+        .build();
+    TestInterface api = api(loadBalancer, "http://myApp");
+
+    for (int i = 0; i < 20; i++) {
+      api.get();
+    }
+
+    // with two servers both are compared on each request, so the slow one is sent one at most
+    assertThat(server1.getRequestCount()).isLessThanOrEqualTo(1);
+    assertThat(server2.getRequestCount()).isGreaterThanOrEqualTo(19);
+  }
+
+  @Test
+  public void ejectsFailingServer() {
+    for (int i = 0; i < 20; i++) {
+      server1.enqueue(new MockResponse().setResponseCode(503));
+      server2.enqueue(new MockResponse().setBody("success!"));
+    }
+    LoadBalancer loadBalancer = LoadBalancer.builder()
+        .servers(hostPort(server1), hostPort(server2))
+        .consecutiveFailures(2)
+        .build();
+    TestInterface api = api(loadBalancer, "http://myApp");
+
+    for (int i = 0; i < 20; i++) {
+      try {
+        api.get();
+      } catch (FeignException.ServiceUnavailable expected) {
+      }
+    }
+
+    assertThat(server1.getRequestCount()).isLessThanOrEqualTo(2);
+    assertThat(loadBalancer.servers().get(0).isEjected()).isTrue();
+  }
+
+  @Test
+  public void passesOtherTargetsThrough() throws Exception {
+    server1.enqueue(new MockResponse().setBody("success!"));
+
+    TestInterface api = Feign.builder()
+        .client(new LoadBalancingClient())
+        .target(TestInterface.class, "http://localhost:" + server1.getPort());
+
+    assertThat(api.get()).isEqualTo("success!");
+  }
+
+  @Test
+  public void replacesOnlyHostPort() {
+    assertThat(LoadBalancingClient.replaceHostPort("http://myApp/a?b=c", "localhost:80"))
+        .isEqualTo("http://localhost:80/a?b=c");
+    assertThat(LoadBalancingClient.replaceHostPort("https://myApp?b=/c", "localhost:80"))
+        .isEqualTo("https://localhost:80?b=/c");
+    assertThat(LoadBalancingClient.replaceHostPort("http://myApp", "localhost:80"))
+        .isEqualTo("http://localhost:80");
+  }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.mock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated latency of a {@link MockClient}, sampled once per request.
+ *
+ * <pre>
+ * mockClient.latency(Latency.logNormal(20, 0.5, TimeUnit.MILLISECONDS));
+ * </pre>
+ */
+@FunctionalInterface
+public interface Latency {
+
+  /**
+   * @return the delay before the next response, in nanoseconds.
+   */
+  long nextNanos();
+
+  static Latency none() {
+    return () -> 0;
+  }
+
+  static Latency fixed(long delay, TimeUnit unit) {
+    long nanos = unit.toNanos(delay);
+    return () -> nanos;
+  }
+
+  /**
+   * Uniformly distributed between {@code min}, inclusive, and {@code max}, exclusive.
+   */
+  static Latency uniform(long min, long max, TimeUnit unit) {
+    if (min >= max) {
+      throw new IllegalArgumentException("min must be lower than max");
+    }
+    long minNanos = unit.toNanos(min);
+    long maxNanos = unit.toNanos(max);
+    return () -> ThreadLocalRandom.current().nextLong(minNanos, maxNanos);
+  }
+
+  /**
+   * Exponentially distributed with the given mean, as the time between independent events.
+   */
+  static Latency exponential(long mean, TimeUnit unit) {
+    double meanNanos = unit.toNanos(mean);
+    return () -> (long) (-meanNanos * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+  }
+
+  /**
+   * Log-normally distributed with the given median, a long tailed distribution close to the latency
+   * of most services. A {@code sigma} of 0.5 puts the 99th percentile at about 3.2 times the
+   * median.
+   */
+  static Latency logNormal(long median, double sigma, TimeUnit unit) {
+    double mu = Math.log(unit.toNanos(median));
+    return () -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+  }
+}
@@ -16,6 +16,7 @@ package feign.mock;
 import static feign.Util.UTF_8;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -24,6 +25,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import feign.Client;
 import feign.Request;
 import feign.Response;
@@ -37,9 +45,15 @@ public class MockClient implements Client {
 
     private final Response.Builder responseBuilder;
 
+    /**
+     * Immutable copy of {@code responseBuilder}, shared by concurrent executions.
+     */
+    private final Response response;
+
     public RequestResponse(RequestKey requestKey, Response.Builder responseBuilder) {
       this.requestKey = requestKey;
       this.responseBuilder = responseBuilder;
+      this.response = concurrent ? responseBuilder.request(stubRequest(requestKey)).build() : null;
     }
 
   }
@@ -52,15 +66,127 @@ public class MockClient implements Client {
 
   private Iterator<RequestResponse> responseIterator;
 
-  public MockClient() {}
+  private final boolean concurrent;
+
+  private final ConcurrentMap<RequestKey, List<RequestResponse>> responsesByKey =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<RequestKey, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+  private final AtomicLong recordedRequests = new AtomicLong();
+
+  private volatile AtomicReferenceArray<Request> lastRequests;
+
+  private volatile Latency latency = Latency.none();
+
+  public MockClient() {
+    this(false);
+  }
 
   public MockClient(boolean sequential) {
+    this(sequential, false);
+  }
+
+  private MockClient(boolean sequential, boolean concurrent) {
     this.sequential = sequential;
+    this.concurrent = concurrent;
+  }
+
+  /**
+   * A client for load tests, which does not lock while executing requests. Instead of keeping every
+   * request, only the number of requests to each url is counted; use {@link #recordLast(int)} to
+   * also keep the most recent ones. Responses must be added before the first request is executed.
+   */
+  public static MockClient concurrent() {
+    return new MockClient(false, true);
+  }
+
+  /**
+   * Keep the last {@code count} requests, returned by {@link #lastRequests()}. Only applies to
+   * {@link #concurrent()} clients, which otherwise do not keep requests.
+   */
+  public MockClient recordLast(int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("count must be positive");
+    }
+    lastRequests = new AtomicReferenceArray<>(count);
+    recordedRequests.set(0);
+    return this;
+  }
+
+  /**
+   * Delay each response by a sample of {@code latency}. The delay is spent outside of any lock, so
+   * concurrent requests are delayed in parallel.
+   */
+  public MockClient latency(Latency latency) {
+    this.latency = latency;
+    return this;
   }
 
   @Override
-  public synchronized Response execute(Request request, Request.Options options)
+  public Response execute(Request request, Request.Options options)
       throws IOException {
+    delay(latency.nextNanos());
+    if (concurrent) {
+      return executeConcurrent(request);
+    }
+    synchronized (this) {
+      return executeLocked(request);
+    }
+  }
+
+  private static void delay(long nanos) throws InterruptedIOException {
+    if (nanos <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while simulating latency");
+    }
+  }
+
+  private Response executeConcurrent(Request request) {
+    RequestKey requestKey = RequestKey.create(request);
+    LongAdder count = requestCounts.get(requestKey);
+    if (count == null) {
+      // don't retain the headers and body of the first request
+      RequestKey urlKey = RequestKey.builder(requestKey.getMethod(), requestKey.getUrl()).build();
+      LongAdder created = new LongAdder();
+      count = requestCounts.putIfAbsent(urlKey, created);
+      if (count == null) {
+        count = created;
+      }
+    }
+    count.increment();
+
+    AtomicReferenceArray<Request> last = lastRequests;
+    if (last != null) {
+      long index = recordedRequests.getAndIncrement();
+      last.set((int) (index % last.length()), request);
+    }
+
+    List<RequestResponse> candidates = responsesByKey.get(requestKey);
+    if (candidates != null) {
+      // last one wins, as in getResponseBuilder
+      for (int i = candidates.size() - 1; i >= 0; i--) {
+        RequestResponse candidate = candidates.get(i);
+        if (candidate.requestKey.equalsExtended(requestKey)) {
+          return candidate.response.toBuilder().request(request).build();
+        }
+      }
+    }
+    return Response.builder().status(HttpURLConnection.HTTP_NOT_FOUND).reason("Not mocker")
+        .headers(request.headers()).request(request).build();
+  }
+
+  private static Request stubRequest(RequestKey requestKey) {
+    return Request.create(Request.HttpMethod.valueOf(requestKey.getMethod().name()),
+        requestKey.getUrl(), Collections.emptyMap(), Request.Body.empty(), null);
+  }
+
+  private Response executeLocked(Request request) {
     RequestKey requestKey = RequestKey.create(request);
     Response.Builder responseBuilder;
     if (sequential) {
@@ -202,7 +328,13 @@ public class MockClient implements Client {
   }
 
   public MockClient add(RequestKey requestKey, Response.Builder response) {
-    responses.add(new RequestResponse(requestKey, response));
+    RequestResponse requestResponse = new RequestResponse(requestKey, response);
+    if (concurrent) {
+      responsesByKey.computeIfAbsent(requestKey, key -> new CopyOnWriteArrayList<>())
+          .add(requestResponse);
+    } else {
+      responses.add(requestResponse);
+    }
     return this;
   }
 
@@ -218,8 +350,13 @@ public class MockClient implements Client {
     return add(method, url, HttpURLConnection.HTTP_NO_CONTENT);
   }
 
+  /**
+   * @return the request, or {@code null} for a {@link #concurrent()} client which did not
+   *         {@link #recordLast(int) record} it.
+   */
   public Request verifyOne(HttpMethod method, String url) {
-    return verifyTimes(method, url, 1).get(0);
+    List<Request> result = verifyTimes(method, url, 1);
+    return result.isEmpty() ? null : result.get(0);
   }
 
   public List<Request> verifyTimes(final HttpMethod method, final String url, final int times) {
@@ -233,6 +370,9 @@ public class MockClient implements Client {
     }
 
     RequestKey requestKey = RequestKey.builder(method, url).build();
+    if (concurrent) {
+      return verifyCount(requestKey, times);
+    }
     if (!requests.containsKey(requestKey)) {
       throw new VerificationAssertionError("Wanted: '%s' but never invoked! Got: %s", requestKey,
           requests.keySet());
@@ -248,9 +388,69 @@ public class MockClient implements Client {
     return result;
   }
 
+  /**
+   * Requests of a {@link #concurrent()} client are only counted, so the returned list only holds
+   * those among the {@link #lastRequests() last requests}.
+   */
+  private List<Request> verifyCount(RequestKey requestKey, int times) {
+    long count = requestCount(requestKey.getMethod(), requestKey.getUrl());
+    if (count == 0) {
+      throw new VerificationAssertionError("Wanted: '%s' but never invoked! Got: %s", requestKey,
+          requestCounts.keySet());
+    }
+    if (count != times) {
+      throw new VerificationAssertionError("Wanted: '%s' to be invoked: '%s' times but got: '%s'!",
+          requestKey, times, count);
+    }
+
+    List<Request> result = new ArrayList<Request>();
+    for (Request request : lastRequests()) {
+      if (requestKey.equals(RequestKey.create(request))) {
+        result.add(request);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return how many times {@code url} was requested with {@code method}.
+   */
+  public long requestCount(HttpMethod method, String url) {
+    RequestKey requestKey = RequestKey.builder(method, url).build();
+    if (concurrent) {
+      LongAdder count = requestCounts.get(requestKey);
+      return count == null ? 0 : count.sum();
+    }
+    synchronized (this) {
+      List<Request> result = requests.get(requestKey);
+      return result == null ? 0 : result.size();
+    }
+  }
+
+  /**
+   * @return the requests kept by {@link #recordLast(int)}, oldest first. Requests executed while
+   *         this is called may or may not be included.
+   */
+  public List<Request> lastRequests() {
+    AtomicReferenceArray<Request> last = lastRequests;
+    if (last == null) {
+      return Collections.emptyList();
+    }
+    long end = recordedRequests.get();
+    long start = Math.max(0, end - last.length());
+    List<Request> result = new ArrayList<Request>((int) (end - start));
+    for (long i = start; i < end; i++) {
+      Request request = last.get((int) (i % last.length()));
+      if (request != null) {
+        result.add(request);
+      }
+    }
+    return result;
+  }
+
   public void verifyNever(HttpMethod method, String url) {
     RequestKey requestKey = RequestKey.builder(method, url).build();
-    if (requests.containsKey(requestKey)) {
+    if (concurrent ? requestCounts.containsKey(requestKey) : requests.containsKey(requestKey)) {
       throw new VerificationAssertionError("Do not wanted: '%s' but was invoked!", requestKey);
     }
   }
@@ -276,6 +476,11 @@ public class MockClient implements Client {
 
   public void resetRequests() {
     requests.clear();
+    requestCounts.clear();
+    AtomicReferenceArray<Request> last = lastRequests;
+    if (last != null) {
+      recordLast(last.length());
+    }
   }
 
 
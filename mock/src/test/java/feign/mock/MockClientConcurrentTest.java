@@ -0,0 +1,167 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.net.ssl.HttpsURLConnection;
+import org.junit.Before;
+import org.junit.Test;
+import feign.Feign;
+import feign.FeignException;
+import feign.Param;
+import feign.Request;
+import feign.RequestLine;
+
+public class MockClientConcurrentTest {
+
+  interface Api {
+
+    @RequestLine("GET /items/{id}")
+    String item(@Param("id") String id);
+
+    @RequestLine("GET /missing")
+    String missing();
+  }
+
+  private MockClient mockClient;
+  private Api api;
+
+  @Before
+  public void setup() {
+    mockClient = MockClient.concurrent()
+        .ok(HttpMethod.GET, "/items/1", "one")
+        .ok(HttpMethod.GET, "/items/2", "two")
+        .ok(HttpMethod.GET, "/items/2", "second two");
+    api = Feign.builder()
+        .client(mockClient)
+        .target(new MockTarget<>(Api.class));
+  }
+
+  @Test
+  public void countsConcurrentRequests() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 500; i++) {
+            assertThat(api.item("1"), equalTo("one"));
+            assertThat(api.item("2"), equalTo("second two"));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    mockClient.verifyTimes(HttpMethod.GET, "/items/1", 4000);
+    assertThat(mockClient.requestCount(HttpMethod.GET, "/items/2"), equalTo(4000L));
+    mockClient.verifyNever(HttpMethod.GET, "/missing");
+  }
+
+  @Test
+  public void keepsOnlyTheLastRequests() {
+    mockClient.recordLast(2);
+
+    api.item("1");
+    api.item("2");
+    api.item("1");
+
+    List<String> urls =
+        mockClient.lastRequests().stream().map(Request::url).collect(Collectors.toList());
+    assertThat(urls, contains("/items/2", "/items/1"));
+    assertThat(mockClient.verifyOne(HttpMethod.GET, "/items/2").url(), equalTo("/items/2"));
+  }
+
+  @Test
+  public void doesNotKeepRequestsByDefault() {
+    api.item("1");
+
+    assertThat(mockClient.lastRequests().isEmpty(), equalTo(true));
+    assertThat(mockClient.verifyOne(HttpMethod.GET, "/items/1"), nullValue());
+  }
+
+  @Test
+  public void unmockedRequestsAreNotFound() {
+    try {
+      api.missing();
+      fail();
+    } catch (FeignException e) {
+      assertThat(e.status(), equalTo(HttpsURLConnection.HTTP_NOT_FOUND));
+    }
+    mockClient.verifyOne(HttpMethod.GET, "/missing");
+  }
+
+  @Test
+  public void resetRequests() {
+    mockClient.recordLast(2);
+    api.item("1");
+
+    mockClient.resetRequests();
+
+    mockClient.verifyNever(HttpMethod.GET, "/items/1");
+    assertThat(mockClient.lastRequests().isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void simulatesLatency() {
+    mockClient.latency(Latency.fixed(50, TimeUnit.MILLISECONDS));
+
+    long start = System.nanoTime();
+    api.item("1");
+
+    assertThat(System.nanoTime() - start,
+        greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50)));
+  }
+
+  @Test
+  public void latencyDistributions() {
+    Latency uniform = Latency.uniform(10, 20, TimeUnit.MILLISECONDS);
+    Latency exponential = Latency.exponential(10, TimeUnit.MILLISECONDS);
+    Latency logNormal = Latency.logNormal(10, 0.5, TimeUnit.MILLISECONDS);
+
+    double exponentialSum = 0;
+    List<Long> logNormalSamples = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      long sample = uniform.nextNanos();
+      assertThat(sample, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10)));
+      assertThat(sample, lessThan(TimeUnit.MILLISECONDS.toNanos(20)));
+      exponentialSum += exponential.nextNanos();
+      logNormalSamples.add(logNormal.nextNanos());
+    }
+    logNormalSamples.sort(null);
+
+    double exponentialMean = exponentialSum / 10_000 / TimeUnit.MILLISECONDS.toNanos(1);
+    assertThat(Math.abs(exponentialMean - 10) < 1, equalTo(true));
+    double logNormalMedian =
+        (double) logNormalSamples.get(5_000) / TimeUnit.MILLISECONDS.toNanos(1);
+    assertThat(Math.abs(logNormalMedian - 10) < 1, equalTo(true));
+  }
+}
@@ -19,15 +19,26 @@ import feign.Types;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.reactivestreams.Publisher;
 
 public class ReactiveDelegatingContract implements Contract {
 
   private final Contract delegate;
+  private final Predicate<Class<?>> streamedTypes;
 
   ReactiveDelegatingContract(Contract delegate) {
+    this(delegate, type -> false);
+  }
+
+  /**
+   * @param delegate contract to extend.
+   * @param streamedTypes publisher types whose elements are decoded one at a time.
+   */
+  ReactiveDelegatingContract(Contract delegate, Predicate<Class<?>> streamedTypes) {
     this.delegate = delegate;
+    this.streamedTypes = streamedTypes;
   }
 
   @Override
@@ -55,7 +66,11 @@ public class ReactiveDelegatingContract implements Contract {
           throw new IllegalArgumentException(
               "Streams are not supported when using Reactive Wrappers");
         }
-        metadata.returnType(actualTypes[0]);
+        if (streamedTypes.test(Types.getRawType(type))) {
+          metadata.returnType(new StreamingDecoder.IteratorType(actualTypes[0]));
+        } else {
+          metadata.returnType(actualTypes[0]);
+        }
       }
     }
 
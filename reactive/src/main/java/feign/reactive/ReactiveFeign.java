@@ -13,8 +13,14 @@
  */
 package feign.reactive;
 
+import feign.AsyncFeign;
+import feign.AsyncReturnTypeAdapter;
 import feign.Contract;
 import feign.Feign;
+import feign.ResponseMapper;
+import feign.codec.Decoder;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 abstract class ReactiveFeign {
 
@@ -22,7 +28,14 @@ abstract class ReactiveFeign {
 
   public static class Builder extends Feign.Builder {
 
+    private final Predicate<Class<?>> multiElementTypes;
     private Contract contract = new Contract.Default();
+    private Decoder decoder = new Decoder.Default();
+    private Decoder iteratorDecoder;
+
+    Builder(Predicate<Class<?>> multiElementTypes) {
+      this.multiElementTypes = multiElementTypes;
+    }
 
     /**
      * Extend the current contract to support Reactive Stream return types.
@@ -36,6 +49,36 @@ abstract class ReactiveFeign {
       return this;
     }
 
+    @Override
+    public Builder decoder(Decoder decoder) {
+      this.decoder = decoder;
+      return this;
+    }
+
+    @Override
+    public Builder mapAndDecode(ResponseMapper mapper, Decoder decoder) {
+      this.decoder = new Feign.ResponseMappingDecoder(mapper, decoder);
+      return this;
+    }
+
+    /**
+     * Emit the elements of multi-element publishers, such as {@code Flux} and {@code Flowable}, as
+     * they are decoded instead of decoding the whole response first. Elements are only read when
+     * requested, and cancelling the subscription closes the response.
+     *
+     * @param iteratorDecoder decoding a {@link java.util.Iterator} of the element type, for example
+     *        {@code JacksonIteratorDecoder}.
+     * @return a Builder for chaining.
+     */
+    public Builder iteratorDecoder(Decoder iteratorDecoder) {
+      this.iteratorDecoder = iteratorDecoder;
+      return this;
+    }
+
+    boolean streamElements() {
+      return this.iteratorDecoder != null;
+    }
+
     /**
      * Build the Feign instance.
      *
@@ -43,10 +86,12 @@ abstract class ReactiveFeign {
      */
     @Override
     public Feign build() {
-      if (!(this.contract instanceof ReactiveDelegatingContract)) {
-        super.contract(new ReactiveDelegatingContract(this.contract));
+      super.contract(reactiveContract(this.contract, this.multiElementTypes, streamElements()));
+      if (streamElements()) {
+        super.decoder(new StreamingDecoder(this.decoder, this.iteratorDecoder));
+        super.doNotCloseAfterDecode();
       } else {
-        super.contract(this.contract);
+        super.decoder(this.decoder);
       }
       return super.build();
     }
@@ -56,4 +101,98 @@ abstract class ReactiveFeign {
       throw new UnsupportedOperationException("Streaming Decoding is not supported.");
     }
   }
+
+  /**
+   * Builds reactive wrappers on top of {@link AsyncFeign}. Requests are sent through the
+   * {@link feign.AsyncClient} when the publisher is subscribed to and results are emitted from the
+   * thread completing the response, so no thread is held while waiting on the network.
+   *
+   * @param <C> the type of the request context of the {@link feign.AsyncClient}.
+   */
+  public abstract static class AsyncBuilder<C> extends AsyncFeign.AsyncBuilder<C> {
+
+    private final Predicate<Class<?>> multiElementTypes;
+    private final Function<Boolean, AsyncReturnTypeAdapter> returnTypeAdapterFactory;
+    private Contract contract = new Contract.Default();
+    private Decoder decoder = new Decoder.Default();
+    private Decoder iteratorDecoder;
+
+    AsyncBuilder(Predicate<Class<?>> multiElementTypes,
+        Function<Boolean, AsyncReturnTypeAdapter> returnTypeAdapterFactory) {
+      this.multiElementTypes = multiElementTypes;
+      this.returnTypeAdapterFactory = returnTypeAdapterFactory;
+    }
+
+    /**
+     * Extend the current contract to support Reactive Stream return types.
+     *
+     * @param contract to extend.
+     * @return a Builder for chaining.
+     */
+    @Override
+    public AsyncBuilder<C> contract(Contract contract) {
+      this.contract = contract;
+      return this;
+    }
+
+    @Override
+    public AsyncBuilder<C> decoder(Decoder decoder) {
+      this.decoder = decoder;
+      return this;
+    }
+
+    @Override
+    public AsyncBuilder<C> mapAndDecode(ResponseMapper mapper, Decoder decoder) {
+      this.decoder = new Feign.ResponseMappingDecoder(mapper, decoder);
+      return this;
+    }
+
+    /**
+     * @see Builder#iteratorDecoder(Decoder)
+     */
+    public AsyncBuilder<C> iteratorDecoder(Decoder iteratorDecoder) {
+      this.iteratorDecoder = iteratorDecoder;
+      return this;
+    }
+
+    @Override
+    public AsyncBuilder<C> returnTypeAdapter(AsyncReturnTypeAdapter returnTypeAdapter) {
+      throw new UnsupportedOperationException("Return Type Adapter overrides are not supported.");
+    }
+
+    @Override
+    public AsyncBuilder<C> doNotCloseAfterDecode() {
+      throw new UnsupportedOperationException("Streaming Decoding is not supported.");
+    }
+
+    /**
+     * Build the AsyncFeign Instance.
+     *
+     * @return a new AsyncFeign Instance.
+     */
+    @Override
+    public AsyncFeign<C> build() {
+      boolean streamElements = this.iteratorDecoder != null;
+      super.contract(reactiveContract(this.contract, this.multiElementTypes, streamElements));
+      if (streamElements) {
+        super.decoder(new StreamingDecoder(this.decoder, this.iteratorDecoder));
+        super.doNotCloseAfterDecode();
+      } else {
+        super.decoder(this.decoder);
+      }
+      super.returnTypeAdapter(this.returnTypeAdapterFactory.apply(streamElements));
+      return super.build();
+    }
+  }
+
+  private static Contract reactiveContract(Contract contract,
+                                           Predicate<Class<?>> multiElementTypes,
+                                           boolean streamElements) {
+    if (contract instanceof ReactiveDelegatingContract) {
+      return contract;
+    }
+    return streamElements
+        ? new ReactiveDelegatingContract(contract, multiElementTypes)
+        : new ReactiveDelegatingContract(contract);
+  }
 }
@@ -21,6 +21,7 @@ import java.lang.reflect.Method;
 import java.util.Map;
 import feign.InvocationHandlerFactory;
 import feign.Target;
+import reactor.core.publisher.Flux;
 
 public class ReactorFeign extends ReactiveFeign {
 
@@ -28,13 +29,22 @@ public class ReactorFeign extends ReactiveFeign {
     return new Builder();
   }
 
+  public static <C> AsyncBuilder<C> asyncBuilder() {
+    return new AsyncBuilder<>();
+  }
+
   public static class Builder extends ReactiveFeign.Builder {
 
     private Scheduler scheduler = Schedulers.elastic();
 
+    Builder() {
+      super(Flux.class::isAssignableFrom);
+    }
+
     @Override
     public Feign build() {
-      super.invocationHandlerFactory(new ReactorInvocationHandlerFactory(scheduler));
+      super.invocationHandlerFactory(
+          new ReactorInvocationHandlerFactory(scheduler, streamElements()));
       return super.build();
     }
 
@@ -50,16 +60,29 @@ public class ReactorFeign extends ReactiveFeign {
     }
   }
 
+  /**
+   * Builds {@link reactor.core.publisher.Mono} and {@link reactor.core.publisher.Flux} services
+   * backed by an {@link feign.AsyncClient}.
+   */
+  public static class AsyncBuilder<C> extends ReactiveFeign.AsyncBuilder<C> {
+
+    AsyncBuilder() {
+      super(Flux.class::isAssignableFrom, ReactorReturnTypeAdapter::new);
+    }
+  }
+
   private static class ReactorInvocationHandlerFactory implements InvocationHandlerFactory {
     private final Scheduler scheduler;
+    private final boolean streamElements;
 
-    private ReactorInvocationHandlerFactory(Scheduler scheduler) {
+    private ReactorInvocationHandlerFactory(Scheduler scheduler, boolean streamElements) {
       this.scheduler = scheduler;
+      this.streamElements = streamElements;
     }
 
     @Override
     public InvocationHandler create(Target target, Map<Method, MethodHandler> dispatch) {
-      return new ReactorInvocationHandler(target, dispatch, scheduler);
+      return new ReactorInvocationHandler(target, dispatch, scheduler, streamElements);
     }
   }
 }
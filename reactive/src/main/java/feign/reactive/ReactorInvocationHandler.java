@@ -16,6 +16,7 @@ package feign.reactive;
 import feign.InvocationHandlerFactory.MethodHandler;
 import feign.Target;
 import java.lang.reflect.Method;
+import java.util.Iterator;
 import java.util.Map;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
@@ -24,18 +25,32 @@ import reactor.core.scheduler.Scheduler;
 
 public class ReactorInvocationHandler extends ReactiveInvocationHandler {
   private final Scheduler scheduler;
+  private final boolean streamElements;
 
   ReactorInvocationHandler(Target<?> target,
       Map<Method, MethodHandler> dispatch,
       Scheduler scheduler) {
+    this(target, dispatch, scheduler, false);
+  }
+
+  ReactorInvocationHandler(Target<?> target,
+      Map<Method, MethodHandler> dispatch,
+      Scheduler scheduler,
+      boolean streamElements) {
     super(target, dispatch);
     this.scheduler = scheduler;
+    this.streamElements = streamElements;
   }
 
   @Override
   protected Publisher invoke(Method method, MethodHandler methodHandler, Object[] arguments) {
     Publisher<?> invocation = this.invokeMethod(methodHandler, arguments);
     if (Flux.class.isAssignableFrom(method.getReturnType())) {
+      if (streamElements) {
+        return Mono.from(invocation)
+            .flatMapMany(iterator -> elements((Iterator<?>) iterator))
+            .subscribeOn(scheduler);
+      }
       return Flux.from(invocation).subscribeOn(scheduler);
     } else if (Mono.class.isAssignableFrom(method.getReturnType())) {
       return Mono.from(invocation).subscribeOn(scheduler);
@@ -43,4 +58,13 @@ public class ReactorInvocationHandler extends ReactiveInvocationHandler {
     throw new IllegalArgumentException(
         "Return type " + method.getReturnType().getName() + " is not supported");
   }
+
+  /**
+   * Emits the decoded elements as they are requested, closing them once complete or cancelled.
+   */
+  static <T> Flux<T> elements(Iterator<T> iterator) {
+    return Flux.using(() -> iterator,
+        it -> Flux.fromIterable(() -> it),
+        StreamingDecoder::close);
+  }
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.reactive;
+
+import feign.AsyncReturnTypeAdapter;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bridges {@link feign.AsyncFeign} invocations into {@link Mono} and {@link Flux}. The request is
+ * sent on subscription and cancelling the subscription cancels the request.
+ */
+class ReactorReturnTypeAdapter implements AsyncReturnTypeAdapter {
+
+  private final boolean streamElements;
+
+  ReactorReturnTypeAdapter(boolean streamElements) {
+    this.streamElements = streamElements;
+  }
+
+  @Override
+  public boolean isAsyncReturnType(Class<?> returnType) {
+    return Mono.class.isAssignableFrom(returnType) || Flux.class.isAssignableFrom(returnType);
+  }
+
+  @Override
+  public Type underlyingType(ParameterizedType returnType) {
+    Type elementType = returnType.getActualTypeArguments()[0];
+    if (streamElements && Flux.class.isAssignableFrom((Class<?>) returnType.getRawType())) {
+      return new StreamingDecoder.IteratorType(elementType);
+    }
+    return elementType;
+  }
+
+  @Override
+  public Object adapt(Method method, Supplier<CompletableFuture<Object>> invocation) {
+    Mono<Object> result = Mono.defer(() -> {
+      CompletableFuture<Object> future = invocation.get();
+      return Mono.fromFuture(future)
+          .doOnCancel(() -> future.cancel(true));
+    });
+    if (Flux.class.isAssignableFrom(method.getReturnType())) {
+      if (streamElements) {
+        return result.flatMapMany(
+            iterator -> ReactorInvocationHandler.elements((Iterator<?>) iterator));
+      }
+      return Flux.from(result);
+    }
+    return result;
+  }
+}
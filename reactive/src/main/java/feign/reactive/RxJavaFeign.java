@@ -19,6 +19,7 @@ import java.util.Map;
 import feign.Feign;
 import feign.InvocationHandlerFactory;
 import feign.Target;
+import io.reactivex.Flowable;
 import io.reactivex.Scheduler;
 import io.reactivex.schedulers.Schedulers;
 
@@ -28,13 +29,22 @@ public class RxJavaFeign extends ReactiveFeign {
     return new Builder();
   }
 
+  public static <C> AsyncBuilder<C> asyncBuilder() {
+    return new AsyncBuilder<>();
+  }
+
   public static class Builder extends ReactiveFeign.Builder {
 
     private Scheduler scheduler = Schedulers.trampoline();
 
+    Builder() {
+      super(Flowable.class::isAssignableFrom);
+    }
+
     @Override
     public Feign build() {
-      super.invocationHandlerFactory(new RxJavaInvocationHandlerFactory(scheduler));
+      super.invocationHandlerFactory(
+          new RxJavaInvocationHandlerFactory(scheduler, streamElements()));
       return super.build();
     }
 
@@ -50,16 +60,28 @@ public class RxJavaFeign extends ReactiveFeign {
     }
   }
 
+  /**
+   * Builds {@link io.reactivex.Flowable} services backed by an {@link feign.AsyncClient}.
+   */
+  public static class AsyncBuilder<C> extends ReactiveFeign.AsyncBuilder<C> {
+
+    AsyncBuilder() {
+      super(Flowable.class::isAssignableFrom, RxJavaReturnTypeAdapter::new);
+    }
+  }
+
   private static class RxJavaInvocationHandlerFactory implements InvocationHandlerFactory {
     private final Scheduler scheduler;
+    private final boolean streamElements;
 
-    private RxJavaInvocationHandlerFactory(Scheduler scheduler) {
+    private RxJavaInvocationHandlerFactory(Scheduler scheduler, boolean streamElements) {
       this.scheduler = scheduler;
+      this.streamElements = streamElements;
     }
 
     @Override
     public InvocationHandler create(Target target, Map<Method, MethodHandler> dispatch) {
-      return new RxJavaInvocationHandler(target, dispatch, scheduler);
+      return new RxJavaInvocationHandler(target, dispatch, scheduler, streamElements);
     }
   }
 
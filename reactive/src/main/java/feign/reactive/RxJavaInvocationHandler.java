@@ -18,22 +18,46 @@ import feign.Target;
 import io.reactivex.Flowable;
 import io.reactivex.Scheduler;
 import java.lang.reflect.Method;
+import java.util.Iterator;
 import java.util.Map;
 import org.reactivestreams.Publisher;
 
 public class RxJavaInvocationHandler extends ReactiveInvocationHandler {
   private final Scheduler scheduler;
+  private final boolean streamElements;
 
   RxJavaInvocationHandler(Target<?> target,
       Map<Method, MethodHandler> dispatch,
       Scheduler scheduler) {
+    this(target, dispatch, scheduler, false);
+  }
+
+  RxJavaInvocationHandler(Target<?> target,
+      Map<Method, MethodHandler> dispatch,
+      Scheduler scheduler,
+      boolean streamElements) {
     super(target, dispatch);
     this.scheduler = scheduler;
+    this.streamElements = streamElements;
   }
 
   @Override
   protected Publisher invoke(Method method, MethodHandler methodHandler, Object[] arguments) {
-    return Flowable.fromPublisher(this.invokeMethod(methodHandler, arguments))
-        .observeOn(scheduler);
+    Flowable<?> invocation = Flowable.fromPublisher(this.invokeMethod(methodHandler, arguments));
+    if (streamElements) {
+      return invocation.singleElement()
+          .flatMapPublisher(iterator -> elements((Iterator<?>) iterator))
+          .observeOn(scheduler);
+    }
+    return invocation.observeOn(scheduler);
+  }
+
+  /**
+   * Emits the decoded elements as they are requested, closing them once complete or cancelled.
+   */
+  static <T> Flowable<T> elements(Iterator<T> iterator) {
+    return Flowable.using(() -> iterator,
+        it -> Flowable.fromIterable(() -> it),
+        StreamingDecoder::close);
   }
 }
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.reactive;
+
+import feign.AsyncReturnTypeAdapter;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bridges {@link feign.AsyncFeign} invocations into {@link Flowable}. The request is sent on
+ * subscription and disposing the subscription cancels the request.
+ */
+class RxJavaReturnTypeAdapter implements AsyncReturnTypeAdapter {
+
+  private final boolean streamElements;
+
+  RxJavaReturnTypeAdapter(boolean streamElements) {
+    this.streamElements = streamElements;
+  }
+
+  @Override
+  public boolean isAsyncReturnType(Class<?> returnType) {
+    return Flowable.class.isAssignableFrom(returnType);
+  }
+
+  @Override
+  public Type underlyingType(ParameterizedType returnType) {
+    Type elementType = returnType.getActualTypeArguments()[0];
+    if (streamElements) {
+      return new StreamingDecoder.IteratorType(elementType);
+    }
+    return elementType;
+  }
+
+  @Override
+  public Object adapt(Method method, Supplier<CompletableFuture<Object>> invocation) {
+    Maybe<Object> decoded = Maybe.create(emitter -> {
+      CompletableFuture<Object> future = invocation.get();
+      emitter.setCancellable(() -> future.cancel(true));
+      future.whenComplete((result, throwable) -> {
+        if (throwable != null) {
+          emitter.onError(unwrap(throwable));
+        } else if (result == null) {
+          emitter.onComplete();
+        } else {
+          emitter.onSuccess(result);
+        }
+      });
+    });
+    if (streamElements) {
+      return decoded.flatMapPublisher(
+          iterator -> RxJavaInvocationHandler.elements((Iterator<?>) iterator));
+    }
+    return decoded.toFlowable();
+  }
+
+  private static Throwable unwrap(Throwable throwable) {
+    if (throwable instanceof CompletionException && throwable.getCause() != null) {
+      return throwable.getCause();
+    }
+    return throwable;
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.reactive;
+
+import static feign.Util.ensureClosed;
+import feign.FeignException;
+import feign.Response;
+import feign.codec.Decoder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+
+/**
+ * Decodes the elements of multi-element publishers with an iterator decoder, leaving the response
+ * open until the iterator is exhausted or closed. All other types are decoded by the delegate and
+ * the response closed right after, as responses are no longer closed after decoding when
+ * streaming.
+ */
+final class StreamingDecoder implements Decoder {
+
+  private final Decoder delegate;
+  private final Decoder iteratorDecoder;
+
+  StreamingDecoder(Decoder delegate, Decoder iteratorDecoder) {
+    this.delegate = delegate;
+    this.iteratorDecoder = iteratorDecoder;
+  }
+
+  @Override
+  public Object decode(Response response, Type type) throws IOException, FeignException {
+    if (!(type instanceof IteratorType)) {
+      try {
+        return delegate.decode(response, type);
+      } finally {
+        ensureClosed(response);
+      }
+    }
+
+    Iterator<?> iterator;
+    try {
+      iterator = (Iterator<?>) iteratorDecoder.decode(response, type);
+    } catch (IOException | RuntimeException e) {
+      ensureClosed(response);
+      throw e;
+    }
+    if (iterator == null) {
+      ensureClosed(response);
+      return null;
+    }
+    if (iterator instanceof Closeable) {
+      return iterator;
+    }
+    return new ResponseIterator<>(iterator, response);
+  }
+
+  /**
+   * Closes the publisher elements, if they are still open.
+   */
+  static void close(Iterator<?> iterator) {
+    if (iterator instanceof Closeable) {
+      ensureClosed((Closeable) iterator);
+    }
+  }
+
+  /**
+   * Marks the elements of a multi-element publisher, to be decoded as an {@link Iterator}.
+   */
+  static final class IteratorType implements ParameterizedType {
+
+    private final Type elementType;
+
+    IteratorType(Type elementType) {
+      this.elementType = elementType;
+    }
+
+    @Override
+    public Type[] getActualTypeArguments() {
+      return new Type[] {elementType};
+    }
+
+    @Override
+    public Type getRawType() {
+      return Iterator.class;
+    }
+
+    @Override
+    public Type getOwnerType() {
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return Iterator.class.getName() + "<" + elementType.getTypeName() + ">";
+    }
+  }
+
+  private static final class ResponseIterator<T> implements Iterator<T>, Closeable {
+
+    private final Iterator<T> delegate;
+    private final Response response;
+
+    private ResponseIterator(Iterator<T> delegate, Response response) {
+      this.delegate = delegate;
+      this.response = response;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    @Override
+    public T next() {
+      return delegate.next();
+    }
+
+    @Override
+    public void close() {
+      ensureClosed(response);
+    }
+  }
+}
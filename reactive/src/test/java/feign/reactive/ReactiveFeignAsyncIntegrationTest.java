@@ -0,0 +1,199 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import feign.AsyncClient;
+import feign.Param;
+import feign.Request;
+import feign.RequestLine;
+import feign.Response;
+import feign.jackson.JacksonDecoder;
+import io.reactivex.Flowable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class ReactiveFeignAsyncIntegrationTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Rule
+  public final MockWebServer webServer = new MockWebServer();
+
+  private String getServerUrl() {
+    return "http://localhost:" + this.webServer.getPort();
+  }
+
+  @Test
+  public void testReactorTarget() throws Exception {
+    this.webServer.enqueue(new MockResponse().setBody("1.0"));
+    this.webServer.enqueue(new MockResponse().setBody("{ \"username\": \"test\" }"));
+
+    TestReactorService service = ReactorFeign.<Void>asyncBuilder()
+        .decoder(new JacksonDecoder())
+        .target(TestReactorService.class, this.getServerUrl());
+
+    StepVerifier.create(service.version())
+        .expectNext("1.0")
+        .expectComplete()
+        .verify();
+    assertThat(webServer.takeRequest().getPath()).isEqualToIgnoringCase("/version");
+
+    StepVerifier.create(service.user("test"))
+        .assertNext(user -> assertThat(user).hasFieldOrPropertyWithValue("username", "test"))
+        .expectComplete()
+        .verify();
+    assertThat(webServer.takeRequest().getPath()).isEqualToIgnoringCase("/users/test");
+  }
+
+  @Test
+  public void testRxJavaTarget() throws Exception {
+    this.webServer.enqueue(new MockResponse().setBody("{ \"username\": \"test\" }"));
+
+    TestReactiveXService service = RxJavaFeign.<Void>asyncBuilder()
+        .decoder(new JacksonDecoder())
+        .target(TestReactiveXService.class, this.getServerUrl());
+
+    StepVerifier.create(service.user("test"))
+        .assertNext(user -> assertThat(user).hasFieldOrPropertyWithValue("username", "test"))
+        .expectComplete()
+        .verify();
+    assertThat(webServer.takeRequest().getPath()).isEqualToIgnoringCase("/users/test");
+  }
+
+  @Test
+  public void testErrorsArePropagated() {
+    this.webServer.enqueue(new MockResponse().setBody("Bad Request").setResponseCode(400));
+
+    TestReactiveXService service = RxJavaFeign.<Void>asyncBuilder()
+        .errorDecoder((methodKey, response) -> new IllegalStateException("bad request"))
+        .target(TestReactiveXService.class, this.getServerUrl());
+
+    StepVerifier.create(service.version())
+        .expectErrorSatisfies(ex -> assertThat(ex)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("bad request"))
+        .verify();
+  }
+
+  @Test
+  public void requestIsSentOnSubscription() {
+    AtomicInteger executions = new AtomicInteger();
+    AsyncClient<Void> client = (request, options, context) -> {
+      executions.incrementAndGet();
+      return CompletableFuture.completedFuture(response(request, "1.0"));
+    };
+
+    TestReactorService service = ReactorFeign.<Void>asyncBuilder()
+        .client(client)
+        .target(TestReactorService.class, this.getServerUrl());
+
+    Mono<String> version = service.version();
+    assertThat(executions).hasValue(0);
+
+    StepVerifier.create(version).expectNext("1.0").verifyComplete();
+    StepVerifier.create(version).expectNext("1.0").verifyComplete();
+    assertThat(executions).hasValue(2);
+  }
+
+  @Test
+  public void resultIsEmittedWhenTheResponseCompletes() {
+    CompletableFuture<Response> pending = new CompletableFuture<>();
+    AtomicReference<Request> sent = new AtomicReference<>();
+    AsyncClient<Void> client = (request, options, context) -> {
+      sent.set(request);
+      return pending;
+    };
+
+    TestReactorService service = ReactorFeign.<Void>asyncBuilder()
+        .client(client)
+        .target(TestReactorService.class, this.getServerUrl());
+
+    StepVerifier.create(service.version())
+        .then(() -> pending.complete(response(sent.get(), "1.0")))
+        .expectNext("1.0")
+        .verifyComplete();
+  }
+
+  @Test
+  public void cancellingTheSubscriptionCancelsTheRequest() {
+    CompletableFuture<Response> pending = new CompletableFuture<>();
+    TestReactorService service = ReactorFeign.<Void>asyncBuilder()
+        .client((request, options, context) -> pending)
+        .target(TestReactorService.class, this.getServerUrl());
+
+    StepVerifier.create(service.version())
+        .thenCancel()
+        .verify();
+    assertThat(pending).isCancelled();
+  }
+
+  @Test
+  public void doNotCloseUnsupported() {
+    this.thrown.expect(UnsupportedOperationException.class);
+    ReactorFeign.<Void>asyncBuilder()
+        .doNotCloseAfterDecode()
+        .target(TestReactorService.class, "http://localhost");
+  }
+
+  private static Response response(Request request, String body) {
+    return Response.builder()
+        .status(200)
+        .headers(Collections.emptyMap())
+        .body(body, StandardCharsets.UTF_8)
+        .request(request)
+        .build();
+  }
+
+  interface TestReactorService {
+    @RequestLine("GET /version")
+    Mono<String> version();
+
+    @RequestLine("GET /users/{username}")
+    Flux<User> user(@Param("username") String username);
+  }
+
+  interface TestReactiveXService {
+    @RequestLine("GET /version")
+    Flowable<String> version();
+
+    @RequestLine("GET /users/{username}")
+    Flowable<User> user(@Param("username") String username);
+  }
+
+  @SuppressWarnings("unused")
+  static class User {
+    private String username;
+
+    public User() {
+      super();
+    }
+
+    public String getUsername() {
+      return username;
+    }
+  }
+}
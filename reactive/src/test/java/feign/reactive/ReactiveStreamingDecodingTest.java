@@ -0,0 +1,207 @@
+/**
+ * Copyright 2012-2020 The Feign Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package feign.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import feign.AsyncClient;
+import feign.Client;
+import feign.Request;
+import feign.RequestLine;
+import feign.Response;
+import feign.jackson.JacksonIteratorDecoder;
+import io.reactivex.Flowable;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Rule;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+public class ReactiveStreamingDecodingTest {
+
+  private static final String USERS =
+      "[{\"username\":\"a\"},{\"username\":\"b\"},{\"username\":\"c\"}]";
+
+  @Rule
+  public final MockWebServer webServer = new MockWebServer();
+
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private String getServerUrl() {
+    return "http://localhost:" + this.webServer.getPort();
+  }
+
+  @Test
+  public void fluxEmitsElementsOnDemand() {
+    this.webServer.enqueue(new MockResponse().setBody(USERS));
+
+    TestReactorService service = ReactorFeign.builder()
+        .scheduleOn(Schedulers.immediate())
+        .iteratorDecoder(JacksonIteratorDecoder.create())
+        .target(TestReactorService.class, this.getServerUrl());
+
+    StepVerifier.create(service.users().map(User::getUsername), 1)
+        .expectNext("a")
+        .thenRequest(2)
+        .expectNext("b", "c")
+        .verifyComplete();
+  }
+
+  @Test
+  public void cancellingClosesTheResponse() {
+    TestReactorService service = ReactorFeign.builder()
+        .scheduleOn(Schedulers.immediate())
+        .iteratorDecoder(JacksonIteratorDecoder.create())
+        .client(client())
+        .target(TestReactorService.class, this.getServerUrl());
+
+    StepVerifier.create(service.users().map(User::getUsername), 1)
+        .expectNext("a")
+        .thenCancel()
+        .verify();
+    assertThat(closed).isTrue();
+  }
+
+  @Test
+  public void singleElementPublishersAreDecodedWhole() {
+    TestReactorService service = ReactorFeign.builder()
+        .scheduleOn(Schedulers.immediate())
+        .iteratorDecoder(JacksonIteratorDecoder.create())
+        .client(client())
+        .target(TestReactorService.class, this.getServerUrl());
+
+    StepVerifier.create(service.body())
+        .expectNext(USERS)
+        .verifyComplete();
+    assertThat(closed).isTrue();
+  }
+
+  @Test
+  public void emptyBodyCompletesWithoutElements() {
+    this.webServer.enqueue(new MockResponse());
+
+    TestReactorService service = ReactorFeign.builder()
+        .scheduleOn(Schedulers.immediate())
+        .iteratorDecoder(JacksonIteratorDecoder.create())
+        .target(TestReactorService.class, this.getServerUrl());
+
+    StepVerifier.create(service.users())
+        .verifyComplete();
+  }
+
+  @Test
+  public void flowableEmitsElementsOnDemand() {
+    this.webServer.enqueue(new MockResponse().setBody(USERS));
+
+    TestReactiveXService service = RxJavaFeign.builder()
+        .iteratorDecoder(JacksonIteratorDecoder.create())
+        .target(TestReactiveXService.class, this.getServerUrl());
+
+    StepVerifier.create(service.users().map(User::getUsername), 1)
+        .expectNext("a")
+        .thenRequest(2)
+        .expectNext("b", "c")
+        .verifyComplete();
+  }
+
+  @Test
+  public void asyncFluxEmitsElementsOnDemand() {
+    CompletableFuture<Response> pending = new CompletableFuture<>();
+    AtomicReference<Request> sent = new AtomicReference<>();
+    AsyncClient<Void> client = (request, options, context) -> {
+      sent.set(request);
+      return pending;
+    };
+
+    TestReactorService service = ReactorFeign.<Void>asyncBuilder()
+        .iteratorDecoder(JacksonIteratorDecoder.create())
+        .client(client)
+        .target(TestReactorService.class, this.getServerUrl());
+
+    StepVerifier.create(service.users().map(User::getUsername), 1)
+        .then(() -> pending.complete(response(sent.get())))
+        .expectNext("a")
+        .thenCancel()
+        .verify();
+    assertThat(closed).isTrue();
+  }
+
+  @Test
+  public void asyncFlowableEmitsElementsOnDemand() {
+    TestReactiveXService service = RxJavaFeign.<Void>asyncBuilder()
+        .iteratorDecoder(JacksonIteratorDecoder.create())
+        .client((request, options, context) -> CompletableFuture.completedFuture(response(request)))
+        .target(TestReactiveXService.class, this.getServerUrl());
+
+    StepVerifier.create(service.users().map(User::getUsername), 1)
+        .expectNext("a")
+        .thenRequest(2)
+        .expectNext("b", "c")
+        .verifyComplete();
+    assertThat(closed).isTrue();
+  }
+
+  private Client client() {
+    return (request, options) -> response(request);
+  }
+
+  private Response response(Request request) {
+    byte[] body = USERS.getBytes(StandardCharsets.UTF_8);
+    return Response.builder()
+        .status(200)
+        .headers(Collections.emptyMap())
+        .body(new ByteArrayInputStream(body) {
+          @Override
+          public void close() {
+            closed.set(true);
+          }
+        }, body.length)
+        .request(request)
+        .build();
+  }
+
+  interface TestReactorService {
+    @RequestLine("GET /users")
+    Flux<User> users();
+
+    @RequestLine("GET /users")
+    Mono<String> body();
+  }
+
+  interface TestReactiveXService {
+    @RequestLine("GET /users")
+    Flowable<User> users();
+  }
+
+  @SuppressWarnings("unused")
+  static class User {
+    private String username;
+
+    public User() {
+      super();
+    }
+
+    public String getUsername() {
+      return username;
+    }
+  }
+}
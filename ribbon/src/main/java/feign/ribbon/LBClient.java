@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import feign.Client;
@@ -39,11 +40,8 @@ import feign.Util;
 public final class LBClient extends
     AbstractLoadBalancerAwareClient<LBClient.RibbonRequest, LBClient.RibbonResponse> {
 
-  private final int connectTimeout;
-  private final int readTimeout;
   private final IClientConfig clientConfig;
-  private final Set<Integer> retryableStatusCodes;
-  private final Boolean followRedirects;
+  private volatile StatusCodes retryableStatusCodes = new StatusCodes(null);
 
   public static LBClient create(ILoadBalancer lb, IClientConfig clientConfig) {
     return new LBClient(lb, clientConfig);
@@ -63,15 +61,14 @@ public final class LBClient extends
   LBClient(ILoadBalancer lb, IClientConfig clientConfig) {
     super(lb, clientConfig);
     this.clientConfig = clientConfig;
-    connectTimeout = clientConfig.get(CommonClientConfigKey.ConnectTimeout);
-    readTimeout = clientConfig.get(CommonClientConfigKey.ReadTimeout);
-    retryableStatusCodes = parseStatusCodes(clientConfig.get(LBClientFactory.RetryableStatusCodes));
-    followRedirects = clientConfig.get(CommonClientConfigKey.FollowRedirects);
   }
 
   @Override
   public RibbonResponse execute(RibbonRequest request, IClientConfig configOverride)
       throws IOException, ClientException {
+    // read for each request, so changes to the config apply to clients that are reused
+    int connectTimeout = clientConfig.get(CommonClientConfigKey.ConnectTimeout);
+    int readTimeout = clientConfig.get(CommonClientConfigKey.ReadTimeout);
     Request.Options options;
     if (configOverride != null) {
       options =
@@ -80,19 +77,44 @@ public final class LBClient extends
               TimeUnit.MILLISECONDS,
               (configOverride.get(CommonClientConfigKey.ReadTimeout, readTimeout)),
               TimeUnit.MILLISECONDS,
-              configOverride.get(CommonClientConfigKey.FollowRedirects, followRedirects));
+              configOverride.get(CommonClientConfigKey.FollowRedirects,
+                  clientConfig.get(CommonClientConfigKey.FollowRedirects)));
     } else {
       options = new Request.Options(connectTimeout, TimeUnit.MILLISECONDS, readTimeout,
           TimeUnit.MILLISECONDS, true);
     }
     Response response = request.client().execute(request.toRequest(), options);
-    if (retryableStatusCodes.contains(response.status())) {
+    if (retryableStatusCodes().contains(response.status())) {
       response.close();
       throw new ClientException(ClientException.ErrorType.SERVER_THROTTLED);
     }
     return new RibbonResponse(request.getUri(), response);
   }
 
+  /**
+   * The codes are parsed again only when the configured value changes.
+   */
+  private Set<Integer> retryableStatusCodes() {
+    String configured = clientConfig.get(LBClientFactory.RetryableStatusCodes);
+    StatusCodes codes = retryableStatusCodes;
+    if (!Objects.equals(codes.configured, configured)) {
+      codes = new StatusCodes(configured);
+      retryableStatusCodes = codes;
+    }
+    return codes.codes;
+  }
+
+  private static final class StatusCodes {
+
+    final String configured;
+    final Set<Integer> codes;
+
+    StatusCodes(String configured) {
+      this.configured = configured;
+      this.codes = parseStatusCodes(configured);
+    }
+  }
+
   @Override
   public RequestSpecificRetryHandler getRequestSpecificRetryHandler(
                                                                     RibbonRequest request,
@@ -100,7 +122,7 @@ public final class LBClient extends
     if (clientConfig.get(CommonClientConfigKey.OkToRetryOnAllOperations, false)) {
       return new RequestSpecificRetryHandler(true, true, this.getRetryHandler(), requestConfig);
     }
-    if (request.toRequest().httpMethod() != HttpMethod.GET) {
+    if (request.httpMethod() != HttpMethod.GET) {
       return new RequestSpecificRetryHandler(true, false, this.getRetryHandler(), requestConfig);
     } else {
       return new RequestSpecificRetryHandler(true, true, this.getRetryHandler(), requestConfig);
@@ -111,24 +133,41 @@ public final class LBClient extends
 
     private final Request request;
     private final Client client;
+    private final Map<String, Collection<String>> headers;
 
     RibbonRequest(Client client, Request request, URI uri) {
+      this(client, request, uri, headersWithContentLength(request));
+    }
+
+    private RibbonRequest(Client client, Request request, URI uri,
+        Map<String, Collection<String>> headers) {
       this.client = client;
       this.request = request;
+      this.headers = headers;
       setUri(uri);
     }
 
-    @SuppressWarnings("deprecation")
-    Request toRequest() {
-      // add header "Content-Length" according to the request body
+    /**
+     * Adds header "Content-Length" according to the request body. Built once and shared by every
+     * attempt, as requests never modify their headers.
+     */
+    private static Map<String, Collection<String>> headersWithContentLength(Request request) {
       final byte[] body = request.body();
       final int bodyLength = body != null ? body.length : 0;
       // create a new Map to avoid side effect, not to change the old headers
-      Map<String, Collection<String>> headers = new LinkedHashMap<String, Collection<String>>();
-      headers.putAll(request.headers());
+      Map<String, Collection<String>> headers =
+          new LinkedHashMap<String, Collection<String>>(request.headers());
       headers.put(Util.CONTENT_LENGTH, Collections.singletonList(String.valueOf(bodyLength)));
-      return Request.create(request.httpMethod(), getUri().toASCIIString(), headers, body,
-          request.charset());
+      return headers;
+    }
+
+    HttpMethod httpMethod() {
+      return request.httpMethod();
+    }
+
+    Request toRequest() {
+      return Request.create(request.httpMethod(), getUri().toASCIIString(), headers,
+          request.body(), request.charset(), request.requestTemplate());
     }
 
     Client client() {
@@ -136,7 +175,7 @@ public final class LBClient extends
     }
 
     public Object clone() {
-      return new RibbonRequest(client, request, getUri());
+      return new RibbonRequest(client, request, getUri(), headers);
     }
   }
 
@@ -19,6 +19,8 @@ import com.netflix.client.config.DefaultClientConfigImpl;
 import com.netflix.client.config.IClientConfig;
 import com.netflix.client.config.IClientConfigKey;
 import com.netflix.loadbalancer.ILoadBalancer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public interface LBClientFactory {
 
@@ -37,6 +39,32 @@ public interface LBClientFactory {
     }
   }
 
+  /**
+   * Creates the {@link LBClient} of each client name once, using a delegate factory, and reuses it
+   * for every following request. This saves building a client per request, but the retry handler of
+   * a client is built with it: changes to {@code MaxAutoRetries} and
+   * {@code MaxAutoRetriesNextServer} are ignored until the application restarts. Timeouts,
+   * redirects and retryable status codes are read for each request either way.
+   */
+  public static final class Caching implements LBClientFactory {
+
+    private final LBClientFactory delegate;
+    private final ConcurrentMap<String, LBClient> clients = new ConcurrentHashMap<>();
+
+    public Caching(LBClientFactory delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public LBClient create(String clientName) {
+      LBClient client = clients.get(clientName);
+      if (client == null) {
+        client = clients.computeIfAbsent(clientName, delegate::create);
+      }
+      return client;
+    }
+  }
+
   IClientConfigKey<String> RetryableStatusCodes =
       new CommonClientConfigKey<String>("RetryableStatusCodes") {};
 
@@ -38,6 +38,7 @@ public class RibbonClient implements Client {
 
   private final Client delegate;
   private final LBClientFactory lbClientFactory;
+  private volatile FeignOptionsClientConfig lastClientConfig;
 
 
   public static RibbonClient create() {
@@ -78,7 +79,7 @@ public class RibbonClient implements Client {
       LBClient.RibbonRequest ribbonRequest =
           new LBClient.RibbonRequest(delegate, request, uriWithoutHost);
       return lbClient(clientName).executeWithLoadBalancer(ribbonRequest,
-          new FeignOptionsClientConfig(options)).toResponse();
+          clientConfig(options)).toResponse();
     } catch (ClientException e) {
       propagateFirstIOException(e);
       throw new RuntimeException(e);
@@ -94,8 +95,32 @@ public class RibbonClient implements Client {
     }
   }
 
+  /**
+   * Removes the first occurrence of {@code host} after the scheme, taken literally.
+   */
   static URI cleanUrl(String originalUrl, String host) {
-    return URI.create(originalUrl.replaceFirst(host, ""));
+    int schemeEnd = originalUrl.indexOf("://");
+    int hostStart = originalUrl.indexOf(host, schemeEnd == -1 ? 0 : schemeEnd + 3);
+    if (hostStart == -1) {
+      return URI.create(originalUrl);
+    }
+    return URI.create(new StringBuilder(originalUrl.length() - host.length())
+        .append(originalUrl, 0, hostStart)
+        .append(originalUrl, hostStart + host.length(), originalUrl.length())
+        .toString());
+  }
+
+  /**
+   * Feign passes the same options to every request of a method, so the config built for the last
+   * options is reused while they don't change.
+   */
+  private FeignOptionsClientConfig clientConfig(Request.Options options) {
+    FeignOptionsClientConfig config = lastClientConfig;
+    if (config == null || config.options != options) {
+      config = new FeignOptionsClientConfig(options);
+      lastClientConfig = config;
+    }
+    return config;
   }
 
   private LBClient lbClient(String clientName) {
@@ -104,7 +129,10 @@ public class RibbonClient implements Client {
 
   static class FeignOptionsClientConfig extends DefaultClientConfigImpl {
 
+    private final Request.Options options;
+
     public FeignOptionsClientConfig(Request.Options options) {
+      this.options = options;
       setProperty(CommonClientConfigKey.ConnectTimeout, options.connectTimeoutMillis());
       setProperty(CommonClientConfigKey.ReadTimeout, options.readTimeoutMillis());
       setProperty(CommonClientConfigKey.FollowRedirects, options.isFollowRedirects());
@@ -134,6 +162,10 @@ public class RibbonClient implements Client {
       return this;
     }
 
+    /**
+     * Defaults to {@link LBClientFactory.Default}, which builds a client for each request. Use
+     * {@link LBClientFactory.Caching} to reuse them, at the cost of the trade-off it describes.
+     */
     public Builder lbClientFactory(LBClientFactory lbClientFactory) {
       this.lbClientFactory = lbClientFactory;
       return this;
@@ -14,6 +14,8 @@
 package feign.ribbon;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import org.junit.Test;
 import com.netflix.client.ClientFactory;
 
@@ -26,4 +28,12 @@ public class LBClientFactoryTest {
     assertEquals("clientName", client.getClientName());
     assertEquals(ClientFactory.getNamedLoadBalancer("clientName"), client.getLoadBalancer());
   }
+
+  @Test
+  public void testCachingLBClient() {
+    LBClientFactory lbClientFactory = new LBClientFactory.Caching(new LBClientFactory.Default());
+    LBClient client = lbClientFactory.create("clientName");
+    assertSame(client, lbClientFactory.create("clientName"));
+    assertNotSame(client, lbClientFactory.create("otherClientName"));
+  }
 }
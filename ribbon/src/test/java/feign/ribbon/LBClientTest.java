@@ -18,12 +18,18 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import org.junit.Test;
 import feign.Request;
+import feign.Util;
+import feign.Response;
 import feign.ribbon.LBClient.RibbonRequest;
+import com.netflix.client.ClientException;
+import static com.netflix.config.ConfigurationManager.getConfigInstance;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SuppressWarnings("deprecation")
 public class LBClientTest {
@@ -36,6 +42,29 @@ public class LBClientTest {
     assertThat(LBClient.parseStatusCodes("503,504")).contains(503, 504);
   }
 
+  @Test
+  public void testRetryableStatusCodesAreReadForEachRequest() throws Exception {
+    String clientName = "LBClientTest-retryableStatusCodes";
+    LBClient lbClient = new LBClientFactory.Default().create(clientName);
+    Request request = Request.create(HttpMethod.GET, "http://" + clientName + "/",
+        Collections.emptyMap(), null, Util.UTF_8);
+    RibbonRequest ribbonRequest = new RibbonRequest((req, options) -> Response.builder()
+        .status(503)
+        .headers(Collections.emptyMap())
+        .request(req)
+        .build(), request, new URI("http://localhost/"));
+
+    assertThat(lbClient.execute(ribbonRequest, null).toResponse().status()).isEqualTo(503);
+
+    getConfigInstance().setProperty(clientName + ".ribbon.RetryableStatusCodes", "503");
+    try {
+      assertThatThrownBy(() -> lbClient.execute(ribbonRequest, null))
+          .isInstanceOf(ClientException.class);
+    } finally {
+      getConfigInstance().clearProperty(clientName + ".ribbon.RetryableStatusCodes");
+    }
+  }
+
   @Test
   public void testRibbonRequest() throws URISyntaxException {
     // test for RibbonRequest.toRequest()
@@ -59,4 +88,24 @@ public class LBClientTest {
     assertThat(requestRecreate.toString())
         .contains(String.format("%s %s HTTP/1.1\nContent-Length: 0\n", method, urlWithEncodedJson));
   }
+
+  @Test
+  public void testRibbonRequestAttemptsShareHeaders() throws URISyntaxException {
+    Map<String, Collection<String>> headers = new LinkedHashMap<String, Collection<String>>();
+    Request requestOrigin = Request.create(HttpMethod.POST, "http://test.feign.com/p", headers,
+        "body".getBytes(Util.UTF_8), Util.UTF_8);
+    RibbonRequest ribbonRequest =
+        new RibbonRequest(null, requestOrigin, new URI("http://test.feign.com/p"));
+    RibbonRequest retry =
+        (RibbonRequest) ribbonRequest.replaceUri(new URI("http://other.feign.com/p"));
+
+    Request first = ribbonRequest.toRequest();
+    Request second = retry.toRequest();
+
+    assertThat(first.headers()).containsEntry("Content-Length", Collections.singletonList("4"));
+    assertThat(second.headers()).isEqualTo(first.headers());
+    assertThat(second.url()).isEqualTo("http://other.feign.com/p");
+    assertThat(second.body()).isSameAs(first.body());
+    assertThat(headers).isEmpty();
+  }
 }
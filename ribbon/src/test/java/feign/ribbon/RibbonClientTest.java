@@ -370,6 +370,12 @@ public class RibbonClientTest {
     assertEquals("http:///questions/answer/123", uri.toString());
   }
 
+  @Test
+  public void testCleanUrlTakesHostLiterally() throws IOException {
+    URI uri = RibbonClient.cleanUrl("http://my+service/questions/answer/123", "my+service");
+    assertEquals("http:///questions/answer/123", uri.toString());
+  }
+
   private String client() {
     return testName.getMethodName();
   }